@@ -0,0 +1,256 @@
+// Copyright (c) 2024 Brian Kircher
+//
+// Open Source Software; you can modify and/or share it under the terms of BSD
+// license file in the root directory of this project.
+
+package FLLScorer;
+
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.bspfsystems.simplejson.JSONObject;
+import org.bspfsystems.simplejson.parser.JSONParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Benchmarks the scoring and ranking endpoints (the scoreboard, the league
+ * standings, scoring a scoresheet, and saving a rubric) against a synthetic
+ * SQLite database, exactly as they are served to the browsers.
+ * <p>
+ * The database is created in a temporary file and seeded with a season, an
+ * event, and a number of teams with random robot game scores and judging
+ * results.  The random number generator is seeded so that every run uses the
+ * same database.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class EndpointBenchmark
+{
+  /**
+   * The number of random scoresheets and rubrics that are submitted.
+   */
+  private static final int SUBMISSIONS = 100;
+
+  /**
+   * The number of teams at the event.
+   */
+  @Param({ "16", "64", "256" })
+  public int m_teams;
+
+  /**
+   * The season, which selects the scoresheet and rubric that are used.
+   */
+  @Param({ "2024.0", "2025.0" })
+  public String m_season;
+
+  /**
+   * The synthetic event.
+   */
+  private SyntheticEvent m_event;
+
+  /**
+   * The handler for the scoreboard.json file.
+   */
+  private DynamicPageHandler m_scoreboard;
+
+  /**
+   * The handler for the standings.json file.
+   */
+  private DynamicPageHandler m_standings;
+
+  /**
+   * The handler for the referee.json file.
+   */
+  private DynamicPageHandler m_referee;
+
+  /**
+   * The handler for the judge.json file.
+   */
+  private DynamicPageHandler m_judge;
+
+  /**
+   * The parameters for scoring the random scoresheets.
+   */
+  private ArrayList<HashMap<String, String>> m_scoreParams =
+    new ArrayList<HashMap<String, String>>();
+
+  /**
+   * The parameters for saving the random rubrics.
+   */
+  private ArrayList<HashMap<String, String>> m_saveParams =
+    new ArrayList<HashMap<String, String>>();
+
+  /**
+   * The index of the next scoresheet or rubric to submit.
+   */
+  private int m_next = 0;
+
+  /**
+   * Creates and seeds the synthetic database, sets up the objects that serve
+   * the endpoints in the same way as the application, and makes sure that
+   * the scoresheets are scored and the rubrics are saved without errors.
+   */
+  @Setup
+  public void
+  setup() throws Exception
+  {
+    // Create the synthetic event, using a seeded random number generator.
+    m_event = new SyntheticEvent(m_season, m_teams, new Random(2024));
+    WebServer webserver = WebServer.getInstance();
+
+    // Get the handlers for the endpoints.
+    m_scoreboard = webserver.dynamicHandlerGet("/scoreboard/scoreboard.json");
+    m_standings = webserver.dynamicHandlerGet("/standings/standings.json");
+    m_referee = webserver.dynamicHandlerGet("/referee/referee.json");
+    m_judge = webserver.dynamicHandlerGet("/judge/judge.json");
+
+    // Generate the random scoresheets and rubrics, with the parameters that
+    // the referee and judge pages submit them with.
+    for(int idx = 0; idx < SUBMISSIONS; idx++)
+    {
+      String sheet = JSONParser.serialize(m_event.scoresheetSelections());
+      HashMap<String, String> params = new HashMap<String, String>();
+      params.put("action", "score");
+      params.put("json", URLEncoder.encode(sheet, StandardCharsets.UTF_8));
+      m_scoreParams.add(params);
+
+      String rubric = JSONParser.serialize(m_event.rubricSelections());
+      params = new HashMap<String, String>();
+      params.put("action", "save");
+      params.put("id", Integer.toString(m_event.m_ids.get(idx % m_teams)));
+      params.put("json", URLEncoder.encode(rubric, StandardCharsets.UTF_8));
+      m_saveParams.add(params);
+    }
+
+    // Make sure that the scoresheets are scored and the rubrics are saved
+    // without errors.
+    for(int idx = 0; idx < SUBMISSIONS; idx++)
+    {
+      check("score", m_referee.run("/referee/referee.json",
+                                   m_scoreParams.get(idx)));
+      check("save", m_judge.run("/judge/judge.json", m_saveParams.get(idx)));
+    }
+  }
+
+  /**
+   * Makes sure that a response from an endpoint indicates success.
+   *
+   * @param action The action that was performed.
+   *
+   * @param response The response from the endpoint.
+   */
+  private void
+  check(String action, byte[] response) throws Exception
+  {
+    // Parse the response, and see if it indicates success.
+    String json = new String(response, StandardCharsets.UTF_8);
+    JSONObject result = JSONParser.deserializeObject(json);
+    if(!"ok".equals(result.getString("result")))
+    {
+      throw(new IllegalStateException(m_season + " " + action + " failed: " +
+                                      json));
+    }
+  }
+
+  /**
+   * The state that publishes a score before each invocation, so that the
+   * league standings are computed rather than served from the cache.
+   */
+  @State(Scope.Thread)
+  public static class Published
+  {
+    /**
+     * Publishes a score.
+     *
+     * @param benchmark The benchmark state.
+     */
+    @Setup(Level.Invocation)
+    public void
+    publish(EndpointBenchmark benchmark)
+    {
+      // Publish a score.
+      benchmark.m_event.publishScore();
+    }
+  }
+
+  /**
+   * Serves the scoreboard.
+   *
+   * @return The JSON data for the scoreboard.
+   */
+  @Benchmark
+  public byte[]
+  scoreboard()
+  {
+    return(m_scoreboard.run("/scoreboard/scoreboard.json",
+                            new HashMap<String, String>()));
+  }
+
+  /**
+   * Serves the league standings when nothing has changed, so they come from
+   * the cache.
+   *
+   * @return The JSON data for the standings.
+   */
+  @Benchmark
+  public byte[]
+  standingsCached()
+  {
+    return(m_standings.run("/standings/standings.json",
+                           new HashMap<String, String>()));
+  }
+
+  /**
+   * Serves the league standings after a score has been published.
+   *
+   * @param published The state that published the score.
+   *
+   * @return The JSON data for the standings.
+   */
+  @Benchmark
+  public byte[]
+  standingsChanged(Published published)
+  {
+    return(m_standings.run("/standings/standings.json",
+                           new HashMap<String, String>()));
+  }
+
+  /**
+   * Scores the next scoresheet.
+   *
+   * @return The JSON result of scoring the scoresheet.
+   */
+  @Benchmark
+  public byte[]
+  refereeScore()
+  {
+    m_next = (m_next + 1) % SUBMISSIONS;
+    return(m_referee.run("/referee/referee.json", m_scoreParams.get(m_next)));
+  }
+
+  /**
+   * Saves the next rubric.
+   *
+   * @return The JSON result of saving the rubric.
+   */
+  @Benchmark
+  public byte[]
+  judgeSave()
+  {
+    m_next = (m_next + 1) % SUBMISSIONS;
+    return(m_judge.run("/judge/judge.json", m_saveParams.get(m_next)));
+  }
+}
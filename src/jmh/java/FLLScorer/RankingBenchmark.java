@@ -0,0 +1,232 @@
+// Copyright (c) 2024 Brian Kircher
+//
+// Open Source Software; you can modify and/or share it under the terms of BSD
+// license file in the root directory of this project.
+
+package FLLScorer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Benchmarks the ranking of teams by their robot game scores, comparing the
+ * Ranking engine against the insertion sort and place assignment that the
+ * scoreboard previously used.  That the two produce the same order and
+ * places is checked by RankingTest.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class RankingBenchmark
+{
+  /**
+   * The number of teams to rank.
+   */
+  @Param({ "50", "500", "5000" })
+  public int m_teams;
+
+  /**
+   * The division of each team.
+   */
+  private int[] m_division;
+
+  /**
+   * The scores of each team, in match order.
+   */
+  private float[][] m_scores;
+
+  /**
+   * The high score of each team, or <b>-100</b> if the team has no scores.
+   */
+  private float[] m_high;
+
+  /**
+   * Generates a set of teams with random scores.  The random number generator
+   * is seeded so that every run ranks the same teams.
+   */
+  @Setup
+  public void
+  setup()
+  {
+    Random random = new Random(2024);
+
+    // Allocate the arrays for the teams.
+    m_division = new int[m_teams];
+    m_scores = new float[m_teams][4];
+    m_high = new float[m_teams];
+
+    // Loop through the teams.
+    for(int idx = 0; idx < m_teams; idx++)
+    {
+      // Assign the team to one of two divisions.
+      m_division[idx] = random.nextInt(2);
+
+      // Give the team a score (in steps of five, so there are ties) for each
+      // match, leaving a few matches without a score.
+      m_high[idx] = -100;
+      for(int match = 0; match < 4; match++)
+      {
+        m_scores[idx][match] = (random.nextInt(20) == 0) ? -100 :
+                               (5 * random.nextInt(100));
+        m_high[idx] = Math.max(m_high[idx], m_scores[idx][match]);
+      }
+    }
+  }
+
+  /**
+   * Compares two sets of team scores, as the scoreboard previously did.
+   */
+  private static int
+  scoresCompare(int ad, float a1, float a2, float a3, float a4, int bd,
+                float b1, float b2, float b3, float b4)
+  {
+    if(ad > bd)
+    {
+      return(-1);
+    }
+    if(ad < bd)
+    {
+      return(1);
+    }
+    Float a[] = { a1, a2, a3, a4 };
+    Float b[] = { b1, b2, b3, b4 };
+    Arrays.sort(a, Collections.reverseOrder());
+    Arrays.sort(b, Collections.reverseOrder());
+    for(int idx = 0; idx < 4; idx++)
+    {
+      if(a[idx] < b[idx])
+      {
+        return(-1);
+      }
+      if(a[idx] > b[idx])
+      {
+        return(1);
+      }
+    }
+    return(0);
+  }
+
+  /**
+   * Ranks the teams with the insertion sort over parallel lists, and the
+   * place assignment, that the scoreboard previously used.
+   *
+   * @return The place of the team in first place.
+   */
+  @Benchmark
+  public int
+  legacy()
+  {
+    ArrayList<Integer> ids = new ArrayList<Integer>();
+    ArrayList<Integer> places = new ArrayList<Integer>();
+    ArrayList<Integer> divisions = new ArrayList<Integer>();
+    ArrayList<Float> high = new ArrayList<Float>();
+    ArrayList<Float> match1 = new ArrayList<Float>();
+    ArrayList<Float> match2 = new ArrayList<Float>();
+    ArrayList<Float> match3 = new ArrayList<Float>();
+    ArrayList<Float> match4 = new ArrayList<Float>();
+
+    // Copy the teams into the parallel lists.
+    for(int idx = 0; idx < m_teams; idx++)
+    {
+      ids.add(idx);
+      divisions.add(m_division[idx]);
+      high.add(m_high[idx]);
+      match1.add(m_scores[idx][0]);
+      match2.add(m_scores[idx][1]);
+      match3.add(m_scores[idx][2]);
+      match4.add(m_scores[idx][3]);
+    }
+
+    // Sort the teams into placement order.
+    for(int i = 0; i < ids.size(); i++)
+    {
+      for(int j = 0; j < i; j++)
+      {
+        if(scoresCompare(divisions.get(i), match1.get(i), match2.get(i),
+                         match3.get(i), match4.get(i), divisions.get(j),
+                         match1.get(j), match2.get(j), match3.get(j),
+                         match4.get(j)) > 0)
+        {
+          ids.add(j, ids.remove(i));
+          divisions.add(j, divisions.remove(i));
+          high.add(j, high.remove(i));
+          match1.add(j, match1.remove(i));
+          match2.add(j, match2.remove(i));
+          match3.add(j, match3.remove(i));
+          match4.add(j, match4.remove(i));
+          break;
+        }
+      }
+    }
+
+    // Assign the places (with equally-placed teams sharing the highest
+    // place).
+    int place = 1;
+    for(int i = 0; i < ids.size(); i++)
+    {
+      if(high.get(i) == -100)
+      {
+        places.add(i, -1);
+      }
+      else if((i == 0) ||
+              (scoresCompare(divisions.get(i), match1.get(i), match2.get(i),
+                             match3.get(i), match4.get(i),
+                             divisions.get(i - 1), match1.get(i - 1),
+                             match2.get(i - 1), match3.get(i - 1),
+                             match4.get(i - 1)) != 0))
+      {
+        if((i != 0) && !divisions.get(i).equals(divisions.get(i - 1)))
+        {
+          place = 1;
+        }
+        places.add(i, place);
+      }
+      else
+      {
+        places.add(i, places.get(i - 1));
+      }
+      place++;
+    }
+
+    // Return the place of the team in first place.
+    return(places.get(0));
+  }
+
+  /**
+   * Ranks the teams with the Ranking engine.
+   *
+   * @return The place of the team in first place.
+   */
+  @Benchmark
+  public int
+  ranking()
+  {
+    Ranking ranking = new Ranking(m_teams);
+
+    // Set the sort key for each team.
+    for(int idx = 0; idx < m_teams; idx++)
+    {
+      ranking.set(idx, m_division[idx], m_scores[idx][0], m_scores[idx][1],
+                  m_scores[idx][2], m_scores[idx][3],
+                  m_high[idx] != -100);
+    }
+
+    // Rank the teams.
+    ranking.rank();
+
+    // Return the place of the team in first place.
+    return(ranking.place(ranking.order(0)));
+  }
+}
@@ -0,0 +1,144 @@
+// Copyright (c) 2024 Brian Kircher
+//
+// Open Source Software; you can modify and/or share it under the terms of BSD
+// license file in the root directory of this project.
+
+package FLLScorer;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.bspfsystems.simplejson.JSONArray;
+import org.bspfsystems.simplejson.JSONObject;
+import org.bspfsystems.simplejson.SimpleJSONObject;
+import org.bspfsystems.simplejson.parser.JSONParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Benchmarks the judge save path (parsing a team's rubric selections and
+ * totaling the areas), comparing the compiled rubric against walking the JSON
+ * rubric.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class RubricBenchmark
+{
+  /**
+   * The number of random rubrics that are totaled.
+   */
+  private static final int RUBRICS = 1000;
+
+  /**
+   * The rubric to total, relative to the resources directory.
+   */
+  @Param({ "seasons/2024/rubric.json", "seasons/2025/rubric.json",
+           "seasons/2026/rubric.json" })
+  public String m_path;
+
+  /**
+   * The JSON rubric.
+   */
+  private JSONObject m_rubric;
+
+  /**
+   * The compiled rubric.
+   */
+  private Rubric m_compiled;
+
+  /**
+   * The random rubric selections, as they are submitted by the judge page.
+   */
+  private String[] m_json;
+
+  /**
+   * The index of the next rubric selections to total.
+   */
+  private int m_next = 0;
+
+  /**
+   * Loads and compiles the rubric, and generates random selections for it
+   * (most of them complete).  The random number generator is seeded so that
+   * every run totals the same selections.  That the compiled rubric matches
+   * walking the JSON rubric is checked by RubricTest.
+   */
+  @Setup
+  public void
+  setup() throws Exception
+  {
+    Random random = new Random(2024);
+
+    // Load and compile the rubric.
+    InputStream in = ResourceStream.getResourceStream(m_path);
+    m_rubric =
+      JSONParser.deserializeObject(new String(in.readAllBytes(),
+                                              StandardCharsets.UTF_8));
+    m_compiled = new Rubric(m_rubric);
+
+    // Generate the random selections.
+    JSONArray areas = m_rubric.getArray("areas");
+    m_json = new String[RUBRICS];
+    for(int idx = 0; idx < RUBRICS; idx++)
+    {
+      JSONObject scores = new SimpleJSONObject();
+      for(int i = 0; i < areas.size(); i++)
+      {
+        JSONArray sections = areas.getObject(i).getArray("sections");
+        for(int j = 0; j < sections.size(); j++)
+        {
+          JSONArray items = sections.getObject(j).getArray("items");
+          for(int k = 0; k < items.size(); k++)
+          {
+            // Leave an occasional item without a selection, so that
+            // incomplete rubrics are totaled as well.
+            if(random.nextInt(100) != 0)
+            {
+              scores.set("R" + i + "_" + j + "_" + k, random.nextInt(4));
+            }
+          }
+        }
+      }
+      m_json[idx] = JSONParser.serialize(scores);
+    }
+  }
+
+  /**
+   * Totals the next rubric by walking the JSON rubric.
+   *
+   * @return The totals.
+   */
+  @Benchmark
+  public int[]
+  interpreted() throws Exception
+  {
+    int[] totals = new int[] { -1, -1, -1 };
+    m_next = (m_next + 1) % RUBRICS;
+    Rubric.interpret(m_rubric, JSONParser.deserializeObject(m_json[m_next]),
+                     totals);
+    return(totals);
+  }
+
+  /**
+   * Totals the next rubric with the compiled rubric.
+   *
+   * @return The totals.
+   */
+  @Benchmark
+  public int[]
+  compiled() throws Exception
+  {
+    int[] totals = new int[Rubric.TOTALS];
+    m_next = (m_next + 1) % RUBRICS;
+    m_compiled.total(JSONParser.deserializeObject(m_json[m_next]), totals);
+    return(totals);
+  }
+}
@@ -0,0 +1,211 @@
+// Copyright (c) 2024 Brian Kircher
+//
+// Open Source Software; you can modify and/or share it under the terms of BSD
+// license file in the root directory of this project.
+
+package FLLScorer;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.bspfsystems.simplejson.JSONArray;
+import org.bspfsystems.simplejson.JSONObject;
+import org.bspfsystems.simplejson.SimpleJSONObject;
+import org.bspfsystems.simplejson.parser.JSONParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Benchmarks scoring a robot game scoresheet, comparing the compiled
+ * scoresheet against interpreting the JSON scoresheet, and against scoring a
+ * single changed selection live.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ScoresheetBenchmark
+{
+  /**
+   * The number of random scoresheets that are scored.
+   */
+  private static final int SHEETS = 1000;
+
+  /**
+   * The message for too many game pieces being used.
+   */
+  private static final String TOO_MANY = "Too many ${piece}";
+
+  /**
+   * The scoresheet to score, relative to the resources directory.
+   */
+  @Param({ "seasons/2015/scoresheet.json", "seasons/2016/scoresheet.json",
+           "seasons/2017/scoresheet.json", "seasons/2018/scoresheet.json",
+           "seasons/2019/scoresheet.json", "seasons/2020/scoresheet.json",
+           "seasons/2021/scoresheet.json", "seasons/2022/scoresheet.json",
+           "seasons/2023/scoresheet.json", "seasons/2024/scoresheet.json",
+           "seasons/2024/scoresheet1.json", "seasons/2025/scoresheet.json",
+           "seasons/2025/scoresheet1.json", "seasons/2026/scoresheet.json" })
+  public String m_path;
+
+  /**
+   * The JSON scoresheet.
+   */
+  private JSONObject m_scoresheet;
+
+  /**
+   * The compiled scoresheet.
+   */
+  private Scoresheet m_compiled;
+
+  /**
+   * The random scoresheet selections.
+   */
+  private JSONObject[] m_sheets;
+
+  /**
+   * The index of the next scoresheet selections to score.
+   */
+  private int m_next = 0;
+
+  /**
+   * The keys of the selections on the scoresheet.
+   */
+  private ArrayList<String> m_keys = new ArrayList<String>();
+
+  /**
+   * The live scoresheet state.
+   */
+  private Scoresheet.Live m_live;
+
+  /**
+   * Loads and compiles the scoresheet, and generates random selections for
+   * it.  The random number generator is seeded so that every run scores the
+   * same selections.  That the compiled scoresheet and live scoring match the
+   * interpreter is checked by ScoresheetTest.
+   */
+  @Setup
+  public void
+  setup() throws Exception
+  {
+    Random random = new Random(2024);
+
+    // Load and compile the scoresheet.
+    InputStream in = ResourceStream.getResourceStream(m_path);
+    m_scoresheet =
+      JSONParser.deserializeObject(new String(in.readAllBytes(),
+                                              StandardCharsets.UTF_8));
+    m_compiled = new Scoresheet(m_scoresheet);
+
+    // Generate the random selections.
+    JSONArray missions = m_scoresheet.getArray("missions");
+    m_sheets = new JSONObject[SHEETS];
+    for(int idx = 0; idx < SHEETS; idx++)
+    {
+      m_sheets[idx] = new SimpleJSONObject();
+      for(int i = 0; i < missions.size(); i++)
+      {
+        JSONObject mission = missions.getObject(i);
+        JSONArray items = mission.getArray("items");
+        for(int j = 0; j < items.size(); j++)
+        {
+          JSONObject item = items.getObject(j);
+
+          // Determine the range of valid selections for this item.
+          int min = 0, max;
+          if(item.getArray("score") != null)
+          {
+            max = item.getArray("score").size() - 1;
+          }
+          else if(item.getString("type").equals("yesno"))
+          {
+            max = 1;
+          }
+          else if(item.getString("type").equals("enum"))
+          {
+            max = item.getObject("choices").getArray("en_US").size() - 1;
+          }
+          else
+          {
+            min = item.getInteger("min");
+            max = item.getInteger("max");
+          }
+
+          // Pick a selection.
+          String key = mission.getString("mission") + "_" +
+                       item.getInteger("id");
+          m_sheets[idx].set(key, min + random.nextInt(max - min + 1));
+          if(idx == 0)
+          {
+            m_keys.add(key);
+          }
+        }
+      }
+    }
+
+    // Start live scoring from a copy of the first selections.
+    JSONObject sheet = new SimpleJSONObject();
+    for(String key : m_keys)
+    {
+      sheet.set(key, m_sheets[0].getInteger(key));
+    }
+    m_live = m_compiled.live(sheet);
+  }
+
+  /**
+   * Scores the next scoresheet by interpreting the JSON scoresheet.
+   *
+   * @return The result.
+   */
+  @Benchmark
+  public JSONObject
+  interpreted()
+  {
+    JSONObject result = new SimpleJSONObject();
+    m_next = (m_next + 1) % SHEETS;
+    Scoresheet.interpret(m_scoresheet, result, m_sheets[m_next], "en_US",
+                         TOO_MANY);
+    return(result);
+  }
+
+  /**
+   * Scores the next scoresheet with the compiled scoresheet.
+   *
+   * @return The result.
+   */
+  @Benchmark
+  public JSONObject
+  compiled()
+  {
+    JSONObject result = new SimpleJSONObject();
+    m_next = (m_next + 1) % SHEETS;
+    m_compiled.score(result, m_sheets[m_next], "en_US", TOO_MANY);
+    return(result);
+  }
+
+  /**
+   * Scores a single changed selection live, changing it to the value it has
+   * in the next scoresheet selections.
+   *
+   * @return The result.
+   */
+  @Benchmark
+  public JSONObject
+  live()
+  {
+    JSONObject result = new SimpleJSONObject();
+    m_next = (m_next + 1) % SHEETS;
+    String key = m_keys.get(m_next % m_keys.size());
+    m_live.update(key, m_sheets[m_next].getInteger(key), result, "en_US",
+                  TOO_MANY);
+    return(result);
+  }
+}
@@ -0,0 +1,163 @@
+// Copyright (c) 2024 Brian Kircher
+//
+// Open Source Software; you can modify and/or share it under the terms of BSD
+// license file in the root directory of this project.
+
+package FLLScorer;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Benchmarks computing the league standings contributions of a 100-event
+ * season, sequentially and in fork-join pools of various sizes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class StandingsBenchmark
+{
+  /**
+   * The number of events in the season.
+   */
+  private static final int EVENTS = 100;
+
+  /**
+   * The number of teams at each event.
+   */
+  private static final int TEAMS_PER_EVENT = 40;
+
+  /**
+   * The number of teams in the league.
+   */
+  private static final int TEAMS = 1000;
+
+  /**
+   * The number of divisions.
+   */
+  private static final int DIVISIONS = 2;
+
+  /**
+   * The number of threads in the pool; <b>1</b> computes the contributions
+   * sequentially on the calling thread.
+   */
+  @Param({ "1", "4", "8" })
+  public int m_threads;
+
+  /**
+   * The snapshots of the events.
+   */
+  private ArrayList<Standings.Snapshot> m_snapshots;
+
+  /**
+   * The division of each team in the league.
+   */
+  private HashMap<Integer, Integer> m_teamDivisions;
+
+  /**
+   * The fork-join pool, or <b>null</b> for the sequential path.
+   */
+  private ForkJoinPool m_pool;
+
+  /**
+   * Generates the season's events with random scores and judging results.
+   * That the parallel path produces the same contributions as the sequential
+   * path is checked by StandingsTest.
+   */
+  @Setup
+  public void
+  setup()
+  {
+    Random random = new Random(2024);
+
+    // Assign each team in the league to a division.
+    m_teamDivisions = new HashMap<Integer, Integer>();
+    for(int team = 0; team < TEAMS; team++)
+    {
+      m_teamDivisions.put(team, 1 + random.nextInt(DIVISIONS));
+    }
+
+    // Create the events.
+    m_snapshots = new ArrayList<Standings.Snapshot>();
+    for(int event = 0; event < EVENTS; event++)
+    {
+      // Pick the teams at this event (in team number order).
+      int start = random.nextInt(TEAMS - TEAMS_PER_EVENT);
+      int[] ids = new int[TEAMS_PER_EVENT];
+      int[] divisions = new int[TEAMS_PER_EVENT];
+      for(int idx = 0; idx < TEAMS_PER_EVENT; idx++)
+      {
+        ids[idx] = start + idx;
+        divisions[idx] = m_teamDivisions.get(ids[idx]);
+      }
+      EventData data = new EventData(ids, ids.clone(),
+                                     new String[TEAMS_PER_EVENT], divisions);
+
+      // Give most of the teams robot game scores (in steps of five, so there
+      // are ties) and judging results.
+      for(int team = 0; team < TEAMS_PER_EVENT; team++)
+      {
+        if(random.nextInt(10) != 0)
+        {
+          for(int match = 1; match <= 3; match++)
+          {
+            data.scoreSet(match, team, 5 * random.nextInt(100));
+          }
+          for(int match = 1; match <= 3; match++)
+          {
+            data.coreSet(match, team, 2 + random.nextInt(3));
+          }
+        }
+        if(random.nextInt(10) != 0)
+        {
+          data.judgingSet(team, 4 + random.nextInt(13),
+                          4 + random.nextInt(13), 4 + random.nextInt(13));
+        }
+      }
+
+      m_snapshots.add(new Standings.Snapshot(event, 0, 0, data));
+    }
+
+    // Create the pool.
+    m_pool = (m_threads == 1) ? null : new ForkJoinPool(m_threads);
+  }
+
+  /**
+   * Shuts down the pool.
+   */
+  @TearDown
+  public void
+  tearDown()
+  {
+    if(m_pool != null)
+    {
+      m_pool.shutdown();
+    }
+  }
+
+  /**
+   * Computes the contributions of all the events.
+   *
+   * @return The contributions.
+   */
+  @Benchmark
+  public ArrayList<Standings.Contribution>
+  contributions()
+  {
+    return(Standings.computeContributions(m_snapshots, m_teamDivisions,
+                                          DIVISIONS, m_pool));
+  }
+}
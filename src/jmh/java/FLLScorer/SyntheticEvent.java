@@ -0,0 +1,277 @@
+// Copyright (c) 2024 Brian Kircher
+//
+// Open Source Software; you can modify and/or share it under the terms of BSD
+// license file in the root directory of this project.
+
+package FLLScorer;
+
+import java.io.File;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Random;
+
+import org.bspfsystems.simplejson.JSONArray;
+import org.bspfsystems.simplejson.JSONObject;
+import org.bspfsystems.simplejson.SimpleJSONObject;
+import org.bspfsystems.simplejson.parser.JSONParser;
+
+/**
+ * A synthetic event in a temporary SQLite database, with the application
+ * objects set up to serve it, for the benchmarks that go through the
+ * database and the web server.
+ * <p>
+ * The database is seeded with a season, an event, and a number of teams with
+ * random robot game scores and judging results.  The application objects are
+ * then set up in the same order as the application sets them up (without
+ * starting the web server).
+ */
+class SyntheticEvent
+{
+  /**
+   * The Database object.
+   */
+  final Database m_database;
+
+  /**
+   * The ID of the season.
+   */
+  final int m_seasonId;
+
+  /**
+   * The ID of the event.
+   */
+  final int m_eventId;
+
+  /**
+   * The IDs of the teams at the event.
+   */
+  final ArrayList<Integer> m_ids = new ArrayList<Integer>();
+
+  /**
+   * The JSON scoresheet for the season.
+   */
+  final JSONObject m_scoresheet;
+
+  /**
+   * The JSON rubric for the season.
+   */
+  final JSONObject m_rubric;
+
+  /**
+   * The random number generator used to generate the data.
+   */
+  private final Random m_random;
+
+  /**
+   * Creates and seeds the synthetic database, and sets up the application
+   * objects.
+   *
+   * @param season The season (for example, "2024.0").
+   *
+   * @param teams The number of teams at the event.
+   *
+   * @param random The random number generator used to generate the data,
+   *               which should be seeded so that every run uses the same
+   *               data.
+   */
+  SyntheticEvent(String season, int teams, Random random) throws Exception
+  {
+    m_random = random;
+
+    // Create the database in a temporary file.
+    File file = File.createTempFile("FLLScorer", ".db");
+    file.deleteOnExit();
+    m_database = Database.getInstance();
+    m_database.setup(file.getPath());
+
+    // Set up the configuration and web server, using the en_US strings.
+    Config config = Config.getInstance();
+    config.setup();
+    config.localeSet("en_US");
+    WebServer.getInstance().setup();
+    config.finishSetup();
+
+    // Set up the seasons and events, and select the season.
+    Seasons.getInstance().setup();
+    Events.getInstance().setup();
+    config.seasonSet(season);
+    m_seasonId = Seasons.getInstance().seasonIdGet();
+
+    // Create the event, and select it.
+    m_eventId = m_database.eventAdd(m_seasonId, "2024-11-16", 3,
+                                    "Benchmark");
+    config.eventSet(Integer.toString(m_eventId));
+
+    // Load the season's scoresheet and rubric.
+    String year = season.substring(0, 4);
+    m_scoresheet = readJson("seasons/" + year + "/scoresheet.json");
+    m_rubric = readJson("seasons/" + year + "/rubric.json");
+    Rubric compiled = new Rubric(m_rubric);
+
+    // Add the teams to the event, giving each team robot game scores for the
+    // practice and ranking matches, and judging results.
+    for(int idx = 0; idx < teams; idx++)
+    {
+      int team_id = m_database.teamAdd(m_seasonId, 1000 + (idx * 7),
+                                       "Team " + idx, 0);
+      m_database.teamAtEventSet(m_seasonId, m_eventId, team_id);
+      m_ids.add(team_id);
+      for(int match = 0; match <= 3; match++)
+      {
+        publishScore(team_id, match);
+      }
+      JSONObject selections = rubricSelections();
+      int[] totals = new int[Rubric.TOTALS];
+      if(!compiled.total(selections, totals))
+      {
+        totals = new int[] { -1, -1, -1 };
+      }
+      m_database.judgingAdd(m_seasonId, m_eventId, team_id,
+                            totals[Rubric.PROJECT],
+                            totals[Rubric.ROBOT_DESIGN],
+                            totals[Rubric.CORE_VALUES],
+                            JSONParser.serialize(selections));
+    }
+
+    // Set up the objects that serve the pages, now that the database has
+    // been seeded.
+    Scoreboard.getInstance().setup();
+    Standings.getInstance().setup();
+    RankingIndex.getInstance().setup();
+    Users.getInstance().setup();
+    Links.getInstance().setup();
+    Judge.getInstance().setup();
+    Referee.getInstance().setup();
+  }
+
+  /**
+   * Reads and parses a JSON resource.
+   *
+   * @param path The path to the resource, relative to the resources
+   *             directory.
+   *
+   * @return The JSON object.
+   */
+  private static JSONObject
+  readJson(String path) throws Exception
+  {
+    // Read and parse the resource.
+    InputStream in = ResourceStream.getResourceStream(path);
+    return(JSONParser.deserializeObject(new String(in.readAllBytes(),
+                                                   StandardCharsets.UTF_8)));
+  }
+
+  /**
+   * Publishes a random robot game score (in steps of five, so there are
+   * ties) for a team, as the referee page does.
+   *
+   * @param team_id The ID of the team.
+   *
+   * @param match The number of the match.
+   */
+  void
+  publishScore(int team_id, int match)
+  {
+    // Save the score.
+    m_database.scoreMatchAdd(m_seasonId, m_eventId, team_id, match,
+                             (float)(5 * m_random.nextInt(80)),
+                             2 + m_random.nextInt(3), null);
+  }
+
+  /**
+   * Publishes a random robot game score for a random team and ranking match.
+   */
+  void
+  publishScore()
+  {
+    // Pick the team and match, and save the score.
+    publishScore(m_ids.get(m_random.nextInt(m_ids.size())),
+                 1 + m_random.nextInt(3));
+  }
+
+  /**
+   * Generates random selections for the season's scoresheet, all of them in
+   * range.
+   *
+   * @return The scoresheet selections.
+   */
+  JSONObject
+  scoresheetSelections()
+  {
+    JSONObject sheet = new SimpleJSONObject();
+
+    // Loop through the items of the missions.
+    JSONArray missions = m_scoresheet.getArray("missions");
+    for(int i = 0; i < missions.size(); i++)
+    {
+      JSONObject mission = missions.getObject(i);
+      JSONArray items = mission.getArray("items");
+      for(int j = 0; j < items.size(); j++)
+      {
+        JSONObject item = items.getObject(j);
+
+        // Determine the range of valid selections for this item.
+        int min = 0, max;
+        if(item.getArray("score") != null)
+        {
+          max = item.getArray("score").size() - 1;
+        }
+        else if(item.getString("type").equals("yesno"))
+        {
+          max = 1;
+        }
+        else if(item.getString("type").equals("enum"))
+        {
+          max = item.getObject("choices").getArray("en_US").size() - 1;
+        }
+        else
+        {
+          min = item.getInteger("min");
+          max = item.getInteger("max");
+        }
+
+        // Pick a selection.
+        sheet.set(mission.getString("mission") + "_" + item.getInteger("id"),
+                  min + m_random.nextInt(max - min + 1));
+      }
+    }
+
+    // Return the selections.
+    return(sheet);
+  }
+
+  /**
+   * Generates random selections for the season's rubric, with an occasional
+   * item left without a selection.
+   *
+   * @return The rubric selections.
+   */
+  JSONObject
+  rubricSelections()
+  {
+    JSONObject scores = new SimpleJSONObject();
+
+    // Loop through the items of the areas.
+    JSONArray areas = m_rubric.getArray("areas");
+    for(int i = 0; i < areas.size(); i++)
+    {
+      JSONArray sections = areas.getObject(i).getArray("sections");
+      for(int j = 0; j < sections.size(); j++)
+      {
+        JSONArray items = sections.getObject(j).getArray("items");
+        for(int k = 0; k < items.size(); k++)
+        {
+          // Pick a selection, unless this item is left without one.
+          if(m_random.nextInt(100) != 0)
+          {
+            scores.set("R" + i + "_" + j + "_" + k, m_random.nextInt(4));
+          }
+        }
+      }
+    }
+
+    // Return the selections.
+    return(scores);
+  }
+}
@@ -0,0 +1,350 @@
+// Copyright (c) 2024 Brian Kircher
+//
+// Open Source Software; you can modify and/or share it under the terms of BSD
+// license file in the root directory of this project.
+
+package FLLScorer;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Proxy;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.bspfsystems.simplejson.parser.JSONParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+
+/**
+ * Benchmarks the per-request work of the web server (path normalization, the
+ * path mappings, parameter parsing, the role checks, the dynamic handlers,
+ * and Server Side Include processing) for representative pages, by calling
+ * doGet() and doPost() with a mock request and response.  The allocation
+ * rate is reported by the gc profiler that is enabled in build.gradle.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class WebServerBenchmark
+{
+  /**
+   * The number of teams at the synthetic event.
+   */
+  private static final int TEAMS = 48;
+
+  /**
+   * The request to make, as the method and the path (with an optional query
+   * string).
+   */
+  @Param({ "GET /", "GET /referee/", "GET /scoreboard/scoreboard.json",
+           "GET /logos/2025.gif", "POST /referee/referee.json" })
+  public String m_request;
+
+  /**
+   * The web server.
+   */
+  private WebServer m_webserver;
+
+  /**
+   * The mock request.
+   */
+  private Request m_mockRequest;
+
+  /**
+   * The mock response.
+   */
+  private Response m_mockResponse;
+
+  /**
+   * <b>true</b> if the request is a POST request.
+   */
+  private boolean m_post;
+
+  /**
+   * Creates an object that implements an interface by throwing an exception
+   * from every method, for the parts of the servlet API that the web server
+   * does not use.
+   *
+   * @param type The interface to implement.
+   *
+   * @return The object.
+   */
+  private static <T> T
+  unsupported(Class<T> type)
+  {
+    // Create a proxy that throws an exception from every method.
+    InvocationHandler handler = (proxy, method, args) ->
+    {
+      throw(new UnsupportedOperationException(method.getName()));
+    };
+    return(type.cast(Proxy.newProxyInstance(type.getClassLoader(),
+                                            new Class<?>[] { type },
+                                            handler)));
+  }
+
+  /**
+   * A mock HTTP request, from a signed in user with a single role.
+   */
+  private static class Request extends HttpServletRequestWrapper
+  {
+    /**
+     * The path that was requested.
+     */
+    private String m_uri;
+
+    /**
+     * The query string, or <b>null</b> if there is not one.
+     */
+    private String m_query;
+
+    /**
+     * The name of the signed in user, or <b>null</b> if there is not one.
+     */
+    private String m_user;
+
+    /**
+     * The role of the signed in user.
+     */
+    private String m_role;
+
+    /**
+     * The parameters of a POST request.
+     */
+    private HashMap<String, String> m_params;
+
+    /**
+     * The constructor.
+     *
+     * @param uri The path that was requested.
+     *
+     * @param query The query string, or <b>null</b> if there is not one.
+     *
+     * @param user The name of the signed in user, or <b>null</b> if there is
+     *             not one.
+     *
+     * @param role The role of the signed in user.
+     *
+     * @param params The parameters of a POST request.
+     */
+    Request(String uri, String query, String user, String role,
+            HashMap<String, String> params)
+    {
+      super(unsupported(HttpServletRequest.class));
+      m_uri = uri;
+      m_query = query;
+      m_user = user;
+      m_role = role;
+      m_params = params;
+    }
+
+    // Gets the path that was requested.
+    @Override
+    public String
+    getRequestURI()
+    {
+      return(m_uri);
+    }
+
+    // Gets the query string.
+    @Override
+    public String
+    getQueryString()
+    {
+      return(m_query);
+    }
+
+    // Gets the name of the signed in user.
+    @Override
+    public String
+    getRemoteUser()
+    {
+      return(m_user);
+    }
+
+    // Determines if the signed in user has a role.
+    @Override
+    public boolean
+    isUserInRole(String role)
+    {
+      return((m_user != null) && role.equals(m_role));
+    }
+
+    // Gets the names of the POST parameters.
+    @Override
+    public Enumeration<String>
+    getParameterNames()
+    {
+      return(Collections.enumeration(m_params.keySet()));
+    }
+
+    // Gets a POST parameter.
+    @Override
+    public String
+    getParameter(String name)
+    {
+      return(m_params.get(name));
+    }
+  }
+
+  /**
+   * A mock HTTP response, which discards the content.
+   */
+  private static class Response extends HttpServletResponseWrapper
+  {
+    /**
+     * The number of bytes that have been written.
+     */
+    private long m_written = 0;
+
+    /**
+     * The output stream, which counts the bytes that are written.
+     */
+    private ServletOutputStream m_out = new ServletOutputStream()
+    {
+      // The output stream is always ready.
+      @Override
+      public boolean
+      isReady()
+      {
+        return(true);
+      }
+
+      // The output stream is never asynchronous.
+      @Override
+      public void
+      setWriteListener(WriteListener listener)
+      {
+      }
+
+      // Counts a byte.
+      @Override
+      public void
+      write(int b)
+      {
+        m_written++;
+      }
+
+      // Counts the bytes.
+      @Override
+      public void
+      write(byte[] b, int off, int len)
+      {
+        m_written += len;
+      }
+    };
+
+    /**
+     * The constructor.
+     */
+    Response()
+    {
+      super(unsupported(HttpServletResponse.class));
+    }
+
+    // Ignores the content type.
+    @Override
+    public void
+    setContentType(String type)
+    {
+    }
+
+    // Ignores the headers.
+    @Override
+    public void
+    setHeader(String name, String value)
+    {
+    }
+
+    // Ignores the content length.
+    @Override
+    public void
+    setContentLength(int len)
+    {
+    }
+
+    // Gets the output stream.
+    @Override
+    public ServletOutputStream
+    getOutputStream()
+    {
+      return(m_out);
+    }
+  }
+
+  /**
+   * Sets up the application against a synthetic event, and creates the mock
+   * request for the page.
+   */
+  @Setup
+  public void
+  setup() throws Exception
+  {
+    // Create the synthetic event, using a seeded random number generator.
+    SyntheticEvent event = new SyntheticEvent("2024.0", TEAMS,
+                                              new Random(2024));
+    m_webserver = WebServer.getInstance();
+
+    // Split the request into the method, path, and query string.
+    String[] request = m_request.split(" ");
+    String[] uri = request[1].split("\\?", 2);
+    m_post = request[0].equals("POST");
+
+    // A POST to the referee page scores a scoresheet, as the referee page
+    // does while the referee makes selections.
+    HashMap<String, String> params = new HashMap<String, String>();
+    if(m_post)
+    {
+      String sheet = JSONParser.serialize(event.scoresheetSelections());
+      params.put("action", "score");
+      params.put("json", URLEncoder.encode(sheet, StandardCharsets.UTF_8));
+    }
+
+    // Requests for the referee pages are made by a referee, and the others
+    // are made anonymously.
+    boolean referee = uri[0].startsWith("/referee/");
+    m_mockRequest = new Request(uri[0], (uri.length == 1) ? null : uri[1],
+                                referee ? "referee" : null,
+                                referee ? "referee" : null, params);
+    m_mockResponse = new Response();
+  }
+
+  /**
+   * Handles the request.
+   *
+   * @return The total number of bytes that have been written.
+   */
+  @Benchmark
+  public long
+  request() throws Exception
+  {
+    // Pass the request to the web server.
+    if(m_post)
+    {
+      m_webserver.doPost(m_mockRequest, m_mockResponse);
+    }
+    else
+    {
+      m_webserver.doGet(m_mockRequest, m_mockResponse);
+    }
+
+    // Return the number of bytes written.
+    return(m_mockResponse.m_written);
+  }
+}
@@ -0,0 +1,198 @@
+// Copyright (c) 2024 Brian Kircher
+//
+// Open Source Software; you can modify and/or share it under the terms of BSD
+// license file in the root directory of this project.
+
+package FLLScorer;
+
+import java.net.CookieManager;
+import java.net.CookiePolicy;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.WebSocket;
+import java.nio.charset.StandardCharsets;
+import java.security.cert.X509Certificate;
+import java.time.Duration;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.TrustManager;
+import javax.net.ssl.X509TrustManager;
+
+/**
+ * The connections to the server that are shared by the load tools; each
+ * simulated browser has its own HTTP client (and therefore its own session).
+ */
+class LoadClient
+{
+  /**
+   * A trust manager that accepts any certificate, since the server uses a
+   * self-signed certificate.
+   */
+  private static final TrustManager TRUST_ALL = new X509TrustManager()
+  {
+    // Accepts any client certificate.
+    @Override
+    public void
+    checkClientTrusted(X509Certificate[] chain, String authType)
+    {
+    }
+
+    // Accepts any server certificate.
+    @Override
+    public void
+    checkServerTrusted(X509Certificate[] chain, String authType)
+    {
+    }
+
+    // There are no accepted issuers.
+    @Override
+    public X509Certificate[]
+    getAcceptedIssuers()
+    {
+      return(new X509Certificate[0]);
+    }
+  };
+
+  /**
+   * The interface for handling messages from a WebSocket.
+   */
+  interface MessageHandler
+  {
+    /**
+     * Handles a message.
+     *
+     * @param socket The WebSocket that received the message.
+     *
+     * @param text The message.
+     */
+    void message(WebSocket socket, String text);
+  }
+
+  /**
+   * Creates an HTTP client for a simulated browser, with its own session,
+   * and signs in if required.
+   *
+   * @param url The URL of the server.
+   *
+   * @param user The name of the user to sign in as, or <b>null</b> if
+   *             security is bypassed.
+   *
+   * @param password The password of the user.
+   *
+   * @return The HTTP client.
+   */
+  static HttpClient
+  create(String url, String user, String password) throws Exception
+  {
+    // The server uses a self-signed certificate, which does not match the
+    // host name.  This must be set before the first client is created.
+    System.setProperty("jdk.internal.httpclient.disableHostnameVerification",
+                       "true");
+
+    // Create an SSL context that accepts the self-signed certificate.
+    SSLContext ssl = SSLContext.getInstance("TLS");
+    ssl.init(null, new TrustManager[] { TRUST_ALL }, null);
+
+    // Create the client, keeping the session cookie.
+    HttpClient client =
+      HttpClient.newBuilder()
+                .sslContext(ssl)
+                .cookieHandler(new CookieManager(null,
+                                                 CookiePolicy.ACCEPT_ALL))
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+
+    // Sign in if a user was given.  A protected page is requested first, so
+    // that the form authenticator starts a session.
+    if(user != null)
+    {
+      client.send(HttpRequest.newBuilder(URI.create(url + "/admin/")).build(),
+                  HttpResponse.BodyHandlers.discarding());
+      HttpRequest request =
+        HttpRequest.newBuilder(URI.create(url + "/j_security_check"))
+                   .header("Content-Type",
+                           "application/x-www-form-urlencoded")
+                   .POST(HttpRequest.BodyPublishers.ofString(
+                           "j_username=" + encode(user) + "&j_password=" +
+                           encode(password)))
+                   .build();
+      client.send(request, HttpResponse.BodyHandlers.discarding());
+    }
+
+    // Return the client.
+    return(client);
+  }
+
+  /**
+   * URL encodes a string.
+   *
+   * @param value The string.
+   *
+   * @return The URL encoded string.
+   */
+  static String
+  encode(String value)
+  {
+    // Encode the string.
+    return(URLEncoder.encode(value, StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Opens a WebSocket.
+   *
+   * @param client The HTTP client.
+   *
+   * @param url The URL of the server.
+   *
+   * @param path The path of the WebSocket.
+   *
+   * @param handler The handler for the messages from the server.
+   *
+   * @return The WebSocket.
+   */
+  static WebSocket
+  openSocket(HttpClient client, String url, String path,
+             MessageHandler handler) throws Exception
+  {
+    // The listener that collects the messages from the server.
+    WebSocket.Listener listener = new WebSocket.Listener()
+    {
+      // The parts of the current message.
+      private StringBuilder m_text = new StringBuilder();
+
+      // Collects a part of a message, handling the message once it is all
+      // received.
+      @Override
+      public CompletionStage<?>
+      onText(WebSocket webSocket, CharSequence data, boolean last)
+      {
+        m_text.append(data);
+        if(last)
+        {
+          handler.message(webSocket, m_text.toString());
+          m_text.setLength(0);
+        }
+        webSocket.request(1);
+        return(null);
+      }
+    };
+
+    // Build the WebSocket URL, replacing the HTTP scheme with the
+    // corresponding WebSocket scheme (http with ws, and https with wss).
+    URI target = URI.create(url + path);
+    String scheme = "https".equalsIgnoreCase(target.getScheme()) ? "wss" :
+                    "ws";
+    URI socket = URI.create(scheme + ":" + target.getRawSchemeSpecificPart());
+
+    // Open the WebSocket.
+    return(client.newWebSocketBuilder()
+                 .buildAsync(socket, listener)
+                 .get(30, TimeUnit.SECONDS));
+  }
+}
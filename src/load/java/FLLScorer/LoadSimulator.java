@@ -0,0 +1,1090 @@
+// Copyright (c) 2024 Brian Kircher
+//
+// Open Source Software; you can modify and/or share it under the terms of BSD
+// license file in the root directory of this project.
+
+package FLLScorer;
+
+import java.io.FileWriter;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.WebSocket;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.bspfsystems.simplejson.JSONArray;
+import org.bspfsystems.simplejson.JSONObject;
+import org.bspfsystems.simplejson.SimpleJSONObject;
+import org.bspfsystems.simplejson.parser.JSONParser;
+
+/**
+ * A headless load generator that simulates the devices at a tournament
+ * against a running instance of the application.
+ * <p>
+ * Each simulated device opens the same endpoints as the real page: referee
+ * tablets score scoresheets live and publish them, judging rooms save
+ * rubrics, scoreboard displays follow the scoreboard event stream and poll
+ * the scoreboard, standings displays poll the standings, and timer displays
+ * synchronize their clocks over the timer WebSocket.  The referee and judge
+ * WebSockets of every tablet are followed, so the time from each publish (or
+ * save) to the moment every display shows it is measured, along with the
+ * time of each request.  The CPU and thread usage of the server is sampled
+ * throughout from /admin/status/process.json.
+ * <p>
+ * The selected event of the server must already have teams, and their scores
+ * and rubrics are overwritten, so this should only be run against a scratch
+ * database.  When security is not bypassed, the user must have the admin or
+ * host role (so that the process statistics can be read).
+ */
+public class LoadSimulator
+{
+  /**
+   * The URL of the server.
+   */
+  private String m_url = "https://localhost:8443";
+
+  /**
+   * The name of the user to sign in as, or <b>null</b> if security is
+   * bypassed.
+   */
+  private String m_user = null;
+
+  /**
+   * The password of the user.
+   */
+  private String m_password = "";
+
+  /**
+   * The number of referee tablets.
+   */
+  private int m_referees = 12;
+
+  /**
+   * The number of judging rooms.
+   */
+  private int m_judges = 6;
+
+  /**
+   * The number of scoreboard displays.
+   */
+  private int m_scoreboards = 10;
+
+  /**
+   * The number of standings displays.
+   */
+  private int m_standings = 2;
+
+  /**
+   * The number of timer displays.
+   */
+  private int m_timers = 4;
+
+  /**
+   * The length of the simulation, in seconds.
+   */
+  private int m_duration = 300;
+
+  /**
+   * The average time between publishes from each referee tablet, in seconds.
+   */
+  private int m_refereeInterval = 30;
+
+  /**
+   * The average time between saves from each judging room, in seconds.
+   */
+  private int m_judgeInterval = 60;
+
+  /**
+   * The time between polls from each display, in seconds.
+   */
+  private int m_pollInterval = 10;
+
+  /**
+   * The seed for the random number generators.
+   */
+  private long m_seed = 2024;
+
+  /**
+   * The file to which the results are written as JSON, or <b>null</b> if
+   * they are only printed.
+   */
+  private String m_output = null;
+
+  /**
+   * <b>true</b> while the simulation is running.
+   */
+  private volatile boolean m_running = true;
+
+  /**
+   * The IDs of the teams at the event.
+   */
+  private ArrayList<Integer> m_ids = new ArrayList<Integer>();
+
+  /**
+   * The numbers of the teams at the event.
+   */
+  private ArrayList<Integer> m_numbers = new ArrayList<Integer>();
+
+  /**
+   * The number of matches at the event.
+   */
+  private int m_matches;
+
+  /**
+   * The JSON scoresheet for the season.
+   */
+  private JSONObject m_scoresheet;
+
+  /**
+   * The compiled scoresheet, or <b>null</b> if it is interpreted.
+   */
+  private Scoresheet m_compiledSheet = null;
+
+  /**
+   * The JSON rubric for the season.
+   */
+  private JSONObject m_rubric;
+
+  /**
+   * The compiled rubric, or <b>null</b> if it is interpreted.
+   */
+  private Rubric m_compiledRubric = null;
+
+  /**
+   * The measurements, indexed by name.
+   */
+  private LinkedHashMap<String, Samples> m_samples =
+    new LinkedHashMap<String, Samples>();
+
+  /**
+   * The publishes and saves that are waiting to be displayed, indexed by the
+   * piece of state that they change (for example, "m1:1234" for the first
+   * match of team 1234).
+   */
+  private ConcurrentHashMap<String, Pending> m_pending =
+    new ConcurrentHashMap<String, Pending>();
+
+  /**
+   * The most recent value that has been displayed for each piece of state.
+   */
+  private ConcurrentHashMap<String, String> m_known =
+    new ConcurrentHashMap<String, String>();
+
+  /**
+   * The WebSockets that are open.
+   */
+  private ArrayList<WebSocket> m_sockets = new ArrayList<WebSocket>();
+
+  /**
+   * A publish or save that is waiting to be displayed.
+   */
+  private static class Pending
+  {
+    /**
+     * The time, in nanoseconds, at which the publish or save was made.
+     */
+    private long m_start = System.nanoTime();
+
+    /**
+     * The value that is displayed once the publish or save is shown.
+     */
+    private String m_value;
+
+    /**
+     * The number of the team.
+     */
+    private int m_number;
+
+    /**
+     * The match, or <b>-1</b> for a rubric.
+     */
+    private int m_match;
+
+    /**
+     * The robot game score, which is shown on the scoreboard.
+     */
+    private float m_score;
+
+    /**
+     * The displays that have shown the publish or save.
+     */
+    private Set<Object> m_seen = ConcurrentHashMap.newKeySet();
+  }
+
+  /**
+   * Gets a measurement set, creating it if necessary.
+   *
+   * @param name The name of the measurements.
+   *
+   * @return The measurements.
+   */
+  private Samples
+  samples(String name)
+  {
+    // Find or create the measurements.
+    synchronized(m_samples)
+    {
+      return(m_samples.computeIfAbsent(name, k -> new Samples()));
+    }
+  }
+
+  /**
+   * Sleeps, returning early if the simulation has stopped.
+   *
+   * @param millis The time to sleep, in milliseconds.
+   */
+  private void
+  sleep(long millis)
+  {
+    // Sleep in short steps, so that the thread exits promptly when the
+    // simulation stops.
+    long end = System.currentTimeMillis() + millis;
+    while(m_running && (System.currentTimeMillis() < end))
+    {
+      try
+      {
+        TimeUnit.MILLISECONDS.sleep(Math.min(100,
+                                             end -
+                                             System.currentTimeMillis()));
+      }
+      catch(InterruptedException e)
+      {
+        return;
+      }
+    }
+  }
+
+  /**
+   * Starts a simulated device on its own thread.
+   *
+   * @param name The name of the device.
+   *
+   * @param device The code that runs the device.
+   */
+  private void
+  start(String name, Device device)
+  {
+    // Start the thread, which does not keep the simulator running.
+    Thread thread = new Thread(() ->
+      {
+        try
+        {
+          device.run();
+        }
+        catch(Exception e)
+        {
+          System.out.println(name + " error: " + e);
+        }
+      }, name);
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  /**
+   * Creates an HTTP client for a simulated device, with its own session, and
+   * signs in if required.
+   *
+   * @return The HTTP client.
+   */
+  private HttpClient
+  client() throws Exception
+  {
+    // Create the client.
+    return(LoadClient.create(m_url, m_user, m_password));
+  }
+
+  /**
+   * Requests a page, and records how long it takes.
+   *
+   * @param client The HTTP client.
+   *
+   * @param path The path (and query string) of the page.
+   *
+   * @param name The name of the measurements, or <b>null</b> if the request
+   *             is not measured.
+   *
+   * @return The contents of the page.
+   */
+  private String
+  get(HttpClient client, String path, String name) throws Exception
+  {
+    // Make the request.
+    long start = System.nanoTime();
+    HttpRequest request =
+      HttpRequest.newBuilder(URI.create(m_url + path))
+                 .timeout(Duration.ofSeconds(30))
+                 .build();
+    HttpResponse<String> response =
+      client.send(request, HttpResponse.BodyHandlers.ofString());
+
+    // Record how long the request took.
+    if(name != null)
+    {
+      samples(name).add(System.nanoTime() - start);
+    }
+
+    // Return the contents of the page.
+    return(response.body());
+  }
+
+  /**
+   * Requests a JSON page, and records how long it takes.
+   *
+   * @param client The HTTP client.
+   *
+   * @param path The path (and query string) of the page.
+   *
+   * @param name The name of the measurements, or <b>null</b> if the request
+   *             is not measured.
+   *
+   * @return The JSON object.
+   */
+  private JSONObject
+  getJson(HttpClient client, String path, String name) throws Exception
+  {
+    // Request and parse the page.
+    return(JSONParser.deserializeObject(get(client, path, name)));
+  }
+
+  /**
+   * Opens a WebSocket.
+   *
+   * @param client The HTTP client.
+   *
+   * @param path The path of the WebSocket.
+   *
+   * @param handler The handler for the messages from the server.
+   *
+   * @return The WebSocket.
+   */
+  private WebSocket
+  openSocket(HttpClient client, String path,
+             LoadClient.MessageHandler handler) throws Exception
+  {
+    // Open the WebSocket.
+    WebSocket socket = LoadClient.openSocket(client, m_url, path, handler);
+
+    // Add it to the list of open WebSockets.
+    synchronized(m_sockets)
+    {
+      m_sockets.add(socket);
+    }
+
+    // Return the WebSocket.
+    return(socket);
+  }
+
+  /**
+   * The interface for the code that runs a simulated device.
+   */
+  private interface Device
+  {
+    /**
+     * Runs the device until the simulation stops.
+     */
+    void run() throws Exception;
+  }
+
+  /**
+   * Handles a message from a referee or judge WebSocket, recording how long
+   * it took for a publish or save to reach this display.
+   *
+   * @param display The display that received the message.
+   *
+   * @param name The name of the measurements.
+   *
+   * @param text The message (for example, "m1:1234:2:215.0").
+   */
+  private void
+  stateMessage(Object display, String name, String text)
+  {
+    // Split the message into the piece of state and its value.
+    int idx = text.indexOf(':', text.indexOf(':') + 1);
+    if(idx == -1)
+    {
+      return;
+    }
+    String key = text.substring(0, idx);
+    String value = text.substring(idx + 1);
+
+    // Remember the value that is being displayed.
+    m_known.put(key, value);
+
+    // Record the time it took for the publish or save to reach this display,
+    // the first time this display shows it.
+    Pending pending = m_pending.get(key);
+    if((pending != null) && pending.m_value.equals(value) &&
+       pending.m_seen.add(display))
+    {
+      samples(name).add(System.nanoTime() - pending.m_start);
+    }
+  }
+
+  /**
+   * Handles an update of the scoreboard from its event stream, recording how
+   * long it took for each pending publish to reach this display.
+   *
+   * @param display The display that received the update.
+   *
+   * @param json The scoreboard JSON.
+   */
+  private void
+  scoreboardUpdate(Object display, String json) throws Exception
+  {
+    // Collect the teams on the scoreboard (which are in an array for each
+    // division when divisions are enabled), indexed by their number.
+    LinkedHashMap<Integer, JSONObject> teams =
+      new LinkedHashMap<Integer, JSONObject>();
+    JSONArray scores = JSONParser.deserializeObject(json).getArray("scores");
+    for(int i = 0; (scores != null) && (i < scores.size()); i++)
+    {
+      JSONArray division = scores.getArray(i);
+      for(int j = 0; j < ((division == null) ? 1 : division.size()); j++)
+      {
+        JSONObject team = (division == null) ? scores.getObject(i) :
+                                                division.getObject(j);
+        teams.put(team.getInteger("num"), team);
+      }
+    }
+
+    // Loop through the publishes that are waiting to be displayed.
+    for(Map.Entry<String, Pending> entry : m_pending.entrySet())
+    {
+      // Skip saved rubrics, and publishes this display has already shown.
+      Pending pending = entry.getValue();
+      if((pending.m_match == -1) || pending.m_seen.contains(display))
+      {
+        continue;
+      }
+
+      // Record the time it took for this publish to reach this display if
+      // the team's score is now shown (negative scores are shown as zero).
+      JSONObject team = teams.get(pending.m_number);
+      String match = "m" + pending.m_match;
+      if((team != null) && team.isSet(match) &&
+         (team.getFloat(match) == Math.max(pending.m_score, 0)) &&
+         pending.m_seen.add(display))
+      {
+        samples("scoreboard_update").add(System.nanoTime() -
+                                         pending.m_start);
+      }
+    }
+  }
+
+  /**
+   * Generates random selections for the season's scoresheet, all of them in
+   * range.
+   *
+   * @param random The random number generator.
+   *
+   * @return The scoresheet selections.
+   */
+  private JSONObject
+  scoresheetSelections(Random random)
+  {
+    JSONObject sheet = new SimpleJSONObject();
+
+    // Loop through the items of the missions.
+    JSONArray missions = m_scoresheet.getArray("missions");
+    for(int i = 0; i < missions.size(); i++)
+    {
+      JSONObject mission = missions.getObject(i);
+      JSONArray items = mission.getArray("items");
+      for(int j = 0; j < items.size(); j++)
+      {
+        JSONObject item = items.getObject(j);
+
+        // Determine the range of valid selections for this item.
+        int min = 0, max;
+        if(item.getArray("score") != null)
+        {
+          max = item.getArray("score").size() - 1;
+        }
+        else if(item.getString("type").equals("yesno"))
+        {
+          max = 1;
+        }
+        else if(item.getString("type").equals("enum"))
+        {
+          max = item.getObject("choices").getArray("en_US").size() - 1;
+        }
+        else
+        {
+          min = item.getInteger("min");
+          max = item.getInteger("max");
+        }
+
+        // Pick a selection.
+        sheet.set(mission.getString("mission") + "_" + item.getInteger("id"),
+                  min + random.nextInt(max - min + 1));
+      }
+    }
+
+    // Return the selections.
+    return(sheet);
+  }
+
+  /**
+   * Scores scoresheet selections the same way that the server does.
+   *
+   * @param sheet The scoresheet selections.
+   *
+   * @return The score, or <b>null</b> if the selections have errors.
+   */
+  private Float
+  score(JSONObject sheet)
+  {
+    JSONObject result = new SimpleJSONObject();
+
+    // Score the scoresheet.
+    if(m_compiledSheet != null)
+    {
+      m_compiledSheet.score(result, sheet, "en_US", "");
+    }
+    else
+    {
+      Scoresheet.interpret(m_scoresheet, result, sheet, "en_US", "");
+    }
+
+    // Return the score if there are no errors.
+    return((result.getString("result") == null) ?
+           result.getFloat("score") : null);
+  }
+
+  /**
+   * Runs a referee tablet, which follows the referee WebSocket and
+   * periodically scores a scoresheet live (changing a few selections one at
+   * a time) and publishes it.
+   *
+   * @param index The index of the tablet.
+   */
+  private void
+  referee(int index) throws Exception
+  {
+    Random random = new Random(m_seed + index);
+    HttpClient client = client();
+
+    // Follow the referee WebSocket.
+    Object display = new Object();
+    openSocket(client, "/referee/referee.ws",
+               (socket, text) -> stateMessage(display, "referee_update",
+                                              text));
+
+    // Start at a random point in the publishing interval, so that the
+    // tablets do not all publish at once.
+    sleep(random.nextInt(m_refereeInterval * 1000));
+
+    // Loop while the simulation is running.
+    while(m_running)
+    {
+      // Pick a team and a match.
+      int idx = random.nextInt(m_ids.size());
+      int match = 1 + random.nextInt(m_matches);
+      String key = "m" + match + ":" + m_numbers.get(idx);
+
+      // Start scoring a live scoresheet.
+      JSONObject sheet = scoresheetSelections(random);
+      String json = LoadClient.encode(JSONParser.serialize(sheet));
+      JSONObject result =
+        getJson(client, "/referee/referee.json?action=score&live=1&json=" +
+                        json, "referee_score");
+      String live = result.getString("live");
+
+      // Change a few selections, one at a time, to their values in a new set
+      // of random selections.  A change that would leave the scoresheet with
+      // an error, or give the score that is already displayed, is undone.
+      JSONObject target = scoresheetSelections(random);
+      ArrayList<String> keys = new ArrayList<String>(target.keySet());
+      for(int change = 0; change < 5; change++)
+      {
+        String item = keys.get(random.nextInt(keys.size()));
+        int previous = sheet.getInteger(item);
+        sheet.set(item, target.getInteger(item));
+        if(live != null)
+        {
+          get(client, "/referee/referee.json?action=rescore&live=" + live +
+                      "&item=" + item + "&value=" + sheet.getInteger(item),
+              "referee_rescore");
+        }
+        Float score = score(sheet);
+        if((score == null) || ("2:" + score).equals(m_known.get(key)))
+        {
+          sheet.set(item, previous);
+        }
+      }
+
+      // Skip this scoresheet if it would not change what is displayed.
+      Float score = score(sheet);
+      if((score == null) || ("2:" + score).equals(m_known.get(key)))
+      {
+        continue;
+      }
+
+      // Publish the scoresheet, waiting for it to be displayed.
+      Pending pending = new Pending();
+      pending.m_value = "2:" + score;
+      pending.m_number = m_numbers.get(idx);
+      pending.m_match = match;
+      pending.m_score = score;
+      m_pending.put(key, pending);
+      json = LoadClient.encode(JSONParser.serialize(sheet));
+      get(client, "/referee/referee.json?action=publish&id=" + m_ids.get(idx) +
+                  "&match=" + match + "&json=" + json, "referee_publish");
+
+      // Wait until the next scoresheet.
+      sleep(random.nextInt(m_refereeInterval * 2000));
+    }
+  }
+
+  /**
+   * Runs a judging room, which follows the judge WebSocket and periodically
+   * opens and saves a team's complete rubric.
+   *
+   * @param index The index of the judging room.
+   */
+  private void
+  judge(int index) throws Exception
+  {
+    Random random = new Random(m_seed + 1000 + index);
+    HttpClient client = client();
+
+    // Follow the judge WebSocket.
+    Object display = new Object();
+    openSocket(client, "/judge/judge.ws",
+               (socket, text) -> stateMessage(display, "judge_update", text));
+
+    // Start at a random point in the saving interval.
+    sleep(random.nextInt(m_judgeInterval * 1000));
+
+    // Loop while the simulation is running.
+    while(m_running)
+    {
+      // Pick a team, and open its rubric.
+      int idx = random.nextInt(m_ids.size());
+      String key = "ip:" + m_numbers.get(idx);
+      getJson(client, "/judge/judge.json?action=get&id=" + m_ids.get(idx),
+              "judge_get");
+
+      // Select a level for every item of the rubric.
+      JSONObject scores = new SimpleJSONObject();
+      JSONArray areas = m_rubric.getArray("areas");
+      for(int i = 0; i < areas.size(); i++)
+      {
+        JSONArray sections = areas.getObject(i).getArray("sections");
+        for(int j = 0; j < sections.size(); j++)
+        {
+          JSONArray items = sections.getObject(j).getArray("items");
+          for(int k = 0; k < items.size(); k++)
+          {
+            scores.set("R" + i + "_" + j + "_" + k, random.nextInt(4));
+          }
+        }
+      }
+
+      // Total the rubric, and skip it if it would not change what is
+      // displayed.
+      int[] totals = new int[] { -1, -1, -1 };
+      if(m_compiledRubric != null)
+      {
+        m_compiledRubric.total(scores, totals);
+      }
+      else
+      {
+        Rubric.interpret(m_rubric, scores, totals);
+      }
+      String value = Integer.toString(totals[Rubric.PROJECT]);
+      if(value.equals(m_known.get(key)))
+      {
+        continue;
+      }
+
+      // Save the rubric, waiting for it to be displayed.
+      Pending pending = new Pending();
+      pending.m_value = value;
+      pending.m_number = m_numbers.get(idx);
+      pending.m_match = -1;
+      m_pending.put(key, pending);
+      get(client, "/judge/judge.json?action=save&id=" + m_ids.get(idx) +
+                  "&json=" + LoadClient.encode(JSONParser.serialize(scores)),
+          "judge_save");
+
+      // Wait until the next rubric.
+      sleep(random.nextInt(m_judgeInterval * 2000));
+    }
+  }
+
+  /**
+   * Runs a scoreboard display, which follows the scoreboard event stream
+   * (reconnecting if it closes).
+   *
+   * @param index The index of the display.
+   */
+  private void
+  scoreboard(int index) throws Exception
+  {
+    HttpClient client = client();
+    Object display = new Object();
+
+    // Poll the scoreboard, as the display does when the event stream has not
+    // provided it yet.
+    start("scoreboard poll " + index, () ->
+      {
+        while(m_running)
+        {
+          try
+          {
+            get(client, "/scoreboard/scoreboard.json", "scoreboard_json");
+          }
+          catch(Exception e)
+          {
+            System.out.println("Scoreboard error: " + e);
+          }
+          sleep(m_pollInterval * 1000);
+        }
+      });
+
+    // Loop while the simulation is running.
+    while(m_running)
+    {
+      // Open the event stream.
+      HttpRequest request =
+        HttpRequest.newBuilder(URI.create(m_url + "/scoreboard/events"))
+                   .header("Accept", "text/event-stream")
+                   .build();
+      Stream<String> lines =
+        client.send(request, HttpResponse.BodyHandlers.ofLines()).body();
+
+      // Collect the data lines of each event, handling the event at the
+      // blank line that ends it.
+      StringBuilder data = new StringBuilder();
+      Iterator<String> iterator = lines.iterator();
+      while(m_running && iterator.hasNext())
+      {
+        String line = iterator.next();
+        if(line.startsWith("data: "))
+        {
+          data.append(line.substring(6)).append("\n");
+        }
+        else if(line.isEmpty() && (data.length() != 0))
+        {
+          scoreboardUpdate(display, data.toString());
+          data.setLength(0);
+        }
+      }
+      lines.close();
+
+      // Wait a second before reconnecting, as the browser does.
+      sleep(1000);
+    }
+  }
+
+  /**
+   * Runs a standings display, which polls the standings.
+   *
+   * @param index The index of the display.
+   */
+  private void
+  standings(int index) throws Exception
+  {
+    Random random = new Random(m_seed + 2000 + index);
+    HttpClient client = client();
+
+    // Start at a random point in the polling interval.
+    sleep(random.nextInt(m_pollInterval * 1000));
+
+    // Poll the standings while the simulation is running.
+    while(m_running)
+    {
+      get(client, "/standings/standings.json", "standings_json");
+      sleep(m_pollInterval * 1000);
+    }
+  }
+
+  /**
+   * Runs a timer display, which synchronizes its clock with the server over
+   * the timer WebSocket, measuring the round trip time.
+   *
+   * @param index The index of the display.
+   */
+  private void
+  timer(int index) throws Exception
+  {
+    HttpClient client = client();
+
+    // Open the timer WebSocket, recording the round trip time of each clock
+    // synchronization reply (which echoes the time the request was sent).
+    WebSocket socket =
+      openSocket(client, "/timer/timer.ws", (s, text) ->
+        {
+          if(text.startsWith("y:"))
+          {
+            long sent = Long.parseLong(text.split(":")[1]);
+            samples("timer_sync").add((System.currentTimeMillis() - sent) *
+                                      1000000);
+          }
+        });
+
+    // Ask the server to only send the match time when the timer changes
+    // state, as the display does.
+    socket.sendText("sync", true);
+
+    // Synchronize the clock a few times in quick succession, then
+    // periodically, as the display does.
+    for(int count = 0; m_running; count++)
+    {
+      socket.sendText("y:" + System.currentTimeMillis(), true);
+      sleep((count < 5) ? 200 : (m_pollInterval * 1000));
+    }
+  }
+
+  /**
+   * Samples the CPU and thread usage of the server once a second.
+   */
+  private void
+  monitor() throws Exception
+  {
+    HttpClient client = client();
+
+    // Loop while the simulation is running.
+    while(m_running)
+    {
+      // Get the process statistics, stopping if they are not available
+      // (because the user does not have the admin or host role).
+      String json = get(client, "/admin/status/process.json", null);
+      if(!json.startsWith("{"))
+      {
+        System.out.println("The server process statistics are not " +
+                           "available to this user");
+        return;
+      }
+      JSONObject stats = JSONParser.deserializeObject(json);
+
+      // Record the CPU load (in hundredths of a percent, so that it is shown
+      // as a percentage) and the number of threads.
+      if(stats.isSet("cpu_load") && (stats.getDouble("cpu_load") >= 0))
+      {
+        samples("server_cpu_percent").
+          add(Math.round(stats.getDouble("cpu_load") * 100000000.0));
+      }
+      samples("server_threads").add(stats.getLong("threads") * 1000000);
+      sleep(1000);
+    }
+  }
+
+  /**
+   * Reads the teams, scoresheet, and rubric for the selected event from the
+   * server.
+   */
+  private void
+  readEvent() throws Exception
+  {
+    HttpClient client = client();
+
+    // Get the teams at the selected event.
+    JSONObject list = getJson(client, "/referee/referee.json?action=list",
+                              null);
+    JSONArray scores = list.getArray("scores");
+    for(int idx = 0; (scores != null) && (idx < scores.size()); idx++)
+    {
+      m_ids.add(scores.getObject(idx).getInteger("id"));
+      m_numbers.add(scores.getObject(idx).getInteger("number"));
+    }
+    m_matches = list.getInteger("matches");
+    if(m_ids.size() == 0)
+    {
+      throw(new IllegalStateException("The selected event has no teams"));
+    }
+
+    // Get the scoresheet for the season, and compile it.
+    m_scoresheet =
+      getJson(client, "/referee/referee.json?action=get&id=" + m_ids.get(0) +
+                      "&match=1", null).getObject("scoresheet");
+    try
+    {
+      m_compiledSheet = new Scoresheet(m_scoresheet);
+    }
+    catch(Exception e)
+    {
+      m_compiledSheet = null;
+    }
+
+    // Get the rubric for the season, and compile it.
+    m_rubric = getJson(client, "/judge/judge.json?action=get&id=" +
+                               m_ids.get(0), null).getObject("rubric");
+    try
+    {
+      m_compiledRubric = new Rubric(m_rubric);
+    }
+    catch(Exception e)
+    {
+      m_compiledRubric = null;
+    }
+  }
+
+  /**
+   * Parses the command line options.
+   *
+   * @param args The command line options, each in the form --name=value.
+   *
+   * @return <b>true</b> if the options are valid.
+   */
+  private boolean
+  parse(String[] args)
+  {
+    // Loop through the options.
+    for(String arg : args)
+    {
+      // Split this option into its name and value.
+      int idx = arg.indexOf('=');
+      if(!arg.startsWith("--") || (idx == -1))
+      {
+        return(false);
+      }
+      String name = arg.substring(2, idx);
+      String value = arg.substring(idx + 1);
+
+      // Save the value of this option.
+      switch(name)
+      {
+        case "url" -> m_url = value;
+        case "user" -> m_user = value;
+        case "password" -> m_password = value;
+        case "referees" -> m_referees = Integer.parseInt(value);
+        case "judges" -> m_judges = Integer.parseInt(value);
+        case "scoreboards" -> m_scoreboards = Integer.parseInt(value);
+        case "standings" -> m_standings = Integer.parseInt(value);
+        case "timers" -> m_timers = Integer.parseInt(value);
+        case "duration" -> m_duration = Integer.parseInt(value);
+        case "referee-interval" -> m_refereeInterval = Integer.parseInt(value);
+        case "judge-interval" -> m_judgeInterval = Integer.parseInt(value);
+        case "poll-interval" -> m_pollInterval = Integer.parseInt(value);
+        case "seed" -> m_seed = Long.parseLong(value);
+        case "output" -> m_output = value;
+        default ->
+        {
+          return(false);
+        }
+      }
+    }
+
+    // The options are valid.
+    return(true);
+  }
+
+  /**
+   * Runs the simulation.
+   */
+  private void
+  run() throws Exception
+  {
+    // Read the teams, scoresheet, and rubric from the server.
+    readEvent();
+    System.out.println("Simulating " + m_referees + " referees, " +
+                       m_judges + " judges, " + m_scoreboards +
+                       " scoreboards, " + m_standings + " standings, and " +
+                       m_timers + " timers for " + m_ids.size() +
+                       " teams for " + m_duration + " seconds");
+
+    // Start the simulated devices, and the server monitor.
+    for(int idx = 0; idx < m_referees; idx++)
+    {
+      final int index = idx;
+      start("referee " + idx, () -> referee(index));
+    }
+    for(int idx = 0; idx < m_judges; idx++)
+    {
+      final int index = idx;
+      start("judge " + idx, () -> judge(index));
+    }
+    for(int idx = 0; idx < m_scoreboards; idx++)
+    {
+      final int index = idx;
+      start("scoreboard " + idx, () -> scoreboard(index));
+    }
+    for(int idx = 0; idx < m_standings; idx++)
+    {
+      final int index = idx;
+      start("standings " + idx, () -> standings(index));
+    }
+    for(int idx = 0; idx < m_timers; idx++)
+    {
+      final int index = idx;
+      start("timer " + idx, () -> timer(index));
+    }
+    start("monitor", this::monitor);
+
+    // Let the simulation run, then stop it and close the WebSockets.
+    sleep(m_duration * 1000L);
+    m_running = false;
+    synchronized(m_sockets)
+    {
+      for(WebSocket socket : m_sockets)
+      {
+        socket.sendClose(WebSocket.NORMAL_CLOSURE, "");
+      }
+    }
+
+    // Collect the measurements.
+    JSONObject result = new SimpleJSONObject();
+    JSONObject measurements = Samples.toJSON(m_samples);
+    result.set("teams", m_ids.size());
+    result.set("referees", m_referees);
+    result.set("judges", m_judges);
+    result.set("scoreboards", m_scoreboards);
+    result.set("standings", m_standings);
+    result.set("timers", m_timers);
+    result.set("duration", m_duration);
+    result.set("measurements", measurements);
+
+    // Print the measurements, in milliseconds (except for the server CPU
+    // load, in percent, and the number of server threads).
+    Samples.print(measurements);
+
+    // Write the results as JSON, if requested.
+    if(m_output != null)
+    {
+      try(FileWriter writer = new FileWriter(m_output))
+      {
+        writer.write(JSONParser.serialize(result));
+      }
+    }
+  }
+
+  /**
+   * Runs the load simulator.
+   *
+   * @param args The command line options.
+   */
+  public static void
+  main(String[] args) throws Exception
+  {
+    // Parse the command line options.
+    LoadSimulator simulator = new LoadSimulator();
+    if(!simulator.parse(args))
+    {
+      System.out.println("Usage: LoadSimulator " +
+                         "[--url=https://localhost:8443] " +
+                         "[--user=name --password=password]");
+      System.out.println("         [--referees=12] [--judges=6] " +
+                         "[--scoreboards=10] [--standings=2] [--timers=4]");
+      System.out.println("         [--duration=300] [--referee-interval=30]" +
+                         " [--judge-interval=60] [--poll-interval=10]");
+      System.out.println("         [--seed=2024] [--output=results.json]");
+      System.exit(1);
+    }
+
+    // Run the simulation.
+    simulator.run();
+    System.exit(0);
+  }
+}
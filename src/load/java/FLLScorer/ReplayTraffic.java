@@ -0,0 +1,478 @@
+// Copyright (c) 2024 Brian Kircher
+//
+// Open Source Software; you can modify and/or share it under the terms of BSD
+// license file in the root directory of this project.
+
+package FLLScorer;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.WebSocket;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.bspfsystems.simplejson.JSONObject;
+import org.bspfsystems.simplejson.SimpleJSONObject;
+import org.bspfsystems.simplejson.parser.JSONParser;
+
+/**
+ * Replays a traffic capture (written by TrafficCapture when the "httpCapture"
+ * configuration value is set) against a running instance of the application,
+ * for capacity testing with the traffic of a real tournament.
+ * <p>
+ * Each client in the capture (a browser session or a WebSocket) is replayed
+ * by its own HTTP client, which makes the client's requests in order at their
+ * original times divided by the speed.  A client that falls behind (because
+ * the server is slow to respond) catches up as quickly as it can, so the
+ * amount by which the requests were late is reported along with the time of
+ * each request, next to the time the server took to handle the same request
+ * when it was captured.  At maximum speed, each client makes its requests
+ * back to back.
+ * <p>
+ * The capture changes the data in the database (for example, it publishes
+ * scores), so this should only be run against a fresh instance of the
+ * application with a copy of the database from the start of the capture.
+ * Passwords are removed from the capture, so the replay signs in as a single
+ * user, which must have the admin or host role unless security is bypassed.
+ */
+public class ReplayTraffic
+{
+  /**
+   * The URL of the server.
+   */
+  private String m_url = "https://localhost:8443";
+
+  /**
+   * The name of the user to sign in as, or <b>null</b> if security is
+   * bypassed.
+   */
+  private String m_user = null;
+
+  /**
+   * The password of the user.
+   */
+  private String m_password = "";
+
+  /**
+   * The capture file.
+   */
+  private String m_capture = null;
+
+  /**
+   * The speed of the replay, as a multiple of the original speed, or <b>0</b>
+   * to replay as fast as possible.
+   */
+  private double m_speed = 1;
+
+  /**
+   * The file to which the results are written as JSON, or <b>null</b> if
+   * they are only printed.
+   */
+  private String m_output = null;
+
+  /**
+   * The records of the capture, for each client.
+   */
+  private TreeMap<Integer, ArrayList<JSONObject>> m_clients =
+    new TreeMap<Integer, ArrayList<JSONObject>>();
+
+  /**
+   * The time, in nanoseconds, at which the replay started.
+   */
+  private long m_start;
+
+  /**
+   * The time of each request during the replay, indexed by the request.
+   */
+  private LinkedHashMap<String, Samples> m_replay =
+    new LinkedHashMap<String, Samples>();
+
+  /**
+   * The time the server took to handle each request when it was captured,
+   * indexed by the request.
+   */
+  private LinkedHashMap<String, Samples> m_captured =
+    new LinkedHashMap<String, Samples>();
+
+  /**
+   * The amount by which each record was replayed later than its scheduled
+   * time.
+   */
+  private Samples m_lag = new Samples();
+
+  /**
+   * The number of requests that succeeded when they were captured but failed
+   * when they were replayed.
+   */
+  private AtomicLong m_errors = new AtomicLong();
+
+  /**
+   * Gets a measurement set, creating it if necessary.
+   *
+   * @param samples The measurement sets.
+   *
+   * @param name The name of the measurements.
+   *
+   * @return The measurements.
+   */
+  private static Samples
+  samples(LinkedHashMap<String, Samples> samples, String name)
+  {
+    // Find or create the measurements.
+    synchronized(samples)
+    {
+      return(samples.computeIfAbsent(name, k -> new Samples()));
+    }
+  }
+
+  /**
+   * Reads the capture file, grouping the records by client.
+   *
+   * @return The number of records.
+   */
+  private int
+  read() throws Exception
+  {
+    int count = 0;
+
+    // Read the records from the capture file, one per line.
+    try(BufferedReader reader =
+          new BufferedReader(new FileReader(m_capture,
+                                            StandardCharsets.UTF_8)))
+    {
+      String line;
+      while((line = reader.readLine()) != null)
+      {
+        // Skip any line that is not a complete record (such as a partial
+        // line at the end of a capture that was stopped while it was being
+        // written).
+        if(!line.startsWith("{") || !line.endsWith("}"))
+        {
+          continue;
+        }
+
+        // Add this record to its client's records.
+        JSONObject record = JSONParser.deserializeObject(line);
+        m_clients.computeIfAbsent(record.getInteger("c"),
+                                  k -> new ArrayList<JSONObject>())
+                 .add(record);
+        count++;
+      }
+    }
+
+    // Sort each client's records by time, since requests are written to the
+    // capture when they complete.
+    for(ArrayList<JSONObject> records : m_clients.values())
+    {
+      records.sort((a, b) -> Long.compare(a.getLong("t"), b.getLong("t")));
+    }
+
+    // Return the number of records.
+    return(count);
+  }
+
+  /**
+   * Makes a request, and records how long it takes.
+   *
+   * @param client The HTTP client.
+   *
+   * @param request The request.
+   *
+   * @param record The captured record for the request.
+   *
+   * @param name The name of the request.
+   */
+  private void
+  send(HttpClient client, HttpRequest request, JSONObject record, String name)
+    throws Exception
+  {
+    // Make the request.
+    long start = System.nanoTime();
+    HttpResponse<Void> response =
+      client.send(request, HttpResponse.BodyHandlers.discarding());
+
+    // Record how long the request took, and how long the server took to
+    // handle it when it was captured.
+    samples(m_replay, name).add(System.nanoTime() - start);
+    samples(m_captured, name).add(record.getLong("d") * 1000);
+
+    // Count the request as an error if it succeeded when it was captured but
+    // failed now.
+    if((record.getInteger("s") < 400) && (response.statusCode() >= 400))
+    {
+      m_errors.incrementAndGet();
+    }
+  }
+
+  /**
+   * Replays the records of a client.
+   *
+   * @param records The records of the client.
+   */
+  private void
+  replay(ArrayList<JSONObject> records) throws Exception
+  {
+    HttpClient client = null;
+    WebSocket socket = null;
+
+    // Loop through the records.
+    for(JSONObject record : records)
+    {
+      // Wait until the scheduled time of this record, recording how late it
+      // is if the client has fallen behind.
+      if(m_speed != 0)
+      {
+        long due = m_start + (long)((record.getLong("t") * 1000000) /
+                                    m_speed);
+        long wait = due - System.nanoTime();
+        if(wait > 0)
+        {
+          TimeUnit.NANOSECONDS.sleep(wait);
+        }
+        m_lag.add(Math.max(System.nanoTime() - due, 0));
+      }
+
+      // Create the HTTP client for this client when it is first needed.
+      if(client == null)
+      {
+        client = LoadClient.create(m_url, m_user, m_password);
+      }
+
+      // Replay the record.
+      String kind = record.getString("k");
+      String path = record.getString("p");
+      if(kind.equals("get") && path.endsWith("/events"))
+      {
+        // Open the event stream, which stays open (in the background) until
+        // the replay ends.
+        HttpRequest request =
+          HttpRequest.newBuilder(URI.create(m_url + path))
+                     .header("Accept", "text/event-stream")
+                     .build();
+        client.sendAsync(request, HttpResponse.BodyHandlers.discarding());
+      }
+      else if(kind.equals("get"))
+      {
+        // Make the GET request with the captured query string, naming it by
+        // its action (if it has one).
+        String query = record.getString("q");
+        String name = "GET " + path;
+        if(query != null)
+        {
+          for(String param : query.split("&"))
+          {
+            if(param.startsWith("action="))
+            {
+              name += "?" + param;
+            }
+          }
+        }
+        HttpRequest request =
+          HttpRequest.newBuilder(URI.create(m_url + path +
+                                            ((query == null) ? "" :
+                                             ("?" + query))))
+                     .timeout(Duration.ofSeconds(60))
+                     .build();
+        send(client, request, record, name);
+      }
+      else if(kind.equals("post"))
+      {
+        // Encode the captured form parameters, and make the POST request,
+        // naming it by its action (if it has one).
+        JSONObject form = record.getObject("f");
+        StringBuilder body = new StringBuilder();
+        for(String key : form.keySet())
+        {
+          body.append((body.length() == 0) ? "" : "&");
+          body.append(LoadClient.encode(key)).append("=");
+          body.append(LoadClient.encode(form.getString(key)));
+        }
+        String name = "POST " + path +
+                      (form.isSet("action") ?
+                       ("?action=" + form.getString("action")) : "");
+        HttpRequest request =
+          HttpRequest.newBuilder(URI.create(m_url + path))
+                     .header("Content-Type",
+                             "application/x-www-form-urlencoded")
+                     .POST(HttpRequest.BodyPublishers.ofString(
+                             body.toString()))
+                     .timeout(Duration.ofSeconds(60))
+                     .build();
+        send(client, request, record, name);
+      }
+      else if(kind.equals("open"))
+      {
+        // Open the WebSocket, ignoring the messages from the server.
+        socket = LoadClient.openSocket(client, m_url, path, (s, text) -> {});
+      }
+      else if(kind.equals("msg") && (socket != null))
+      {
+        // Send the message, waiting for it to be sent (since only one
+        // message can be outstanding at a time).
+        socket.sendText(record.getString("x"), true).join();
+      }
+      else if(kind.equals("close") && (socket != null))
+      {
+        // Close the WebSocket.
+        socket.sendClose(WebSocket.NORMAL_CLOSURE, "").join();
+        socket = null;
+      }
+    }
+  }
+
+  /**
+   * Parses the command line options.
+   *
+   * @param args The command line options, each in the form --name=value.
+   *
+   * @return <b>true</b> if the options are valid.
+   */
+  private boolean
+  parse(String[] args)
+  {
+    // Loop through the options.
+    for(String arg : args)
+    {
+      // Split this option into its name and value.
+      int idx = arg.indexOf('=');
+      if(!arg.startsWith("--") || (idx == -1))
+      {
+        return(false);
+      }
+      String name = arg.substring(2, idx);
+      String value = arg.substring(idx + 1);
+
+      // Save the value of this option.
+      switch(name)
+      {
+        case "url" -> m_url = value;
+        case "user" -> m_user = value;
+        case "password" -> m_password = value;
+        case "capture" -> m_capture = value;
+        case "speed" ->
+          m_speed = value.equals("max") ? 0 : Double.parseDouble(value);
+        case "output" -> m_output = value;
+        default ->
+        {
+          return(false);
+        }
+      }
+    }
+
+    // The options are valid if a capture file was given.
+    return((m_capture != null) && (m_speed >= 0));
+  }
+
+  /**
+   * Runs the replay.
+   */
+  private void
+  run() throws Exception
+  {
+    // Read the capture.
+    int count = read();
+    System.out.println("Replaying " + count + " records from " +
+                       m_clients.size() + " clients at " +
+                       ((m_speed == 0) ? "maximum" : (m_speed + "x")) +
+                       " speed");
+
+    // Start a thread to replay each client.
+    ArrayList<Thread> threads = new ArrayList<Thread>();
+    m_start = System.nanoTime();
+    for(int client : m_clients.keySet())
+    {
+      ArrayList<JSONObject> records = m_clients.get(client);
+      Thread thread = new Thread(() ->
+        {
+          try
+          {
+            replay(records);
+          }
+          catch(Exception e)
+          {
+            System.out.println("Client " + client + " error: " + e);
+          }
+        });
+      thread.setDaemon(true);
+      thread.start();
+      threads.add(thread);
+    }
+
+    // Wait for the clients to finish.
+    for(Thread thread : threads)
+    {
+      thread.join();
+    }
+    double elapsed = (System.nanoTime() - m_start) / 1000000000.0;
+
+    // Collect the measurements.
+    JSONObject result = new SimpleJSONObject();
+    JSONObject replay = Samples.toJSON(m_replay);
+    JSONObject captured = Samples.toJSON(m_captured);
+    JSONObject lag = m_lag.toJSON();
+    result.set("capture", m_capture);
+    result.set("speed", m_speed);
+    result.set("records", count);
+    result.set("clients", m_clients.size());
+    result.set("elapsed", elapsed);
+    result.set("errors", m_errors.get());
+    result.set("lag", lag);
+    result.set("replay", replay);
+    result.set("captured", captured);
+
+    // Print the measurements.
+    System.out.println(String.format("Replayed in %.1f seconds, with %d " +
+                                     "errors and a p99 lag of %s ms",
+                                     elapsed, m_errors.get(),
+                                     lag.get("p99")));
+    System.out.println();
+    System.out.println("Replay:");
+    Samples.print(replay);
+    System.out.println();
+    System.out.println("Captured:");
+    Samples.print(captured);
+
+    // Write the results as JSON, if requested.
+    if(m_output != null)
+    {
+      try(FileWriter writer = new FileWriter(m_output))
+      {
+        writer.write(JSONParser.serialize(result));
+      }
+    }
+  }
+
+  /**
+   * Runs the replay tool.
+   *
+   * @param args The command line options.
+   */
+  public static void
+  main(String[] args) throws Exception
+  {
+    // Parse the command line options.
+    ReplayTraffic replay = new ReplayTraffic();
+    if(!replay.parse(args))
+    {
+      System.out.println("Usage: ReplayTraffic --capture=capture.jsonl " +
+                         "[--url=https://localhost:8443]");
+      System.out.println("         [--user=name --password=password] " +
+                         "[--speed=1|10|max] [--output=results.json]");
+      System.exit(1);
+    }
+
+    // Run the replay.
+    replay.run();
+    System.exit(0);
+  }
+}
@@ -0,0 +1,154 @@
+// Copyright (c) 2024 Brian Kircher
+//
+// Open Source Software; you can modify and/or share it under the terms of BSD
+// license file in the root directory of this project.
+
+package FLLScorer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Map;
+
+import org.bspfsystems.simplejson.JSONObject;
+import org.bspfsystems.simplejson.SimpleJSONObject;
+
+/**
+ * A set of measurements, in nanoseconds, for the load tools, which are
+ * reported as percentiles in milliseconds.
+ */
+class Samples
+{
+  /**
+   * The measurements.
+   */
+  private ArrayList<Long> m_values = new ArrayList<Long>();
+
+  /**
+   * Adds a measurement.
+   *
+   * @param value The measurement to add.
+   */
+  synchronized void
+  add(long value)
+  {
+    // Add the measurement.
+    m_values.add(value);
+  }
+
+  /**
+   * Converts the measurements into a JSON object, in milliseconds.
+   *
+   * @return The JSON object describing the measurements.
+   */
+  synchronized JSONObject
+  toJSON()
+  {
+    JSONObject result = new SimpleJSONObject();
+
+    // Sort the measurements, so that the percentiles can be found.
+    ArrayList<Long> values = new ArrayList<Long>(m_values);
+    Collections.sort(values);
+
+    // Add the count and the percentiles of the measurements.
+    result.set("count", values.size());
+    if(values.size() != 0)
+    {
+      result.set("min", millis(values.get(0)));
+      result.set("p50", millis(percentile(values, 50)));
+      result.set("p95", millis(percentile(values, 95)));
+      result.set("p99", millis(percentile(values, 99)));
+      result.set("max", millis(values.get(values.size() - 1)));
+    }
+
+    // Return the JSON object.
+    return(result);
+  }
+
+  /**
+   * Converts a set of named measurements into a JSON object.
+   *
+   * @param samples The measurements, indexed by name.
+   *
+   * @return The JSON object, with the measurements (in milliseconds) indexed
+   *         by name.
+   */
+  static JSONObject
+  toJSON(Map<String, Samples> samples)
+  {
+    JSONObject result = new SimpleJSONObject();
+
+    // Add each set of measurements.
+    synchronized(samples)
+    {
+      for(Map.Entry<String, Samples> entry : samples.entrySet())
+      {
+        result.set(entry.getKey(), entry.getValue().toJSON());
+      }
+    }
+
+    // Return the JSON object.
+    return(result);
+  }
+
+  /**
+   * Prints a set of named measurements as a table.
+   *
+   * @param measurements The JSON object with the measurements, as returned by
+   *                     toJSON().
+   */
+  static void
+  print(JSONObject measurements)
+  {
+    // Find the length of the longest name.
+    int width = 20;
+    for(String name : measurements.keySet())
+    {
+      width = Math.max(width, name.length());
+    }
+
+    // Print the heading, then the measurements.
+    String format = "%-" + width + "s %7s %9s %9s %9s %9s %9s";
+    System.out.println(String.format(format, "", "count", "min", "p50",
+                                     "p95", "p99", "max"));
+    for(String name : measurements.keySet())
+    {
+      JSONObject stats = measurements.getObject(name);
+      System.out.println(String.format(format, name, stats.get("count"),
+                                       stats.get("min"), stats.get("p50"),
+                                       stats.get("p95"), stats.get("p99"),
+                                       stats.get("max")));
+    }
+  }
+
+  /**
+   * Finds a percentile of a sorted list of measurements.
+   *
+   * @param values The sorted measurements.
+   *
+   * @param percent The percentile to find.
+   *
+   * @return The measurement at the percentile.
+   */
+  private static long
+  percentile(ArrayList<Long> values, int percent)
+  {
+    // Return the measurement at the percentile.
+    int idx = (int)Math.ceil((percent / 100.0) * values.size()) - 1;
+    return(values.get(Math.max(idx, 0)));
+  }
+
+  /**
+   * Converts a measurement from nanoseconds to milliseconds, rounded to a
+   * tenth of a millisecond.
+   *
+   * @param value The measurement, in nanoseconds.
+   *
+   * @return The measurement, in milliseconds.
+   */
+  private static double
+  millis(long value)
+  {
+    // Convert the measurement.
+    return(Math.round(value / 100000.0) / 10.0);
+  }
+}
@@ -65,6 +65,17 @@ public class Config
    */
   private static final String m_httpDebugKey = new String("httpDebug");
 
+  /**
+   * The database key used to store the HTTP capture configuration.
+   */
+  private static final String m_httpCaptureKey = new String("httpCapture");
+
+  /**
+   * The database key used to store the flight recorder configuration.
+   */
+  private static final String m_flightRecorderKey =
+    new String("flightRecorder");
+
   /**
    * The database key used to store the current locale.
    */
@@ -530,6 +541,78 @@ public class Config
     m_database.configValueSet(m_httpDebugKey, enable ? "1" : "0");
   }
 
+  /**
+   * Gets the HTTP capture configuration value.
+   *
+   * @return <b>true</b> if the traffic from the browsers should be captured
+   *         to a file, so that it can be replayed for capacity testing.
+   */
+  public boolean
+  httpCaptureGet()
+  {
+    // Get the value of the configuration value from the database.
+    String capture = m_database.configValueGet(m_httpCaptureKey);
+
+    // If the configuration value does not exist in the database, or has a
+    // value of zero, then the traffic should not be captured.
+    if((capture == null) || (Integer.parseInt(capture) == 0))
+    {
+      return(false);
+    }
+
+    // The traffic should be captured.
+    return(true);
+  }
+
+  /**
+   * Sets the HTTP capture configuration value.  This takes effect the next
+   * time the application is started.
+   *
+   * @param enable A boolean that is <b>true</b> if the traffic from the
+   *               browsers should be captured to a file.
+   */
+  public void
+  httpCaptureSet(boolean enable)
+  {
+    // Set or add the configuration value.
+    m_database.configValueSet(m_httpCaptureKey, enable ? "1" : "0");
+  }
+
+  /**
+   * Gets the flight recorder configuration value.
+   *
+   * @return <b>true</b> if the continuous flight recording should be running.
+   */
+  public boolean
+  flightRecorderGet()
+  {
+    // Get the value of the configuration value from the database.
+    String recorder = m_database.configValueGet(m_flightRecorderKey);
+
+    // If the configuration value does not exist in the database, or has a
+    // value of zero, then the recording should not be running.
+    if((recorder == null) || (Integer.parseInt(recorder) == 0))
+    {
+      return(false);
+    }
+
+    // The recording should be running.
+    return(true);
+  }
+
+  /**
+   * Sets the flight recorder configuration value.
+   *
+   * @param enable A boolean that is <b>true</b> if the continuous flight
+   *               recording should be running.
+   */
+  public void
+  flightRecorderSet(boolean enable)
+  {
+    // Set or add the configuration value.
+    m_database.configValueSet(m_flightRecorderKey, enable ? "1" : "0");
+  }
+
   /**
    * Gets the currently selected locale.
    *
@@ -841,7 +924,10 @@ public class Config
       result.set("division3_name", divisionNameGet(3));
       result.set("division4_color", divisionColorGet(4));
       result.set("division4_name", divisionNameGet(4));
+      result.set("db_debug", m_database.dbDebugGet());
       result.set("error", errorColorGet());
+      result.set("flight_recorder", Flight.getInstance().recordingGet());
+      result.set("http_debug", httpDebugGet());
       result.set("timer_enable", timerEnableGet());
       result.set("timer_location", timerLocationGet());
       result.set("wifi_password", wifiPasswordGet());
@@ -973,6 +1059,28 @@ public class Config
         result.set("result", "ok");
       }
 
+      // Save the database debug state if it was provided.
+      if(paramMap.containsKey("db_debug"))
+      {
+        m_database.dbDebugSet(paramMap.get("db_debug").equals("1"));
+        result.set("result", "ok");
+      }
+
+      // Start or stop the flight recording if requested.
+      if(paramMap.containsKey("flight_recorder"))
+      {
+        Flight.getInstance().
+          recordingSet(paramMap.get("flight_recorder").equals("1"));
+        result.set("result", "ok");
+      }
+
+      // Save the HTTP debug state if it was provided.
+      if(paramMap.containsKey("http_debug"))
+      {
+        httpDebugSet(paramMap.get("http_debug").equals("1"));
+        result.set("result", "ok");
+      }
+
       // Save the timer enable state if it was provided.
       if(paramMap.containsKey("timer_enable"))
       {
@@ -0,0 +1,267 @@
+// Copyright (c) 2024 Brian Kircher
+//
+// Open Source Software; you can modify and/or share it under the terms of BSD
+// license file in the root directory of this project.
+
+package FLLScorer;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+
+/**
+ * Provides the "get out of jail free" controls of the GUI on the console,
+ * for when the application is run without a window (headless).  Commands are
+ * read from standard input, one per line; if there is no standard input (for
+ * example, when run as a service), the console simply does nothing.
+ * <p>
+ * This is a singleton that is acquired via the getInstance() method.
+ */
+public class Console
+{
+  /**
+   * The object for the Console singleton.
+   */
+  private static Console m_instance = null;
+
+  /**
+   * The Webserver object.
+   */
+  private WebServer m_webserver = null;
+
+  /**
+   * The Database object.
+   */
+  private Database m_database = null;
+
+  /**
+   * The Config object.
+   */
+  private Config m_config = null;
+
+  /**
+   * The reader for standard input.
+   */
+  private BufferedReader m_reader = null;
+
+  /**
+   * Gets the Console singleton object, creating it if necessary.
+   *
+   * @return Returns the Console singleton.
+   */
+  public static Console
+  getInstance()
+  {
+    // Create the Console object if required.
+    if(m_instance == null)
+    {
+      m_instance = new Console();
+    }
+
+    // Return the Console object.
+    return(m_instance);
+  }
+
+  /**
+   * The constructor.  This is private so that the object can only be created
+   * via the getIntance() method.
+   */
+  private
+  Console()
+  {
+  }
+
+  /**
+   * Determines if the application is being run by a developer (that is, not
+   * from a JAR file), in which case the developer-only commands are
+   * available, the same as the developer-only controls in the GUI.
+   *
+   * @return <b>true</b> if the application is not running from a JAR file.
+   */
+  private boolean
+  development()
+  {
+    // See if this class was loaded from a file instead of a JAR file.
+    String className = this.getClass().getSimpleName() + ".class";
+    String protocol = this.getClass().getResource(className).getProtocol();
+    return(Objects.equals(protocol, "file"));
+  }
+
+  /**
+   * Prints the commands that are supported.
+   */
+  private void
+  help()
+  {
+    // Print the commands.
+    System.out.println("Commands:");
+    System.out.println("  url                 Print the web site address");
+    System.out.println("  reset-admin         Reset the admin password");
+    if(development())
+    {
+      System.out.println("  logins on|off       Enable or disable the logins");
+    }
+    System.out.println("  db-debug on|off     Log the database requests");
+    System.out.println("  http-debug on|off   Log the HTTP requests");
+    System.out.println("  quit                Stop the application");
+  }
+
+  /**
+   * Resets the admin user's password to the default, after confirming that
+   * this is wanted.
+   */
+  private void
+  resetAdmin() throws Exception
+  {
+    // Confirm that the user really wants to reset the admin password.
+    System.out.print(m_webserver.getSSI("str_gui_reset_admin_confirm") +
+                     " (yes/no) ");
+    String answer = m_reader.readLine();
+    if((answer == null) || !answer.trim().equalsIgnoreCase("yes"))
+    {
+      return;
+    }
+
+    // Change the admin user's password to the hashed default password.
+    m_database.userPasswordSet("admin",
+                               MD5SHA.hash("admin",
+                                           Database.m_adminDefaultPassword));
+
+    // Display a confirmation message.
+    System.out.println(m_webserver.getSSI("str_gui_reset_admin_msg"));
+  }
+
+  /**
+   * Runs a command.
+   *
+   * @param line The command, as entered.
+   */
+  private void
+  command(String line) throws Exception
+  {
+    // Split the command into its name and its argument (if any).
+    String[] words = line.trim().split("\\s+");
+    String name = words[0].toLowerCase();
+    Boolean on = null;
+    if(words.length > 1)
+    {
+      on = words[1].equalsIgnoreCase("on") ? Boolean.TRUE :
+           words[1].equalsIgnoreCase("off") ? Boolean.FALSE : null;
+    }
+
+    // Ignore blank lines.
+    if(name.equals(""))
+    {
+      return;
+    }
+
+    // Print the address of the web site.
+    else if(name.equals("url"))
+    {
+      System.out.println("https://" + Links.getIP() + ":8443");
+    }
+
+    // Reset the admin user's password.
+    else if(name.equals("reset-admin"))
+    {
+      resetAdmin();
+    }
+
+    // Enable or disable the logins (which bypasses the security when they
+    // are off).  This is only available to a developer.
+    else if(name.equals("logins") && (on != null) && development())
+    {
+      m_config.securityBypassSet(!on);
+      System.out.println(m_webserver.getSSI("str_gui_restart_msg"));
+    }
+
+    // Enable or disable the logging of the database requests.
+    else if(name.equals("db-debug") && (on != null))
+    {
+      m_database.dbDebugSet(on);
+      System.out.println(m_webserver.getSSI("str_gui_restart_msg"));
+    }
+
+    // Enable or disable the logging of the HTTP requests.
+    else if(name.equals("http-debug") && (on != null))
+    {
+      m_config.httpDebugSet(on);
+      System.out.println(m_webserver.getSSI("str_gui_restart_msg"));
+    }
+
+    // Stop the application.
+    else if(name.equals("quit"))
+    {
+      System.exit(0);
+    }
+
+    // Otherwise, print the commands that are supported.
+    else
+    {
+      help();
+    }
+  }
+
+  /**
+   * Reads and runs the commands, in the background.
+   */
+  private class Reader implements Runnable
+  {
+    /**
+     * The code that runs in the console thread.
+     */
+    @Override
+    public void
+    run()
+    {
+      // Loop until there is no more input.
+      while(true)
+      {
+        try
+        {
+          // Read the next command, stopping at the end of the input.
+          String line = m_reader.readLine();
+          if(line == null)
+          {
+            return;
+          }
+
+          // Run the command.
+          command(line);
+        }
+        catch(Exception e)
+        {
+          System.out.println("Console error: " + e);
+          return;
+        }
+      }
+    }
+  }
+
+  /**
+   * Performs initial setup for the console.
+   */
+  public void
+  setup()
+  {
+    // Get references to the web server, database, and the configuration
+    // manager.
+    m_webserver = WebServer.getInstance();
+    m_database = Database.getInstance();
+    m_config = Config.getInstance();
+
+    // Print the address of the web site, and how to get the commands.
+    System.out.println("Running without a window; the web site is at " +
+                       "https://" + Links.getIP() + ":8443");
+    System.out.println("Type \"help\" for the console commands.");
+
+    // Start the thread that reads the commands.
+    m_reader =
+      new BufferedReader(new InputStreamReader(System.in,
+                                               StandardCharsets.UTF_8));
+    Thread thread = new Thread(new Reader(), "Console");
+    thread.setDaemon(true);
+    thread.start();
+  }
+}
@@ -12,6 +12,8 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 
@@ -51,6 +53,40 @@ public class Database
    */
   private Lock m_lock = new ReentrantLock(true);
 
+  /**
+   * The lock that is held while a SQL statement is executed on the
+   * connection, so that the time spent waiting for it can be measured.  It
+   * is also held for the whole of a transaction, so that the statements from
+   * other threads are not made part of the transaction (the connection is
+   * shared by all threads); it is reentrant so that the statements within
+   * the transaction can still acquire it.
+   */
+  private Lock m_connectionLock = new ReentrantLock();
+
+  /**
+   * The measurements of the SQL statements.
+   */
+  private QueryStats m_queryStats = QueryStats.getInstance();
+
+  /**
+   * The version of the data that is shared by all the events (the seasons,
+   * events, teams, and configuration), which is incremented whenever any of
+   * it changes.
+   */
+  private AtomicInteger m_version = new AtomicInteger(0);
+
+  /**
+   * The version of the scores and judging results for each event, indexed by
+   * the event ID, which is incremented whenever they change.
+   */
+  private ConcurrentHashMap<Integer, Integer> m_eventVersions =
+    new ConcurrentHashMap<Integer, Integer>();
+
+  /**
+   * The number of changes that have been made to the database.
+   */
+  private AtomicInteger m_changes = new AtomicInteger(0);
+
   /**
    * When set to <b>true</b>, every SQL statement is printed to the terminal
    * for debugging purposes.  This is configurable via the "dbDebug" value in
@@ -63,6 +99,22 @@ public class Database
    */
   private static final String m_dbDebugKey = new String("dbDebug");
 
+  /**
+   * The database key used to store the slow query threshold.
+   */
+  private static final String m_dbSlowQueryKey = new String("dbSlowQuery");
+
+  /**
+   * The default slow query threshold, in milliseconds.
+   */
+  private static final int m_dbSlowQueryDefault = 100;
+
+  /**
+   * The database key used to store whether the detailed query statistics are
+   * measured.
+   */
+  private static final String m_dbQueryDetailKey = new String("dbQueryDetail");
+
   /**
    * The default password for the "admin" user.
    */
@@ -129,6 +181,71 @@ public class Database
     m_lock.unlock();
   }
 
+  /**
+   * Records a change to the data in the database.
+   *
+   * @param event_id The ID of the event whose scores or judging results were
+   *                 changed, or <b>-1</b> if data shared by all the events
+   *                 was changed.
+   */
+  private void
+  dataChanged(int event_id)
+  {
+    // Increment the version of the event, or of the shared data.
+    if(event_id != -1)
+    {
+      m_eventVersions.merge(event_id, 1, Integer::sum);
+    }
+    else
+    {
+      m_version.incrementAndGet();
+    }
+
+    // Increment the number of changes.
+    m_changes.incrementAndGet();
+  }
+
+  /**
+   * Gets the version of the data that is shared by all the events (the
+   * seasons, events, teams, and configuration).
+   *
+   * @return The version of the shared data.
+   */
+  public int
+  versionGet()
+  {
+    // Return the version of the shared data.
+    return(m_version.get());
+  }
+
+  /**
+   * Gets the version of the scores and judging results for an event.
+   *
+   * @param event_id The ID of the event.
+   *
+   * @return The version of the event's data.
+   */
+  public int
+  eventVersionGet(int event_id)
+  {
+    // Return the version of this event.
+    return(m_eventVersions.getOrDefault(event_id, 0));
+  }
+
+  /**
+   * Gets the number of changes that have been made to the database.  This
+   * changes whenever either the shared data or the data for any event
+   * changes.
+   *
+   * @return The number of changes.
+   */
+  public int
+  changeCountGet()
+  {
+    // Return the number of changes.
+    return(m_changes.get());
+  }
+
   /**
    * Executes the given SQL statement, which returns a single {@link ResultSet}
    * object.
@@ -149,14 +266,34 @@ public class Database
   private ResultSet
   executeQuery(Statement stmt, String sql) throws SQLException
   {
+    ResultSet result;
+
     // If debugging is enabled, print out the SQL statement.
     if(m_debug)
     {
       System.out.println(sql);
     }
 
-    // Execute the SQL statement.
-    return(stmt.executeQuery(sql));
+    // Find the method that is executing this statement, for the query
+    // statistics.
+    String method = m_queryStats.caller();
+
+    // Wait for the connection, and execute the SQL statement.
+    long start = System.nanoTime();
+    m_connectionLock.lock();
+    long wait = System.nanoTime() - start;
+    try
+    {
+      result = stmt.executeQuery(sql);
+    }
+    finally
+    {
+      m_connectionLock.unlock();
+    }
+
+    // Measure the query, which completes when the results have been read
+    // and the statement is closed.
+    return(m_queryStats.query(stmt, method, sql, start, wait, result));
   }
 
   /**
@@ -179,6 +316,8 @@ public class Database
   private int
   executeUpdate(Statement stmt, String sql) throws SQLException
   {
+    int rows;
+
     // If debugging is enabled, print out the SQL statement.
     if(m_debug)
     {
@@ -188,8 +327,59 @@ public class Database
     // Log this statement.
     Log(sql);
 
-    // Execute the SQL statement.
-    return(stmt.executeUpdate(sql));
+    // Find the method that is executing this statement, for the query
+    // statistics.
+    String method = m_queryStats.caller();
+
+    // Wait for the connection, and execute the SQL statement.
+    long start = System.nanoTime();
+    m_connectionLock.lock();
+    long wait = System.nanoTime() - start;
+    try
+    {
+      rows = stmt.executeUpdate(sql);
+    }
+    finally
+    {
+      m_connectionLock.unlock();
+    }
+
+    // Measure the update.
+    m_queryStats.update(method, sql, start, wait, rows);
+
+    // Return the result of the statement.
+    return(rows);
+  }
+
+  /**
+   * Creates a SQL statement, whose queries are measured by the query
+   * statistics.
+   *
+   * @return The new {@link Statement}.
+   *
+   * @throws SQLException if a database access error occurs.
+   */
+  private Statement
+  createStatement() throws SQLException
+  {
+    // Create the statement, wrapped for the query statistics.
+    return(m_queryStats.statement(m_connection.createStatement()));
+  }
+
+  /**
+   * Closes a SQL statement, completing the measurement of the query that was
+   * executed on it (if any).
+   *
+   * @param stmt The {@link Statement} to close.
+   *
+   * @throws SQLException if a database access error occurs.
+   */
+  private void
+  closeStatement(Statement stmt) throws SQLException
+  {
+    // Record the query on the statement, and close it.
+    m_queryStats.close(stmt);
+    stmt.close();
   }
 
   /**
@@ -296,7 +486,7 @@ public class Database
     try
     {
       // Create a SQL statement.
-      Statement stmt = m_connection.createStatement();
+      Statement stmt = createStatement();
 
       // Execute the SQL statement to create the config table.
       executeUpdate(stmt, config);
@@ -323,7 +513,7 @@ public class Database
       executeUpdate(stmt, user);
 
       // Close the SQL statement.
-      stmt.close();
+      closeStatement(stmt);
     }
     catch (Exception e)
     {
@@ -382,7 +572,7 @@ public class Database
     try
     {
       // Create a SQL statement.
-      Statement stmt = m_connection.createStatement();
+      Statement stmt = createStatement();
 
       // Update the score table.
       executeUpdate(stmt, scoreAddMatch0);
@@ -394,7 +584,7 @@ public class Database
       executeUpdate(stmt, teamUpdate);
 
       // Close the SQL statement.
-      stmt.close();
+      closeStatement(stmt);
     }
     catch (Exception e)
     {
@@ -438,7 +628,7 @@ public class Database
     try
     {
       // Create a SQL statement.
-      Statement stmt = m_connection.createStatement();
+      Statement stmt = createStatement();
 
       // Create the V1 database schema if it does not exist.
       try
@@ -466,7 +656,7 @@ public class Database
       }
 
       // Close the SQL statement.
-      stmt.close();
+      closeStatement(stmt);
     }
     catch (Exception e)
     {
@@ -494,7 +684,7 @@ public class Database
     try
     {
       // Create a SQL statement.
-      Statement stmt = m_connection.createStatement();
+      Statement stmt = createStatement();
 
       // The SQL command to get the configuration value.
       String sql = "select value from config where key = '" + key + "'";
@@ -507,6 +697,53 @@ public class Database
         value = result.getString("value");
       }
 
+      // Close the SQL statement.
+      closeStatement(stmt);
+    }
+    catch (Exception e)
+    {
+      System.out.println("JDBC error: " + e);
+    }
+
+    // Return the value.
+    return(value);
+  }
+
+  /**
+   * Gets the value of a SQLite pragma (such as the page size or page count).
+   * The pragma is read directly from the connection, rather than through the
+   * query statistics, so that the periodic health samples do not show up as
+   * SQL activity.
+   *
+   * @param name The name of the pragma.
+   *
+   * @return The value of the pragma, or <b>0</b> if it could not be read.
+   */
+  public long
+  pragmaGet(String name)
+  {
+    long value = 0;
+
+    // Wait for the connection, which is held while the pragma is read.
+    m_connectionLock.lock();
+
+    // Catch (and ignore) any errors that may occur.
+    try
+    {
+      // Create a SQL statement.
+      Statement stmt = m_connection.createStatement();
+
+      // The SQL command to get the pragma.
+      String sql = "pragma " + name;
+
+      // Read the value from the database.
+      ResultSet result = stmt.executeQuery(sql);
+      if(result.next())
+      {
+        // Extract the value from the result.
+        value = result.getLong(1);
+      }
+
       // Close the SQL statement.
       stmt.close();
     }
@@ -514,6 +751,10 @@ public class Database
     {
       System.out.println("JDBC error: " + e);
     }
+    finally
+    {
+      m_connectionLock.unlock();
+    }
 
     // Return the value.
     return(value);
@@ -535,7 +776,7 @@ public class Database
     try
     {
       // Create a SQL statement.
-      Statement stmt = m_connection.createStatement();
+      Statement stmt = createStatement();
 
       // The SQL commands to check for, set, and update the configuration
       // value.
@@ -553,6 +794,9 @@ public class Database
       {
         // The key does not exist, so add it to the database.
         executeUpdate(stmt, sql2);
+
+        // Update the version of the shared data.
+        dataChanged(-1);
       }
       else
       {
@@ -562,11 +806,14 @@ public class Database
         {
           // Update the value.
           executeUpdate(stmt, sql3);
+
+          // Update the version of the shared data.
+          dataChanged(-1);
         }
       }
 
       // Close the SQL statement.
-      stmt.close();
+      closeStatement(stmt);
     }
     catch (Exception e)
     {
@@ -592,7 +839,7 @@ public class Database
     try
     {
       // Create a SQL statement.
-      Statement stmt = m_connection.createStatement();
+      Statement stmt = createStatement();
 
       // The SQL command to delete the configuration value.
       String sql = "delete from config where key = " +
@@ -602,7 +849,10 @@ public class Database
       executeUpdate(stmt, sql);
 
       // Close the SQL statement.
-      stmt.close();
+      closeStatement(stmt);
+
+      // Update the version of the shared data.
+      dataChanged(-1);
     }
     catch (Exception e)
     {
@@ -631,7 +881,7 @@ public class Database
     try
     {
       // Create a SQL statement.
-      Statement stmt = m_connection.createStatement();
+      Statement stmt = createStatement();
 
       // The SQL commands to check for and create the season.
       String sql1 = "select id from season where year = " +
@@ -657,7 +907,10 @@ public class Database
       int id = result.getInt("id");
 
       // Close the SQL statement.
-      stmt.close();
+      closeStatement(stmt);
+
+      // Update the version of the shared data.
+      dataChanged(-1);
 
       // Return the ID of the season.
       return(id);
@@ -690,7 +943,7 @@ public class Database
     try
     {
       // Create a SQL statement.
-      Statement stmt = m_connection.createStatement();
+      Statement stmt = createStatement();
 
       // The SQL command to enumerate the seasons.
       String sql = "select * from season";
@@ -708,7 +961,7 @@ public class Database
       }
 
       // Close the SQL statement.
-      stmt.close();
+      closeStatement(stmt);
     }
     catch (Exception e)
     {
@@ -734,7 +987,7 @@ public class Database
     try
     {
       // Create a SQL statement.
-      Statement stmt = m_connection.createStatement();
+      Statement stmt = createStatement();
 
       // The SQL command to remove the season.
       String sql = "delete from season where id = " + id;
@@ -743,7 +996,18 @@ public class Database
       executeUpdate(stmt, sql);
 
       // Close the SQL statement.
-      stmt.close();
+      closeStatement(stmt);
+
+      // Update the version of the shared data.
+      dataChanged(-1);
+
+      // Discard the live rankings, since the teams at the events may have
+      // changed.
+      RankingIndex.getInstance().invalidate();
+
+      // Discard the cached league standings contributions, since the
+      // season's events have been removed.
+      Standings.getInstance().invalidate();
     }
     catch (Exception e)
     {
@@ -775,7 +1039,7 @@ public class Database
     try
     {
       // Create a SQL statement.
-      Statement stmt = m_connection.createStatement();
+      Statement stmt = createStatement();
 
       // The SQL commands to check for and insert an event.
       String sql1 = "select id from event where season_id = " + season_id +
@@ -801,7 +1065,10 @@ public class Database
       int id = result.getInt("id");
 
       // Close the SQL statement.
-      stmt.close();
+      closeStatement(stmt);
+
+      // Update the version of the shared data.
+      dataChanged(-1);
 
       // Return the ID of the event.
       return(id);
@@ -835,7 +1102,7 @@ public class Database
     try
     {
       // Create a SQL statement.
-      Statement stmt = m_connection.createStatement();
+      Statement stmt = createStatement();
 
       // The SQL command to edit the event.
       String sql = "update event set date = " + stmt.enquoteLiteral(date) +
@@ -846,7 +1113,14 @@ public class Database
       executeUpdate(stmt, sql);
 
       // Close the SQL statement.
-      stmt.close();
+      closeStatement(stmt);
+
+      // Update the version of the shared data.
+      dataChanged(-1);
+
+      // Discard the live rankings, since the teams at the events may have
+      // changed.
+      RankingIndex.getInstance().invalidate();
     }
     catch (Exception e)
     {
@@ -891,7 +1165,7 @@ public class Database
     try
     {
       // Create a SQL statement.
-      Statement stmt = m_connection.createStatement();
+      Statement stmt = createStatement();
 
       // The SQL command to enumerate the events.
       String sql = "select * from event where season_id = " + season_id;
@@ -936,7 +1210,7 @@ public class Database
       }
 
       // Close the SQL statement.
-      stmt.close();
+      closeStatement(stmt);
     }
     catch (Exception e)
     {
@@ -964,7 +1238,7 @@ public class Database
     try
     {
       // Create a SQL statement.
-      Statement stmt = m_connection.createStatement();
+      Statement stmt = createStatement();
 
       // The SQL commands to get the date of the event.
       String sql = "select date from event where id = " + event_id;
@@ -978,7 +1252,7 @@ public class Database
       }
 
       // Close the SQL statement.
-      stmt.close();
+      closeStatement(stmt);
     }
     catch (Exception e)
     {
@@ -1009,7 +1283,7 @@ public class Database
     try
     {
       // Create a SQL statement.
-      Statement stmt = m_connection.createStatement();
+      Statement stmt = createStatement();
 
       // The SQL commands to look up the event.
       String sql = "select id from event where season_id = " + season_id +
@@ -1025,7 +1299,7 @@ public class Database
       }
 
       // Close the SQL statement.
-      stmt.close();
+      closeStatement(stmt);
     }
     catch (Exception e)
     {
@@ -1052,7 +1326,7 @@ public class Database
     try
     {
       // Create a SQL statement.
-      Statement stmt = m_connection.createStatement();
+      Statement stmt = createStatement();
 
       // The SQL commands to get the number of matches at the event.
       String sql = "select matches from event where id = " + event_id;
@@ -1066,7 +1340,7 @@ public class Database
       }
 
       // Close the SQL statement.
-      stmt.close();
+      closeStatement(stmt);
     }
     catch (Exception e)
     {
@@ -1093,7 +1367,7 @@ public class Database
     try
     {
       // Create a SQL statement.
-      Statement stmt = m_connection.createStatement();
+      Statement stmt = createStatement();
 
       // The SQL commands to get the name of the event.
       String sql = "select name from event where id = " + event_id;
@@ -1107,7 +1381,7 @@ public class Database
       }
 
       // Close the SQL statement.
-      stmt.close();
+      closeStatement(stmt);
     }
     catch (Exception e)
     {
@@ -1134,7 +1408,7 @@ public class Database
     try
     {
       // Create a SQL statement.
-      Statement stmt = m_connection.createStatement();
+      Statement stmt = createStatement();
 
       // The SQL commands to check for event scores.
       String sql = "select id from score where event_id = " + event_id;
@@ -1148,7 +1422,7 @@ public class Database
       }
 
       // Close the SQL statement.
-      stmt.close();
+      closeStatement(stmt);
     }
     catch (Exception e)
     {
@@ -1173,7 +1447,7 @@ public class Database
     try
     {
       // Create a SQL statement.
-      Statement stmt = m_connection.createStatement();
+      Statement stmt = createStatement();
 
       // The SQL command to delete an event.
       String sql1 = "delete from score where event_id = " + id;
@@ -1188,7 +1462,17 @@ public class Database
       executeUpdate(stmt, sql4);
 
       // Close the SQL statement.
-      stmt.close();
+      closeStatement(stmt);
+
+      // Update the version of the shared data.
+      dataChanged(-1);
+
+      // Discard the live rankings, since the teams at the events may have
+      // changed.
+      RankingIndex.getInstance().invalidate();
+
+      // Discard the event's cached league standings contribution.
+      Standings.getInstance().eventRemoved(id);
     }
     catch (Exception e)
     {
@@ -1220,7 +1504,7 @@ public class Database
     try
     {
       // Create a SQL statement.
-      Statement stmt = m_connection.createStatement();
+      Statement stmt = createStatement();
 
       // The SQL commands to check for and insert the team.
       String sql1 = "select id from team where season_id = " + season_id +
@@ -1246,7 +1530,14 @@ public class Database
       int id = result.getInt("id");
 
       // Close the SQL statement.
-      stmt.close();
+      closeStatement(stmt);
+
+      // Update the version of the shared data.
+      dataChanged(-1);
+
+      // Discard the live rankings, since the teams in the season have
+      // changed.
+      RankingIndex.getInstance().invalidate();
 
       // Return the ID of the event.
       return(id);
@@ -1280,7 +1571,7 @@ public class Database
     try
     {
       // Create a SQL statement.
-      Statement stmt = m_connection.createStatement();
+      Statement stmt = createStatement();
 
       // The SQL command to edit the team.
       String sql = "update team set number = " + number + ", name = " +
@@ -1291,7 +1582,14 @@ public class Database
       executeUpdate(stmt, sql);
 
       // Close the SQL statement.
-      stmt.close();
+      closeStatement(stmt);
+
+      // Update the version of the shared data.
+      dataChanged(-1);
+
+      // Discard the live rankings, since the teams at the events may have
+      // changed.
+      RankingIndex.getInstance().invalidate();
     }
     catch (Exception e)
     {
@@ -1335,7 +1633,7 @@ public class Database
     try
     {
       // Create a SQL statement.
-      Statement stmt = m_connection.createStatement();
+      Statement stmt = createStatement();
 
       // The SQL command to enumerate the teams.
       String sql = "select * from team where season_id = " + season_id;
@@ -1383,7 +1681,7 @@ public class Database
       }
 
       // Close the SQL statement.
-      stmt.close();
+      closeStatement(stmt);
     }
     catch (Exception e)
     {
@@ -1413,7 +1711,7 @@ public class Database
     try
     {
       // Create a SQL statement.
-      Statement stmt = m_connection.createStatement();
+      Statement stmt = createStatement();
 
       // The SQL commands to look up the team.
       String sql = "select id from team where season_id = " + season_id +
@@ -1428,7 +1726,7 @@ public class Database
       }
 
       // Close the SQL statement.
-      stmt.close();
+      closeStatement(stmt);
     }
     catch (Exception e)
     {
@@ -1457,7 +1755,7 @@ public class Database
     try
     {
       // Create a SQL statement.
-      Statement stmt = m_connection.createStatement();
+      Statement stmt = createStatement();
 
       // The SQL commands to check for team scores at this event.
       String sql = "select id from score where event_id = " + event_id +
@@ -1472,7 +1770,7 @@ public class Database
       }
 
       // Close the SQL statement.
-      stmt.close();
+      closeStatement(stmt);
     }
     catch (Exception e)
     {
@@ -1501,7 +1799,7 @@ public class Database
     try
     {
       // Create a SQL statement.
-      Statement stmt = m_connection.createStatement();
+      Statement stmt = createStatement();
 
       // The SQL commands to check for team scores.
       String sql = "select id from score where season_id = " + season_id +
@@ -1516,7 +1814,7 @@ public class Database
       }
 
       // Close the SQL statement.
-      stmt.close();
+      closeStatement(stmt);
     }
     catch (Exception e)
     {
@@ -1545,7 +1843,7 @@ public class Database
     try
     {
       // Create a SQL statement.
-      Statement stmt = m_connection.createStatement();
+      Statement stmt = createStatement();
 
       // The SQL command to get the name of the team.
       String sql = "select name from team where season_id = " + season_id +
@@ -1559,7 +1857,7 @@ public class Database
       }
 
       // Close the SQL statement.
-      stmt.close();
+      closeStatement(stmt);
     }
     catch (Exception e)
     {
@@ -1588,7 +1886,7 @@ public class Database
     try
     {
       // Create a SQL statement.
-      Statement stmt = m_connection.createStatement();
+      Statement stmt = createStatement();
 
       // The SQL command to get the name of the team.
       String sql = "select number from team where season_id = " + season_id +
@@ -1602,7 +1900,7 @@ public class Database
       }
 
       // Close the SQL statement.
-      stmt.close();
+      closeStatement(stmt);
     }
     catch (Exception e)
     {
@@ -1631,7 +1929,7 @@ public class Database
     try
     {
       // Create a SQL statement.
-      Statement stmt = m_connection.createStatement();
+      Statement stmt = createStatement();
 
       // The SQL command to get the name of the team.
       String sql = "select division from team where season_id = " + season_id +
@@ -1645,7 +1943,7 @@ public class Database
       }
 
       // Close the SQL statement.
-      stmt.close();
+      closeStatement(stmt);
     }
     catch (Exception e)
     {
@@ -1670,7 +1968,7 @@ public class Database
     try
     {
       // Create a SQL statement.
-      Statement stmt = m_connection.createStatement();
+      Statement stmt = createStatement();
 
       // XYZZY teamAtEvent...
 
@@ -1690,7 +1988,14 @@ public class Database
       executeUpdate(stmt, sql4);
 
       // Close the SQL statement.
-      stmt.close();
+      closeStatement(stmt);
+
+      // Update the version of the shared data.
+      dataChanged(-1);
+
+      // Discard the live rankings, since the teams at the events may have
+      // changed.
+      RankingIndex.getInstance().invalidate();
     }
     catch (Exception e)
     {
@@ -1727,7 +2032,7 @@ public class Database
     try
     {
       // Create a SQL statement.
-      Statement stmt = m_connection.createStatement();
+      Statement stmt = createStatement();
 
       // The SQL commands to enumerate the teams at events.
       String sql;
@@ -1776,7 +2081,7 @@ public class Database
       }
 
       // Close the SQL statement.
-      stmt.close();
+      closeStatement(stmt);
     }
     catch (Exception e)
     {
@@ -1806,7 +2111,7 @@ public class Database
     try
     {
       // Create a SQL statement.
-      Statement stmt = m_connection.createStatement();
+      Statement stmt = createStatement();
 
       // The SQL commands to check for a team at an event.
       String sql = "select * from teamAtEvent where event_id = " + event_id +
@@ -1821,7 +2126,7 @@ public class Database
       }
 
       // Close the SQL statement.
-      stmt.close();
+      closeStatement(stmt);
     }
     catch (Exception e)
     {
@@ -1846,7 +2151,7 @@ public class Database
     try
     {
       // Create a SQL statement.
-      Statement stmt = m_connection.createStatement();
+      Statement stmt = createStatement();
 
       // The SQL command to remove the team from the event.
       String sql1 = "delete from score where event_id = " + event_id +
@@ -1862,7 +2167,14 @@ public class Database
       executeUpdate(stmt, sql3);
 
       // Close the SQL statement.
-      stmt.close();
+      closeStatement(stmt);
+
+      // Update the version of the shared data.
+      dataChanged(-1);
+
+      // Discard the live rankings, since the teams at the events may have
+      // changed.
+      RankingIndex.getInstance().invalidate();
     }
     catch (Exception e)
     {
@@ -1892,7 +2204,7 @@ public class Database
     try
     {
       // Create a SQL statement.
-      Statement stmt = m_connection.createStatement();
+      Statement stmt = createStatement();
 
       // The SQL commands to check for a team at an event.
       String sql1 = "select * from teamAtEvent where event_id = " + event_id +
@@ -1910,7 +2222,14 @@ public class Database
       }
 
       // Close the SQL statement.
-      stmt.close();
+      closeStatement(stmt);
+
+      // Update the version of the shared data.
+      dataChanged(-1);
+
+      // Discard the live rankings, since the teams at the events may have
+      // changed.
+      RankingIndex.getInstance().invalidate();
     }
     catch (Exception e)
     {
@@ -2007,7 +2326,7 @@ public class Database
     try
     {
       // Create a SQL statement.
-      Statement stmt = m_connection.createStatement();
+      Statement stmt = createStatement();
 
       // The SQL command to enumerate the scores.
       String sql = "select * from score where season_id = " + season_id +
@@ -2122,7 +2441,7 @@ public class Database
       }
 
       // Close the SQL statement.
-      stmt.close();
+      closeStatement(stmt);
     }
     catch (Exception e)
     {
@@ -2134,6 +2453,250 @@ public class Database
     return(true);
   }
 
+  /**
+   * Counts the published match scoresheets (those that have both a scoresheet
+   * and a score) for a season or event.
+   *
+   * @param season_id The ID of the season.
+   *
+   * @param event_id The ID of the event, or <b>-1</b> for all the events in
+   *                 the season.
+   *
+   * @return The number of published scoresheets, or <b>-1</b> if they could
+   *         not be counted.
+   */
+  public int
+  scoreSheetCount(int season_id, int event_id)
+  {
+    int count = -1;
+
+    // Catch (and ignore) any errors that may occur.
+    try
+    {
+      // Create a SQL statement.
+      Statement stmt = createStatement();
+
+      // The SQL command to count the published scoresheets.
+      String sql = "select total(";
+      for(int match = 0; match <= 4; match++)
+      {
+        sql += ((match == 0) ? "" : " + ") + "((match" + match +
+               " is not null) and (match" + match + "_sheet is not null))";
+      }
+      sql += ") from score where season_id = " + season_id +
+             ((event_id == -1) ? "" : (" and event_id = " + event_id));
+
+      // Query the score table.
+      ResultSet result = executeQuery(stmt, sql);
+      if(result.next())
+      {
+        count = result.getInt(1);
+      }
+
+      // Close the SQL statement.
+      closeStatement(stmt);
+    }
+    catch (Exception e)
+    {
+      System.out.println("JDBC error: " + e);
+    }
+
+    // Return the number of scoresheets.
+    return(count);
+  }
+
+  /**
+   * Enumerates a block of the published match scoresheets (those that have
+   * both a scoresheet and a score) for a season or event.  The score rows are
+   * read in ID order, starting after a given ID, so that all the scoresheets
+   * can be streamed a block at a time without holding them all in memory.
+   *
+   * @param season_id The ID of the season.
+   *
+   * @param event_id The ID of the event, or <b>-1</b> for all the events in
+   *                 the season.
+   *
+   * @param after The ID of the last score row that was read; <b>0</b> to start
+   *              at the beginning.
+   *
+   * @param limit The maximum number of score rows to read.
+   *
+   * @param ids The list of score row IDs, one per scoresheet.
+   *
+   * @param events The list of event IDs, one per scoresheet.
+   *
+   * @param teams The list of team IDs, one per scoresheet.
+   *
+   * @param matches The list of match numbers, one per scoresheet.
+   *
+   * @param scores The list of stored scores, one per scoresheet.
+   *
+   * @param sheets The list of scoresheets (in JSON).
+   *
+   * @return The ID of the last score row that was read, or <b>-1</b> if there
+   *         are no more score rows (or they could not be read).
+   */
+  public int
+  scoreSheetEnumerate(int season_id, int event_id, int after, int limit,
+                      ArrayList<Integer> ids, ArrayList<Integer> events,
+                      ArrayList<Integer> teams, ArrayList<Integer> matches,
+                      ArrayList<Float> scores, ArrayList<String> sheets)
+  {
+    int last = -1;
+
+    // Catch (and ignore) any errors that may occur.
+    try
+    {
+      // Create a SQL statement.
+      Statement stmt = createStatement();
+
+      // The SQL command to enumerate the next block of scores.
+      String sql = "select * from score where season_id = " + season_id +
+                   ((event_id == -1) ? "" : (" and event_id = " + event_id)) +
+                   " and id > " + after + " order by id limit " + limit;
+
+      // Query the score table.
+      ResultSet result = executeQuery(stmt, sql);
+
+      // Loop through all the rows in this block.
+      while(result.next())
+      {
+        // Save the ID of this row as the last one read.
+        last = result.getInt("id");
+
+        // Loop through the matches of this row.
+        for(int match = 0; match <= 4; match++)
+        {
+          // Skip this match if it does not have a published scoresheet.
+          Float score = result.getFloat("match" + match);
+          score = result.wasNull() ? null : score;
+          String sheet = result.getString("match" + match + "_sheet");
+          if((score == null) || (sheet == null))
+          {
+            continue;
+          }
+
+          // Add this scoresheet to the lists.
+          ids.add(last);
+          events.add(result.getInt("event_id"));
+          teams.add(result.getInt("team_id"));
+          matches.add(match);
+          scores.add(score);
+          sheets.add(sheet);
+        }
+      }
+
+      // Close the SQL statement.
+      closeStatement(stmt);
+    }
+    catch (Exception e)
+    {
+      System.out.println("JDBC error: " + e);
+      last = -1;
+    }
+
+    // Return the ID of the last row that was read.
+    return(last);
+  }
+
+  /**
+   * Updates a batch of match scores in a single transaction, leaving their
+   * scoresheets and core values scores unchanged.
+   *
+   * @param season_id The ID of the season.
+   *
+   * @param ids The list of score row IDs.
+   *
+   * @param events The list of event IDs, one per score.
+   *
+   * @param teams The list of team IDs, one per score.
+   *
+   * @param matches The list of match numbers, one per score.
+   *
+   * @param scores The list of new scores.
+   *
+   * @return <b>true</b> if the scores are updated successfully; if not, none
+   *         of the scores are updated.
+   */
+  public boolean
+  scoreMatchUpdate(int season_id, ArrayList<Integer> ids,
+                   ArrayList<Integer> events, ArrayList<Integer> teams,
+                   ArrayList<Integer> matches, ArrayList<Float> scores)
+  {
+    boolean ret = false;
+
+    // Catch (and ignore) any errors that may occur.
+    try
+    {
+      // Create a SQL statement.
+      Statement stmt = createStatement();
+
+      // Start a transaction, so that the batch is written at once.  The
+      // connection is held for the whole transaction, so that the
+      // statements from other threads wait for it to complete instead of
+      // being committed (or rolled back) along with it.
+      m_connectionLock.lock();
+      try
+      {
+        m_connection.setAutoCommit(false);
+
+        // Update each of the scores.
+        for(int idx = 0; idx < ids.size(); idx++)
+        {
+          executeUpdate(stmt, "update score set match" + matches.get(idx) +
+                              " = " + scores.get(idx) + " where id = " +
+                              ids.get(idx));
+        }
+
+        // Commit the transaction.
+        m_connection.commit();
+        ret = true;
+      }
+      catch (Exception e)
+      {
+        // Discard the partial batch.
+        System.out.println("JDBC error: " + e);
+        m_connection.rollback();
+      }
+      finally
+      {
+        // Return to committing each statement as it is executed, and allow
+        // the other threads to use the connection.
+        try
+        {
+          m_connection.setAutoCommit(true);
+        }
+        finally
+        {
+          m_connectionLock.unlock();
+        }
+      }
+
+      // Close the SQL statement.
+      closeStatement(stmt);
+    }
+    catch (Exception e)
+    {
+      System.out.println("JDBC error: " + e);
+    }
+
+    // Update the versions of the events' data, and move the teams to their new
+    // places in the live rankings.
+    if(ret)
+    {
+      for(int idx = 0; idx < ids.size(); idx++)
+      {
+        dataChanged(events.get(idx));
+        RankingIndex.getInstance().scoreChanged(season_id, events.get(idx),
+                                                teams.get(idx),
+                                                matches.get(idx));
+      }
+    }
+
+    // Return the result.
+    return(ret);
+  }
+
   /**
    * Adds a match score to the database.
    *
@@ -2159,11 +2722,15 @@ public class Database
   {
     int id = -1;
 
+    // Start the flight recorder event for saving the score.
+    Flight.SaveEvent event = new Flight.SaveEvent();
+    event.begin();
+
     // Catch (and ignore) any errors that may occur.
     try
     {
       // Create a SQL statement.
-      Statement stmt = m_connection.createStatement();
+      Statement stmt = createStatement();
 
       // The SQL commands to check for, insert, and update the match 1 score.
       String sql1 = "select id from score where season_id = " + season_id +
@@ -2203,13 +2770,27 @@ public class Database
       id = result.getInt("id");
 
       // Close the SQL statement.
-      stmt.close();
+      closeStatement(stmt);
+
+      // Update the version of the event's data.
+      dataChanged(event_id);
+
+      // Move the team to its new place in the live ranking.
+      RankingIndex.getInstance().scoreChanged(season_id, event_id, team_id,
+                                              match);
     }
     catch (Exception e)
     {
       System.out.println("JDBC error: " + e);
     }
 
+    // Record the flight recorder event, linked to the publish (if any) that
+    // is being handled by this thread.
+    event.publishId = Flight.getInstance().publishIdGet();
+    event.team = team_id;
+    event.match = match;
+    event.commit();
+
     // Return the ID of the event.
     return(id);
   }
@@ -2243,7 +2824,7 @@ public class Database
     try
     {
       // Create a SQL statement.
-      Statement stmt = m_connection.createStatement();
+      Statement stmt = createStatement();
 
       // The SQL commands to check for, insert, and update the match 1 score.
       String sql = "select match" + match + ", match" + match + "_cv, match" +
@@ -2276,7 +2857,7 @@ public class Database
       callback.accept(score, cv, sheet);
 
       // Close the SQL statement.
-      stmt.close();
+      closeStatement(stmt);
 
       // Success.
       ret = true;
@@ -2310,7 +2891,7 @@ public class Database
     try
     {
       // Create a SQL statement.
-      Statement stmt = m_connection.createStatement();
+      Statement stmt = createStatement();
 
       // The SQL command to check for and remove the match 1 score.
       String sql1 = "select id from score where season_id = " + season_id +
@@ -2331,7 +2912,14 @@ public class Database
       }
 
       // Close the SQL statement.
-      stmt.close();
+      closeStatement(stmt);
+
+      // Update the version of the event's data.
+      dataChanged(event_id);
+
+      // Move the team to its new place in the live ranking.
+      RankingIndex.getInstance().scoreChanged(season_id, event_id, team_id,
+                                              match);
     }
     catch (Exception e)
     {
@@ -2357,7 +2945,7 @@ public class Database
     try
     {
       // Create a SQL statement.
-      Statement stmt = m_connection.createStatement();
+      Statement stmt = createStatement();
 
       // The SQL command to remove a score.
       String sql = "delete from score where id = " + id;
@@ -2366,7 +2954,14 @@ public class Database
       executeUpdate(stmt, sql);
 
       // Close the SQL statement.
-      stmt.close();
+      closeStatement(stmt);
+
+      // Update the version of the shared data.
+      dataChanged(-1);
+
+      // Discard the live rankings, since the teams at the events may have
+      // changed.
+      RankingIndex.getInstance().invalidate();
     }
     catch (Exception e)
     {
@@ -2407,7 +3002,7 @@ public class Database
     try
     {
       // Create a SQL statement.
-      Statement stmt = m_connection.createStatement();
+      Statement stmt = createStatement();
 
       // The SQL command to check for, insert, and update the judging result.
       String sql1 = "select id from judging where season_id = " + season_id +
@@ -2447,7 +3042,10 @@ public class Database
       id = result.getInt("id");
 
       // Close the SQL statement.
-      stmt.close();
+      closeStatement(stmt);
+
+      // Update the version of the event's data.
+      dataChanged(event_id);
     }
     catch (Exception e)
     {
@@ -2503,7 +3101,7 @@ public class Database
     try
     {
       // Create a SQL statement.
-      Statement stmt = m_connection.createStatement();
+      Statement stmt = createStatement();
 
       // The SQL statement to enumreate the judging results.
       String sql = "select * from judging where season_id = " + season_id +
@@ -2552,7 +3150,7 @@ public class Database
       }
 
       // Close the SQL statement.
-      stmt.close();
+      closeStatement(stmt);
     }
     catch (Exception e)
     {
@@ -2596,7 +3194,7 @@ public class Database
     try
     {
       // Create a SQL statement.
-      Statement stmt = m_connection.createStatement();
+      Statement stmt = createStatement();
 
       // The SQL statement to get a judging result.
       String sql = "select project, robot_design, core_values, rubric from " +
@@ -2629,7 +3227,7 @@ public class Database
       }
 
       // Close the SQL statement.
-      stmt.close();
+      closeStatement(stmt);
 
       // Success.
       return(true);
@@ -2659,7 +3257,7 @@ public class Database
     try
     {
       // Create a SQL statement.
-      Statement stmt = m_connection.createStatement();
+      Statement stmt = createStatement();
 
       // The SQL statement to remove the judging result.
       String sql = "delete from judging where season_id = " + season_id +
@@ -2669,7 +3267,10 @@ public class Database
       executeUpdate(stmt, sql);
 
       // Close the SQL statement.
-      stmt.close();
+      closeStatement(stmt);
+
+      // Update the version of the event's data.
+      dataChanged(event_id);
     }
     catch (Exception e)
     {
@@ -2701,7 +3302,7 @@ public class Database
     try
     {
       // Create a SQL statement.
-      Statement stmt = m_connection.createStatement();
+      Statement stmt = createStatement();
 
       // The SQL statement to get a judging result.
       String sql = "select rubric from judging where season_id = " +
@@ -2719,7 +3320,7 @@ public class Database
       }
 
       // Close the SQL statement.
-      stmt.close();
+      closeStatement(stmt);
 
       // Return the rubric.
       return(rubric);
@@ -2762,7 +3363,7 @@ public class Database
     try
     {
       // Create a SQL statement.
-      Statement stmt = m_connection.createStatement();
+      Statement stmt = createStatement();
 
       // The SQL command to check for and insert the user.
       String sql1 = "select id from user where name = " +
@@ -2784,7 +3385,7 @@ public class Database
       else
       {
         // The user already exists, so return an error.
-        stmt.close();
+        closeStatement(stmt);
         return(-1);
       }
 
@@ -2796,7 +3397,7 @@ public class Database
       id = result.getInt("id");
 
       // Close the SQL statement.
-      stmt.close();
+      closeStatement(stmt);
     }
     catch (Exception e)
     {
@@ -2849,7 +3450,7 @@ public class Database
     try
     {
       // Create a SQL statement.
-      Statement stmt = m_connection.createStatement();
+      Statement stmt = createStatement();
 
       // The SQL statement to enumreate the users.
       String sql = "select * from user";
@@ -2906,7 +3507,7 @@ public class Database
       }
 
       // Close the SQL statement.
-      stmt.close();
+      closeStatement(stmt);
     }
     catch (Exception e)
     {
@@ -2932,7 +3533,7 @@ public class Database
     try
     {
       // Create a SQL statement.
-      Statement stmt = m_connection.createStatement();
+      Statement stmt = createStatement();
 
       // The SQL statement to get the user ID.
       String sql = "select id from user where name = \"" + name + "\"";
@@ -2950,7 +3551,7 @@ public class Database
       int id = result.getInt("id");
 
       // Close the SQL statement.
-      stmt.close();
+      closeStatement(stmt);
 
       // Return the ID of the user.
       return(id);
@@ -2976,7 +3577,7 @@ public class Database
     try
     {
       // Create a SQL statement.
-      Statement stmt = m_connection.createStatement();
+      Statement stmt = createStatement();
 
       // The SQL statement to get the user name.
       String sql = "select name from user where id = " + id;
@@ -2994,7 +3595,7 @@ public class Database
       String name = result.getString("name");
 
       // Close the SQL statement.
-      stmt.close();
+      closeStatement(stmt);
 
       // Return the name of the user.
       return(name);
@@ -3022,7 +3623,7 @@ public class Database
     try
     {
       // Create a SQL statement.
-      Statement stmt = m_connection.createStatement();
+      Statement stmt = createStatement();
 
       // The SQL statement to set the user name.
       String sql = "update user set name = " + stmt.enquoteLiteral(name) +
@@ -3032,7 +3633,7 @@ public class Database
       executeUpdate(stmt, sql);
 
       // Close the SQL statement.
-      stmt.close();
+      closeStatement(stmt);
     }
     catch (Exception e)
     {
@@ -3058,7 +3659,7 @@ public class Database
     try
     {
       // Create a SQL statement.
-      Statement stmt = m_connection.createStatement();
+      Statement stmt = createStatement();
 
       // The SQL statement to get the password.
       String sql = "select password from user where id = " + id;
@@ -3076,7 +3677,7 @@ public class Database
       String password = result.getString("password");
 
       // Close the SQL statement.
-      stmt.close();
+      closeStatement(stmt);
 
       // Return the password.
       return(password);
@@ -3104,7 +3705,7 @@ public class Database
     try
     {
       // Create a SQL statement.
-      Statement stmt = m_connection.createStatement();
+      Statement stmt = createStatement();
 
       // The SQL statement to set the password.
       String sql = "update user set password = " +
@@ -3114,7 +3715,7 @@ public class Database
       executeUpdate(stmt, sql);
 
       // Close the SQL statement.
-      stmt.close();
+      closeStatement(stmt);
     }
     catch (Exception e)
     {
@@ -3142,7 +3743,7 @@ public class Database
     try
     {
       // Create a SQL statement.
-      Statement stmt = m_connection.createStatement();
+      Statement stmt = createStatement();
 
       // The SQL statement to set the password.
       String sql = "update user set password = " +
@@ -3153,7 +3754,7 @@ public class Database
       executeUpdate(stmt, sql);
 
       // Close the SQL statement.
-      stmt.close();
+      closeStatement(stmt);
     }
     catch (Exception e)
     {
@@ -3181,7 +3782,7 @@ public class Database
     try
     {
       // Create a SQL statement.
-      Statement stmt = m_connection.createStatement();
+      Statement stmt = createStatement();
 
       // The SQL statement to get the password.
       String sql = "select password from user where id = " + id;
@@ -3194,12 +3795,12 @@ public class Database
       if((result.next() == false) ||
          !result.getString("password").equals(password))
       {
-        stmt.close();
+        closeStatement(stmt);
         return(false);
       }
 
       // Close the SQL statement.
-      stmt.close();
+      closeStatement(stmt);
     }
     catch (Exception e)
     {
@@ -3227,7 +3828,7 @@ public class Database
     try
     {
       // Create a SQL statement.
-      Statement stmt = m_connection.createStatement();
+      Statement stmt = createStatement();
 
       // The SQL statement to get the password.
       String sql = "select password from user where name = " +
@@ -3241,12 +3842,12 @@ public class Database
       if((result.next() == false) ||
          !result.getString("password").equals(password))
       {
-        stmt.close();
+        closeStatement(stmt);
         return(false);
       }
 
       // Close the SQL statement.
-      stmt.close();
+      closeStatement(stmt);
     }
     catch (Exception e)
     {
@@ -3272,7 +3873,7 @@ public class Database
     try
     {
       // Create a SQL statement.
-      Statement stmt = m_connection.createStatement();
+      Statement stmt = createStatement();
 
       // The SQL statement to remove the user.
       String sql = "delete from user where id = " + id;
@@ -3281,7 +3882,7 @@ public class Database
       executeUpdate(stmt, sql);
 
       // Close the SQL statement.
-      stmt.close();
+      closeStatement(stmt);
     }
     catch (Exception e)
     {
@@ -3309,7 +3910,7 @@ public class Database
     try
     {
       // Create a SQL statement.
-      Statement stmt = m_connection.createStatement();
+      Statement stmt = createStatement();
 
       // The SQL command to add the role to the user.
       String sql1 = "update user set admin = 1 where id = " + id;
@@ -3356,12 +3957,12 @@ public class Database
       // Otherwise, this is an unknown role.
       else
       {
-        stmt.close();
+        closeStatement(stmt);
         return(false);
       }
 
       // Close the SQL statement.
-      stmt.close();
+      closeStatement(stmt);
     }
     catch (Exception e)
     {
@@ -3392,7 +3993,7 @@ public class Database
     try
     {
       // Create a SQL statement.
-      Statement stmt = m_connection.createStatement();
+      Statement stmt = createStatement();
 
       // The SQL command to remove the role to the user.
       String sql1 = "select admin from user where id = " + id;
@@ -3444,7 +4045,7 @@ public class Database
       }
 
       // Close the SQL statement.
-      stmt.close();
+      closeStatement(stmt);
     }
     catch (Exception e)
     {
@@ -3471,7 +4072,7 @@ public class Database
     try
     {
       // Create a SQL statement.
-      Statement stmt = m_connection.createStatement();
+      Statement stmt = createStatement();
 
       // The SQL command to remove the role to the user.
       String sql1 = "update user set admin = 0 where id = " + id;
@@ -3518,12 +4119,12 @@ public class Database
       // Otherwise, this is an unknown role.
       else
       {
-        stmt.close();
+        closeStatement(stmt);
         return(false);
       }
 
       // Close the SQL statement.
-      stmt.close();
+      closeStatement(stmt);
     }
     catch (Exception e)
     {
@@ -3618,14 +4219,104 @@ public class Database
     configValueSet(m_dbDebugKey, enable ? "1" : "0");
   }
 
+  /**
+   * Gets the slow query threshold.
+   *
+   * @return The time, in milliseconds, beyond which a SQL statement is
+   *         printed to the terminal, or <b>0</b> if slow statements are not
+   *         printed.
+   */
+  public int
+  dbSlowQueryGet()
+  {
+    // Get the value of the configuration value from the database.
+    String slow = configValueGet(m_dbSlowQueryKey);
+
+    // Use the default threshold if the configuration value does not exist in
+    // the database, or is not a number.
+    try
+    {
+      return((slow == null) ? m_dbSlowQueryDefault : Integer.parseInt(slow));
+    }
+    catch(NumberFormatException e)
+    {
+      return(m_dbSlowQueryDefault);
+    }
+  }
+
+  /**
+   * Sets the slow query threshold.
+   *
+   * @param slow The time, in milliseconds, beyond which a SQL statement is
+   *             printed to the terminal, or <b>0</b> if slow statements
+   *             should not be printed.
+   */
+  public void
+  dbSlowQuerySet(int slow)
+  {
+    // Set or add the configuration value.
+    configValueSet(m_dbSlowQueryKey, Integer.toString(slow));
+  }
+
+  /**
+   * Gets whether the detailed query statistics are measured.
+   *
+   * @return <b>true</b> if the time to read the results of each query, and
+   *         the rows it reads, should be measured.
+   */
+  public boolean
+  dbQueryDetailGet()
+  {
+    // Get the value of the configuration value from the database.
+    String detail = configValueGet(m_dbQueryDetailKey);
+
+    // If the configuration value does not exist in the database, or has a
+    // value of zero, then the detailed statistics are not measured.
+    if((detail == null) || detail.equals("0"))
+    {
+      return(false);
+    }
+
+    // The detailed statistics are measured.
+    return(true);
+  }
+
+  /**
+   * Sets whether the detailed query statistics are measured.
+   *
+   * @param enable A boolean that is <b>true</b> if the time to read the
+   *               results of each query, and the rows it reads, should be
+   *               measured.
+   */
+  public void
+  dbQueryDetailSet(boolean enable)
+  {
+    // Set or add the configuration value.
+    configValueSet(m_dbQueryDetailKey, enable ? "1" : "0");
+  }
+
   /**
    * Performs initial setup for the database.
    */
   public void
   setup()
   {
-    // Find the name of the database file.
+    // Find the name of the database file, and set up the database in it.
     databaseFilenameSet();
+    setup(m_databaseFile);
+  }
+
+  /**
+   * Performs initial setup for the database, using a specific database file
+   * (such as a synthetic database for the benchmarks).
+   *
+   * @param filename The name of the database file.
+   */
+  public void
+  setup(String filename)
+  {
+    // Use the given database file.
+    m_databaseFile = filename;
 
     // Connect to the file that contains the database.
     try
@@ -3649,6 +4340,11 @@ public class Database
       {
         m_debug = true;
       }
+
+      // Set the slow query threshold, and whether the detailed query
+      // statistics are measured.
+      m_queryStats.slowSet(dbSlowQueryGet());
+      m_queryStats.detailSet(dbQueryDetailGet());
     }
   }
 }
\ No newline at end of file
@@ -0,0 +1,617 @@
+// Copyright (c) 2024 Brian Kircher
+//
+// Open Source Software; you can modify and/or share it under the terms of BSD
+// license file in the root directory of this project.
+
+package FLLScorer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * The teams, robot game scores, and judging results for an event, read from
+ * the database once and joined by team.
+ * <p>
+ * The teams are stored in team number order, and every score and judging
+ * result is stored in an array at the index of its team, so the pages that
+ * list the teams at an event (and the league standings) can walk the teams
+ * without searching for their scores.  The team IDs are mapped to their
+ * index with a hash map, so each database row is joined to its team in
+ * constant time.
+ */
+public class EventData
+{
+  /**
+   * The value stored for a missing score.
+   */
+  static final int NO_SCORE = -100;
+
+  /**
+   * The number of matches that have a score in the database.
+   */
+  static final int MATCHES = 5;
+
+  /**
+   * The IDs of the teams at the event, in team number order.
+   */
+  private final int[] m_ids;
+
+  /**
+   * The numbers of the teams.
+   */
+  private final int[] m_numbers;
+
+  /**
+   * The names of the teams.
+   */
+  private final String[] m_names;
+
+  /**
+   * The divisions of the teams.
+   */
+  private final int[] m_divisions;
+
+  /**
+   * The index of each team, indexed by the team ID.
+   */
+  private final HashMap<Integer, Integer> m_index =
+    new HashMap<Integer, Integer>();
+
+  /**
+   * Whether each team has a row in the score table.
+   */
+  private final boolean[] m_scored;
+
+  /**
+   * The robot game score for each match of each team (indexed by match, then
+   * team), or <b>NO_SCORE</b> if there is no score for the match.
+   */
+  private final float[][] m_scores;
+
+  /**
+   * The robot game Core Values score for each match of each team, or
+   * <b>NO_SCORE</b> if there is no Core Values score for the match.
+   */
+  private final int[][] m_core;
+
+  /**
+   * Whether each match of each team has a saved scoresheet.
+   */
+  private final boolean[][] m_sheets;
+
+  /**
+   * Whether each team has a row in the judging table.
+   */
+  private final boolean[] m_judged;
+
+  /**
+   * The Innovation Project judging score of each team, or <b>-1</b> if it
+   * does not have one.
+   */
+  private final int[] m_project;
+
+  /**
+   * The Robot Design judging score of each team, or <b>-1</b> if it does not
+   * have one.
+   */
+  private final int[] m_robot;
+
+  /**
+   * The Core Values judging score of each team, or <b>-1</b> if it does not
+   * have one.
+   */
+  private final int[] m_coreValues;
+
+  /**
+   * Whether each team has a rubric saved with its judging results.
+   */
+  private final boolean[] m_rubric;
+
+  /**
+   * Creates the data for a set of teams, without any scores or judging
+   * results.
+   *
+   * @param ids The IDs of the teams, in team number order.
+   *
+   * @param numbers The numbers of the teams.
+   *
+   * @param names The names of the teams.
+   *
+   * @param divisions The divisions of the teams.
+   */
+  EventData(int[] ids, int[] numbers, String[] names, int[] divisions)
+  {
+    int count = ids.length;
+
+    // Save the teams, and map each team ID to its index.
+    m_ids = ids;
+    m_numbers = numbers;
+    m_names = names;
+    m_divisions = divisions;
+    for(int idx = 0; idx < count; idx++)
+    {
+      m_index.put(m_ids[idx], idx);
+    }
+
+    // Start with every team having no scores or judging results.
+    m_scored = new boolean[count];
+    m_scores = new float[MATCHES][count];
+    m_core = new int[MATCHES][count];
+    m_sheets = new boolean[MATCHES][count];
+    m_judged = new boolean[count];
+    m_project = new int[count];
+    m_robot = new int[count];
+    m_coreValues = new int[count];
+    m_rubric = new boolean[count];
+    for(int match = 0; match < MATCHES; match++)
+    {
+      Arrays.fill(m_scores[match], NO_SCORE);
+      Arrays.fill(m_core[match], NO_SCORE);
+    }
+    Arrays.fill(m_project, -1);
+    Arrays.fill(m_robot, -1);
+    Arrays.fill(m_coreValues, -1);
+  }
+
+  /**
+   * Reads the data for an event from the database.
+   *
+   * @param season_id The ID of the season.
+   *
+   * @param event_id The ID of the event, or <b>-1</b> if there is no event
+   *                 (in which case there are no scores or judging results).
+   *
+   * @param scores <b>true</b> if the robot game scores should be read.
+   *
+   * @param sheets <b>true</b> if the presence of the saved scoresheets should
+   *               be read (along with the scores).
+   *
+   * @param judging <b>true</b> if the judging results should be read.
+   *
+   * @return The data for the event.
+   */
+  public static EventData
+  read(int season_id, int event_id, boolean scores, boolean sheets,
+       boolean judging)
+  {
+    Database database = Database.getInstance();
+
+    // Enumerate the teams from the database for this event.
+    ArrayList<Integer> ids = new ArrayList<Integer>();
+    ArrayList<Integer> numbers = new ArrayList<Integer>();
+    ArrayList<String> names = new ArrayList<String>();
+    ArrayList<Integer> divisions = new ArrayList<Integer>();
+    database.teamEnumerate(season_id, event_id, ids, numbers, names,
+                           divisions);
+
+    // Create the data for these teams.
+    int[] idArray = new int[ids.size()];
+    int[] numberArray = new int[ids.size()];
+    int[] divisionArray = new int[ids.size()];
+    for(int idx = 0; idx < ids.size(); idx++)
+    {
+      idArray[idx] = ids.get(idx);
+      numberArray[idx] = numbers.get(idx);
+      divisionArray[idx] = divisions.get(idx);
+    }
+    EventData data = new EventData(idArray, numberArray,
+                                   names.toArray(new String[ids.size()]),
+                                   divisionArray);
+
+    // There are no scores or judging results without an event.
+    if(event_id == -1)
+    {
+      return(data);
+    }
+
+    // Read the robot game scores, if requested.
+    if(scores || sheets)
+    {
+      data.readScores(database, season_id, event_id, sheets);
+    }
+
+    // Read the judging results, if requested.
+    if(judging)
+    {
+      data.readJudging(database, season_id, event_id);
+    }
+
+    // Return the data for the event.
+    return(data);
+  }
+
+  /**
+   * Gets the index of a team.
+   *
+   * @param team_id The ID of the team.
+   *
+   * @return The index of the team, or <b>-1</b> if the team is not at the
+   *         event.
+   */
+  int
+  indexOf(int team_id)
+  {
+    // Look up the team's index.
+    Integer idx = m_index.get(team_id);
+    return((idx == null) ? -1 : idx);
+  }
+
+  /**
+   * Gets the number of teams at the event.
+   *
+   * @return The number of teams.
+   */
+  int
+  countGet()
+  {
+    // Return the number of teams.
+    return(m_ids.length);
+  }
+
+  /**
+   * Gets the ID of a team.
+   *
+   * @param idx The index of the team.
+   *
+   * @return The ID of the team.
+   */
+  int
+  idGet(int idx)
+  {
+    // Return the ID of the team.
+    return(m_ids[idx]);
+  }
+
+  /**
+   * Gets the number of a team.
+   *
+   * @param idx The index of the team.
+   *
+   * @return The number of the team.
+   */
+  int
+  numberGet(int idx)
+  {
+    // Return the number of the team.
+    return(m_numbers[idx]);
+  }
+
+  /**
+   * Gets the name of a team.
+   *
+   * @param idx The index of the team.
+   *
+   * @return The name of the team.
+   */
+  String
+  nameGet(int idx)
+  {
+    // Return the name of the team.
+    return(m_names[idx]);
+  }
+
+  /**
+   * Gets the division of a team.
+   *
+   * @param idx The index of the team.
+   *
+   * @return The division of the team.
+   */
+  int
+  divisionGet(int idx)
+  {
+    // Return the division of the team.
+    return(m_divisions[idx]);
+  }
+
+  /**
+   * Determines if a team has a row in the score table.
+   *
+   * @param idx The index of the team.
+   *
+   * @return <b>true</b> if the team has a row in the score table.
+   */
+  boolean
+  scoredGet(int idx)
+  {
+    // Return whether the team has a row in the score table.
+    return(m_scored[idx]);
+  }
+
+  /**
+   * Gets a team's robot game score for a match.
+   *
+   * @param match The match.
+   *
+   * @param idx The index of the team.
+   *
+   * @return The score, or <b>NO_SCORE</b> if there is no score for the
+   *         match.
+   */
+  float
+  scoreGet(int match, int idx)
+  {
+    // Return the score for the match.
+    return(m_scores[match][idx]);
+  }
+
+  /**
+   * Sets a team's robot game score for a match, which gives the team a row
+   * in the score table if it does not already have one.
+   *
+   * @param match The match.
+   *
+   * @param idx The index of the team.
+   *
+   * @param score The score, or <b>NO_SCORE</b> if there is no score for the
+   *              match.
+   */
+  void
+  scoreSet(int match, int idx, float score)
+  {
+    // Save the score, giving the team a row in the score table.
+    m_scored[idx] = true;
+    m_scores[match][idx] = score;
+  }
+
+  /**
+   * Gets a team's robot game Core Values score for a match.
+   *
+   * @param match The match.
+   *
+   * @param idx The index of the team.
+   *
+   * @return The Core Values score, or <b>NO_SCORE</b> if there is no Core
+   *         Values score for the match.
+   */
+  int
+  coreGet(int match, int idx)
+  {
+    // Return the Core Values score for the match.
+    return(m_core[match][idx]);
+  }
+
+  /**
+   * Sets a team's robot game Core Values score for a match, which gives the
+   * team a row in the score table if it does not already have one.
+   *
+   * @param match The match.
+   *
+   * @param idx The index of the team.
+   *
+   * @param core The Core Values score, or <b>NO_SCORE</b> if there is no
+   *             Core Values score for the match.
+   */
+  void
+  coreSet(int match, int idx, int core)
+  {
+    // Save the Core Values score, giving the team a row in the score table.
+    m_scored[idx] = true;
+    m_core[match][idx] = core;
+  }
+
+  /**
+   * Determines if a team has a saved scoresheet for a match.
+   *
+   * @param match The match.
+   *
+   * @param idx The index of the team.
+   *
+   * @return <b>true</b> if there is a saved scoresheet for the match.
+   */
+  boolean
+  sheetGet(int match, int idx)
+  {
+    // Return whether there is a saved scoresheet for the match.
+    return(m_sheets[match][idx]);
+  }
+
+  /**
+   * Determines if a team has a row in the judging table.
+   *
+   * @param idx The index of the team.
+   *
+   * @return <b>true</b> if the team has a row in the judging table.
+   */
+  boolean
+  judgedGet(int idx)
+  {
+    // Return whether the team has a row in the judging table.
+    return(m_judged[idx]);
+  }
+
+  /**
+   * Gets the Innovation Project judging score of a team.
+   *
+   * @param idx The index of the team.
+   *
+   * @return The Innovation Project score, or <b>-1</b> if the team does not
+   *         have one.
+   */
+  int
+  projectGet(int idx)
+  {
+    // Return the Innovation Project score.
+    return(m_project[idx]);
+  }
+
+  /**
+   * Gets the Robot Design judging score of a team.
+   *
+   * @param idx The index of the team.
+   *
+   * @return The Robot Design score, or <b>-1</b> if the team does not have
+   *         one.
+   */
+  int
+  robotGet(int idx)
+  {
+    // Return the Robot Design score.
+    return(m_robot[idx]);
+  }
+
+  /**
+   * Gets the Core Values judging score of a team.
+   *
+   * @param idx The index of the team.
+   *
+   * @return The Core Values score, or <b>-1</b> if the team does not have
+   *         one.
+   */
+  int
+  coreValuesGet(int idx)
+  {
+    // Return the Core Values score.
+    return(m_coreValues[idx]);
+  }
+
+  /**
+   * Sets the judging scores of a team, which gives the team a row in the
+   * judging table if it does not already have one.
+   *
+   * @param idx The index of the team.
+   *
+   * @param project The Innovation Project score, or <b>-1</b> if the team
+   *                does not have one.
+   *
+   * @param robot The Robot Design score, or <b>-1</b> if the team does not
+   *              have one.
+   *
+   * @param coreValues The Core Values score, or <b>-1</b> if the team does
+   *                   not have one.
+   */
+  void
+  judgingSet(int idx, int project, int robot, int coreValues)
+  {
+    // Save the judging scores, giving the team a row in the judging table.
+    m_judged[idx] = true;
+    m_project[idx] = project;
+    m_robot[idx] = robot;
+    m_coreValues[idx] = coreValues;
+  }
+
+  /**
+   * Determines if a team has a rubric saved with its judging results.
+   *
+   * @param idx The index of the team.
+   *
+   * @return <b>true</b> if the team has a saved rubric.
+   */
+  boolean
+  rubricGet(int idx)
+  {
+    // Return whether the team has a saved rubric.
+    return(m_rubric[idx]);
+  }
+
+  /**
+   * Reads the robot game scores for the event.
+   *
+   * @param database The Database object.
+   *
+   * @param season_id The ID of the season.
+   *
+   * @param event_id The ID of the event.
+   *
+   * @param sheets <b>true</b> if the presence of the saved scoresheets should
+   *               be read.
+   */
+  private void
+  readScores(Database database, int season_id, int event_id, boolean sheets)
+  {
+    // A list of information about the scores, one for each match.
+    ArrayList<Integer> teams = new ArrayList<Integer>();
+    ArrayList<ArrayList<Float>> score = new ArrayList<ArrayList<Float>>();
+    ArrayList<ArrayList<Integer>> core = new ArrayList<ArrayList<Integer>>();
+    ArrayList<ArrayList<String>> sheet = new ArrayList<ArrayList<String>>();
+    for(int match = 0; match < MATCHES; match++)
+    {
+      score.add(new ArrayList<Float>());
+      core.add(new ArrayList<Integer>());
+      sheet.add(sheets ? new ArrayList<String>() : null);
+    }
+
+    // Enumerate the scores for this event.
+    database.scoreEnumerate(season_id, event_id, null, teams, score.get(0),
+                            core.get(0), sheet.get(0), score.get(1),
+                            core.get(1), sheet.get(1), score.get(2),
+                            core.get(2), sheet.get(2), score.get(3),
+                            core.get(3), sheet.get(3), score.get(4),
+                            core.get(4), sheet.get(4));
+
+    // Loop through all the scores.
+    for(int idx = 0; idx < teams.size(); idx++)
+    {
+      // Ignore this score if it is not for a team at this event (should not
+      // happen).
+      int team_idx = indexOf(teams.get(idx));
+      if(team_idx == -1)
+      {
+        continue;
+      }
+      m_scored[team_idx] = true;
+
+      // Save the score, Core Values score, and scoresheet presence for each
+      // match, if they exist.
+      for(int match = 0; match < MATCHES; match++)
+      {
+        if(score.get(match).get(idx) != null)
+        {
+          m_scores[match][team_idx] = score.get(match).get(idx);
+        }
+        if(core.get(match).get(idx) != null)
+        {
+          m_core[match][team_idx] = core.get(match).get(idx);
+        }
+        if(sheets && (sheet.get(match).get(idx) != null))
+        {
+          m_sheets[match][team_idx] = true;
+        }
+      }
+    }
+  }
+
+  /**
+   * Reads the judging results for the event.
+   *
+   * @param database The Database object.
+   *
+   * @param season_id The ID of the season.
+   *
+   * @param event_id The ID of the event.
+   */
+  private void
+  readJudging(Database database, int season_id, int event_id)
+  {
+    // A list of information about the judging results.
+    ArrayList<Integer> teams = new ArrayList<Integer>();
+    ArrayList<Integer> project = new ArrayList<Integer>();
+    ArrayList<Integer> robot = new ArrayList<Integer>();
+    ArrayList<Integer> core = new ArrayList<Integer>();
+    ArrayList<String> rubric = new ArrayList<String>();
+
+    // Enumerate the judging results for this event.
+    database.judgingEnumerate(season_id, event_id, null, null, null, teams,
+                              project, robot, core, rubric);
+
+    // Loop through all the judging results.
+    for(int idx = 0; idx < teams.size(); idx++)
+    {
+      // Ignore this result if it is not for a team at this event (should not
+      // happen).
+      int team_idx = indexOf(teams.get(idx));
+      if(team_idx == -1)
+      {
+        continue;
+      }
+
+      // Save the judging scores, and whether there are rubric selections.
+      m_judged[team_idx] = true;
+      m_project[team_idx] = project.get(idx);
+      m_robot[team_idx] = robot.get(idx);
+      m_coreValues[team_idx] = core.get(idx);
+      m_rubric[team_idx] = (rubric.get(idx) != null);
+    }
+  }
+}
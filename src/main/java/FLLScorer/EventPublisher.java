@@ -0,0 +1,713 @@
+// Copyright (c) 2024 Brian Kircher
+//
+// Open Source Software; you can modify and/or share it under the terms of BSD
+// license file in the root directory of this project.
+
+package FLLScorer;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.concurrent.TimeUnit;
+
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Publishes Server-Sent Events (SSE) to read-only displays.
+ * <p>
+ * A single background thread watches the scoreboard, the standings, and the
+ * match timer and publishes any changes to the subscribers of the
+ * corresponding channel.
+ * Every event is a state message (using the same text as the WebSocket
+ * messages), so only the most recent event for each piece of state is
+ * retained; a display that reconnects with a Last-Event-ID header receives
+ * just the events it missed.  The subscribers are written using the servlet
+ * asynchronous I/O, so they do not each require a thread.
+ * <p>
+ * The timer channel is for displays that only show the timer (such as the
+ * timer on the scoreboard).  The timer page itself remains on its WebSocket,
+ * since it synchronizes its clock with the server and echoes the displayed
+ * time back to it, neither of which an event stream can carry.
+ * <p>
+ * This is a singleton that is acquired via the getInstance() method.
+ */
+public class EventPublisher
+{
+  /**
+   * The object for the EventPublisher singleton.
+   */
+  private static EventPublisher m_instance = null;
+
+  /**
+   * The maximum number of bytes that can be pending for a single subscriber
+   * before it is considered to be too slow and is disconnected.
+   */
+  private static final int MAX_BYTES = 256 * 1024;
+
+  /**
+   * The object for the TimeKeeper singleton.
+   */
+  private TimeKeeper m_timeKeeper = null;
+
+  /**
+   * The object for the Timer singleton.
+   */
+  private Timer m_timer = null;
+
+  /**
+   * The object for the Scoreboard singleton.
+   */
+  private Scoreboard m_scoreboard = null;
+
+  /**
+   * The object for the Standings singleton.
+   */
+  private Standings m_standings = null;
+
+  /**
+   * The object for the Database singleton.
+   */
+  private Database m_database = null;
+
+  /**
+   * The object for the Referee singleton.
+   */
+  private Referee m_referee = null;
+
+  /**
+   * The ID of the most recently published event.  The IDs are shared by all
+   * channels, and always increase.  They start from the time at which the
+   * application was started (in microseconds), so that the IDs from this
+   * run are higher than those from any previous run; a display that was
+   * connected before a restart therefore receives every event when it
+   * reconnects.
+   */
+  private long m_lastId = System.currentTimeMillis() * 1000;
+
+  /**
+   * The most recent event for each piece of state, indexed by channel and
+   * then by the key for the state (in the order they were published).
+   */
+  private HashMap<String, LinkedHashMap<String, Event>> m_events =
+    new HashMap<String, LinkedHashMap<String, Event>>();
+
+  /**
+   * The subscribers to each channel.
+   */
+  private HashMap<String, ArrayList<Subscriber>> m_subscribers =
+    new HashMap<String, ArrayList<Subscriber>>();
+
+  /**
+   * A single published event.
+   */
+  private static class Event
+  {
+    /**
+     * The ID of the event.
+     */
+    private long m_id;
+
+    /**
+     * The data for the event.
+     */
+    private String m_data;
+
+    /**
+     * The event, formatted as it is sent to the subscribers.
+     */
+    private byte[] m_bytes;
+  }
+
+  /**
+   * A subscriber to a channel.
+   */
+  private class Subscriber implements WriteListener
+  {
+    /**
+     * The channel this subscriber is receiving.
+     */
+    private String m_channel;
+
+    /**
+     * The asynchronous context for the request.
+     */
+    private AsyncContext m_context;
+
+    /**
+     * The output stream for the response.
+     */
+    private ServletOutputStream m_output;
+
+    /**
+     * The data that is waiting to be written to the subscriber.
+     */
+    private ArrayList<byte[]> m_pending = new ArrayList<byte[]>();
+
+    /**
+     * The number of bytes that are waiting to be written to the subscriber.
+     */
+    private int m_bytes = 0;
+
+    /**
+     * Set to <b>true</b> once the write listener has been attached to the
+     * output stream.
+     */
+    private boolean m_listening = false;
+
+    /**
+     * Set to <b>true</b> once the subscriber has been closed.
+     */
+    private boolean m_closed = false;
+
+    /**
+     * Queues data to be written to the subscriber.
+     *
+     * @param bytes The data to write.
+     */
+    private synchronized void
+    send(byte[] bytes)
+    {
+      // Ignore the data if the subscriber has been closed.
+      if(m_closed)
+      {
+        return;
+      }
+
+      // Disconnect the subscriber if it has fallen too far behind; it will
+      // reconnect and catch up using the Last-Event-ID.
+      if((m_bytes + bytes.length) > MAX_BYTES)
+      {
+        close();
+        return;
+      }
+
+      // Add the data to the pending list.
+      m_pending.add(bytes);
+      m_bytes += bytes.length;
+
+      // Write as much of the pending data as possible, once the write
+      // listener is attached (until then, the data remains pending).
+      if(m_listening)
+      {
+        try
+        {
+          onWritePossible();
+        }
+        catch(IOException e)
+        {
+          onError(e);
+        }
+      }
+    }
+
+    /**
+     * Called when data can be written to the subscriber without blocking.
+     */
+    @Override
+    public synchronized void
+    onWritePossible()
+      throws IOException
+    {
+      // Loop while there is pending data and it can be written without
+      // blocking.
+      while(!m_closed && (m_pending.size() != 0) && m_output.isReady())
+      {
+        // Write the next piece of pending data.
+        byte[] bytes = m_pending.remove(0);
+        m_bytes -= bytes.length;
+        m_output.write(bytes);
+
+        // Flush the data to the subscriber once all of it has been written.
+        if((m_pending.size() == 0) && m_output.isReady())
+        {
+          m_output.flush();
+        }
+      }
+    }
+
+    /**
+     * Called when an error occurs writing to the subscriber.
+     *
+     * @param t The error that occurred.
+     */
+    @Override
+    public void
+    onError(Throwable t)
+    {
+      // Close the subscriber.
+      close();
+    }
+
+    /**
+     * Closes the subscriber.
+     */
+    private synchronized void
+    close()
+    {
+      // Do nothing if the subscriber is already closed.
+      if(m_closed)
+      {
+        return;
+      }
+
+      // Discard the pending data.
+      m_closed = true;
+      m_pending.clear();
+      m_bytes = 0;
+
+      // Complete the request.
+      try
+      {
+        m_context.complete();
+      }
+      catch(Exception e)
+      {
+      }
+
+      // Remove this subscriber from the channel.
+      removeSubscriber(this);
+    }
+  }
+
+  /**
+   * Gets the EventPublisher singleton object, creating it if necessary.
+   *
+   * @return Returns the EventPublisher singleton.
+   */
+  public static EventPublisher
+  getInstance()
+  {
+    // Create the EventPublisher object if required.
+    if(m_instance == null)
+    {
+      m_instance = new EventPublisher();
+    }
+
+    // Return the EventPublisher object.
+    return(m_instance);
+  }
+
+  /**
+   * The constructor.  This is private so that the object can only be created
+   * via the getIntance() method.
+   */
+  private
+  EventPublisher()
+  {
+  }
+
+  /**
+   * Removes a subscriber from its channel.
+   *
+   * @param subscriber The subscriber to remove.
+   */
+  private synchronized void
+  removeSubscriber(Subscriber subscriber)
+  {
+    // Remove the subscriber from its channel.
+    m_subscribers.get(subscriber.m_channel).remove(subscriber);
+  }
+
+  /**
+   * Gets the number of subscribers to a channel.
+   *
+   * @param channel The channel of interest.
+   *
+   * @return The number of subscribers to the channel.
+   */
+  private synchronized int
+  subscribersGet(String channel)
+  {
+    // Return the number of subscribers to the channel.
+    return(m_subscribers.get(channel).size());
+  }
+
+  /**
+   * Publishes an event to a channel.  If the event is the same as the most
+   * recent event for the same piece of state, it is not published again.
+   *
+   * @param channel The channel to publish the event to.
+   *
+   * @param key The key for the piece of state described by the event.
+   *
+   * @param data The data for the event.
+   *
+   * @return The number of subscribers that the event was sent to.
+   */
+  private int
+  publish(String channel, String key, String data)
+  {
+    ArrayList<Subscriber> subscribers;
+    Event event;
+
+    // Lock the publisher while the event is added.
+    synchronized(this)
+    {
+      // Get the events for this channel.
+      LinkedHashMap<String, Event> events = m_events.get(channel);
+
+      // Ignore this event if it has the same data as the most recent event
+      // for this piece of state.
+      Event previous = events.get(key);
+      if((previous != null) && previous.m_data.equals(data))
+      {
+        return(0);
+      }
+
+      // Format the event as it is sent to the subscribers.  Each line of the
+      // data is sent as a separate data field.
+      m_lastId++;
+      String text = "id: " + m_lastId + "\n";
+      for(String line : data.split("\n"))
+      {
+        text += "data: " + line + "\n";
+      }
+      text += "\n";
+
+      // Create the event.
+      event = new Event();
+      event.m_id = m_lastId;
+      event.m_data = data;
+      event.m_bytes = text.getBytes(StandardCharsets.UTF_8);
+
+      // Replace the previous event for this piece of state, moving it to the
+      // end so that the events remain in the order they were published.
+      events.remove(key);
+      events.put(key, event);
+
+      // Get a copy of the subscribers to this channel.
+      subscribers = new ArrayList<Subscriber>(m_subscribers.get(channel));
+    }
+
+    // Send the event to the subscribers.
+    for(int idx = 0; idx < subscribers.size(); idx++)
+    {
+      subscribers.get(idx).send(event.m_bytes);
+    }
+
+    // Return the number of subscribers.
+    return(subscribers.size());
+  }
+
+  /**
+   * Starts a Server-Sent Events stream for a request.
+   *
+   * @param request The request from the client.
+   *
+   * @param response The response to the client.
+   *
+   * @param channel The channel the client is subscribing to.
+   */
+  public void
+  subscribe(HttpServletRequest request, HttpServletResponse response,
+            String channel)
+    throws IOException
+  {
+    long lastId = 0;
+
+    // Get the ID of the last event the client received, if it is
+    // reconnecting.
+    String header = request.getHeader("Last-Event-ID");
+    if(header != null)
+    {
+      try
+      {
+        lastId = Long.parseLong(header.trim());
+      }
+      catch(Exception e)
+      {
+        lastId = 0;
+      }
+    }
+
+    // Lock the publisher while the events are read.
+    synchronized(this)
+    {
+      // If the client has an ID from the future (which happens if the
+      // application was restarted and the clock went backwards), it cannot
+      // know which events it has, so it is sent all of them.
+      if(lastId > m_lastId)
+      {
+        lastId = 0;
+      }
+    }
+
+    // Set the headers for an event stream.
+    response.setContentType("text/event-stream");
+    response.setCharacterEncoding("UTF-8");
+    response.setHeader("Cache-Control", "no-cache");
+    response.setHeader("X-Accel-Buffering", "no");
+
+    // Switch the request to asynchronous mode, with no timeout.
+    AsyncContext context = request.startAsync();
+    context.setTimeout(0);
+
+    // Create the subscriber.
+    Subscriber subscriber = new Subscriber();
+    subscriber.m_channel = channel;
+    subscriber.m_context = context;
+    subscriber.m_output = response.getOutputStream();
+
+    // Lock the publisher while the subscriber is added, so that no events are
+    // missed or sent twice.
+    synchronized(this)
+    {
+      // Queue the events the client has not yet received.  The retry field
+      // tells the client how quickly to reconnect.
+      subscriber.m_pending.add("retry: 1000\n\n".
+                               getBytes(StandardCharsets.UTF_8));
+      for(Event event : m_events.get(channel).values())
+      {
+        if(event.m_id > lastId)
+        {
+          subscriber.m_pending.add(event.m_bytes);
+          subscriber.m_bytes += event.m_bytes.length;
+        }
+      }
+
+      // Add the subscriber to the channel.
+      m_subscribers.get(channel).add(subscriber);
+    }
+
+    // Start writing to the subscriber once the output stream is ready.
+    synchronized(subscriber)
+    {
+      subscriber.m_listening = true;
+      subscriber.m_output.setWriteListener(subscriber);
+    }
+  }
+
+  /**
+   * Publishes the current state of the match timer.
+   */
+  private void
+  publishTimer()
+  {
+    // Publish the state of the timer.
+    if(m_timeKeeper.state() == TimeKeeper.TimerState.RUN)
+    {
+      publish("timer", "m:", "m:run");
+    }
+    else if(m_timeKeeper.state() == TimeKeeper.TimerState.STOP)
+    {
+      publish("timer", "m:", "m:stop");
+    }
+    else
+    {
+      publish("timer", "m:", "m:reset");
+    }
+
+    // Publish the current match time.
+    publish("timer", "t:", "t:" + m_timeKeeper.matchTime());
+
+    // Publish the state and location of the timer display.
+    publish("timer", "s:enable",
+            m_timer.displayEnableGet() ? "s:timer_enable" : "s:timer_disable");
+    publish("timer", "s:location", "s:timer_" + m_timer.displayLocationGet());
+  }
+
+  /**
+   * Publishes the current state of the scoreboard.
+   *
+   * @param publishId The ID of the publish that changed the scores, or zero
+   *                  if the scoreboard is being republished periodically.
+   */
+  private void
+  publishScoreboard(long publishId)
+  {
+    // Recompute the scoreboard JSON, recording the flight recorder event.
+    Flight.ScoreboardEvent scoreboard = new Flight.ScoreboardEvent();
+    scoreboard.begin();
+    byte[] json = m_scoreboard.scoreJsonGet();
+    scoreboard.publishId = publishId;
+    scoreboard.size = json.length;
+    scoreboard.commit();
+
+    // Publish the scoreboard JSON, recording the flight recorder event if it
+    // was sent to any subscribers.
+    Flight.FanOutEvent fanOut = new Flight.FanOutEvent();
+    fanOut.begin();
+    fanOut.clients = publish("scoreboard", "scores",
+                             new String(json, StandardCharsets.UTF_8));
+    if(fanOut.clients != 0)
+    {
+      fanOut.publishId = scoreboard.publishId;
+      fanOut.channel = "scoreboard";
+      fanOut.messages = 1;
+      fanOut.commit();
+    }
+  }
+
+  /**
+   * Publishes the current state of the standings.
+   */
+  private void
+  publishStandings()
+  {
+    // Get the standings JSON.
+    byte[] json = m_standings.standingsJsonGet();
+
+    // Publish the standings JSON, recording the flight recorder event if it
+    // was sent to any subscribers.
+    Flight.FanOutEvent fanOut = new Flight.FanOutEvent();
+    fanOut.begin();
+    fanOut.clients = publish("standings", "standings",
+                             new String(json, StandardCharsets.UTF_8));
+    if(fanOut.clients != 0)
+    {
+      fanOut.channel = "standings";
+      fanOut.messages = 1;
+      fanOut.commit();
+    }
+  }
+
+  /**
+   * Sends a comment to every subscriber, to keep proxies and the browser from
+   * closing idle streams.
+   */
+  private void
+  keepAlive()
+  {
+    ArrayList<Subscriber> subscribers = new ArrayList<Subscriber>();
+
+    // Get a copy of all the subscribers.
+    synchronized(this)
+    {
+      m_subscribers.forEach((channel, list) -> subscribers.addAll(list));
+    }
+
+    // Send a comment to each subscriber.
+    for(int idx = 0; idx < subscribers.size(); idx++)
+    {
+      subscribers.get(idx).send(": nop\n\n".getBytes(StandardCharsets.UTF_8));
+    }
+  }
+
+  /**
+   * Watches for changes to the published state, in the background.
+   */
+  private static class Watcher implements Runnable
+  {
+    /**
+     * The code that runs in the publisher thread.
+     */
+    @Override
+    public void
+    run()
+    {
+      long lastUpdate = -1, lastScores = 0, lastStandings = 0;
+      long lastKeepAlive = 0, publishId, now;
+      int lastChanges = -1;
+
+      // Loop forever.
+      while(true)
+      {
+        // Get the current time.
+        now = java.lang.System.currentTimeMillis();
+
+        // Publish the current state of the timer.  Only the changes are sent
+        // to the subscribers.
+        m_instance.publishTimer();
+
+        // Publish the scoreboard when the scores change, and every ten
+        // seconds to pick up any other changes (such as team names).  The
+        // periodic update is skipped while there are no subscribers; it
+        // occurs as soon as one subscribes.
+        if((m_instance.m_referee.lastUpdateGet() != lastUpdate) ||
+           (((now - lastScores) >= 10000) &&
+            (m_instance.subscribersGet("scoreboard") != 0)))
+        {
+          // Only attribute the update to the most recent publish if it is
+          // what changed the scores.
+          if(m_instance.m_referee.lastUpdateGet() != lastUpdate)
+          {
+            publishId = m_instance.m_referee.lastPublishIdGet();
+          }
+          else
+          {
+            publishId = 0;
+          }
+          lastUpdate = m_instance.m_referee.lastUpdateGet();
+          lastScores = now;
+          m_instance.publishScoreboard(publishId);
+        }
+
+        // Publish the standings when the database changes, and every ten
+        // seconds (while there are subscribers) to pick up any other changes
+        // (such as the accent color).
+        if((m_instance.m_database.changeCountGet() != lastChanges) ||
+           (((now - lastStandings) >= 10000) &&
+            (m_instance.subscribersGet("standings") != 0)))
+        {
+          lastChanges = m_instance.m_database.changeCountGet();
+          lastStandings = now;
+          m_instance.publishStandings();
+        }
+
+        // Send a keep alive to the subscribers every ten seconds.
+        if((now - lastKeepAlive) >= 10000)
+        {
+          lastKeepAlive = now;
+          m_instance.keepAlive();
+        }
+
+        // Delay for 50 ms.
+        try
+        {
+          TimeUnit.MILLISECONDS.sleep(50);
+        }
+        catch(InterruptedException e)
+        {
+        }
+      }
+    }
+  }
+
+  /**
+   * Performs initial setup for the event publisher.
+   */
+  public void
+  setup()
+  {
+    // Get references to the objects that provide the published state.
+    m_timeKeeper = TimeKeeper.getInstance();
+    m_timer = Timer.getInstance();
+    m_scoreboard = Scoreboard.getInstance();
+    m_referee = Referee.getInstance();
+    m_standings = Standings.getInstance();
+    m_database = Database.getInstance();
+
+    // Create the channels.
+    m_events.put("scoreboard", new LinkedHashMap<String, Event>());
+    m_events.put("standings", new LinkedHashMap<String, Event>());
+    m_events.put("timer", new LinkedHashMap<String, Event>());
+    m_subscribers.put("scoreboard", new ArrayList<Subscriber>());
+    m_subscribers.put("standings", new ArrayList<Subscriber>());
+    m_subscribers.put("timer", new ArrayList<Subscriber>());
+
+    // Register the event streams with the web server.
+    WebServer.getInstance().registerEventStream("/scoreboard/events",
+                                                "scoreboard");
+    WebServer.getInstance().registerEventStream("/standings/events",
+                                                "standings");
+    WebServer.getInstance().registerEventStream("/timer/events", "timer");
+  }
+
+  /**
+   * Starts publishing events.  The application startup does this once the
+   * web server is running, since the first scoreboard and standings need the
+   * seasons to be loaded.
+   */
+  public void
+  start()
+  {
+    // Start the background thread that publishes the events.
+    new Thread(new Watcher(), "EventPublisher").start();
+  }
+}
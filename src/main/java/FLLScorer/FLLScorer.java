@@ -5,30 +5,95 @@
 
 package FLLScorer;
 
+import java.awt.GraphicsEnvironment;
+import java.util.Arrays;
+
 public class FLLScorer
 {
   public static void
   main(String[] args)
   {
+    Startup startup = Startup.getInstance();
+
     System.setProperty("slf4j.internal.verbosity", "ERROR");
-    Database.getInstance().setup();
-    Config.getInstance().setup();
-    WebServer.getInstance().setup();
-    Config.getInstance().finishSetup();
-    Scoreboard.getInstance().setup();
-    Standings.getInstance().setup();
-    Seasons.getInstance().setup();
-    Events.getInstance().setup();
-    Teams.getInstance().setup();
-    Scores.getInstance().setup();
-    Rubrics.getInstance().setup();
-    Users.getInstance().setup();
-    Links.getInstance().setup();
-    Judge.getInstance().setup();
-    Referee.getInstance().setup();
-    TimeKeeper.getInstance().setup();
-    Timer.getInstance().setup();
-    WebServer.getInstance().run();
-    Gui.getInstance().setup();
+
+    // Run without a window (headless) if requested on the command line, or
+    // if there is no display to show the window on.
+    boolean headless = Arrays.asList(args).contains("--headless");
+    if(headless)
+    {
+      System.setProperty("java.awt.headless", "true");
+    }
+    headless = headless || GraphicsEnvironment.isHeadless();
+
+    // The core of the application, which everything else depends upon.
+    startup.step("database", Database.getInstance()::setup);
+    startup.step("config", Config.getInstance()::setup, "database");
+    startup.step("webserver", WebServer.getInstance()::setup, "config");
+    startup.step("config_finish", Config.getInstance()::finishSetup,
+                 "webserver");
+    startup.step("capture", TrafficCapture.getInstance()::setup,
+                 "webserver");
+    startup.step("flight", Flight.getInstance()::setup, "webserver");
+    startup.step("startup", startup::setup, "webserver");
+
+    // The steps that only depend upon the web server, and can therefore run
+    // in parallel.
+    startup.step("tls", WebServer.getInstance()::tlsSetup, "webserver");
+    startup.step("seasons", Seasons.getInstance()::setup, "webserver");
+    startup.step("seasons_load", Seasons.getInstance()::load, "seasons");
+    startup.step("events", Events.getInstance()::setup, "webserver");
+    startup.step("scoreboard", Scoreboard.getInstance()::setup, "webserver");
+    startup.step("standings", Standings.getInstance()::setup, "webserver");
+    startup.step("teams", Teams.getInstance()::setup, "webserver");
+    startup.step("scores", Scores.getInstance()::setup, "webserver");
+    startup.step("rescore", Rescore.getInstance()::setup, "webserver");
+    startup.step("rubrics", Rubrics.getInstance()::setup, "webserver");
+    startup.step("users", Users.getInstance()::setup, "webserver");
+    startup.step("links", Links.getInstance()::setup, "webserver");
+    startup.step("judge", Judge.getInstance()::setup, "webserver");
+    startup.step("referee", Referee.getInstance()::setup, "webserver");
+    startup.step("timer_stats", TimerStats.getInstance()::setup,
+                 "webserver");
+    startup.step("process_stats", ProcessStats.getInstance()::setup,
+                 "webserver");
+    startup.step("query_stats", QueryStats.getInstance()::setup, "webserver");
+    startup.step("health", Health.getInstance()::setup, "webserver");
+    startup.step("timekeeper", TimeKeeper.getInstance()::setup, "webserver");
+    startup.step("timer", Timer.getInstance()::setup, "webserver");
+    startup.step("ranking", RankingIndex.getInstance()::setup, "webserver");
+    startup.step("publisher", EventPublisher.getInstance()::setup,
+                 "webserver");
+
+    // Start the web server once everything it serves has been registered.
+    // It does not wait for the seasons to load; a request that needs them
+    // before then waits for the load to finish.
+    startup.step("server", WebServer.getInstance()::run, "config_finish",
+                 "capture", "flight", "startup", "tls", "seasons", "events",
+                 "scoreboard", "standings", "teams", "scores", "rescore",
+                 "rubrics", "users", "links", "judge", "referee",
+                 "timer_stats", "process_stats", "query_stats", "health",
+                 "timekeeper", "timer", "ranking", "publisher");
+
+    // The steps that use the selected season and event, which run once the
+    // web server is up.
+    startup.step("ranking_load", RankingIndex.getInstance()::load,
+                 "seasons_load", "server");
+    startup.step("publisher_start", EventPublisher.getInstance()::start,
+                 "server");
+
+    // Create the application window, or provide its controls on the console
+    // when running without a window.
+    if(headless)
+    {
+      startup.step("console", Console.getInstance()::setup, "server");
+    }
+    else
+    {
+      startup.step("gui", Gui.getInstance()::setup, "config_finish");
+    }
+
+    // Run the steps.
+    startup.run();
   }
-}
\ No newline at end of file
+}
@@ -0,0 +1,503 @@
+// Copyright (c) 2024 Brian Kircher
+//
+// Open Source Software; you can modify and/or share it under the terms of BSD
+// license file in the root directory of this project.
+
+package FLLScorer;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import jdk.jfr.Category;
+import jdk.jfr.Configuration;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Recording;
+
+import org.bspfsystems.simplejson.JSONObject;
+import org.bspfsystems.simplejson.SimpleJSONObject;
+import org.bspfsystems.simplejson.parser.JSONParser;
+
+/**
+ * Provides the Java Flight Recorder (JFR) events for the score publish
+ * pipeline, and the continuous flight recording that they are captured by.
+ * <p>
+ * Each publish of a scoresheet is given a publish ID, which is carried by
+ * every event that it causes (scoring the scoresheet, saving it to the
+ * database, recomputing the scoreboard, and sending the updates to the
+ * referees and displays), so that the events for a single publish can be
+ * found in JDK Mission Control.  An ID of zero means that the event was not
+ * caused by a publish (for example, scoring a scoresheet while it is being
+ * filled in).
+ * <p>
+ * The continuous recording uses the JDK's "default" settings (which have a
+ * low overhead), keeps the most recent hour, and can be started, stopped,
+ * and downloaded from the admin configuration page.
+ * <p>
+ * This is a singleton that is acquired via the getInstance() method.
+ */
+public class Flight
+{
+  /**
+   * The object for the Flight singleton.
+   */
+  private static Flight m_instance = null;
+
+  /**
+   * The length of time that the continuous recording keeps.
+   */
+  private static final Duration MAX_AGE = Duration.ofHours(1);
+
+  /**
+   * The maximum size, in bytes, of the continuous recording.
+   */
+  private static final long MAX_SIZE = 100 * 1024 * 1024;
+
+  /**
+   * The event for the publish of a scoresheet.
+   */
+  @Name("FLLScorer.Publish")
+  @Label("Score Publish")
+  @Category("FLLScorer")
+  @Description("The publish of a scoresheet by a referee")
+  static class PublishEvent extends Event
+  {
+    /**
+     * The ID of the publish.
+     */
+    @Label("Publish ID")
+    long publishId;
+
+    /**
+     * The ID of the team.
+     */
+    @Label("Team ID")
+    int team;
+
+    /**
+     * The match.
+     */
+    @Label("Match")
+    int match;
+
+    /**
+     * The result of the publish.
+     */
+    @Label("Result")
+    String result;
+  }
+
+  /**
+   * The event for scoring a scoresheet.
+   */
+  @Name("FLLScorer.Score")
+  @Label("Score Evaluation")
+  @Category("FLLScorer")
+  @Description("The scoring of a scoresheet")
+  static class ScoreEvent extends Event
+  {
+    /**
+     * The ID of the publish, or zero if the scoresheet is not being
+     * published.
+     */
+    @Label("Publish ID")
+    long publishId;
+
+    /**
+     * <b>true</b> if the scoresheet was compiled (instead of interpreted).
+     */
+    @Label("Compiled")
+    boolean compiled;
+  }
+
+  /**
+   * The event for saving a score to the database.
+   */
+  @Name("FLLScorer.Save")
+  @Label("Score Save")
+  @Category("FLLScorer")
+  @Description("The saving of a score to the database")
+  static class SaveEvent extends Event
+  {
+    /**
+     * The ID of the publish, or zero if the score is not being published.
+     */
+    @Label("Publish ID")
+    long publishId;
+
+    /**
+     * The ID of the team.
+     */
+    @Label("Team ID")
+    int team;
+
+    /**
+     * The match.
+     */
+    @Label("Match")
+    int match;
+  }
+
+  /**
+   * The event for recomputing the scoreboard.
+   */
+  @Name("FLLScorer.Scoreboard")
+  @Label("Scoreboard Recompute")
+  @Category("FLLScorer")
+  @Description("The recomputing of the scoreboard for the displays")
+  static class ScoreboardEvent extends Event
+  {
+    /**
+     * The ID of the most recent publish.
+     */
+    @Label("Publish ID")
+    long publishId;
+
+    /**
+     * The size of the scoreboard, in bytes.
+     */
+    @Label("Size")
+    int size;
+  }
+
+  /**
+   * The event for sending a score update to the clients.
+   */
+  @Name("FLLScorer.FanOut")
+  @Label("Score Fan-Out")
+  @Category("FLLScorer")
+  @Description("The sending of a score update to the referees or displays")
+  static class FanOutEvent extends Event
+  {
+    /**
+     * The ID of the most recent publish.
+     */
+    @Label("Publish ID")
+    long publishId;
+
+    /**
+     * The clients that the update was sent to; "referee" for a referee
+     * WebSocket, or the name of an event stream channel.
+     */
+    @Label("Channel")
+    String channel;
+
+    /**
+     * The number of clients that the update was sent to.
+     */
+    @Label("Clients")
+    int clients;
+
+    /**
+     * The number of messages sent to each client.
+     */
+    @Label("Messages")
+    int messages;
+  }
+
+  /**
+   * The ID of the most recent publish.
+   */
+  private AtomicLong m_lastId = new AtomicLong(0);
+
+  /**
+   * The ID of the publish being handled by each thread.
+   */
+  private ThreadLocal<Long> m_currentId = ThreadLocal.withInitial(() -> 0L);
+
+  /**
+   * The continuous recording, or <b>null</b> if it is not running.
+   */
+  private Recording m_recording = null;
+
+  /**
+   * Gets the Flight singleton object, creating it if necessary.
+   *
+   * @return Returns the Flight singleton.
+   */
+  public static Flight
+  getInstance()
+  {
+    // Create the Flight object if required.
+    if(m_instance == null)
+    {
+      m_instance = new Flight();
+    }
+
+    // Return the Flight object.
+    return(m_instance);
+  }
+
+  /**
+   * The constructor.  This is private so that the object can only be created
+   * via the getIntance() method.
+   */
+  private
+  Flight()
+  {
+  }
+
+  /**
+   * Starts a publish on the current thread, assigning it a new publish ID.
+   *
+   * @return The ID of the publish.
+   */
+  public long
+  publishStart()
+  {
+    // Assign the next ID to the publish on this thread.
+    long id = m_lastId.incrementAndGet();
+    m_currentId.set(id);
+
+    // Return the ID of the publish.
+    return(id);
+  }
+
+  /**
+   * Ends the publish on the current thread.
+   */
+  public void
+  publishEnd()
+  {
+    // Clear the ID of the publish on this thread.
+    m_currentId.set(0L);
+  }
+
+  /**
+   * Gets the ID of the publish on the current thread.
+   *
+   * @return The ID of the publish, or zero if the current thread is not
+   *         publishing a scoresheet.
+   */
+  public long
+  publishIdGet()
+  {
+    // Return the ID of the publish on this thread.
+    return(m_currentId.get());
+  }
+
+  /**
+   * Determines if the continuous recording is running.
+   *
+   * @return <b>true</b> if the continuous recording is running.
+   */
+  public synchronized boolean
+  recordingGet()
+  {
+    // Return the state of the recording.
+    return(m_recording != null);
+  }
+
+  /**
+   * Starts or stops the continuous recording, and saves the choice so that
+   * it is used the next time the application is started.
+   *
+   * @param enable <b>true</b> if the continuous recording should be running.
+   */
+  public void
+  recordingSet(boolean enable)
+  {
+    // Save the choice.
+    Config.getInstance().flightRecorderSet(enable);
+
+    // Start or stop the recording.
+    if(enable)
+    {
+      start();
+    }
+    else
+    {
+      stop();
+    }
+  }
+
+  /**
+   * Starts the continuous recording, if it is not already running.
+   */
+  private synchronized void
+  start()
+  {
+    // Do nothing if the recording is already running.
+    if(m_recording != null)
+    {
+      return;
+    }
+
+    // Create and start the recording, using the default (low overhead)
+    // settings, which include the application's events.
+    try
+    {
+      Recording recording =
+        new Recording(Configuration.getConfiguration("default"));
+      recording.setName("FLLScorer");
+      recording.setToDisk(true);
+      recording.setMaxAge(MAX_AGE);
+      recording.setMaxSize(MAX_SIZE);
+      recording.start();
+      m_recording = recording;
+    }
+    catch(Exception e)
+    {
+      System.out.println("Flight recorder error: " + e);
+    }
+  }
+
+  /**
+   * Stops the continuous recording, if it is running.
+   */
+  private synchronized void
+  stop()
+  {
+    // Close the recording, discarding what it has recorded.
+    if(m_recording != null)
+    {
+      m_recording.close();
+      m_recording = null;
+    }
+  }
+
+  /**
+   * Dumps the contents of the continuous recording.
+   *
+   * @return The contents of the recording, in the JFR file format, or
+   *         <b>null</b> if the recording is not running.
+   */
+  private synchronized byte[]
+  dump()
+  {
+    // There is nothing to dump if the recording is not running.
+    if(m_recording == null)
+    {
+      return(null);
+    }
+
+    // Dump the recording to a temporary file, then read it back in.
+    Path file = null;
+    try
+    {
+      file = Files.createTempFile("fllscorer", ".jfr");
+      m_recording.dump(file);
+      return(Files.readAllBytes(file));
+    }
+    catch(Exception e)
+    {
+      System.out.println("Flight recorder error: " + e);
+      return(null);
+    }
+    finally
+    {
+      try
+      {
+        if(file != null)
+        {
+          Files.deleteIfExists(file);
+        }
+      }
+      catch(Exception e)
+      {
+      }
+    }
+  }
+
+  /**
+   * Serves the JSON data for the state of the continuous recording.
+   *
+   * @param path The path that was requested.
+   *
+   * @param paramMap The parameters associated with the request.
+   *
+   * @return The array of bytes that contain the JSON response.
+   */
+  private byte[]
+  serveState(String path, HashMap<String, String> paramMap)
+  {
+    JSONObject result = new SimpleJSONObject();
+
+    // Start or stop the recording if requested, which can only be done by a
+    // POST request.
+    String action = "POST".equals(paramMap.get("request_method")) ?
+                    paramMap.get("action") : null;
+    if("start".equals(action))
+    {
+      recordingSet(true);
+    }
+    else if("stop".equals(action))
+    {
+      recordingSet(false);
+    }
+
+    // Add the state of the recording to the JSON response.
+    synchronized(this)
+    {
+      result.set("recording", m_recording != null);
+      if(m_recording != null)
+      {
+        result.set("start", m_recording.getStartTime().toEpochMilli());
+        result.set("size", m_recording.getSize());
+      }
+    }
+    result.set("last_publish", m_lastId.get());
+
+    // Convert the response into a byte array and return it.
+    try
+    {
+      String json = JSONParser.serialize(result);
+      return(json.getBytes(StandardCharsets.UTF_8));
+    }
+    catch(Exception e)
+    {
+      return("{}".getBytes(StandardCharsets.UTF_8));
+    }
+  }
+
+  /**
+   * Serves the contents of the continuous recording.
+   *
+   * @param path The path that was requested.
+   *
+   * @param paramMap The parameters associated with the request.
+   *
+   * @return The array of bytes that contain the recording.
+   */
+  private byte[]
+  serveRecording(String path, HashMap<String, String> paramMap)
+  {
+    // Return the contents of the recording.
+    return(dump());
+  }
+
+  /**
+   * Performs initial setup for the flight recorder, starting the continuous
+   * recording if it is enabled.
+   */
+  public void
+  setup()
+  {
+    // Register the application's events, so that they appear in the
+    // recording even before they have occurred.
+    FlightRecorder.register(PublishEvent.class);
+    FlightRecorder.register(ScoreEvent.class);
+    FlightRecorder.register(SaveEvent.class);
+    FlightRecorder.register(ScoreboardEvent.class);
+    FlightRecorder.register(FanOutEvent.class);
+
+    // Register the dynamic handlers for the recording.
+    WebServer.getInstance().registerDynamicFile("/admin/status/flight.json",
+                                                this::serveState);
+    WebServer.getInstance().registerDynamicFile("/admin/status/flight.jfr",
+                                                this::serveRecording);
+
+    // Start the recording if it is enabled.
+    if(Config.getInstance().flightRecorderGet())
+    {
+      start();
+    }
+  }
+}
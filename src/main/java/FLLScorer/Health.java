@@ -0,0 +1,554 @@
+// Copyright (c) 2024 Brian Kircher
+//
+// Open Source Software; you can modify and/or share it under the terms of BSD
+// license file in the root directory of this project.
+
+package FLLScorer;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.TreeMap;
+
+import org.bspfsystems.simplejson.JSONArray;
+import org.bspfsystems.simplejson.JSONObject;
+import org.bspfsystems.simplejson.SimpleJSONArray;
+import org.bspfsystems.simplejson.SimpleJSONObject;
+import org.bspfsystems.simplejson.parser.JSONParser;
+
+/**
+ * Samples the health of the application (the Java heap and garbage
+ * collection, the threads of each subsystem, the open WebSocket sessions, the
+ * SQLite database, and the HTTP requests) on a fixed interval, keeping the
+ * most recent samples so that trouble (such as a runaway socket thread or
+ * the garbage collector thrashing) can be spotted in the middle of an event
+ * from the health tab of the admin page, without attaching a profiler.
+ * <p>
+ * Each sample only reads counters that the JVM, web server, and database
+ * already maintain (plus a few SQLite pragmas), so sampling is cheap; the
+ * values that accumulate (such as the garbage collection time and the number
+ * of requests) are reported as the change since the previous sample.
+ * <p>
+ * This is a singleton that is acquired via the getInstance() method.
+ */
+public class Health
+{
+  /**
+   * The object for the Health singleton.
+   */
+  private static Health m_instance = null;
+
+  /**
+   * The time, in milliseconds, between samples.
+   */
+  private static final int INTERVAL = 5000;
+
+  /**
+   * The number of samples that are kept (ten minutes worth).
+   */
+  private static final int SAMPLES = 120;
+
+  /**
+   * The WebSocket endpoints whose sessions are counted.
+   */
+  private static final String[] m_endpoints =
+    { "timer", "timekeeper", "referee", "judge" };
+
+  /**
+   * The threads of a subsystem.
+   */
+  private static class Subsystem
+  {
+    /**
+     * The number of threads.
+     */
+    private int m_threads = 0;
+
+    /**
+     * The CPU time, in milliseconds, used by the threads since the previous
+     * sample.
+     */
+    private long m_cpu = 0;
+  }
+
+  /**
+   * A single sample of the health of the application.
+   */
+  private static class Sample
+  {
+    /**
+     * The time, in milliseconds, at which the sample was taken.
+     */
+    private long m_time;
+
+    /**
+     * The time, in milliseconds, since the previous sample.
+     */
+    private long m_elapsed;
+
+    /**
+     * The amount of the Java heap that is in use, in bytes.
+     */
+    private long m_heapUsed;
+
+    /**
+     * The amount of the Java heap that has been allocated, in bytes.
+     */
+    private long m_heapCommitted;
+
+    /**
+     * The maximum size of the Java heap, in bytes.
+     */
+    private long m_heapMax;
+
+    /**
+     * The number of garbage collections since the previous sample.
+     */
+    private long m_gcCount;
+
+    /**
+     * The time, in milliseconds, spent in garbage collection since the
+     * previous sample.
+     */
+    private long m_gcTime;
+
+    /**
+     * The duration, in milliseconds, of the most recent garbage collection
+     * since the previous sample, or <b>0</b> if there were none.
+     */
+    private long m_gcLast;
+
+    /**
+     * The threads of each subsystem, sorted by the name of the subsystem.
+     */
+    private TreeMap<String, Subsystem> m_subsystems =
+      new TreeMap<String, Subsystem>();
+
+    /**
+     * The number of open WebSocket sessions for each endpoint.
+     */
+    private HashMap<String, Integer> m_sockets;
+
+    /**
+     * The number of HTTP requests since the previous sample.
+     */
+    private long m_requests;
+
+    /**
+     * The number of SQL statements since the previous sample.
+     */
+    private long m_statements;
+
+    /**
+     * The time, in microseconds, that the SQL statements since the previous
+     * sample waited for the database connection.
+     */
+    private long m_wait;
+
+    /**
+     * The size of the database file, in bytes.
+     */
+    private long m_dbSize;
+
+    /**
+     * The amount of the database file that is unused, in bytes.
+     */
+    private long m_dbFree;
+
+    /**
+     * The size of the SQLite page cache, in bytes.
+     */
+    private long m_cacheSize;
+
+    /**
+     * Converts the sample into a JSON object.
+     *
+     * @return The JSON object describing the sample.
+     */
+    private JSONObject
+    toJSON()
+    {
+      JSONObject result = new SimpleJSONObject();
+
+      // Add the time of the sample.
+      result.set("time", m_time);
+      result.set("elapsed", m_elapsed);
+
+      // Add the Java heap and garbage collection.
+      result.set("heap_used", m_heapUsed);
+      result.set("heap_committed", m_heapCommitted);
+      result.set("heap_max", m_heapMax);
+      result.set("gc_count", m_gcCount);
+      result.set("gc_time", m_gcTime);
+      result.set("gc_last", m_gcLast);
+
+      // Add the threads of each subsystem.
+      JSONArray subsystems = new SimpleJSONArray();
+      int threads = 0;
+      for(String name : m_subsystems.keySet())
+      {
+        Subsystem subsystem = m_subsystems.get(name);
+        JSONObject item = new SimpleJSONObject();
+        item.set("name", name);
+        item.set("threads", subsystem.m_threads);
+        item.set("cpu", subsystem.m_cpu);
+        subsystems.addEntry(item);
+        threads += subsystem.m_threads;
+      }
+      result.set("threads", threads);
+      result.set("subsystems", subsystems);
+
+      // Add the WebSocket sessions for each endpoint.
+      JSONObject sockets = new SimpleJSONObject();
+      for(String endpoint : m_endpoints)
+      {
+        sockets.set(endpoint, m_sockets.getOrDefault(endpoint, 0));
+      }
+      result.set("sockets", sockets);
+
+      // Add the HTTP requests and the database.
+      result.set("requests", m_requests);
+      result.set("statements", m_statements);
+      result.set("wait", m_wait);
+      result.set("db_size", m_dbSize);
+      result.set("db_free", m_dbFree);
+      result.set("cache_size", m_cacheSize);
+
+      // Return the JSON object.
+      return(result);
+    }
+  }
+
+  /**
+   * The samples, used as a ring buffer.
+   */
+  private Sample[] m_samples = new Sample[SAMPLES];
+
+  /**
+   * The index into <i>m_samples</i> where the next sample is placed.
+   */
+  private int m_next = 0;
+
+  /**
+   * The time, in milliseconds, of the previous sample.
+   */
+  private long m_lastTime = 0;
+
+  /**
+   * The number of garbage collections at the previous sample.
+   */
+  private long m_lastGcCount = 0;
+
+  /**
+   * The time, in milliseconds, spent in garbage collection at the previous
+   * sample.
+   */
+  private long m_lastGcTime = 0;
+
+  /**
+   * The number of HTTP requests at the previous sample.
+   */
+  private long m_lastRequests = 0;
+
+  /**
+   * The number of SQL statements at the previous sample.
+   */
+  private long m_lastStatements = 0;
+
+  /**
+   * The time, in microseconds, that the SQL statements had waited for the
+   * database connection at the previous sample.
+   */
+  private long m_lastWait = 0;
+
+  /**
+   * The CPU time, in nanoseconds, used by each thread at the previous
+   * sample, indexed by the thread ID.
+   */
+  private HashMap<Long, Long> m_lastCpu = new HashMap<Long, Long>();
+
+  /**
+   * Gets the Health singleton object, creating it if necessary.
+   *
+   * @return Returns the Health singleton.
+   */
+  public static Health
+  getInstance()
+  {
+    // Create the Health object if required.
+    if(m_instance == null)
+    {
+      m_instance = new Health();
+    }
+
+    // Return the Health object.
+    return(m_instance);
+  }
+
+  /**
+   * The constructor.  This is private so that the object can only be created
+   * via the getIntance() method.
+   */
+  private
+  Health()
+  {
+  }
+
+  /**
+   * Determines the subsystem that a thread belongs to, from its name.
+   *
+   * @param name The name of the thread.
+   *
+   * @return The name of the subsystem.
+   */
+  private static String
+  subsystem(String name)
+  {
+    // Jetty's thread pool names its threads "qtp<hash>-<number>".
+    if(name.startsWith("qtp"))
+    {
+      return("Jetty");
+    }
+
+    // Otherwise, remove any trailing number (such as the "-3" in
+    // "Thread-3"), so that the threads that differ only by number are
+    // grouped together.
+    String subsystem = name.replaceAll("[-_ #0-9]+$", "");
+    return(subsystem.isEmpty() ? name : subsystem);
+  }
+
+  /**
+   * Takes a sample of the health of the application.
+   *
+   * @return The sample.
+   */
+  private Sample
+  sample()
+  {
+    Sample sample = new Sample();
+
+    // Record the time of the sample.
+    sample.m_time = System.currentTimeMillis();
+    sample.m_elapsed = sample.m_time - m_lastTime;
+    m_lastTime = sample.m_time;
+
+    // Add the usage of the Java heap.
+    MemoryUsage heap =
+      ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+    sample.m_heapUsed = heap.getUsed();
+    sample.m_heapCommitted = heap.getCommitted();
+    sample.m_heapMax = heap.getMax();
+
+    // Add the garbage collections since the previous sample, along with the
+    // duration of the most recent one (which, for the stop-the-world
+    // collectors, is the length of the pause).
+    long gcCount = 0;
+    long gcTime = 0;
+    for(GarbageCollectorMXBean gc :
+          ManagementFactory.getGarbageCollectorMXBeans())
+    {
+      gcCount += Math.max(gc.getCollectionCount(), 0);
+      gcTime += Math.max(gc.getCollectionTime(), 0);
+      if(gc instanceof com.sun.management.GarbageCollectorMXBean)
+      {
+        com.sun.management.GcInfo info =
+          ((com.sun.management.GarbageCollectorMXBean)gc).getLastGcInfo();
+        if((info != null) && (info.getEndTime() > 0))
+        {
+          sample.m_gcLast = Math.max(sample.m_gcLast, info.getDuration());
+        }
+      }
+    }
+    sample.m_gcCount = gcCount - m_lastGcCount;
+    sample.m_gcTime = gcTime - m_lastGcTime;
+    if(sample.m_gcCount == 0)
+    {
+      sample.m_gcLast = 0;
+    }
+    m_lastGcCount = gcCount;
+    m_lastGcTime = gcTime;
+
+    // Add the number of threads, and the CPU time they have used since the
+    // previous sample, for each subsystem.  The stack traces are not
+    // requested, which keeps this cheap.
+    ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    boolean cpu = threads.isThreadCpuTimeSupported() &&
+                  threads.isThreadCpuTimeEnabled();
+    HashMap<Long, Long> lastCpu = new HashMap<Long, Long>();
+    for(ThreadInfo info : threads.getThreadInfo(threads.getAllThreadIds()))
+    {
+      // Skip threads that exited while the information was being gathered.
+      if(info == null)
+      {
+        continue;
+      }
+
+      // Count this thread in its subsystem.
+      Subsystem subsystem =
+        sample.m_subsystems.computeIfAbsent(subsystem(info.getThreadName()),
+                                            k -> new Subsystem());
+      subsystem.m_threads++;
+
+      // Add the CPU time this thread has used since the previous sample.
+      long time = cpu ? threads.getThreadCpuTime(info.getThreadId()) : -1;
+      if(time != -1)
+      {
+        subsystem.m_cpu +=
+          (time - m_lastCpu.getOrDefault(info.getThreadId(), 0L)) / 1000000;
+        lastCpu.put(info.getThreadId(), time);
+      }
+    }
+    m_lastCpu = lastCpu;
+
+    // Add the open WebSocket sessions for each endpoint.
+    sample.m_sockets = SocketQueue.countsGet();
+
+    // Add the HTTP requests since the previous sample.
+    long requests = WebServer.getInstance().requestCountGet();
+    sample.m_requests = requests - m_lastRequests;
+    m_lastRequests = requests;
+
+    // Add the SQL statements since the previous sample, and the time they
+    // waited for the database connection.
+    QueryStats queryStats = QueryStats.getInstance();
+    long statements = queryStats.statementsGet();
+    long wait = queryStats.waitGet();
+    sample.m_statements = statements - m_lastStatements;
+    sample.m_wait = wait - m_lastWait;
+    m_lastStatements = statements;
+    m_lastWait = wait;
+
+    // Add the size of the database file and of its page cache.  A negative
+    // cache size is in kilobytes, instead of pages.
+    Database database = Database.getInstance();
+    long pageSize = database.pragmaGet("page_size");
+    long cacheSize = database.pragmaGet("cache_size");
+    sample.m_dbSize = pageSize * database.pragmaGet("page_count");
+    sample.m_dbFree = pageSize * database.pragmaGet("freelist_count");
+    sample.m_cacheSize = (cacheSize < 0) ? (-cacheSize * 1024) :
+                                           (cacheSize * pageSize);
+
+    // Return the sample.
+    return(sample);
+  }
+
+  /**
+   * Adds a sample to the ring buffer, replacing the oldest sample once it is
+   * full.
+   *
+   * @param sample The sample to add.
+   */
+  private synchronized void
+  add(Sample sample)
+  {
+    // Add the sample and advance to the next slot.
+    m_samples[m_next] = sample;
+    m_next = (m_next + 1) % SAMPLES;
+  }
+
+  /**
+   * Takes the samples on a fixed interval, in the background.
+   */
+  private class Sampler implements Runnable
+  {
+    /**
+     * The code that runs in the sampler thread.
+     */
+    @Override
+    public void
+    run()
+    {
+      // Take an initial sample, which is discarded, so that the first sample
+      // that is kept only covers the first interval.
+      sample();
+
+      // Loop forever.
+      while(true)
+      {
+        try
+        {
+          // Wait for the next interval, then take a sample.
+          Thread.sleep(INTERVAL);
+          add(sample());
+        }
+        catch(Exception e)
+        {
+          System.out.println("Health error: " + e);
+        }
+      }
+    }
+  }
+
+  /**
+   * Handles requests for /admin/status/health.json.
+   *
+   * @param path The path from the request.
+   *
+   * @param paramMap The parameters from the request.
+   *
+   * @return An array of bytes to return to the client.
+   */
+  private synchronized byte[]
+  serveStats(String path, HashMap<String, String> paramMap)
+  {
+    JSONObject result = new SimpleJSONObject();
+
+    // Only the samples taken after the given time are returned, so that the
+    // health tab only needs to fetch the new samples.
+    long since = 0;
+    try
+    {
+      since = Long.parseLong(paramMap.getOrDefault("since", "0"));
+    }
+    catch(Exception e)
+    {
+    }
+
+    // Add the sample interval and the number of samples kept.
+    result.set("interval", INTERVAL);
+    result.set("length", SAMPLES);
+
+    // Add the samples, oldest first.
+    JSONArray samples = new SimpleJSONArray();
+    for(int idx = 0; idx < SAMPLES; idx++)
+    {
+      Sample sample = m_samples[(m_next + idx) % SAMPLES];
+      if((sample != null) && (sample.m_time > since))
+      {
+        samples.addEntry(sample.toJSON());
+      }
+    }
+    result.set("samples", samples);
+
+    // Convert the response into a byte array and return it.
+    try
+    {
+      String json = JSONParser.serialize(result);
+      return(json.getBytes(StandardCharsets.UTF_8));
+    }
+    catch(Exception e)
+    {
+      return("{}".getBytes(StandardCharsets.UTF_8));
+    }
+  }
+
+  /**
+   * Performs initial setup for the health samples.
+   */
+  public void
+  setup()
+  {
+    // Register the dynamic handler for the health.json file.
+    WebServer.getInstance().registerDynamicFile("/admin/status/health.json",
+                                                this::serveStats);
+
+    // Start the thread that takes the samples.
+    Thread thread = new Thread(new Sampler(), "Health");
+    thread.setDaemon(true);
+    thread.start();
+  }
+}
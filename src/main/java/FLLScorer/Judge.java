@@ -10,6 +10,7 @@ import java.net.URLDecoder;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.concurrent.TimeUnit;
 
 import org.bspfsystems.simplejson.JSONArray;
@@ -20,7 +21,6 @@ import org.bspfsystems.simplejson.parser.JSONParser;
 import org.eclipse.jetty.ee10.websocket.server.JettyServerUpgradeRequest;
 import org.eclipse.jetty.ee10.websocket.server.JettyServerUpgradeResponse;
 import org.eclipse.jetty.ee10.websocket.server.JettyWebSocketCreator;
-import org.eclipse.jetty.websocket.api.Callback;
 import org.eclipse.jetty.websocket.api.Session;
 import org.eclipse.jetty.websocket.api.annotations.OnWebSocketClose;
 import org.eclipse.jetty.websocket.api.annotations.OnWebSocketOpen;
@@ -64,15 +64,35 @@ public class Judge
   private Events m_event = null;
 
   /**
-   * The JSON rubric for the current season.
+   * The JSON rubric for the current season.  This is changed by loadRubric()
+   * while holding the lock, but is read without it.
    */
-  private JSONObject m_rubric = null;
+  private volatile JSONObject m_rubric = null;
+
+  /**
+   * The compiled rubric for the current season, or <b>null</b> if the rubric
+   * could not be compiled.  This is changed by loadRubric() while holding the
+   * lock, but is read without it.
+   */
+  private volatile Rubric m_compiled = null;
 
   /**
    * The season for the currently loaded JSON rubric.
    */
   private String m_rubricSeason = null;
 
+  /**
+   * The JSON rubrics that have been loaded, indexed by year.
+   */
+  private HashMap<String, JSONObject> m_rubrics =
+    new HashMap<String, JSONObject>();
+
+  /**
+   * The compiled rubrics that have been loaded, indexed by year.
+   */
+  private HashMap<String, Rubric> m_compiledRubrics =
+    new HashMap<String, Rubric>();
+
   /**
    * The time of the last rubric update; used to determine when to push changes
    * to the active judges.
@@ -109,7 +129,7 @@ public class Judge
   /**
    * Loads the rubric for the current season.
    */
-  private void
+  private synchronized void
   loadRubric()
   {
     String fragment;
@@ -127,6 +147,15 @@ public class Judge
     // Extract the year from the season.
     String year = season.substring(0, 4);
 
+    // See if the rubric for this season has been loaded before.
+    if(m_rubrics.containsKey(year))
+    {
+      m_rubric = m_rubrics.get(year);
+      m_compiled = m_compiledRubrics.get(year);
+      m_rubricSeason = season;
+      return;
+    }
+
     // See if there is an information file for this season.
     in = ResourceStream.getResourceStream("seasons/" + year + "/rubric.json");
     if(in == null)
@@ -144,7 +173,24 @@ public class Judge
     catch(Exception e)
     {
       System.out.println("JSON error: " + e);
+      return;
+    }
+
+    // Compile the rubric, falling back to walking the JSON rubric if it can
+    // not be compiled.
+    try
+    {
+      m_compiled = new Rubric(m_rubric);
+    }
+    catch(Exception e)
+    {
+      System.out.println("Rubric error: " + e);
+      m_compiled = null;
     }
+
+    // Save the rubric for the next time this season is selected.
+    m_rubrics.put(year, m_rubric);
+    m_compiledRubrics.put(year, m_compiled);
   }
 
   /**
@@ -209,47 +255,27 @@ public class Judge
     int season_id = m_season.seasonIdGet();
     int event_id = m_event.eventIdGet();
 
-    // A list of information about teams, maintained in team number order.
-    ArrayList<Integer> ids = new ArrayList<Integer>();
-    ArrayList<Integer> numbers = new ArrayList<Integer>();
-    ArrayList<String> names = new ArrayList<String>();
-
-    // Enumerate the teams from the database for this season/event.
-    m_database.teamEnumerate(season_id, event_id, ids, numbers, names, null);
-
-    // A list of information about team rubrics.
-    ArrayList<Integer> ids2 = new ArrayList<Integer>();
-    ArrayList<Integer> project = new ArrayList<Integer>();
-    ArrayList<Integer> robot = new ArrayList<Integer>();
-    ArrayList<Integer> core = new ArrayList<Integer>();
-    ArrayList<String> rubric = new ArrayList<String>();
-
-    // Enumerate the team rubrics from the database for this season/event.
-    m_database.judgingEnumerate(season_id, event_id, null, null, null, ids2,
-                                project, robot, core, rubric);
+    // Read the teams and team rubrics for this season/event.
+    EventData data = EventData.read(season_id, event_id, false, false, true);
 
     // Create a JSON array for the team list.
     JSONArray teams = new SimpleJSONArray();
 
     // Loop through the teams.
-    for(int i = 0; i < numbers.size(); i++)
+    for(int i = 0; i < data.countGet(); i++)
     {
       // The default color for the edit button is yellow, meaning that the team
       // needs its rubrics filled in.
       String color = "yellow";
 
-      // Get the judging index for this team.
-      int j = ids2.indexOf(ids.get(i));
-
-      // See if the judging index for this team is not -1, meaning that there
-      // is an entry for this team in the judging database.
-      if(j != -1)
+      // See if there is an entry for this team in the judging database.
+      if(data.judgedGet(i))
       {
         // If all of judging areas have a score, then the rubric for this team
         // is completely filled out; in this case, make the button green to
         // indicate that it is done.
-        if((project.get(j) != -1) && (robot.get(j) != -1) &&
-           (core.get(j) != -1))
+        if((data.projectGet(i) != -1) && (data.robotGet(i) != -1) &&
+           (data.coreValuesGet(i) != -1))
         {
           color = "green";
         }
@@ -257,17 +283,17 @@ public class Judge
         // Otherwise, if the rubric itself has a value, then it is partially
         // filled out; in this case, make the button red to indicate that it
         // is only partially completed.
-        else if(rubric.get(j) != "")
+        else if(data.rubricGet(i))
         {
-            color = "red";
+          color = "red";
         }
       }
 
       // Add this team to the JSON array.
       JSONObject team = new SimpleJSONObject();
-      team.set("id", ids.get(i));
-      team.set("number", numbers.get(i));
-      team.set("name", names.get(i));
+      team.set("id", data.idGet(i));
+      team.set("number", data.numberGet(i));
+      team.set("name", data.nameGet(i));
       team.set("color", color);
       teams.addEntry(team);
     }
@@ -293,6 +319,7 @@ public class Judge
   {
     int project, robot_design, core_values;
     JSONObject scores;
+    int[] totals;
     boolean complete;
 
     // See if this JSON string is empty.
@@ -318,112 +345,46 @@ public class Judge
     }
 
     // The default score for the rubric areas is -1, meaning no score.
-    project = -1;
-    robot_design = -1;
-    core_values = -1;
+    totals = new int[] { -1, -1, -1 };
 
     // Assume the rubric is complete until a missing entry is found.
     complete = true;
 
+    // Load the current season's rubric if necessary.
+    loadRubric();
+
     // Catch and ignore any errors.
     try
     {
       // Convert the JSON string into an object.
       scores = JSONParser.deserializeObject(json);
 
-      // Get the areas from the rubric.
-      JSONArray areas = m_rubric.getArray("areas");
-
-      // Loop through the areas.
-      for(int i = 0; i < areas.size(); i++)
+      // Total the areas of the rubric, using the compiled rubric if there is
+      // one.  Both are read under the lock so that they are for the same
+      // season.
+      Rubric compiled;
+      JSONObject rubric;
+      synchronized(this)
       {
-        // Get the JSON object for this area.
-        JSONObject area = areas.getObject(i);
-
-        // Get the type of this area.
-        String type = area.getString("type");
-
-        // Get the sections in this area.
-        JSONArray sections = area.getArray("sections");
-
-        // Loop through the sections.
-        for(int j = 0; j < sections.size(); j++)
-        {
-          // Get the JSON object for this section.
-          JSONObject section = sections.getObject(j);
-
-          // Get the items in this section.
-          JSONArray items = section.getArray("items");
-
-          // Loop through the items.
-          for(int k = 0; k < items.size(); k++)
-          {
-            // Get the JSON object for this item.
-            JSONObject item = items.getObject(k);
-
-            // Determine if this is an individual item that also counts towards
-            // Core Values.
-            boolean isCoreValues = (item.isBoolean("isCoreValues") &&
-                                    item.getBoolean("isCoreValues"));
-
-            // See if this item has a value in the team's rubric.
-            if(scores.isInteger("R" + i + "_" + j + "_" + k))
-            {
-              // Get the team's score for this item.
-              int score = scores.getInteger("R" + i + "_" + j + "_" + k) + 1;
-
-              // See if this area is Project.
-              if(type.equals("project"))
-              {
-                // Add the team's score on this item to the Project score.
-                project = (project == -1) ? score : (project + score);
-
-                // If this item is a Core Values item, also add the team's
-                // score on this item to the Core Values score.
-                if(isCoreValues)
-                {
-                  core_values = ((core_values == -1) ? score :
-                                 (core_values + score));
-                }
-              }
-
-              // See if this area is Robot Design.
-              if(type.equals("robot_design"))
-              {
-                // Add the team's score on this item to the Robot Design score.
-                robot_design = ((robot_design == -1) ? score :
-                                (robot_design + score));
-
-                // If this item is a Core Values item, also add the team's
-                // score on this item to the Core Values score.
-                if(isCoreValues)
-                {
-                  core_values = ((core_values == -1) ? score :
-                                 (core_values + score));
-                }
-              }
-
-              // See if this area is Core Values.
-              if(type.equals("core_values"))
-              {
-                // Add the team's score on this item to the Core Values score.
-                core_values = ((core_values == -1) ? score :
-                               (core_values + score));
-              }
-            }
-            else
-            {
-              // The rubric is not complete.
-              complete = false;
-            }
-          }
-        }
+        compiled = m_compiled;
+        rubric = m_rubric;
+      }
+      if(compiled != null)
+      {
+        complete = compiled.total(scores, totals);
+      }
+      else
+      {
+        complete = Rubric.interpret(rubric, scores, totals);
       }
     }
     catch(Exception e)
     {
       System.out.println("JSON error: " + e);
     }
+    project = totals[Rubric.PROJECT];
+    robot_design = totals[Rubric.ROBOT_DESIGN];
+    core_values = totals[Rubric.CORE_VALUES];
 
     // Do not provide scores for this rubric unless it is complete.
     if(!complete)
@@ -531,6 +492,11 @@ public class Judge
      */
     private Session m_session;
 
+    /**
+     * The outbound message queue for this WebSocket.
+     */
+    private SocketQueue m_queue;
+
     /**
      * The time, in milliseconds, at which the update was sent to the
      * WebSocket.
@@ -546,11 +512,12 @@ public class Judge
     public void
     onOpen(Session session)
     {
-      // Save the session.
+      // Save the session and create the outbound message queue for it.
       m_session = session;
+      m_queue = new SocketQueue("judge", session);
 
       // Start the thread that handles sending updates via the WebSocket.
-      new Thread(this).start();
+      new Thread(this, "Judge socket").start();
     }
 
     /**
@@ -564,6 +531,9 @@ public class Judge
     public void
     onClose(int closeCode, String closeReasonPhrase)
     {
+      // Discard any messages that have not been sent.
+      m_queue.close();
+
       // Clear the stored session, which causes the background thread to exit.
       m_session = null;
     }
@@ -643,23 +613,19 @@ public class Judge
             }
 
             // Send this team's project score to the client.
-            m_session.sendText("ip:" + teamNumber.get(idx) + ":" +
-                               ((ip == -1) ? ((state == 1) ? "***" : "") : ip),
-                               Callback.NOOP);
+            m_queue.send("ip:" + teamNumber.get(idx) + ":" +
+                         ((ip == -1) ? ((state == 1) ? "***" : "") : ip));
 
             // Send this team's robot design score to the client.
-            m_session.sendText("rd:" + teamNumber.get(idx) + ":" +
-                               ((rd == -1) ? ((state == 1) ? "***" : "") : rd),
-                               Callback.NOOP);
+            m_queue.send("rd:" + teamNumber.get(idx) + ":" +
+                         ((rd == -1) ? ((state == 1) ? "***" : "") : rd));
 
             // Send this team's Core Values score to the client.
-            m_session.sendText("cv:" + teamNumber.get(idx) + ":" +
-                               ((cv == -1) ? ((state == 1) ? "***" : "") : cv),
-                               Callback.NOOP);
+            m_queue.send("cv:" + teamNumber.get(idx) + ":" +
+                         ((cv == -1) ? ((state == 1) ? "***" : "") : cv));
 
             // Send this team's rubric state to the client.
-            m_session.sendText("r:" + teamNumber.get(idx) + ":" + state,
-                               Callback.NOOP);
+            m_queue.send("r:" + teamNumber.get(idx) + ":" + state);
           }
 
           // Get the teams at this event.
@@ -670,24 +636,21 @@ public class Judge
                                  null, teamsAtEvent);
 
           // Loop through all the teams at this event.
+          HashSet<Integer> haveRubric = new HashSet<Integer>(teamNumber);
           for(int idx = 0; idx < teamsAtEvent.size(); idx++)
           {
             // Skip this team if it has a rubric and therefore has already been
             // handled.
-            if(teamNumber.contains(teamsAtEvent.get(idx)))
+            if(haveRubric.contains(teamsAtEvent.get(idx)))
             {
               continue;
             }
 
             // Send messages indicating that there is no rubric for this team.
-            m_session.sendText("ip:" + teamsAtEvent.get(idx) + ":",
-                               Callback.NOOP);
-            m_session.sendText("rd:" + teamsAtEvent.get(idx) + ":",
-                               Callback.NOOP);
-            m_session.sendText("cv:" + teamsAtEvent.get(idx) + ":",
-                               Callback.NOOP);
-            m_session.sendText("r:" + teamsAtEvent.get(idx) + ":0",
-                               Callback.NOOP);
+            m_queue.send("ip:" + teamsAtEvent.get(idx) + ":");
+            m_queue.send("rd:" + teamsAtEvent.get(idx) + ":");
+            m_queue.send("cv:" + teamsAtEvent.get(idx) + ":");
+            m_queue.send("r:" + teamsAtEvent.get(idx) + ":0");
           }
 
           // Set the last send time to the update time.  It is possible that
@@ -699,7 +662,7 @@ public class Judge
         {
           // Send a NOP via the WebSocket (to keep it from timing out and
           // closing).
-          m_session.sendText("nop", Callback.NOOP);
+          m_queue.send("nop");
 
           // Increment the last send time by a second.  This effectively
           // precludes the possibility of a missed update.
@@ -9,9 +9,11 @@ import java.awt.image.BufferedImage;
 import java.io.ByteArrayOutputStream;
 import java.net.InetAddress;
 import java.net.NetworkInterface;
+import java.nio.charset.StandardCharsets;
 import java.util.Collections;
 import java.util.Enumeration;
 import java.util.HashMap;
+import java.util.concurrent.TimeUnit;
 
 import javax.imageio.ImageIO;
 
@@ -24,6 +26,22 @@ import io.nayuki.qrcodegen.QrCode;
  */
 public class Links
 {
+  /**
+   * The scale (the number of pixels per module) of a PNG QR code when one is
+   * not requested.
+   */
+  private static final int DEFAULT_SCALE = 8;
+
+  /**
+   * The largest scale of a PNG QR code that can be requested.
+   */
+  private static final int MAX_SCALE = 32;
+
+  /**
+   * The width, in modules, of the border around a QR code.
+   */
+  private static final int BORDER = 10;
+
   /**
    * The object for the Links singleton.
    */
@@ -42,7 +60,31 @@ public class Links
   /**
    * The string with the host name or IP address of the local machine.
    */
-  private String m_localIP = null;
+  private volatile String m_localIP = null;
+
+  /**
+   * A QR code that has been rendered.
+   */
+  private static class Rendered
+  {
+    /**
+     * The string that is encoded into the QR code.
+     */
+    private String m_payload;
+
+    /**
+     * The rendered image.
+     */
+    private byte[] m_image;
+  }
+
+  /**
+   * The QR codes that have been rendered, indexed by their path and scale.
+   * A QR code is rendered again when the string it encodes changes (because
+   * the address of the server or the WiFi information has changed).
+   */
+  private HashMap<String, Rendered> m_rendered =
+    new HashMap<String, Rendered>();
 
   /**
    * Gets the Links singleton object, creating it if necessary.
@@ -124,24 +166,23 @@ public class Links
   }
 
   /**
-   * Serves a PNG file containing a QR code for the given string.
+   * Renders a QR code as a PNG file.
    *
-   * @param string The string to be encoded into a QR code.
+   * @param qr The QR code.
+   *
+   * @param scale The number of pixels for each module of the QR code.
    *
    * @return Returns the byte array containing the PNG of the QR code.
    */
-  private byte[]
-  serveQrCode(String string)
+  private static byte[]
+  renderPng(QrCode qr, int scale)
   {
-    QrCode qr = QrCode.encodeText(string, QrCode.Ecc.HIGH);
-    int scale = 8;
-    int border = 10;
     int lightColor = 0x000000;
     int darkColor = 0xffffff;
 
     // Create a buffer images.
-    BufferedImage result = new BufferedImage((qr.size + border * 2) * scale,
-                                             (qr.size + border * 2) * scale,
+    BufferedImage result = new BufferedImage((qr.size + BORDER * 2) * scale,
+                                             (qr.size + BORDER * 2) * scale,
                                              BufferedImage.TYPE_INT_RGB);
 
     // Loop through the rows of the image.
@@ -151,7 +192,7 @@ public class Links
       for(int x = 0; x < result.getWidth(); x++)
       {
         // Determine the color for this pixel.
-        boolean color = qr.getModule(x / scale - border, y / scale - border);
+        boolean color = qr.getModule(x / scale - BORDER, y / scale - BORDER);
 
         // Set this pixel of the image to the appropriate color.
         result.setRGB(x, y, color ? darkColor : lightColor);
@@ -170,7 +211,111 @@ public class Links
   }
 
   /**
-   * Serve a PNG with a QR code for the web page for admins.
+   * Renders a QR code as an SVG file, which is cheaper to generate than a
+   * PNG and scales to any size (such as on a projector).
+   *
+   * @param qr The QR code.
+   *
+   * @return Returns the byte array containing the SVG of the QR code.
+   */
+  private static byte[]
+  renderSvg(QrCode qr)
+  {
+    int size = qr.size + BORDER * 2;
+    StringBuilder svg = new StringBuilder();
+
+    // Add the header and the background, using the same colors as the PNG.
+    svg.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+    svg.append("<svg xmlns=\"http://www.w3.org/2000/svg\" viewBox=\"0 0 " +
+               size + " " + size + "\" shape-rendering=\"crispEdges\">\n");
+    svg.append("<rect width=\"100%\" height=\"100%\" fill=\"#000000\"/>\n");
+
+    // Add a square to the path for each dark module.
+    svg.append("<path fill=\"#ffffff\" d=\"");
+    for(int y = 0; y < qr.size; y++)
+    {
+      for(int x = 0; x < qr.size; x++)
+      {
+        if(qr.getModule(x, y))
+        {
+          svg.append("M" + (x + BORDER) + "," + (y + BORDER) + "h1v1h-1z");
+        }
+      }
+    }
+    svg.append("\"/>\n</svg>\n");
+
+    // Return the SVG.
+    return(svg.toString().getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Serves a PNG or SVG file containing a QR code for the given string,
+   * rendering it only if it has not already been rendered.
+   *
+   * @param path The path from the request; its extension selects a PNG or
+   *             SVG file.
+   *
+   * @param paramMap The parameters from the request; "scale" selects the
+   *                 number of pixels for each module of a PNG.
+   *
+   * @param string The string to be encoded into a QR code.
+   *
+   * @return Returns the byte array containing the QR code.
+   */
+  private byte[]
+  serveQrCode(String path, HashMap<String, String> paramMap, String string)
+  {
+    boolean svg = path.endsWith(".svg");
+    int scale = DEFAULT_SCALE;
+
+    // Get the requested scale of a PNG, if one was provided.
+    if(!svg && paramMap.containsKey("scale"))
+    {
+      try
+      {
+        scale = Math.max(1, Math.min(MAX_SCALE,
+                                     Integer.parseInt(paramMap.get("scale"))));
+      }
+      catch(Exception e)
+      {
+      }
+    }
+
+    // Return the previously rendered QR code if it encodes the same string.
+    String key = svg ? path : (path + "?" + scale);
+    synchronized(this)
+    {
+      Rendered rendered = m_rendered.get(key);
+      if((rendered != null) && rendered.m_payload.equals(string))
+      {
+        return(rendered.m_image);
+      }
+    }
+
+    // Render the QR code.
+    QrCode qr = QrCode.encodeText(string, QrCode.Ecc.HIGH);
+    byte[] image = svg ? renderSvg(qr) : renderPng(qr, scale);
+    if(image == null)
+    {
+      return(null);
+    }
+
+    // Save the rendered QR code, replacing any that encoded a previous
+    // string.
+    Rendered rendered = new Rendered();
+    rendered.m_payload = string;
+    rendered.m_image = image;
+    synchronized(this)
+    {
+      m_rendered.put(key, rendered);
+    }
+
+    // Return the rendered QR code.
+    return(image);
+  }
+
+  /**
+   * Serve a PNG or SVG with a QR code for the web page for admins.
    *
    * @param path The path from the request.
    *
@@ -182,11 +327,12 @@ public class Links
   serveAdmin(String path, HashMap<String, String> paramMap)
   {
     // Generate a QR code for the admin web page.
-    return(serveQrCode("https://" + m_localIP + ":8443/admin"));
+    return(serveQrCode(path, paramMap,
+                       "https://" + m_localIP + ":8443/admin"));
   }
 
   /**
-   * Serve a PNG with a QR code for the web page for documentation.
+   * Serve a PNG or SVG with a QR code for the web page for documentation.
    *
    * @param path The path from the request.
    *
@@ -198,11 +344,12 @@ public class Links
   serveDocs(String path, HashMap<String, String> paramMap)
   {
     // Generate a QR code for the admin web page.
-    return(serveQrCode("https://" + m_localIP + ":8443/docs"));
+    return(serveQrCode(path, paramMap,
+                       "https://" + m_localIP + ":8443/docs"));
   }
 
   /**
-   * Serve a PNG with a QR code for the web page for judges.
+   * Serve a PNG or SVG with a QR code for the web page for judges.
    *
    * @param path The path from the request.
    *
@@ -214,11 +361,12 @@ public class Links
   serveJudge(String path, HashMap<String, String> paramMap)
   {
     // Generate a QR code for the judge's web page.
-    return(serveQrCode("https://" + m_localIP + ":8443/judge"));
+    return(serveQrCode(path, paramMap,
+                       "https://" + m_localIP + ":8443/judge"));
   }
 
   /**
-   * Serve a PNG with a QR code for the web page for the referees.
+   * Serve a PNG or SVG with a QR code for the web page for the referees.
    *
    * @param path The path from the request.
    *
@@ -230,11 +378,12 @@ public class Links
   serveReferee(String path, HashMap<String, String> paramMap)
   {
     // Generate a QR code for the referee's web page.
-    return(serveQrCode("https://" + m_localIP + ":8443/referee"));
+    return(serveQrCode(path, paramMap,
+                       "https://" + m_localIP + ":8443/referee"));
   }
 
   /**
-   * Serve a PNG with a QR code for the web page of the scoreboard.
+   * Serve a PNG or SVG with a QR code for the web page of the scoreboard.
    *
    * @param path The path from the request.
    *
@@ -246,11 +395,12 @@ public class Links
   serveScoreboard(String path, HashMap<String, String> paramMap)
   {
     // Generate a QR code for the scoreboard web page.
-    return(serveQrCode("https://" + m_localIP + ":8443/scoreboard"));
+    return(serveQrCode(path, paramMap,
+                       "https://" + m_localIP + ":8443/scoreboard"));
   }
 
   /**
-   * Serve a PNG with a QR code for the web page of the standings.
+   * Serve a PNG or SVG with a QR code for the web page of the standings.
    *
    * @param path The path from the request.
    *
@@ -262,11 +412,12 @@ public class Links
   serveStandings(String path, HashMap<String, String> paramMap)
   {
     // Generate a QR code for the standings web page.
-    return(serveQrCode("https://" + m_localIP + ":8443/standings"));
+    return(serveQrCode(path, paramMap,
+                       "https://" + m_localIP + ":8443/standings"));
   }
 
   /**
-   * Serve a PNG with a QR code for the web page for the time keeper.
+   * Serve a PNG or SVG with a QR code for the web page for the time keeper.
    *
    * @param path The path from the request.
    *
@@ -278,11 +429,12 @@ public class Links
   serveTimekeeper(String path, HashMap<String, String> paramMap)
   {
     // Generate a QR code for the time keeper's web page.
-    return(serveQrCode("https://" + m_localIP + ":8443/timekeeper"));
+    return(serveQrCode(path, paramMap,
+                       "https://" + m_localIP + ":8443/timekeeper"));
   }
 
   /**
-   * Serve a PNG with a QR code for the web page of the timer.
+   * Serve a PNG or SVG with a QR code for the web page of the timer.
    *
    * @param path The path from the request.
    *
@@ -294,11 +446,12 @@ public class Links
   serveTimer(String path, HashMap<String, String> paramMap)
   {
     // Generate a QR code for the timer web page.
-    return(serveQrCode("https://" + m_localIP + ":8443/timer"));
+    return(serveQrCode(path, paramMap,
+                       "https://" + m_localIP + ":8443/timer"));
   }
 
   /**
-   * Serve a PNG with a QR code for joining the WiFi network.
+   * Serve a PNG or SVG with a QR code for joining the WiFi network.
    *
    * @param path The path from the request.
    *
@@ -314,7 +467,8 @@ public class Links
     String password = m_config.wifiPasswordGet();
 
     // Generate a QR code for joining the WiFi network.
-    return(serveQrCode("WIFI:T:WPA;S:" + ssid + ";P:" + password + ";;"));
+    return(serveQrCode(path, paramMap,
+                       "WIFI:T:WPA;S:" + ssid + ";P:" + password + ";;"));
   }
 
   /**
@@ -348,6 +502,50 @@ public class Links
     }
  }
 
+  /**
+   * Watches for changes to the address of the server, in the background.
+   */
+  private class Watcher implements Runnable
+  {
+    /**
+     * The code that runs in the watcher thread.
+     */
+    @Override
+    public void
+    run()
+    {
+      // Loop forever.
+      while(true)
+      {
+        // Delay for thirty seconds.
+        try
+        {
+          TimeUnit.SECONDS.sleep(30);
+        }
+        catch(InterruptedException e)
+        {
+        }
+
+        // Get the address of the server, and ignore it if it has not changed.
+        String ip = getIP();
+        if(ip.equals(m_localIP))
+        {
+          continue;
+        }
+
+        // Use the new address for the base URL and the QR codes.  The QR
+        // codes for the old address are no longer needed.
+        m_localIP = ip;
+        m_webserver.registerSSI("base_url", "https://" + ip + ":8443");
+        synchronized(Links.this)
+        {
+          m_rendered.clear();
+        }
+        System.out.println("Server address changed to " + ip);
+      }
+    }
+  }
+
   /**
    * Performs initial setup for the links handler.
    */
@@ -368,18 +566,28 @@ public class Links
     // Register the dynamic SSI handler for the WiFi links panel.
     m_webserver.registerDynamicSSI("links_wifi", this::serveSSI);
 
-    // Register the dynamic handlers for the various QR code PNGs.
-    m_webserver.registerDynamicFile("/links/admin.png", this::serveAdmin);
-    m_webserver.registerDynamicFile("/links/docs.png", this::serveDocs);
-    m_webserver.registerDynamicFile("/links/judge.png", this::serveJudge);
-    m_webserver.registerDynamicFile("/links/referee.png", this::serveReferee);
-    m_webserver.registerDynamicFile("/links/scoreboard.png",
-                                    this::serveScoreboard);
-    m_webserver.registerDynamicFile("/links/standings.png",
-                                    this::serveStandings);
-    m_webserver.registerDynamicFile("/links/timekeeper.png",
-                                    this::serveTimekeeper);
-    m_webserver.registerDynamicFile("/links/timer.png", this::serveTimer);
-    m_webserver.registerDynamicFile("/links/wifi.png", this::serveWiFi);
+    // Register the dynamic handlers for the various QR code PNGs and SVGs.
+    for(String type : new String[] { ".png", ".svg" })
+    {
+      m_webserver.registerDynamicFile("/links/admin" + type, this::serveAdmin);
+      m_webserver.registerDynamicFile("/links/docs" + type, this::serveDocs);
+      m_webserver.registerDynamicFile("/links/judge" + type, this::serveJudge);
+      m_webserver.registerDynamicFile("/links/referee" + type,
+                                      this::serveReferee);
+      m_webserver.registerDynamicFile("/links/scoreboard" + type,
+                                      this::serveScoreboard);
+      m_webserver.registerDynamicFile("/links/standings" + type,
+                                      this::serveStandings);
+      m_webserver.registerDynamicFile("/links/timekeeper" + type,
+                                      this::serveTimekeeper);
+      m_webserver.registerDynamicFile("/links/timer" + type, this::serveTimer);
+      m_webserver.registerDynamicFile("/links/wifi" + type, this::serveWiFi);
+    }
+
+    // Start the thread that watches for changes to the address of the
+    // server.
+    Thread thread = new Thread(new Watcher(), "Links");
+    thread.setDaemon(true);
+    thread.start();
   }
 }
\ No newline at end of file
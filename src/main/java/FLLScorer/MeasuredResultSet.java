@@ -0,0 +1,1623 @@
+// Copyright (c) 2024 Brian Kircher
+//
+// Open Source Software; you can modify and/or share it under the terms of BSD
+// license file in the root directory of this project.
+
+package FLLScorer;
+
+import java.io.InputStream;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.net.URL;
+import java.sql.Array;
+import java.sql.Blob;
+import java.sql.Clob;
+import java.sql.Date;
+import java.sql.NClob;
+import java.sql.Ref;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.RowId;
+import java.sql.SQLException;
+import java.sql.SQLWarning;
+import java.sql.SQLXML;
+import java.sql.Statement;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.util.Calendar;
+import java.util.Map;
+
+/**
+ * Wraps the results of a query so that the rows that are read are counted,
+ * for the query statistics.  Every call is passed directly on to the
+ * results, so (unlike the proxies used for the detailed measurements) this
+ * is cheap enough to use for every query.
+ */
+class MeasuredResultSet implements ResultSet
+{
+  /**
+   * The results that are being wrapped.
+   */
+  private ResultSet m_result;
+
+  /**
+   * The number of rows that have been read.
+   */
+  private long m_rows = 0;
+
+  /**
+   * The constructor.
+   *
+   * @param result The results to wrap.
+   */
+  MeasuredResultSet(ResultSet result)
+  {
+    m_result = result;
+  }
+
+  /**
+   * Gets the number of rows that have been read.
+   *
+   * @return The number of rows that have been read.
+   */
+  long
+  rowsGet()
+  {
+    // Return the number of rows.
+    return(m_rows);
+  }
+
+  @Override
+  public boolean
+  next() throws SQLException
+  {
+    // Read the next row, counting it if there is one.
+    boolean more = m_result.next();
+    if(more)
+    {
+      m_rows++;
+    }
+    return(more);
+  }
+
+  @Override
+  public void
+  close() throws SQLException
+  {
+    // Pass the call on to the results.
+    m_result.close();
+  }
+
+  @Override
+  public boolean
+  wasNull() throws SQLException
+  {
+    // Pass the call on to the results.
+    return(m_result.wasNull());
+  }
+
+  @Override
+  public String
+  getString(int columnIndex) throws SQLException
+  {
+    // Pass the call on to the results.
+    return(m_result.getString(columnIndex));
+  }
+
+  @Override
+  public boolean
+  getBoolean(int columnIndex) throws SQLException
+  {
+    // Pass the call on to the results.
+    return(m_result.getBoolean(columnIndex));
+  }
+
+  @Override
+  public byte
+  getByte(int columnIndex) throws SQLException
+  {
+    // Pass the call on to the results.
+    return(m_result.getByte(columnIndex));
+  }
+
+  @Override
+  public short
+  getShort(int columnIndex) throws SQLException
+  {
+    // Pass the call on to the results.
+    return(m_result.getShort(columnIndex));
+  }
+
+  @Override
+  public int
+  getInt(int columnIndex) throws SQLException
+  {
+    // Pass the call on to the results.
+    return(m_result.getInt(columnIndex));
+  }
+
+  @Override
+  public long
+  getLong(int columnIndex) throws SQLException
+  {
+    // Pass the call on to the results.
+    return(m_result.getLong(columnIndex));
+  }
+
+  @Override
+  public float
+  getFloat(int columnIndex) throws SQLException
+  {
+    // Pass the call on to the results.
+    return(m_result.getFloat(columnIndex));
+  }
+
+  @Override
+  public double
+  getDouble(int columnIndex) throws SQLException
+  {
+    // Pass the call on to the results.
+    return(m_result.getDouble(columnIndex));
+  }
+
+  @Deprecated
+  @Override
+  public BigDecimal
+  getBigDecimal(int columnIndex, int scale) throws SQLException
+  {
+    // Pass the call on to the results.
+    return(m_result.getBigDecimal(columnIndex, scale));
+  }
+
+  @Override
+  public byte[]
+  getBytes(int columnIndex) throws SQLException
+  {
+    // Pass the call on to the results.
+    return(m_result.getBytes(columnIndex));
+  }
+
+  @Override
+  public Date
+  getDate(int columnIndex) throws SQLException
+  {
+    // Pass the call on to the results.
+    return(m_result.getDate(columnIndex));
+  }
+
+  @Override
+  public Time
+  getTime(int columnIndex) throws SQLException
+  {
+    // Pass the call on to the results.
+    return(m_result.getTime(columnIndex));
+  }
+
+  @Override
+  public Timestamp
+  getTimestamp(int columnIndex) throws SQLException
+  {
+    // Pass the call on to the results.
+    return(m_result.getTimestamp(columnIndex));
+  }
+
+  @Override
+  public InputStream
+  getAsciiStream(int columnIndex) throws SQLException
+  {
+    // Pass the call on to the results.
+    return(m_result.getAsciiStream(columnIndex));
+  }
+
+  @Deprecated
+  @Override
+  public InputStream
+  getUnicodeStream(int columnIndex) throws SQLException
+  {
+    // Pass the call on to the results.
+    return(m_result.getUnicodeStream(columnIndex));
+  }
+
+  @Override
+  public InputStream
+  getBinaryStream(int columnIndex) throws SQLException
+  {
+    // Pass the call on to the results.
+    return(m_result.getBinaryStream(columnIndex));
+  }
+
+  @Override
+  public String
+  getString(String columnLabel) throws SQLException
+  {
+    // Pass the call on to the results.
+    return(m_result.getString(columnLabel));
+  }
+
+  @Override
+  public boolean
+  getBoolean(String columnLabel) throws SQLException
+  {
+    // Pass the call on to the results.
+    return(m_result.getBoolean(columnLabel));
+  }
+
+  @Override
+  public byte
+  getByte(String columnLabel) throws SQLException
+  {
+    // Pass the call on to the results.
+    return(m_result.getByte(columnLabel));
+  }
+
+  @Override
+  public short
+  getShort(String columnLabel) throws SQLException
+  {
+    // Pass the call on to the results.
+    return(m_result.getShort(columnLabel));
+  }
+
+  @Override
+  public int
+  getInt(String columnLabel) throws SQLException
+  {
+    // Pass the call on to the results.
+    return(m_result.getInt(columnLabel));
+  }
+
+  @Override
+  public long
+  getLong(String columnLabel) throws SQLException
+  {
+    // Pass the call on to the results.
+    return(m_result.getLong(columnLabel));
+  }
+
+  @Override
+  public float
+  getFloat(String columnLabel) throws SQLException
+  {
+    // Pass the call on to the results.
+    return(m_result.getFloat(columnLabel));
+  }
+
+  @Override
+  public double
+  getDouble(String columnLabel) throws SQLException
+  {
+    // Pass the call on to the results.
+    return(m_result.getDouble(columnLabel));
+  }
+
+  @Deprecated
+  @Override
+  public BigDecimal
+  getBigDecimal(String columnLabel, int scale) throws SQLException
+  {
+    // Pass the call on to the results.
+    return(m_result.getBigDecimal(columnLabel, scale));
+  }
+
+  @Override
+  public byte[]
+  getBytes(String columnLabel) throws SQLException
+  {
+    // Pass the call on to the results.
+    return(m_result.getBytes(columnLabel));
+  }
+
+  @Override
+  public Date
+  getDate(String columnLabel) throws SQLException
+  {
+    // Pass the call on to the results.
+    return(m_result.getDate(columnLabel));
+  }
+
+  @Override
+  public Time
+  getTime(String columnLabel) throws SQLException
+  {
+    // Pass the call on to the results.
+    return(m_result.getTime(columnLabel));
+  }
+
+  @Override
+  public Timestamp
+  getTimestamp(String columnLabel) throws SQLException
+  {
+    // Pass the call on to the results.
+    return(m_result.getTimestamp(columnLabel));
+  }
+
+  @Override
+  public InputStream
+  getAsciiStream(String columnLabel) throws SQLException
+  {
+    // Pass the call on to the results.
+    return(m_result.getAsciiStream(columnLabel));
+  }
+
+  @Deprecated
+  @Override
+  public InputStream
+  getUnicodeStream(String columnLabel) throws SQLException
+  {
+    // Pass the call on to the results.
+    return(m_result.getUnicodeStream(columnLabel));
+  }
+
+  @Override
+  public InputStream
+  getBinaryStream(String columnLabel) throws SQLException
+  {
+    // Pass the call on to the results.
+    return(m_result.getBinaryStream(columnLabel));
+  }
+
+  @Override
+  public SQLWarning
+  getWarnings() throws SQLException
+  {
+    // Pass the call on to the results.
+    return(m_result.getWarnings());
+  }
+
+  @Override
+  public void
+  clearWarnings() throws SQLException
+  {
+    // Pass the call on to the results.
+    m_result.clearWarnings();
+  }
+
+  @Override
+  public String
+  getCursorName() throws SQLException
+  {
+    // Pass the call on to the results.
+    return(m_result.getCursorName());
+  }
+
+  @Override
+  public ResultSetMetaData
+  getMetaData() throws SQLException
+  {
+    // Pass the call on to the results.
+    return(m_result.getMetaData());
+  }
+
+  @Override
+  public Object
+  getObject(int columnIndex) throws SQLException
+  {
+    // Pass the call on to the results.
+    return(m_result.getObject(columnIndex));
+  }
+
+  @Override
+  public Object
+  getObject(String columnLabel) throws SQLException
+  {
+    // Pass the call on to the results.
+    return(m_result.getObject(columnLabel));
+  }
+
+  @Override
+  public int
+  findColumn(String columnLabel) throws SQLException
+  {
+    // Pass the call on to the results.
+    return(m_result.findColumn(columnLabel));
+  }
+
+  @Override
+  public Reader
+  getCharacterStream(int columnIndex) throws SQLException
+  {
+    // Pass the call on to the results.
+    return(m_result.getCharacterStream(columnIndex));
+  }
+
+  @Override
+  public Reader
+  getCharacterStream(String columnLabel) throws SQLException
+  {
+    // Pass the call on to the results.
+    return(m_result.getCharacterStream(columnLabel));
+  }
+
+  @Override
+  public BigDecimal
+  getBigDecimal(int columnIndex) throws SQLException
+  {
+    // Pass the call on to the results.
+    return(m_result.getBigDecimal(columnIndex));
+  }
+
+  @Override
+  public BigDecimal
+  getBigDecimal(String columnLabel) throws SQLException
+  {
+    // Pass the call on to the results.
+    return(m_result.getBigDecimal(columnLabel));
+  }
+
+  @Override
+  public boolean
+  isBeforeFirst() throws SQLException
+  {
+    // Pass the call on to the results.
+    return(m_result.isBeforeFirst());
+  }
+
+  @Override
+  public boolean
+  isAfterLast() throws SQLException
+  {
+    // Pass the call on to the results.
+    return(m_result.isAfterLast());
+  }
+
+  @Override
+  public boolean
+  isFirst() throws SQLException
+  {
+    // Pass the call on to the results.
+    return(m_result.isFirst());
+  }
+
+  @Override
+  public boolean
+  isLast() throws SQLException
+  {
+    // Pass the call on to the results.
+    return(m_result.isLast());
+  }
+
+  @Override
+  public void
+  beforeFirst() throws SQLException
+  {
+    // Pass the call on to the results.
+    m_result.beforeFirst();
+  }
+
+  @Override
+  public void
+  afterLast() throws SQLException
+  {
+    // Pass the call on to the results.
+    m_result.afterLast();
+  }
+
+  @Override
+  public boolean
+  first() throws SQLException
+  {
+    // Pass the call on to the results.
+    return(m_result.first());
+  }
+
+  @Override
+  public boolean
+  last() throws SQLException
+  {
+    // Pass the call on to the results.
+    return(m_result.last());
+  }
+
+  @Override
+  public int
+  getRow() throws SQLException
+  {
+    // Pass the call on to the results.
+    return(m_result.getRow());
+  }
+
+  @Override
+  public boolean
+  absolute(int row) throws SQLException
+  {
+    // Pass the call on to the results.
+    return(m_result.absolute(row));
+  }
+
+  @Override
+  public boolean
+  relative(int rows) throws SQLException
+  {
+    // Pass the call on to the results.
+    return(m_result.relative(rows));
+  }
+
+  @Override
+  public boolean
+  previous() throws SQLException
+  {
+    // Pass the call on to the results.
+    return(m_result.previous());
+  }
+
+  @Override
+  public void
+  setFetchDirection(int direction) throws SQLException
+  {
+    // Pass the call on to the results.
+    m_result.setFetchDirection(direction);
+  }
+
+  @Override
+  public int
+  getFetchDirection() throws SQLException
+  {
+    // Pass the call on to the results.
+    return(m_result.getFetchDirection());
+  }
+
+  @Override
+  public void
+  setFetchSize(int rows) throws SQLException
+  {
+    // Pass the call on to the results.
+    m_result.setFetchSize(rows);
+  }
+
+  @Override
+  public int
+  getFetchSize() throws SQLException
+  {
+    // Pass the call on to the results.
+    return(m_result.getFetchSize());
+  }
+
+  @Override
+  public int
+  getType() throws SQLException
+  {
+    // Pass the call on to the results.
+    return(m_result.getType());
+  }
+
+  @Override
+  public int
+  getConcurrency() throws SQLException
+  {
+    // Pass the call on to the results.
+    return(m_result.getConcurrency());
+  }
+
+  @Override
+  public boolean
+  rowUpdated() throws SQLException
+  {
+    // Pass the call on to the results.
+    return(m_result.rowUpdated());
+  }
+
+  @Override
+  public boolean
+  rowInserted() throws SQLException
+  {
+    // Pass the call on to the results.
+    return(m_result.rowInserted());
+  }
+
+  @Override
+  public boolean
+  rowDeleted() throws SQLException
+  {
+    // Pass the call on to the results.
+    return(m_result.rowDeleted());
+  }
+
+  @Override
+  public void
+  updateNull(int columnIndex) throws SQLException
+  {
+    // Pass the call on to the results.
+    m_result.updateNull(columnIndex);
+  }
+
+  @Override
+  public void
+  updateBoolean(int columnIndex, boolean x) throws SQLException
+  {
+    // Pass the call on to the results.
+    m_result.updateBoolean(columnIndex, x);
+  }
+
+  @Override
+  public void
+  updateByte(int columnIndex, byte x) throws SQLException
+  {
+    // Pass the call on to the results.
+    m_result.updateByte(columnIndex, x);
+  }
+
+  @Override
+  public void
+  updateShort(int columnIndex, short x) throws SQLException
+  {
+    // Pass the call on to the results.
+    m_result.updateShort(columnIndex, x);
+  }
+
+  @Override
+  public void
+  updateInt(int columnIndex, int x) throws SQLException
+  {
+    // Pass the call on to the results.
+    m_result.updateInt(columnIndex, x);
+  }
+
+  @Override
+  public void
+  updateLong(int columnIndex, long x) throws SQLException
+  {
+    // Pass the call on to the results.
+    m_result.updateLong(columnIndex, x);
+  }
+
+  @Override
+  public void
+  updateFloat(int columnIndex, float x) throws SQLException
+  {
+    // Pass the call on to the results.
+    m_result.updateFloat(columnIndex, x);
+  }
+
+  @Override
+  public void
+  updateDouble(int columnIndex, double x) throws SQLException
+  {
+    // Pass the call on to the results.
+    m_result.updateDouble(columnIndex, x);
+  }
+
+  @Override
+  public void
+  updateBigDecimal(int columnIndex, BigDecimal x) throws SQLException
+  {
+    // Pass the call on to the results.
+    m_result.updateBigDecimal(columnIndex, x);
+  }
+
+  @Override
+  public void
+  updateString(int columnIndex, String x) throws SQLException
+  {
+    // Pass the call on to the results.
+    m_result.updateString(columnIndex, x);
+  }
+
+  @Override
+  public void
+  updateBytes(int columnIndex, byte[] x) throws SQLException
+  {
+    // Pass the call on to the results.
+    m_result.updateBytes(columnIndex, x);
+  }
+
+  @Override
+  public void
+  updateDate(int columnIndex, Date x) throws SQLException
+  {
+    // Pass the call on to the results.
+    m_result.updateDate(columnIndex, x);
+  }
+
+  @Override
+  public void
+  updateTime(int columnIndex, Time x) throws SQLException
+  {
+    // Pass the call on to the results.
+    m_result.updateTime(columnIndex, x);
+  }
+
+  @Override
+  public void
+  updateTimestamp(int columnIndex, Timestamp x) throws SQLException
+  {
+    // Pass the call on to the results.
+    m_result.updateTimestamp(columnIndex, x);
+  }
+
+  @Override
+  public void
+  updateAsciiStream(int columnIndex, InputStream x, int length)
+    throws SQLException
+  {
+    // Pass the call on to the results.
+    m_result.updateAsciiStream(columnIndex, x, length);
+  }
+
+  @Override
+  public void
+  updateBinaryStream(int columnIndex, InputStream x, int length)
+    throws SQLException
+  {
+    // Pass the call on to the results.
+    m_result.updateBinaryStream(columnIndex, x, length);
+  }
+
+  @Override
+  public void
+  updateCharacterStream(int columnIndex, Reader x, int length)
+    throws SQLException
+  {
+    // Pass the call on to the results.
+    m_result.updateCharacterStream(columnIndex, x, length);
+  }
+
+  @Override
+  public void
+  updateObject(int columnIndex, Object x, int scaleOrLength)
+    throws SQLException
+  {
+    // Pass the call on to the results.
+    m_result.updateObject(columnIndex, x, scaleOrLength);
+  }
+
+  @Override
+  public void
+  updateObject(int columnIndex, Object x) throws SQLException
+  {
+    // Pass the call on to the results.
+    m_result.updateObject(columnIndex, x);
+  }
+
+  @Override
+  public void
+  updateNull(String columnLabel) throws SQLException
+  {
+    // Pass the call on to the results.
+    m_result.updateNull(columnLabel);
+  }
+
+  @Override
+  public void
+  updateBoolean(String columnLabel, boolean x) throws SQLException
+  {
+    // Pass the call on to the results.
+    m_result.updateBoolean(columnLabel, x);
+  }
+
+  @Override
+  public void
+  updateByte(String columnLabel, byte x) throws SQLException
+  {
+    // Pass the call on to the results.
+    m_result.updateByte(columnLabel, x);
+  }
+
+  @Override
+  public void
+  updateShort(String columnLabel, short x) throws SQLException
+  {
+    // Pass the call on to the results.
+    m_result.updateShort(columnLabel, x);
+  }
+
+  @Override
+  public void
+  updateInt(String columnLabel, int x) throws SQLException
+  {
+    // Pass the call on to the results.
+    m_result.updateInt(columnLabel, x);
+  }
+
+  @Override
+  public void
+  updateLong(String columnLabel, long x) throws SQLException
+  {
+    // Pass the call on to the results.
+    m_result.updateLong(columnLabel, x);
+  }
+
+  @Override
+  public void
+  updateFloat(String columnLabel, float x) throws SQLException
+  {
+    // Pass the call on to the results.
+    m_result.updateFloat(columnLabel, x);
+  }
+
+  @Override
+  public void
+  updateDouble(String columnLabel, double x) throws SQLException
+  {
+    // Pass the call on to the results.
+    m_result.updateDouble(columnLabel, x);
+  }
+
+  @Override
+  public void
+  updateBigDecimal(String columnLabel, BigDecimal x) throws SQLException
+  {
+    // Pass the call on to the results.
+    m_result.updateBigDecimal(columnLabel, x);
+  }
+
+  @Override
+  public void
+  updateString(String columnLabel, String x) throws SQLException
+  {
+    // Pass the call on to the results.
+    m_result.updateString(columnLabel, x);
+  }
+
+  @Override
+  public void
+  updateBytes(String columnLabel, byte[] x) throws SQLException
+  {
+    // Pass the call on to the results.
+    m_result.updateBytes(columnLabel, x);
+  }
+
+  @Override
+  public void
+  updateDate(String columnLabel, Date x) throws SQLException
+  {
+    // Pass the call on to the results.
+    m_result.updateDate(columnLabel, x);
+  }
+
+  @Override
+  public void
+  updateTime(String columnLabel, Time x) throws SQLException
+  {
+    // Pass the call on to the results.
+    m_result.updateTime(columnLabel, x);
+  }
+
+  @Override
+  public void
+  updateTimestamp(String columnLabel, Timestamp x) throws SQLException
+  {
+    // Pass the call on to the results.
+    m_result.updateTimestamp(columnLabel, x);
+  }
+
+  @Override
+  public void
+  updateAsciiStream(String columnLabel, InputStream x, int length)
+    throws SQLException
+  {
+    // Pass the call on to the results.
+    m_result.updateAsciiStream(columnLabel, x, length);
+  }
+
+  @Override
+  public void
+  updateBinaryStream(String columnLabel, InputStream x, int length)
+    throws SQLException
+  {
+    // Pass the call on to the results.
+    m_result.updateBinaryStream(columnLabel, x, length);
+  }
+
+  @Override
+  public void
+  updateCharacterStream(String columnLabel, Reader x, int length)
+    throws SQLException
+  {
+    // Pass the call on to the results.
+    m_result.updateCharacterStream(columnLabel, x, length);
+  }
+
+  @Override
+  public void
+  updateObject(String columnLabel, Object x, int scaleOrLength)
+    throws SQLException
+  {
+    // Pass the call on to the results.
+    m_result.updateObject(columnLabel, x, scaleOrLength);
+  }
+
+  @Override
+  public void
+  updateObject(String columnLabel, Object x) throws SQLException
+  {
+    // Pass the call on to the results.
+    m_result.updateObject(columnLabel, x);
+  }
+
+  @Override
+  public void
+  insertRow() throws SQLException
+  {
+    // Pass the call on to the results.
+    m_result.insertRow();
+  }
+
+  @Override
+  public void
+  updateRow() throws SQLException
+  {
+    // Pass the call on to the results.
+    m_result.updateRow();
+  }
+
+  @Override
+  public void
+  deleteRow() throws SQLException
+  {
+    // Pass the call on to the results.
+    m_result.deleteRow();
+  }
+
+  @Override
+  public void
+  refreshRow() throws SQLException
+  {
+    // Pass the call on to the results.
+    m_result.refreshRow();
+  }
+
+  @Override
+  public void
+  cancelRowUpdates() throws SQLException
+  {
+    // Pass the call on to the results.
+    m_result.cancelRowUpdates();
+  }
+
+  @Override
+  public void
+  moveToInsertRow() throws SQLException
+  {
+    // Pass the call on to the results.
+    m_result.moveToInsertRow();
+  }
+
+  @Override
+  public void
+  moveToCurrentRow() throws SQLException
+  {
+    // Pass the call on to the results.
+    m_result.moveToCurrentRow();
+  }
+
+  @Override
+  public Statement
+  getStatement() throws SQLException
+  {
+    // Pass the call on to the results.
+    return(m_result.getStatement());
+  }
+
+  @Override
+  public Ref
+  getRef(int columnIndex) throws SQLException
+  {
+    // Pass the call on to the results.
+    return(m_result.getRef(columnIndex));
+  }
+
+  @Override
+  public Blob
+  getBlob(int columnIndex) throws SQLException
+  {
+    // Pass the call on to the results.
+    return(m_result.getBlob(columnIndex));
+  }
+
+  @Override
+  public Clob
+  getClob(int columnIndex) throws SQLException
+  {
+    // Pass the call on to the results.
+    return(m_result.getClob(columnIndex));
+  }
+
+  @Override
+  public Array
+  getArray(int columnIndex) throws SQLException
+  {
+    // Pass the call on to the results.
+    return(m_result.getArray(columnIndex));
+  }
+
+  @Override
+  public Ref
+  getRef(String columnLabel) throws SQLException
+  {
+    // Pass the call on to the results.
+    return(m_result.getRef(columnLabel));
+  }
+
+  @Override
+  public Blob
+  getBlob(String columnLabel) throws SQLException
+  {
+    // Pass the call on to the results.
+    return(m_result.getBlob(columnLabel));
+  }
+
+  @Override
+  public Clob
+  getClob(String columnLabel) throws SQLException
+  {
+    // Pass the call on to the results.
+    return(m_result.getClob(columnLabel));
+  }
+
+  @Override
+  public Array
+  getArray(String columnLabel) throws SQLException
+  {
+    // Pass the call on to the results.
+    return(m_result.getArray(columnLabel));
+  }
+
+  @Override
+  public Date
+  getDate(int columnIndex, Calendar cal) throws SQLException
+  {
+    // Pass the call on to the results.
+    return(m_result.getDate(columnIndex, cal));
+  }
+
+  @Override
+  public Date
+  getDate(String columnLabel, Calendar cal) throws SQLException
+  {
+    // Pass the call on to the results.
+    return(m_result.getDate(columnLabel, cal));
+  }
+
+  @Override
+  public Time
+  getTime(int columnIndex, Calendar cal) throws SQLException
+  {
+    // Pass the call on to the results.
+    return(m_result.getTime(columnIndex, cal));
+  }
+
+  @Override
+  public Time
+  getTime(String columnLabel, Calendar cal) throws SQLException
+  {
+    // Pass the call on to the results.
+    return(m_result.getTime(columnLabel, cal));
+  }
+
+  @Override
+  public Timestamp
+  getTimestamp(int columnIndex, Calendar cal) throws SQLException
+  {
+    // Pass the call on to the results.
+    return(m_result.getTimestamp(columnIndex, cal));
+  }
+
+  @Override
+  public Timestamp
+  getTimestamp(String columnLabel, Calendar cal) throws SQLException
+  {
+    // Pass the call on to the results.
+    return(m_result.getTimestamp(columnLabel, cal));
+  }
+
+  @Override
+  public URL
+  getURL(int columnIndex) throws SQLException
+  {
+    // Pass the call on to the results.
+    return(m_result.getURL(columnIndex));
+  }
+
+  @Override
+  public URL
+  getURL(String columnLabel) throws SQLException
+  {
+    // Pass the call on to the results.
+    return(m_result.getURL(columnLabel));
+  }
+
+  @Override
+  public void
+  updateRef(int columnIndex, Ref x) throws SQLException
+  {
+    // Pass the call on to the results.
+    m_result.updateRef(columnIndex, x);
+  }
+
+  @Override
+  public void
+  updateRef(String columnLabel, Ref x) throws SQLException
+  {
+    // Pass the call on to the results.
+    m_result.updateRef(columnLabel, x);
+  }
+
+  @Override
+  public void
+  updateBlob(int columnIndex, Blob x) throws SQLException
+  {
+    // Pass the call on to the results.
+    m_result.updateBlob(columnIndex, x);
+  }
+
+  @Override
+  public void
+  updateBlob(String columnLabel, Blob x) throws SQLException
+  {
+    // Pass the call on to the results.
+    m_result.updateBlob(columnLabel, x);
+  }
+
+  @Override
+  public void
+  updateClob(int columnIndex, Clob x) throws SQLException
+  {
+    // Pass the call on to the results.
+    m_result.updateClob(columnIndex, x);
+  }
+
+  @Override
+  public void
+  updateClob(String columnLabel, Clob x) throws SQLException
+  {
+    // Pass the call on to the results.
+    m_result.updateClob(columnLabel, x);
+  }
+
+  @Override
+  public void
+  updateArray(int columnIndex, Array x) throws SQLException
+  {
+    // Pass the call on to the results.
+    m_result.updateArray(columnIndex, x);
+  }
+
+  @Override
+  public void
+  updateArray(String columnLabel, Array x) throws SQLException
+  {
+    // Pass the call on to the results.
+    m_result.updateArray(columnLabel, x);
+  }
+
+  @Override
+  public RowId
+  getRowId(int columnIndex) throws SQLException
+  {
+    // Pass the call on to the results.
+    return(m_result.getRowId(columnIndex));
+  }
+
+  @Override
+  public RowId
+  getRowId(String columnLabel) throws SQLException
+  {
+    // Pass the call on to the results.
+    return(m_result.getRowId(columnLabel));
+  }
+
+  @Override
+  public void
+  updateRowId(int columnIndex, RowId x) throws SQLException
+  {
+    // Pass the call on to the results.
+    m_result.updateRowId(columnIndex, x);
+  }
+
+  @Override
+  public void
+  updateRowId(String columnLabel, RowId x) throws SQLException
+  {
+    // Pass the call on to the results.
+    m_result.updateRowId(columnLabel, x);
+  }
+
+  @Override
+  public int
+  getHoldability() throws SQLException
+  {
+    // Pass the call on to the results.
+    return(m_result.getHoldability());
+  }
+
+  @Override
+  public boolean
+  isClosed() throws SQLException
+  {
+    // Pass the call on to the results.
+    return(m_result.isClosed());
+  }
+
+  @Override
+  public void
+  updateNString(int columnIndex, String x) throws SQLException
+  {
+    // Pass the call on to the results.
+    m_result.updateNString(columnIndex, x);
+  }
+
+  @Override
+  public void
+  updateNString(String columnLabel, String x) throws SQLException
+  {
+    // Pass the call on to the results.
+    m_result.updateNString(columnLabel, x);
+  }
+
+  @Override
+  public void
+  updateNClob(int columnIndex, NClob x) throws SQLException
+  {
+    // Pass the call on to the results.
+    m_result.updateNClob(columnIndex, x);
+  }
+
+  @Override
+  public void
+  updateNClob(String columnLabel, NClob x) throws SQLException
+  {
+    // Pass the call on to the results.
+    m_result.updateNClob(columnLabel, x);
+  }
+
+  @Override
+  public NClob
+  getNClob(int columnIndex) throws SQLException
+  {
+    // Pass the call on to the results.
+    return(m_result.getNClob(columnIndex));
+  }
+
+  @Override
+  public NClob
+  getNClob(String columnLabel) throws SQLException
+  {
+    // Pass the call on to the results.
+    return(m_result.getNClob(columnLabel));
+  }
+
+  @Override
+  public SQLXML
+  getSQLXML(int columnIndex) throws SQLException
+  {
+    // Pass the call on to the results.
+    return(m_result.getSQLXML(columnIndex));
+  }
+
+  @Override
+  public SQLXML
+  getSQLXML(String columnLabel) throws SQLException
+  {
+    // Pass the call on to the results.
+    return(m_result.getSQLXML(columnLabel));
+  }
+
+  @Override
+  public void
+  updateSQLXML(int columnIndex, SQLXML x) throws SQLException
+  {
+    // Pass the call on to the results.
+    m_result.updateSQLXML(columnIndex, x);
+  }
+
+  @Override
+  public void
+  updateSQLXML(String columnLabel, SQLXML x) throws SQLException
+  {
+    // Pass the call on to the results.
+    m_result.updateSQLXML(columnLabel, x);
+  }
+
+  @Override
+  public String
+  getNString(int columnIndex) throws SQLException
+  {
+    // Pass the call on to the results.
+    return(m_result.getNString(columnIndex));
+  }
+
+  @Override
+  public String
+  getNString(String columnLabel) throws SQLException
+  {
+    // Pass the call on to the results.
+    return(m_result.getNString(columnLabel));
+  }
+
+  @Override
+  public Reader
+  getNCharacterStream(int columnIndex) throws SQLException
+  {
+    // Pass the call on to the results.
+    return(m_result.getNCharacterStream(columnIndex));
+  }
+
+  @Override
+  public Reader
+  getNCharacterStream(String columnLabel) throws SQLException
+  {
+    // Pass the call on to the results.
+    return(m_result.getNCharacterStream(columnLabel));
+  }
+
+  @Override
+  public void
+  updateNCharacterStream(int columnIndex, Reader x, long length)
+    throws SQLException
+  {
+    // Pass the call on to the results.
+    m_result.updateNCharacterStream(columnIndex, x, length);
+  }
+
+  @Override
+  public void
+  updateNCharacterStream(String columnLabel, Reader x, long length)
+    throws SQLException
+  {
+    // Pass the call on to the results.
+    m_result.updateNCharacterStream(columnLabel, x, length);
+  }
+
+  @Override
+  public void
+  updateAsciiStream(int columnIndex, InputStream x, long length)
+    throws SQLException
+  {
+    // Pass the call on to the results.
+    m_result.updateAsciiStream(columnIndex, x, length);
+  }
+
+  @Override
+  public void
+  updateBinaryStream(int columnIndex, InputStream x, long length)
+    throws SQLException
+  {
+    // Pass the call on to the results.
+    m_result.updateBinaryStream(columnIndex, x, length);
+  }
+
+  @Override
+  public void
+  updateCharacterStream(int columnIndex, Reader x, long length)
+    throws SQLException
+  {
+    // Pass the call on to the results.
+    m_result.updateCharacterStream(columnIndex, x, length);
+  }
+
+  @Override
+  public void
+  updateAsciiStream(String columnLabel, InputStream x, long length)
+    throws SQLException
+  {
+    // Pass the call on to the results.
+    m_result.updateAsciiStream(columnLabel, x, length);
+  }
+
+  @Override
+  public void
+  updateBinaryStream(String columnLabel, InputStream x, long length)
+    throws SQLException
+  {
+    // Pass the call on to the results.
+    m_result.updateBinaryStream(columnLabel, x, length);
+  }
+
+  @Override
+  public void
+  updateCharacterStream(String columnLabel, Reader x, long length)
+    throws SQLException
+  {
+    // Pass the call on to the results.
+    m_result.updateCharacterStream(columnLabel, x, length);
+  }
+
+  @Override
+  public void
+  updateBlob(int columnIndex, InputStream x, long length) throws SQLException
+  {
+    // Pass the call on to the results.
+    m_result.updateBlob(columnIndex, x, length);
+  }
+
+  @Override
+  public void
+  updateBlob(String columnLabel, InputStream x, long length)
+    throws SQLException
+  {
+    // Pass the call on to the results.
+    m_result.updateBlob(columnLabel, x, length);
+  }
+
+  @Override
+  public void
+  updateClob(int columnIndex, Reader x, long length) throws SQLException
+  {
+    // Pass the call on to the results.
+    m_result.updateClob(columnIndex, x, length);
+  }
+
+  @Override
+  public void
+  updateClob(String columnLabel, Reader x, long length) throws SQLException
+  {
+    // Pass the call on to the results.
+    m_result.updateClob(columnLabel, x, length);
+  }
+
+  @Override
+  public void
+  updateNClob(int columnIndex, Reader x, long length) throws SQLException
+  {
+    // Pass the call on to the results.
+    m_result.updateNClob(columnIndex, x, length);
+  }
+
+  @Override
+  public void
+  updateNClob(String columnLabel, Reader x, long length) throws SQLException
+  {
+    // Pass the call on to the results.
+    m_result.updateNClob(columnLabel, x, length);
+  }
+
+  @Override
+  public void
+  updateNCharacterStream(int columnIndex, Reader x) throws SQLException
+  {
+    // Pass the call on to the results.
+    m_result.updateNCharacterStream(columnIndex, x);
+  }
+
+  @Override
+  public void
+  updateNCharacterStream(String columnLabel, Reader x) throws SQLException
+  {
+    // Pass the call on to the results.
+    m_result.updateNCharacterStream(columnLabel, x);
+  }
+
+  @Override
+  public void
+  updateAsciiStream(int columnIndex, InputStream x) throws SQLException
+  {
+    // Pass the call on to the results.
+    m_result.updateAsciiStream(columnIndex, x);
+  }
+
+  @Override
+  public void
+  updateBinaryStream(int columnIndex, InputStream x) throws SQLException
+  {
+    // Pass the call on to the results.
+    m_result.updateBinaryStream(columnIndex, x);
+  }
+
+  @Override
+  public void
+  updateCharacterStream(int columnIndex, Reader x) throws SQLException
+  {
+    // Pass the call on to the results.
+    m_result.updateCharacterStream(columnIndex, x);
+  }
+
+  @Override
+  public void
+  updateAsciiStream(String columnLabel, InputStream x) throws SQLException
+  {
+    // Pass the call on to the results.
+    m_result.updateAsciiStream(columnLabel, x);
+  }
+
+  @Override
+  public void
+  updateBinaryStream(String columnLabel, InputStream x) throws SQLException
+  {
+    // Pass the call on to the results.
+    m_result.updateBinaryStream(columnLabel, x);
+  }
+
+  @Override
+  public void
+  updateCharacterStream(String columnLabel, Reader x) throws SQLException
+  {
+    // Pass the call on to the results.
+    m_result.updateCharacterStream(columnLabel, x);
+  }
+
+  @Override
+  public void
+  updateBlob(int columnIndex, InputStream x) throws SQLException
+  {
+    // Pass the call on to the results.
+    m_result.updateBlob(columnIndex, x);
+  }
+
+  @Override
+  public void
+  updateBlob(String columnLabel, InputStream x) throws SQLException
+  {
+    // Pass the call on to the results.
+    m_result.updateBlob(columnLabel, x);
+  }
+
+  @Override
+  public void
+  updateClob(int columnIndex, Reader x) throws SQLException
+  {
+    // Pass the call on to the results.
+    m_result.updateClob(columnIndex, x);
+  }
+
+  @Override
+  public void
+  updateClob(String columnLabel, Reader x) throws SQLException
+  {
+    // Pass the call on to the results.
+    m_result.updateClob(columnLabel, x);
+  }
+
+  @Override
+  public void
+  updateNClob(int columnIndex, Reader x) throws SQLException
+  {
+    // Pass the call on to the results.
+    m_result.updateNClob(columnIndex, x);
+  }
+
+  @Override
+  public void
+  updateNClob(String columnLabel, Reader x) throws SQLException
+  {
+    // Pass the call on to the results.
+    m_result.updateNClob(columnLabel, x);
+  }
+
+  @Override
+  public <T> T
+  getObject(int columnIndex, Class<T> type) throws SQLException
+  {
+    // Pass the call on to the results.
+    return(m_result.getObject(columnIndex, type));
+  }
+
+  @Override
+  public Object
+  getObject(int columnIndex, Map<String, Class<?>> map) throws SQLException
+  {
+    // Pass the call on to the results.
+    return(m_result.getObject(columnIndex, map));
+  }
+
+  @Override
+  public <T> T
+  getObject(String columnLabel, Class<T> type) throws SQLException
+  {
+    // Pass the call on to the results.
+    return(m_result.getObject(columnLabel, type));
+  }
+
+  @Override
+  public Object
+  getObject(String columnLabel, Map<String, Class<?>> map) throws SQLException
+  {
+    // Pass the call on to the results.
+    return(m_result.getObject(columnLabel, map));
+  }
+
+  @Override
+  public <T> T
+  unwrap(Class<T> iface) throws SQLException
+  {
+    // Pass the call on to the results.
+    return(m_result.unwrap(iface));
+  }
+
+  @Override
+  public boolean
+  isWrapperFor(Class<?> iface) throws SQLException
+  {
+    // Pass the call on to the results.
+    return(m_result.isWrapperFor(iface));
+  }
+}
@@ -0,0 +1,135 @@
+// Copyright (c) 2024 Brian Kircher
+//
+// Open Source Software; you can modify and/or share it under the terms of BSD
+// license file in the root directory of this project.
+
+package FLLScorer;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+
+import org.bspfsystems.simplejson.JSONObject;
+import org.bspfsystems.simplejson.SimpleJSONObject;
+import org.bspfsystems.simplejson.parser.JSONParser;
+
+/**
+ * Reports the CPU, thread, and memory usage of the application, so that the
+ * load it is under can be watched during an event (or while it is being load
+ * tested).
+ * <p>
+ * This is a singleton that is acquired via the getInstance() method.
+ */
+public class ProcessStats
+{
+  /**
+   * The object for the ProcessStats singleton.
+   */
+  private static ProcessStats m_instance = null;
+
+  /**
+   * Gets the ProcessStats singleton object, creating it if necessary.
+   *
+   * @return Returns the ProcessStats singleton.
+   */
+  public static ProcessStats
+  getInstance()
+  {
+    // Create the ProcessStats object if required.
+    if(m_instance == null)
+    {
+      m_instance = new ProcessStats();
+    }
+
+    // Return the ProcessStats object.
+    return(m_instance);
+  }
+
+  /**
+   * The constructor.  This is private so that the object can only be created
+   * via the getIntance() method.
+   */
+  private
+  ProcessStats()
+  {
+  }
+
+  /**
+   * Adds the CPU, thread, and memory usage of the application to a JSON
+   * object.
+   *
+   * @param result The JSON object into which the usage is placed.
+   */
+  public void
+  get(JSONObject result)
+  {
+    // Add the number of processors and the time the application has been
+    // running.
+    OperatingSystemMXBean os = ManagementFactory.getOperatingSystemMXBean();
+    result.set("processors", os.getAvailableProcessors());
+    result.set("uptime", ManagementFactory.getRuntimeMXBean().getUptime());
+
+    // Add the CPU load of the application (as a fraction of all the
+    // processors) and the CPU time it has used, if they are available.
+    if(os instanceof com.sun.management.OperatingSystemMXBean)
+    {
+      com.sun.management.OperatingSystemMXBean sun =
+        (com.sun.management.OperatingSystemMXBean)os;
+      result.set("cpu_load", sun.getProcessCpuLoad());
+      result.set("cpu_time", sun.getProcessCpuTime() / 1000000);
+    }
+
+    // Add the number of threads.
+    ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    result.set("threads", threads.getThreadCount());
+    result.set("daemon_threads", threads.getDaemonThreadCount());
+    result.set("peak_threads", threads.getPeakThreadCount());
+
+    // Add the memory usage.
+    Runtime runtime = Runtime.getRuntime();
+    result.set("heap_used", runtime.totalMemory() - runtime.freeMemory());
+    result.set("heap_max", runtime.maxMemory());
+  }
+
+  /**
+   * Handles requests for /admin/status/process.json.
+   *
+   * @param path The path from the request.
+   *
+   * @param paramMap The parameters from the request.
+   *
+   * @return An array of bytes to return to the client.
+   */
+  private byte[]
+  serveStats(String path, HashMap<String, String> paramMap)
+  {
+    JSONObject result = new SimpleJSONObject();
+
+    // Add the usage to the JSON response.
+    get(result);
+
+    // Convert the response into a byte array and return it.
+    try
+    {
+      String json = JSONParser.serialize(result);
+      return(json.getBytes(StandardCharsets.UTF_8));
+    }
+    catch(Exception e)
+    {
+      return("{}".getBytes(StandardCharsets.UTF_8));
+    }
+  }
+
+  /**
+   * Performs initial setup for the process statistics.
+   */
+  public void
+  setup()
+  {
+    // Register the dynamic handler for the process.json file.
+    WebServer.getInstance().registerDynamicFile("/admin/status/process.json",
+                                                this::serveStats);
+  }
+}
@@ -0,0 +1,756 @@
+// Copyright (c) 2024 Brian Kircher
+//
+// Open Source Software; you can modify and/or share it under the terms of BSD
+// license file in the root directory of this project.
+
+package FLLScorer;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.WeakHashMap;
+
+import org.bspfsystems.simplejson.JSONArray;
+import org.bspfsystems.simplejson.JSONObject;
+import org.bspfsystems.simplejson.SimpleJSONArray;
+import org.bspfsystems.simplejson.SimpleJSONObject;
+import org.bspfsystems.simplejson.parser.JSONParser;
+
+/**
+ * Measures the SQL statements that are executed on the database, grouped by
+ * the Database method that executes them (such as scoreEnumerate or
+ * configValueGet).
+ * <p>
+ * Three things are measured for each statement: how long it waited for the
+ * connection (which is shared by all the threads), how long it took, and how
+ * many rows it read or changed.  Each is kept as a histogram with
+ * power of two buckets, so that the percentiles can be estimated without
+ * keeping every measurement.  Statements that take longer than the slow query
+ * threshold are also printed to the terminal.
+ * <p>
+ * A query is timed until its statement is closed (or another query is
+ * executed on it), so that the time includes reading the results; the
+ * results are wrapped so that the rows that are read are counted.  When the
+ * detailed measurements are enabled, the statement and its results are
+ * instead wrapped in proxies, which also catch the statements that are
+ * closed other than by the Database (such as by an error path); since every
+ * call on the statement and its results then goes through reflection, this
+ * is only enabled while investigating the database.
+ * <p>
+ * This is a singleton that is acquired via the getInstance() method.
+ */
+public class QueryStats
+{
+  /**
+   * The object for the QueryStats singleton.
+   */
+  private static QueryStats m_instance = null;
+
+  /**
+   * The number of buckets in each histogram; the last bucket holds
+   * everything that is larger than the second to last bucket.
+   */
+  private static final int BUCKETS = 32;
+
+  /**
+   * A histogram of measurements, with power of two buckets (bucket 0 holds
+   * 0, bucket 1 holds 1, bucket 2 holds 2 to 3, bucket 3 holds 4 to 7, and
+   * so on).
+   */
+  private static class Histogram
+  {
+    /**
+     * The number of measurements in each bucket.
+     */
+    private long[] m_buckets = new long[BUCKETS];
+
+    /**
+     * The number of measurements.
+     */
+    private long m_count = 0;
+
+    /**
+     * The sum of the measurements.
+     */
+    private long m_total = 0;
+
+    /**
+     * The largest measurement.
+     */
+    private long m_max = 0;
+
+    /**
+     * Adds a measurement.
+     *
+     * @param value The measurement to add.
+     */
+    private void
+    add(long value)
+    {
+      // Add the measurement to its bucket.
+      int bucket = 64 - Long.numberOfLeadingZeros(Math.max(value, 0));
+      m_buckets[Math.min(bucket, BUCKETS - 1)]++;
+
+      // Update the count, total, and maximum.
+      m_count++;
+      m_total += value;
+      if(value > m_max)
+      {
+        m_max = value;
+      }
+    }
+
+    /**
+     * Estimates a percentile of the measurements, as the upper bound of the
+     * bucket that contains it.
+     *
+     * @param percent The percentile to estimate.
+     *
+     * @return The estimated percentile.
+     */
+    private long
+    percentile(int percent)
+    {
+      // Find the bucket that contains the percentile.
+      long target = (long)Math.ceil((percent / 100.0) * m_count);
+      long seen = 0;
+      for(int bucket = 0; bucket < BUCKETS; bucket++)
+      {
+        seen += m_buckets[bucket];
+        if((seen >= target) && (seen != 0))
+        {
+          // Return the upper bound of this bucket, which is never more than
+          // the largest measurement.
+          return(Math.min((bucket == 0) ? 0 : ((1L << bucket) - 1), m_max));
+        }
+      }
+
+      // There are no measurements.
+      return(0);
+    }
+
+    /**
+     * Converts the histogram into a JSON object.
+     *
+     * @return The JSON object describing the histogram.
+     */
+    private JSONObject
+    toJSON()
+    {
+      // Add the summary of the measurements to a JSON object.
+      JSONObject result = new SimpleJSONObject();
+      result.set("total", m_total);
+      result.set("average", (m_count == 0) ? 0 : (m_total / m_count));
+      result.set("p50", percentile(50));
+      result.set("p95", percentile(95));
+      result.set("p99", percentile(99));
+      result.set("max", m_max);
+
+      // Add the buckets, as an array of the count in each bucket up to the
+      // last bucket that has a measurement.
+      JSONArray buckets = new SimpleJSONArray();
+      int last = BUCKETS - 1;
+      while((last > 0) && (m_buckets[last] == 0))
+      {
+        last--;
+      }
+      for(int bucket = 0; bucket <= last; bucket++)
+      {
+        buckets.addEntry(m_buckets[bucket]);
+      }
+      result.set("buckets", buckets);
+
+      // Return the JSON object.
+      return(result);
+    }
+  }
+
+  /**
+   * The measurements for the statements executed by a single Database
+   * method.
+   */
+  private static class Stats
+  {
+    /**
+     * The number of statements.
+     */
+    private long m_count = 0;
+
+    /**
+     * How long the statements took, in microseconds.
+     */
+    private Histogram m_time = new Histogram();
+
+    /**
+     * How long the statements waited for the connection, in microseconds.
+     */
+    private Histogram m_wait = new Histogram();
+
+    /**
+     * How many rows the statements read or changed.
+     */
+    private Histogram m_rows = new Histogram();
+  }
+
+  /**
+   * A query that is in progress; it completes when its statement is closed,
+   * or when another query is executed on the statement.
+   */
+  private static class Query
+  {
+    /**
+     * The Database method that executed the query.
+     */
+    private String m_method;
+
+    /**
+     * The SQL for the query.
+     */
+    private String m_sql;
+
+    /**
+     * The time, in nanoseconds, at which the query started waiting for the
+     * connection.
+     */
+    private long m_start;
+
+    /**
+     * How long, in nanoseconds, the query waited for the connection.
+     */
+    private long m_wait;
+
+    /**
+     * The number of rows that have been read.
+     */
+    private long m_rows = 0;
+
+    /**
+     * The wrapped results of the query, which count the rows that are read,
+     * or <b>null</b> if the rows are counted by a proxy.
+     */
+    private MeasuredResultSet m_results = null;
+  }
+
+  /**
+   * The measurements, indexed by the Database method.
+   */
+  private HashMap<String, Stats> m_stats = new HashMap<String, Stats>();
+
+  /**
+   * The queries in progress on the statements that are not wrapped in
+   * proxies, indexed by the statement.  These are weak references, so that
+   * a statement that is never closed (because of an error) does not remain
+   * here forever.
+   */
+  private WeakHashMap<Statement, Query> m_open =
+    new WeakHashMap<Statement, Query>();
+
+  /**
+   * The time, in milliseconds, at which the measurements started.
+   */
+  private long m_since = System.currentTimeMillis();
+
+  /**
+   * The time, in milliseconds, beyond which a statement is printed to the
+   * terminal, or <b>0</b> if slow statements are not printed.
+   */
+  private volatile int m_slow = 0;
+
+  /**
+   * Set to <b>true</b> when the statements and their results are wrapped so
+   * that the time to read the results and the rows read are measured.
+   */
+  private volatile boolean m_detail = false;
+
+  /**
+   * The number of statements since the application was started (which is
+   * not affected by resetting the measurements).
+   */
+  private long m_statements = 0;
+
+  /**
+   * The time, in microseconds, that the statements since the application was
+   * started waited for the connection.
+   */
+  private long m_waitTotal = 0;
+
+  /**
+   * Gets the QueryStats singleton object, creating it if necessary.
+   *
+   * @return Returns the QueryStats singleton.
+   */
+  public static QueryStats
+  getInstance()
+  {
+    // Create the QueryStats object if required.
+    if(m_instance == null)
+    {
+      m_instance = new QueryStats();
+    }
+
+    // Return the QueryStats object.
+    return(m_instance);
+  }
+
+  /**
+   * The constructor.  This is private so that the object can only be created
+   * via the getIntance() method.
+   */
+  private
+  QueryStats()
+  {
+  }
+
+  /**
+   * Sets the slow statement threshold.
+   *
+   * @param slow The time, in milliseconds, beyond which a statement is
+   *             printed to the terminal, or <b>0</b> if slow statements are
+   *             not printed.
+   */
+  public void
+  slowSet(int slow)
+  {
+    // Save the threshold.
+    m_slow = slow;
+  }
+
+  /**
+   * Sets whether the detailed measurements are made.  This applies to the
+   * statements that are created after it is changed.
+   *
+   * @param detail <b>true</b> if the statements and their results should be
+   *               wrapped so that the time to read the results and the rows
+   *               read are measured.
+   */
+  public void
+  detailSet(boolean detail)
+  {
+    // Save the setting.
+    m_detail = detail;
+  }
+
+  /**
+   * Gets the number of statements since the application was started.
+   *
+   * @return The number of statements.
+   */
+  public synchronized long
+  statementsGet()
+  {
+    // Return the number of statements.
+    return(m_statements);
+  }
+
+  /**
+   * Gets the time that the statements since the application was started
+   * waited for the connection.
+   *
+   * @return The time, in microseconds, spent waiting for the connection.
+   */
+  public synchronized long
+  waitGet()
+  {
+    // Return the time spent waiting.
+    return(m_waitTotal);
+  }
+
+  /**
+   * Finds the Database method that is executing a statement.
+   *
+   * @return The name of the method.
+   */
+  public String
+  caller()
+  {
+    // Skip this method and Database's executeQuery() or executeUpdate(), and
+    // return the name of the method that called it.
+    return(StackWalker.getInstance()
+                      .walk(frames -> frames.skip(2)
+                                            .findFirst()
+                                            .map(frame ->
+                                                   frame.getMethodName())
+                                            .orElse("unknown")));
+  }
+
+  /**
+   * Records a completed statement.
+   *
+   * @param method The Database method that executed the statement.
+   *
+   * @param sql The SQL for the statement.
+   *
+   * @param wait How long, in nanoseconds, the statement waited for the
+   *             connection.
+   *
+   * @param time How long, in nanoseconds, the statement took.
+   *
+   * @param rows How many rows the statement read or changed.
+   */
+  private void
+  record(String method, String sql, long wait, long time, long rows)
+  {
+    // Add the measurements for this statement.
+    synchronized(this)
+    {
+      Stats stats = m_stats.get(method);
+      if(stats == null)
+      {
+        stats = new Stats();
+        m_stats.put(method, stats);
+      }
+      stats.m_count++;
+      stats.m_time.add(time / 1000);
+      stats.m_wait.add(wait / 1000);
+      stats.m_rows.add(rows);
+
+      // Add this statement to the totals since the application was started.
+      m_statements++;
+      m_waitTotal += wait / 1000;
+    }
+
+    // Print the statement if it is slow.
+    int slow = m_slow;
+    if((slow != 0) && ((time / 1000000) >= slow))
+    {
+      System.out.println("Slow query (" + method + ", " + (time / 1000000) +
+                         " ms, " + (wait / 1000000) + " ms waiting, " +
+                         rows + " rows): " + sql);
+    }
+  }
+
+  /**
+   * Records a completed update.
+   *
+   * @param method The Database method that executed the update.
+   *
+   * @param sql The SQL for the update.
+   *
+   * @param start The time, in nanoseconds, at which the update started
+   *              waiting for the connection.
+   *
+   * @param wait How long, in nanoseconds, the update waited for the
+   *             connection.
+   *
+   * @param rows How many rows the update changed.
+   */
+  public void
+  update(String method, String sql, long start, long wait, int rows)
+  {
+    // Record the update.
+    record(method, sql, wait, System.nanoTime() - start, rows);
+  }
+
+  /**
+   * The handler for a statement, which completes the query in progress
+   * when the statement is closed.
+   */
+  private class StatementHandler implements InvocationHandler
+  {
+    /**
+     * The statement.
+     */
+    private Statement m_statement;
+
+    /**
+     * The query in progress, or <b>null</b> if there is not one.
+     */
+    private Query m_query = null;
+
+    /**
+     * The constructor.
+     *
+     * @param statement The statement.
+     */
+    private
+    StatementHandler(Statement statement)
+    {
+      m_statement = statement;
+    }
+
+    /**
+     * Completes the query in progress, if there is one.
+     */
+    private void
+    complete()
+    {
+      // Record the query in progress.
+      Query query = m_query;
+      if(query != null)
+      {
+        m_query = null;
+        record(query.m_method, query.m_sql, query.m_wait,
+               System.nanoTime() - query.m_start, query.m_rows);
+      }
+    }
+
+    // Passes a call on to the statement, completing the query in progress
+    // when the statement is closed.
+    @Override
+    public Object
+    invoke(Object proxy, Method method, Object[] args) throws Throwable
+    {
+      // Complete the query in progress if the statement is being closed.
+      if(method.getName().equals("close"))
+      {
+        complete();
+      }
+
+      // Call the method on the statement.
+      try
+      {
+        return(method.invoke(m_statement, args));
+      }
+      catch(InvocationTargetException e)
+      {
+        throw(e.getCause());
+      }
+    }
+  }
+
+  /**
+   * Wraps a statement so that the queries executed on it are measured in
+   * detail, if the detailed measurements are enabled.
+   *
+   * @param statement The statement.
+   *
+   * @return The wrapped statement, or the statement itself if the detailed
+   *         measurements are not enabled.
+   */
+  public Statement
+  statement(Statement statement)
+  {
+    // Use the statement as is if the detailed measurements are not enabled.
+    if(!m_detail)
+    {
+      return(statement);
+    }
+
+    // Create a proxy for the statement.
+    return((Statement)Proxy.newProxyInstance(Statement.class.getClassLoader(),
+                                             new Class<?>[]
+                                             { Statement.class },
+                                             new StatementHandler(statement)));
+  }
+
+  /**
+   * Completes a query on a statement that is not wrapped in a proxy.
+   *
+   * @param query The query, or <b>null</b> if there is not one.
+   */
+  private void
+  complete(Query query)
+  {
+    // Record the query, with the rows read from its results.
+    if(query != null)
+    {
+      record(query.m_method, query.m_sql, query.m_wait,
+             System.nanoTime() - query.m_start, query.m_results.rowsGet());
+    }
+  }
+
+  /**
+   * Records the query in progress on a statement, since the statement is
+   * being closed.  Statements that are wrapped for the detailed
+   * measurements record their query themselves.
+   *
+   * @param statement The statement, as returned by statement().
+   */
+  public void
+  close(Statement statement)
+  {
+    Query query;
+
+    // Remove the query in progress on this statement.
+    synchronized(this)
+    {
+      query = m_open.remove(statement);
+    }
+
+    // Record the query.
+    complete(query);
+  }
+
+  /**
+   * Measures a query that has been executed.  Its results are wrapped so
+   * that the rows that are read are counted, and the query is recorded when
+   * its statement is closed (or another query is executed on it).  If its
+   * statement was wrapped for the detailed measurements, the results are
+   * wrapped in a proxy as well.
+   *
+   * @param statement The statement, as returned by statement().
+   *
+   * @param method The Database method that executed the query.
+   *
+   * @param sql The SQL for the query.
+   *
+   * @param start The time, in nanoseconds, at which the query started
+   *              waiting for the connection.
+   *
+   * @param wait How long, in nanoseconds, the query waited for the
+   *             connection.
+   *
+   * @param result The results of the query.
+   *
+   * @return The results, wrapped if the statement was wrapped.
+   */
+  public ResultSet
+  query(Statement statement, String method, String sql, long start,
+        long wait, ResultSet result)
+  {
+    Query previous;
+
+    // Start this query.
+    Query query = new Query();
+    query.m_method = method;
+    query.m_sql = sql;
+    query.m_start = start;
+    query.m_wait = wait;
+
+    // If the statement was not wrapped, wrap the results so that the rows
+    // are counted, and complete any previous query on this statement.
+    if(!Proxy.isProxyClass(statement.getClass()))
+    {
+      query.m_results = new MeasuredResultSet(result);
+      synchronized(this)
+      {
+        previous = m_open.put(statement, query);
+      }
+      complete(previous);
+      return(query.m_results);
+    }
+
+    // Complete any previous query on this statement.
+    StatementHandler handler =
+      (StatementHandler)Proxy.getInvocationHandler(statement);
+    handler.complete();
+    handler.m_query = query;
+
+    // The handler for the results, which counts the rows that are read.
+    InvocationHandler rows = (proxy, m, args) ->
+    {
+      try
+      {
+        Object value = m.invoke(result, args);
+        if(m.getName().equals("next") && Boolean.TRUE.equals(value))
+        {
+          query.m_rows++;
+        }
+        return(value);
+      }
+      catch(InvocationTargetException e)
+      {
+        throw(e.getCause());
+      }
+    };
+
+    // Create a proxy for the results.
+    return((ResultSet)Proxy.newProxyInstance(ResultSet.class.getClassLoader(),
+                                             new Class<?>[]
+                                             { ResultSet.class }, rows));
+  }
+
+  /**
+   * Handles requests for /admin/status/queries.json.
+   *
+   * @param path The path from the request.
+   *
+   * @param paramMap The parameters from the request.
+   *
+   * @return An array of bytes to return to the client.
+   */
+  private synchronized byte[]
+  serveStats(String path, HashMap<String, String> paramMap)
+  {
+    JSONObject result = new SimpleJSONObject();
+
+    // The settings and the measurements can only be changed by a POST
+    // request.
+    boolean post = "POST".equals(paramMap.get("request_method"));
+
+    // See if the slow query threshold is being changed.
+    if(post && paramMap.containsKey("slow"))
+    {
+      try
+      {
+        int slow = Integer.parseInt(paramMap.get("slow"));
+        Database.getInstance().dbSlowQuerySet(slow);
+        m_slow = slow;
+      }
+      catch(Exception e)
+      {
+      }
+    }
+
+    // See if the detailed measurements are being enabled or disabled.
+    if(post && paramMap.containsKey("detail"))
+    {
+      boolean detail = paramMap.get("detail").equals("1");
+      Database.getInstance().dbQueryDetailSet(detail);
+      m_detail = detail;
+    }
+
+    // See if the measurements are being reset.
+    if(post && paramMap.containsKey("reset") &&
+       paramMap.get("reset").equals("1"))
+    {
+      m_stats.clear();
+      m_since = System.currentTimeMillis();
+    }
+
+    // Add the slow query threshold, whether the detailed measurements are
+    // enabled, and the start of the measurements to the JSON response.
+    result.set("slow", m_slow);
+    result.set("detail", m_detail);
+    result.set("since", m_since);
+
+    // Sort the Database methods by the total time their statements took, so
+    // that the methods that dominate come first.
+    ArrayList<String> methods = new ArrayList<String>(m_stats.keySet());
+    methods.sort((a, b) -> Long.compare(m_stats.get(b).m_time.m_total,
+                                        m_stats.get(a).m_time.m_total));
+
+    // Add the measurements for each Database method.
+    JSONArray queries = new SimpleJSONArray();
+    for(String method : methods)
+    {
+      Stats stats = m_stats.get(method);
+      JSONObject query = new SimpleJSONObject();
+      query.set("method", method);
+      query.set("count", stats.m_count);
+      query.set("time", stats.m_time.toJSON());
+      query.set("wait", stats.m_wait.toJSON());
+      query.set("rows", stats.m_rows.toJSON());
+      queries.addEntry(query);
+    }
+    result.set("queries", queries);
+
+    // Convert the response into a byte array and return it.
+    try
+    {
+      String json = JSONParser.serialize(result);
+      return(json.getBytes(StandardCharsets.UTF_8));
+    }
+    catch(Exception e)
+    {
+      return("{}".getBytes(StandardCharsets.UTF_8));
+    }
+  }
+
+  /**
+   * Performs initial setup for the query statistics.
+   */
+  public void
+  setup()
+  {
+    // Register the dynamic handler for the queries.json file.
+    WebServer.getInstance().registerDynamicFile("/admin/status/queries.json",
+                                                this::serveStats);
+  }
+}
@@ -0,0 +1,290 @@
+// Copyright (c) 2024 Brian Kircher
+//
+// Open Source Software; you can modify and/or share it under the terms of BSD
+// license file in the root directory of this project.
+
+package FLLScorer;
+
+/**
+ * Ranks teams by their robot game scores.
+ * <p>
+ * Each team is given a sort key made up of its division followed by its
+ * considered match scores sorted from best to worst.  Teams are placed first
+ * by division (lower numbered divisions first), then by comparing their best
+ * scores, then their second best scores, and so on.  Teams that have exactly
+ * the same sort key are tied and share the same place; the sort is stable, so
+ * tied teams remain in the order in which they were added.
+ * <p>
+ * The sort keys are held in primitive arrays and the teams are sorted once,
+ * so ranking n teams is O(n log n) with no per-comparison allocations.
+ */
+public class Ranking
+{
+  /**
+   * The number of scores in each sort key.
+   */
+  public static final int SCORES = 4;
+
+  /**
+   * The number of teams being ranked.
+   */
+  private int m_count;
+
+  /**
+   * The division of each team.
+   */
+  private int[] m_division;
+
+  /**
+   * The sort key of each team; the scores of team <i>i</i> are stored, from
+   * best to worst, starting at index <i>i</i> * SCORES.
+   */
+  private float[] m_keys;
+
+  /**
+   * Indicates if each team has a score, and therefore should be given a
+   * place.
+   */
+  private boolean[] m_scored;
+
+  /**
+   * The indices of the teams, in placement order.
+   */
+  private int[] m_order;
+
+  /**
+   * The place of each team, or <b>-1</b> if the team does not have a place.
+   */
+  private int[] m_place;
+
+  /**
+   * The constructor.
+   *
+   * @param count The number of teams to be ranked.
+   */
+  public
+  Ranking(int count)
+  {
+    // Save the number of teams.
+    m_count = count;
+
+    // Allocate the arrays for the teams.
+    m_division = new int[count];
+    m_keys = new float[count * SCORES];
+    m_scored = new boolean[count];
+    m_order = new int[count];
+    m_place = new int[count];
+  }
+
+  /**
+   * Sets the sort key for a team.  Scores that should not be considered in the
+   * ranking should be passed as a constant (such as zero) for all teams.
+   *
+   * @param team The index of the team.
+   *
+   * @param division The division of the team.
+   *
+   * @param s1 The first score for the team.
+   *
+   * @param s2 The second score for the team.
+   *
+   * @param s3 The third score for the team.
+   *
+   * @param s4 The fourth score for the team.
+   *
+   * @param scored <b>true</b> if the team has a score and should be given a
+   *               place.
+   */
+  public void
+  set(int team, int division, float s1, float s2, float s3, float s4,
+      boolean scored)
+  {
+    int base = team * SCORES;
+
+    // Save the division and whether the team should be placed.
+    m_division[team] = division;
+    m_scored[team] = scored;
+
+    // Save the scores.
+    m_keys[base] = s1;
+    m_keys[base + 1] = s2;
+    m_keys[base + 2] = s3;
+    m_keys[base + 3] = s4;
+
+    // Sort the scores from best to worst, using an insertion sort (which is
+    // the fastest approach for so few values).
+    for(int i = 1; i < SCORES; i++)
+    {
+      float value = m_keys[base + i];
+      int j = i - 1;
+      while((j >= 0) && (m_keys[base + j] < value))
+      {
+        m_keys[base + j + 1] = m_keys[base + j];
+        j--;
+      }
+      m_keys[base + j + 1] = value;
+    }
+  }
+
+  /**
+   * Compares the sort keys of two teams.
+   *
+   * @param a The index of the first team.
+   *
+   * @param b The index of the second team.
+   *
+   * @return A negative value if the first team places higher than the second
+   *         team, a positive value if the second team places higher than the
+   *         first team, and 0 if the teams are tied.
+   */
+  private int
+  compare(int a, int b)
+  {
+    // Lower numbered divisions place higher.
+    if(m_division[a] != m_division[b])
+    {
+      return((m_division[a] < m_division[b]) ? -1 : 1);
+    }
+
+    // Compare the scores, from best to worst.
+    int ia = a * SCORES;
+    int ib = b * SCORES;
+    for(int idx = 0; idx < SCORES; idx++)
+    {
+      if(m_keys[ia + idx] > m_keys[ib + idx])
+      {
+        return(-1);
+      }
+      if(m_keys[ia + idx] < m_keys[ib + idx])
+      {
+        return(1);
+      }
+    }
+
+    // The teams are tied.
+    return(0);
+  }
+
+  /**
+   * Sorts the teams into placement order and assigns their places.
+   */
+  public void
+  rank()
+  {
+    // Start with the teams in the order they were added.
+    for(int idx = 0; idx < m_count; idx++)
+    {
+      m_order[idx] = idx;
+    }
+
+    // Sort the teams with a stable merge sort.
+    int[] temp = new int[m_count];
+    for(int width = 1; width < m_count; width *= 2)
+    {
+      // Merge each pair of adjacent runs of this width.
+      for(int lo = 0; lo < (m_count - width); lo += 2 * width)
+      {
+        int mid = lo + width;
+        int hi = Math.min(lo + (2 * width), m_count);
+
+        // Skip the merge if the runs are already in order.
+        if(compare(m_order[mid - 1], m_order[mid]) <= 0)
+        {
+          continue;
+        }
+
+        // Merge the two runs, taking from the first run when the teams are
+        // tied (to keep the sort stable).
+        int i = lo, j = mid, k = lo;
+        while((i < mid) && (j < hi))
+        {
+          if(compare(m_order[j], m_order[i]) < 0)
+          {
+            temp[k++] = m_order[j++];
+          }
+          else
+          {
+            temp[k++] = m_order[i++];
+          }
+        }
+        while(i < mid)
+        {
+          temp[k++] = m_order[i++];
+        }
+        while(j < hi)
+        {
+          temp[k++] = m_order[j++];
+        }
+
+        // Copy the merged run back into the order array.
+        System.arraycopy(temp, lo, m_order, lo, hi - lo);
+      }
+    }
+
+    // Loop through the teams in placement order, assigning places (with tied
+    // teams sharing the highest place, and the place restarting at one for
+    // each division).
+    int place = 1;
+    for(int idx = 0; idx < m_count; idx++)
+    {
+      int team = m_order[idx];
+
+      // See if there is a change in division.
+      if((idx != 0) && (m_division[team] != m_division[m_order[idx - 1]]))
+      {
+        // Reset the place back to one with the change in division.
+        place = 1;
+      }
+
+      // Do not assign a place if this team has no scores.
+      if(!m_scored[team])
+      {
+        m_place[team] = -1;
+      }
+
+      // Give this team the same place as the preceding team if they are tied.
+      else if((idx != 0) && m_scored[m_order[idx - 1]] &&
+              (compare(team, m_order[idx - 1]) == 0))
+      {
+        m_place[team] = m_place[m_order[idx - 1]];
+      }
+
+      // Otherwise, give this team a place based on its position.
+      else
+      {
+        m_place[team] = place;
+      }
+
+      // Increment the place.
+      place++;
+    }
+  }
+
+  /**
+   * Gets the team at a position in the placement order.
+   *
+   * @param position The position in the placement order.
+   *
+   * @return The index of the team at that position.
+   */
+  public int
+  order(int position)
+  {
+    // Return the team at this position.
+    return(m_order[position]);
+  }
+
+  /**
+   * Gets the place of a team.
+   *
+   * @param team The index of the team.
+   *
+   * @return The place of the team, or <b>-1</b> if it does not have a place.
+   */
+  public int
+  place(int team)
+  {
+    // Return the place of this team.
+    return(m_place[team]);
+  }
+}
@@ -0,0 +1,1371 @@
+// Copyright (c) 2024 Brian Kircher
+//
+// Open Source Software; you can modify and/or share it under the terms of BSD
+// license file in the root directory of this project.
+
+package FLLScorer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.bspfsystems.simplejson.JSONArray;
+import org.bspfsystems.simplejson.JSONObject;
+import org.bspfsystems.simplejson.SimpleJSONArray;
+import org.bspfsystems.simplejson.SimpleJSONObject;
+import org.bspfsystems.simplejson.parser.JSONParser;
+
+/**
+ * Maintains the live robot game ranking of the teams at each event.
+ * <p>
+ * The teams in each division at an event are kept in a treap (a randomized
+ * balanced binary tree) that is ordered by the same sort key as the Ranking
+ * class: the considered match scores from best to worst, with tied teams and
+ * teams without any scores in team number order.  Each node of the tree
+ * records the size of its subtree, so the place of a team can be found in
+ * O(log n) time.
+ * <p>
+ * When a match score is added to or removed from the database, only that
+ * team is moved within the tree, in O(log n) time.  Changes that affect the
+ * set of teams at an event (or their numbers, names, or divisions), or the
+ * number of matches at an event, discard the index; it is rebuilt from the
+ * database the next time it is needed.
+ * <p>
+ * This is a singleton that is acquired via the getInstance() method.
+ */
+public class RankingIndex
+{
+  /**
+   * The object for the RankingIndex singleton.
+   */
+  private static RankingIndex m_instance = null;
+
+  /**
+   * A team at an event.
+   */
+  private static class Team
+  {
+    /**
+     * The ID of the team.
+     */
+    private int m_id;
+
+    /**
+     * The team's number (as assigned by FIRST).
+     */
+    private int m_number;
+
+    /**
+     * The team's name.
+     */
+    private String m_name;
+
+    /**
+     * The division of the team (or zero if divisions are not enabled).
+     */
+    private int m_division;
+
+    /**
+     * The scores for each match, or <b>-100</b> if there is no score for the
+     * match.
+     */
+    private float[] m_match = { -100, -100, -100, -100, -100 };
+
+    /**
+     * The team's high score from the considered matches, or <b>-100</b> if
+     * the team does not have any considered scores.
+     */
+    private float m_high = -100;
+
+    /**
+     * The sort key for the team, which is the considered match scores sorted
+     * from best to worst.
+     */
+    private float[] m_key = new float[Ranking.SCORES];
+
+    /**
+     * The priority of the team's node in the tree.
+     */
+    private int m_priority;
+
+    /**
+     * The left child of the team's node in the tree.
+     */
+    private Team m_left = null;
+
+    /**
+     * The right child of the team's node in the tree.
+     */
+    private Team m_right = null;
+
+    /**
+     * The number of nodes in the subtree rooted at the team's node.
+     */
+    private int m_size = 1;
+  }
+
+  /**
+   * The ranking of the teams at a single event.
+   */
+  private static class Index
+  {
+    /**
+     * The ID of the season.
+     */
+    private int m_season;
+
+    /**
+     * The number of matches at the event.
+     */
+    private int m_matches;
+
+    /**
+     * Indicates if divisions were enabled when the index was built.
+     */
+    private boolean m_divisions;
+
+    /**
+     * The teams at the event, indexed by their team ID.
+     */
+    private HashMap<Integer, Team> m_teams = new HashMap<Integer, Team>();
+
+    /**
+     * The root of the tree for each division, in division order.
+     */
+    private TreeMap<Integer, Team> m_roots = new TreeMap<Integer, Team>();
+  }
+
+  /**
+   * The Database object.
+   */
+  private Database m_database = null;
+
+  /**
+   * The Config object.
+   */
+  private Config m_config = null;
+
+  /**
+   * The Seasons object.
+   */
+  private Seasons m_season = null;
+
+  /**
+   * The Events object.
+   */
+  private Events m_event = null;
+
+  /**
+   * The index for each event, indexed by the event ID.
+   */
+  private HashMap<Integer, Index> m_indices = new HashMap<Integer, Index>();
+
+  /**
+   * The lock that serializes the score changes, so that each one reads the
+   * score from the database and applies it to the index before the next one
+   * reads the score.  This is separate from the lock on the index, so that
+   * the index can still be queried while a score is being read.
+   */
+  private Lock m_changeLock = new ReentrantLock();
+
+  /**
+   * The random number generator for the node priorities.
+   */
+  private Random m_random = new Random();
+
+  /**
+   * Gets the RankingIndex singleton object, creating it if necessary.
+   *
+   * @return Returns the RankingIndex singleton.
+   */
+  public static RankingIndex
+  getInstance()
+  {
+    // Create the RankingIndex object if required.
+    if(m_instance == null)
+    {
+      m_instance = new RankingIndex();
+    }
+
+    // Return the RankingIndex object.
+    return(m_instance);
+  }
+
+  /**
+   * The constructor.  This is private so that the object can only be created
+   * via the getIntance() method.
+   */
+  private
+  RankingIndex()
+  {
+  }
+
+  /**
+   * Compares the sort keys of two teams, ignoring their team numbers.
+   *
+   * @param a The first team.
+   *
+   * @param b The second team.
+   *
+   * @return A negative value if the first team places higher than the second
+   *         team, a positive value if the second team places higher than the
+   *         first team, and 0 if the teams are tied.
+   */
+  private static int
+  compareScores(Team a, Team b)
+  {
+    // Teams with scores place higher than teams without scores.
+    if((a.m_high == -100) != (b.m_high == -100))
+    {
+      return((a.m_high != -100) ? -1 : 1);
+    }
+
+    // Teams without scores are tied.
+    if(a.m_high == -100)
+    {
+      return(0);
+    }
+
+    // Compare the scores, from best to worst.
+    for(int idx = 0; idx < Ranking.SCORES; idx++)
+    {
+      if(a.m_key[idx] > b.m_key[idx])
+      {
+        return(-1);
+      }
+      if(a.m_key[idx] < b.m_key[idx])
+      {
+        return(1);
+      }
+    }
+
+    // The teams are tied.
+    return(0);
+  }
+
+  /**
+   * Compares the position of two teams in the tree.
+   *
+   * @param a The first team.
+   *
+   * @param b The second team.
+   *
+   * @return A negative value if the first team precedes the second team, a
+   *         positive value if the second team precedes the first team, and 0
+   *         if they are the same team.
+   */
+  private static int
+  compare(Team a, Team b)
+  {
+    // Compare the scores of the teams.
+    int ret = compareScores(a, b);
+    if(ret != 0)
+    {
+      return(ret);
+    }
+
+    // Tied teams are kept in team number order (and then in team ID order,
+    // which matches the order in which they are read from the database).
+    if(a.m_number != b.m_number)
+    {
+      return((a.m_number < b.m_number) ? -1 : 1);
+    }
+    return(Integer.compare(a.m_id, b.m_id));
+  }
+
+  /**
+   * Gets the size of a subtree.
+   *
+   * @param node The root of the subtree, which may be <b>null</b>.
+   *
+   * @return The number of nodes in the subtree.
+   */
+  private static int
+  size(Team node)
+  {
+    // Return the size of the subtree.
+    return((node == null) ? 0 : node.m_size);
+  }
+
+  /**
+   * Recomputes the size of the subtree rooted at a node.
+   *
+   * @param node The root of the subtree.
+   */
+  private static void
+  resize(Team node)
+  {
+    // The size is the size of the two children plus this node.
+    node.m_size = size(node.m_left) + size(node.m_right) + 1;
+  }
+
+  /**
+   * Inserts a team into a subtree.
+   *
+   * @param root The root of the subtree, which may be <b>null</b>.
+   *
+   * @param team The team to insert.
+   *
+   * @return The new root of the subtree.
+   */
+  private static Team
+  insert(Team root, Team team)
+  {
+    // The team becomes the root of an empty subtree.
+    if(root == null)
+    {
+      team.m_left = null;
+      team.m_right = null;
+      team.m_size = 1;
+      return(team);
+    }
+
+    // See if the team belongs to the left of the root.
+    if(compare(team, root) < 0)
+    {
+      // Insert the team into the left subtree, and rotate it above the root if
+      // it has a higher priority.
+      root.m_left = insert(root.m_left, team);
+      if(root.m_left.m_priority > root.m_priority)
+      {
+        Team child = root.m_left;
+        root.m_left = child.m_right;
+        child.m_right = root;
+        resize(root);
+        root = child;
+      }
+    }
+
+    // Otherwise, the team belongs to the right of the root.
+    else
+    {
+      // Insert the team into the right subtree, and rotate it above the root
+      // if it has a higher priority.
+      root.m_right = insert(root.m_right, team);
+      if(root.m_right.m_priority > root.m_priority)
+      {
+        Team child = root.m_right;
+        root.m_right = child.m_left;
+        child.m_left = root;
+        resize(root);
+        root = child;
+      }
+    }
+
+    // Update the size of the subtree and return its new root.
+    resize(root);
+    return(root);
+  }
+
+  /**
+   * Merges two subtrees, where every node in the first subtree precedes every
+   * node in the second subtree.
+   *
+   * @param a The first subtree, which may be <b>null</b>.
+   *
+   * @param b The second subtree, which may be <b>null</b>.
+   *
+   * @return The root of the merged subtree.
+   */
+  private static Team
+  merge(Team a, Team b)
+  {
+    // If either subtree is empty, the other subtree is the result.
+    if(a == null)
+    {
+      return(b);
+    }
+    if(b == null)
+    {
+      return(a);
+    }
+
+    // The root with the higher priority becomes the root of the result.
+    if(a.m_priority > b.m_priority)
+    {
+      a.m_right = merge(a.m_right, b);
+      resize(a);
+      return(a);
+    }
+    else
+    {
+      b.m_left = merge(a, b.m_left);
+      resize(b);
+      return(b);
+    }
+  }
+
+  /**
+   * Removes a team from a subtree.
+   *
+   * @param root The root of the subtree, which may be <b>null</b>.
+   *
+   * @param team The team to remove.
+   *
+   * @return The new root of the subtree.
+   */
+  private static Team
+  remove(Team root, Team team)
+  {
+    // Nothing to do if the subtree is empty.
+    if(root == null)
+    {
+      return(null);
+    }
+
+    // Replace the team's node with the merge of its children.
+    int ret = compare(team, root);
+    if(ret == 0)
+    {
+      return(merge(root.m_left, root.m_right));
+    }
+
+    // Remove the team from the appropriate subtree.
+    if(ret < 0)
+    {
+      root.m_left = remove(root.m_left, team);
+    }
+    else
+    {
+      root.m_right = remove(root.m_right, team);
+    }
+
+    // Update the size of the subtree and return its root.
+    resize(root);
+    return(root);
+  }
+
+  /**
+   * Counts the teams in a subtree that place strictly higher than a team.
+   *
+   * @param root The root of the subtree.
+   *
+   * @param team The team.
+   *
+   * @return The number of teams that place higher than the team.
+   */
+  private static int
+  countHigher(Team root, Team team)
+  {
+    int count = 0;
+
+    // Walk down the tree.  The tree is ordered by the scores first, so every
+    // node to the left of a higher placed node also places higher.
+    while(root != null)
+    {
+      if(compareScores(root, team) < 0)
+      {
+        count += size(root.m_left) + 1;
+        root = root.m_right;
+      }
+      else
+      {
+        root = root.m_left;
+      }
+    }
+
+    // Return the count.
+    return(count);
+  }
+
+  /**
+   * Adds the teams in a subtree, in order, to a list.
+   *
+   * @param root The root of the subtree.
+   *
+   * @param teams The list to which the teams are added.
+   *
+   * @param limit The maximum number of teams in the list.
+   */
+  private static void
+  collect(Team root, ArrayList<Team> teams, int limit)
+  {
+    // Walk the tree in order, stopping once the list is full.
+    while((root != null) && (teams.size() < limit))
+    {
+      collect(root.m_left, teams, limit);
+      if(teams.size() < limit)
+      {
+        teams.add(root);
+      }
+      root = root.m_right;
+    }
+  }
+
+  /**
+   * Recomputes the high score and sort key of a team from its match scores.
+   *
+   * @param index The index containing the team.
+   *
+   * @param team The team.
+   */
+  private static void
+  rekey(Index index, Team team)
+  {
+    // Determine which scores to consider.
+    int matches = index.m_matches;
+    boolean bScore3 = (matches == 3) || (matches == 103) || (matches == 4);
+    boolean bScore4 = (matches == 4);
+
+    // Get the high score.
+    float high = team.m_match[1];
+    high = (team.m_match[2] > high) ? team.m_match[2] : high;
+    if(bScore3)
+    {
+      high = (team.m_match[3] > high) ? team.m_match[3] : high;
+    }
+    if(bScore4)
+    {
+      high = (team.m_match[4] > high) ? team.m_match[4] : high;
+    }
+    team.m_high = high;
+
+    // Build the sort key from the considered scores (using zero for the
+    // scores that are not considered, as the Ranking class does).
+    team.m_key[0] = team.m_match[1];
+    team.m_key[1] = team.m_match[2];
+    team.m_key[2] = bScore3 ? team.m_match[3] : 0;
+    team.m_key[3] = bScore4 ? team.m_match[4] : 0;
+
+    // Sort the scores from best to worst.
+    for(int i = 1; i < Ranking.SCORES; i++)
+    {
+      float value = team.m_key[i];
+      int j = i - 1;
+      while((j >= 0) && (team.m_key[j] < value))
+      {
+        team.m_key[j + 1] = team.m_key[j];
+        j--;
+      }
+      team.m_key[j + 1] = value;
+    }
+  }
+
+  /**
+   * Builds the index for an event from the database.
+   *
+   * @param season_id The ID of the season.
+   *
+   * @param event_id The ID of the event, or <b>-1</b> if there is no event.
+   *
+   * @return The index for the event.
+   */
+  private Index
+  build(int season_id, int event_id)
+  {
+    Index index = new Index();
+
+    // Save the season, number of matches, and division enable.
+    index.m_season = season_id;
+    index.m_matches =
+      (event_id != -1) ? m_database.eventGetMatches(event_id) : 3;
+    index.m_divisions = m_config.divisionEnableGet();
+
+    // Enumerate the teams at this event.
+    ArrayList<Integer> ids = new ArrayList<Integer>();
+    ArrayList<Integer> numbers = new ArrayList<Integer>();
+    ArrayList<String> names = new ArrayList<String>();
+    ArrayList<Integer> divisions = new ArrayList<Integer>();
+    m_database.teamEnumerate(season_id, event_id, ids, numbers, names,
+                             divisions);
+
+    // Loop through the teams, adding them to the index.
+    for(int idx = 0; idx < ids.size(); idx++)
+    {
+      Team team = new Team();
+      team.m_id = ids.get(idx);
+      team.m_number = numbers.get(idx);
+      team.m_name = names.get(idx);
+      team.m_division = index.m_divisions ? divisions.get(idx) : 0;
+      team.m_priority = m_random.nextInt();
+      index.m_teams.put(team.m_id, team);
+    }
+
+    // Enumerate the scores for this event.
+    ArrayList<Integer> teams = new ArrayList<Integer>();
+    ArrayList<Float> score0 = new ArrayList<Float>();
+    ArrayList<Float> score1 = new ArrayList<Float>();
+    ArrayList<Float> score2 = new ArrayList<Float>();
+    ArrayList<Float> score3 = new ArrayList<Float>();
+    ArrayList<Float> score4 = new ArrayList<Float>();
+    if(event_id != -1)
+    {
+      m_database.scoreEnumerate(season_id, event_id, null, teams, score0,
+                                null, null, score1, null, null, score2, null,
+                                null, score3, null, null, score4, null, null);
+    }
+
+    // Loop through the scores, saving them for the corresponding team (and
+    // ignoring the scores for teams that are not at this event).
+    for(int idx = 0; idx < teams.size(); idx++)
+    {
+      Team team = index.m_teams.get(teams.get(idx));
+      if(team == null)
+      {
+        continue;
+      }
+      team.m_match[0] = (score0.get(idx) == null) ? -100 : score0.get(idx);
+      team.m_match[1] = (score1.get(idx) == null) ? -100 : score1.get(idx);
+      team.m_match[2] = (score2.get(idx) == null) ? -100 : score2.get(idx);
+      team.m_match[3] = (score3.get(idx) == null) ? -100 : score3.get(idx);
+      team.m_match[4] = (score4.get(idx) == null) ? -100 : score4.get(idx);
+    }
+
+    // Insert each team into the tree for its division.
+    for(Team team : index.m_teams.values())
+    {
+      rekey(index, team);
+      index.m_roots.put(team.m_division,
+                        insert(index.m_roots.get(team.m_division), team));
+    }
+
+    // Return the index.
+    return(index);
+  }
+
+  /**
+   * Gets the index for an event, building it from the database if it does
+   * not exist or is out of date.
+   *
+   * @param season_id The ID of the season.
+   *
+   * @param event_id The ID of the event, or <b>-1</b> if there is no event.
+   *
+   * @return The index for the event.
+   */
+  private Index
+  indexGet(int season_id, int event_id)
+  {
+    // Get the existing index for this event.
+    Index index = m_indices.get(event_id);
+
+    // Rebuild the index if it does not exist, or if it was built for a
+    // different season or division enable.
+    if((index == null) || (index.m_season != season_id) ||
+       (index.m_divisions != m_config.divisionEnableGet()))
+    {
+      index = build(season_id, event_id);
+      m_indices.put(event_id, index);
+    }
+
+    // Return the index.
+    return(index);
+  }
+
+  /**
+   * Called after a match score is added to, changed in, or removed from the
+   * database.  The score is read back from the database, rather than being
+   * passed in, since concurrent changes to the same score may call this in a
+   * different order than they were written; whichever call is last applies
+   * the score that is in the database.  The score is read before the index
+   * is locked, so that queries of the index do not wait for the database.
+   *
+   * @param season_id The ID of the season.
+   *
+   * @param event_id The ID of the event.
+   *
+   * @param team_id The ID of the team.
+   *
+   * @param match The number of the match.
+   */
+  public void
+  scoreChanged(int season_id, int event_id, int team_id, int match)
+  {
+    Float[] score = new Float[1];
+    Index index;
+    boolean read;
+
+    // Ignore changes to matches that are not in the index.
+    if((match < 0) || (match > 4))
+    {
+      return;
+    }
+
+    // Wait for any other score change to be applied.
+    m_changeLock.lock();
+    try
+    {
+      // Ignore this change if the index for this event has not been built
+      // (it will be read from the database when it is built), or if the team
+      // is not at this event.
+      synchronized(this)
+      {
+        index = m_indices.get(event_id);
+        if((index == null) || (index.m_season != season_id) ||
+           (index.m_teams.get(team_id) == null))
+        {
+          return;
+        }
+      }
+
+      // Read the team's current score for the match.
+      read = m_database.scoreMatchGet(season_id, event_id, team_id, match,
+                                      (value, cv, sheet) -> score[0] = value);
+
+      // Lock the index while the score is applied.
+      synchronized(this)
+      {
+        // Ignore this change if the index was discarded or rebuilt while the
+        // score was being read (in which case it already has the score).
+        if(m_indices.get(event_id) != index)
+        {
+          return;
+        }
+
+        // Discard the index if the score could not be read, so that it is
+        // rebuilt from the database.
+        if(!read)
+        {
+          m_indices.remove(event_id);
+          return;
+        }
+
+        // Remove the team from its tree, update its score, and then insert
+        // it back into the tree at its new position.
+        Team team = index.m_teams.get(team_id);
+        Team root = remove(index.m_roots.get(team.m_division), team);
+        team.m_match[match] = (score[0] == null) ? -100 : score[0];
+        rekey(index, team);
+        index.m_roots.put(team.m_division, insert(root, team));
+      }
+    }
+    finally
+    {
+      m_changeLock.unlock();
+    }
+  }
+
+  /**
+   * Discards the index for every event, so that it is rebuilt from the
+   * database the next time it is needed.  This is called when teams, events,
+   * or seasons are changed.
+   */
+  public synchronized void
+  invalidate()
+  {
+    // Discard all the indices.
+    m_indices.clear();
+  }
+
+  /**
+   * Gets the teams in an index in placement order (by division, with the
+   * teams without any scores at the end of each division), along with their
+   * places.
+   *
+   * @param index The index.
+   *
+   * @param teams The list to which the teams are added.
+   *
+   * @param places The list to which the places of the teams are added, where
+   *               <b>-1</b> indicates a team without any scores.
+   */
+  private static void
+  placements(Index index, ArrayList<Team> teams, ArrayList<Integer> places)
+  {
+    // Loop through the divisions.
+    for(Team root : index.m_roots.values())
+    {
+      // Get the teams in this division in placement order.
+      int first = teams.size();
+      collect(root, teams, Integer.MAX_VALUE);
+
+      // Loop through the teams in this division.
+      for(int idx = first; idx < teams.size(); idx++)
+      {
+        Team team = teams.get(idx);
+
+        // Determine the place of this team (with tied teams sharing the
+        // highest place).
+        int place = -1;
+        if(team.m_high != -100)
+        {
+          if((idx != first) && (compareScores(team, teams.get(idx - 1)) == 0))
+          {
+            place = places.get(places.size() - 1);
+          }
+          else
+          {
+            place = idx - first + 1;
+          }
+        }
+        places.add(place);
+      }
+    }
+  }
+
+  /**
+   * Enumerates the teams at an event in placement order (by division, with
+   * the teams without any scores at the end of each division).
+   *
+   * @param season_id The ID of the season.
+   *
+   * @param event_id The ID of the event, or <b>-1</b> if there is no event.
+   *
+   * @param places The array for the places of the teams, where <b>-1</b>
+   *               indicates a team without any scores.
+   *
+   * @param numbers The array for the numbers of the teams.
+   *
+   * @param names The array for the names of the teams.
+   *
+   * @param divisions The array for the divisions of the teams (which is zero
+   *                  if divisions are not enabled).
+   *
+   * @param high The array for the high scores of the teams, or <b>-100</b>
+   *             if a team does not have any considered scores.
+   *
+   * @param match0 The array for the match 0 scores of the teams, or
+   *               <b>-100</b> if a team does not have a score for the match.
+   *
+   * @param match1 The array for the match 1 scores of the teams.
+   *
+   * @param match2 The array for the match 2 scores of the teams.
+   *
+   * @param match3 The array for the match 3 scores of the teams.
+   *
+   * @param match4 The array for the match 4 scores of the teams.
+   */
+  public synchronized void
+  enumerate(int season_id, int event_id, ArrayList<Integer> places,
+            ArrayList<Integer> numbers, ArrayList<String> names,
+            ArrayList<Integer> divisions, ArrayList<Float> high,
+            ArrayList<Float> match0, ArrayList<Float> match1,
+            ArrayList<Float> match2, ArrayList<Float> match3,
+            ArrayList<Float> match4)
+  {
+    Index index = indexGet(season_id, event_id);
+
+    // Get the teams in placement order.
+    ArrayList<Team> teams = new ArrayList<Team>();
+    placements(index, teams, places);
+
+    // Loop through the teams, adding their information to the lists.
+    for(Team team : teams)
+    {
+      numbers.add(team.m_number);
+      names.add(team.m_name);
+      divisions.add(team.m_division);
+      high.add(team.m_high);
+      match0.add(team.m_match[0]);
+      match1.add(team.m_match[1]);
+      match2.add(team.m_match[2]);
+      match3.add(team.m_match[3]);
+      match4.add(team.m_match[4]);
+    }
+  }
+
+  /**
+   * Copies a subtree, adding the copy of each team to a map.  The copy has
+   * the same shape (and priorities) as the original, so it is a valid treap
+   * without needing to be rebuilt.
+   *
+   * @param node The root of the subtree, which may be <b>null</b>.
+   *
+   * @param teams The map to which the copied teams are added, indexed by
+   *              their IDs.
+   *
+   * @return The root of the copied subtree.
+   */
+  private static Team
+  copy(Team node, HashMap<Integer, Team> teams)
+  {
+    // The copy of an empty subtree is empty.
+    if(node == null)
+    {
+      return(null);
+    }
+
+    // Copy this team.
+    Team team = new Team();
+    team.m_id = node.m_id;
+    team.m_number = node.m_number;
+    team.m_name = node.m_name;
+    team.m_division = node.m_division;
+    team.m_match = node.m_match.clone();
+    team.m_high = node.m_high;
+    team.m_key = node.m_key.clone();
+    team.m_priority = node.m_priority;
+    team.m_size = node.m_size;
+    teams.put(team.m_id, team);
+
+    // Copy the children.
+    team.m_left = copy(node.m_left, teams);
+    team.m_right = copy(node.m_right, teams);
+
+    // Return the copy.
+    return(team);
+  }
+
+  /**
+   * Copies an index, so that it can be changed without affecting the live
+   * ranking.
+   *
+   * @param index The index to copy.
+   *
+   * @return The copy of the index.
+   */
+  private static Index
+  copy(Index index)
+  {
+    Index result = new Index();
+
+    // Copy the settings of the index.
+    result.m_season = index.m_season;
+    result.m_matches = index.m_matches;
+    result.m_divisions = index.m_divisions;
+
+    // Copy the tree for each division.
+    for(Integer division : index.m_roots.keySet())
+    {
+      result.m_roots.put(division,
+                         copy(index.m_roots.get(division), result.m_teams));
+    }
+
+    // Return the copy.
+    return(result);
+  }
+
+  /**
+   * Projects the ranking of the teams at an event if some teams had different
+   * match scores.  The hypothetical scores are applied to a copy of the
+   * index (so the live ranking is never changed), and the teams are then
+   * enumerated from the copy, so each projection costs one copy and one walk
+   * of the teams plus O(log n) per hypothetical score.
+   *
+   * @param season_id The ID of the season.
+   *
+   * @param event_id The ID of the event.
+   *
+   * @param teamIds The IDs of the teams with hypothetical scores.
+   *
+   * @param matches The match number of each hypothetical score.
+   *
+   * @param scores The hypothetical scores, where <b>null</b> removes the
+   *               team's score for the match; scores that are not finite
+   *               are ignored.
+   *
+   * @param places The array for the projected places of the teams, in
+   *               projected placement order, where <b>-1</b> indicates a team
+   *               without any scores.
+   *
+   * @param current The array for the current places of the teams.
+   *
+   * @param numbers The array for the numbers of the teams.
+   *
+   * @param names The array for the names of the teams.
+   *
+   * @param divisions The array for the divisions of the teams.
+   *
+   * @param high The array for the projected high scores of the teams.
+   */
+  public void
+  project(int season_id, int event_id, ArrayList<Integer> teamIds,
+          ArrayList<Integer> matches, ArrayList<Float> scores,
+          ArrayList<Integer> places, ArrayList<Integer> current,
+          ArrayList<Integer> numbers, ArrayList<String> names,
+          ArrayList<Integer> divisions, ArrayList<Float> high)
+  {
+    Index index;
+    HashMap<Integer, Integer> currentPlaces = new HashMap<Integer, Integer>();
+
+    // Get the current places of the teams, and a copy of the index, while
+    // holding the lock.
+    synchronized(this)
+    {
+      Index live = indexGet(season_id, event_id);
+      ArrayList<Team> teams = new ArrayList<Team>();
+      ArrayList<Integer> placeList = new ArrayList<Integer>();
+      placements(live, teams, placeList);
+      for(int idx = 0; idx < teams.size(); idx++)
+      {
+        currentPlaces.put(teams.get(idx).m_id, placeList.get(idx));
+      }
+      index = copy(live);
+    }
+
+    // Loop through the hypothetical scores.
+    for(int idx = 0; idx < teamIds.size(); idx++)
+    {
+      // Ignore this score if the team is not at this event, the match number
+      // is not valid, or the score is not a finite number (which would make
+      // the order of the tree inconsistent).
+      Team team = index.m_teams.get(teamIds.get(idx));
+      int match = matches.get(idx);
+      Float score = scores.get(idx);
+      if((team == null) || (match < 0) || (match > 4) ||
+         ((score != null) && !Float.isFinite(score)))
+      {
+        continue;
+      }
+
+      // Move the team to its position with the hypothetical score.
+      Team root = remove(index.m_roots.get(team.m_division), team);
+      team.m_match[match] = (score == null) ? -100 : score;
+      rekey(index, team);
+      index.m_roots.put(team.m_division, insert(root, team));
+    }
+
+    // Get the projected places of the teams.
+    ArrayList<Team> teams = new ArrayList<Team>();
+    placements(index, teams, places);
+    for(Team team : teams)
+    {
+      current.add(currentPlaces.get(team.m_id));
+      numbers.add(team.m_number);
+      names.add(team.m_name);
+      divisions.add(team.m_division);
+      high.add(team.m_high);
+    }
+  }
+
+  /**
+   * Gets the place of a team at an event.
+   *
+   * @param season_id The ID of the season.
+   *
+   * @param event_id The ID of the event.
+   *
+   * @param team_id The ID of the team.
+   *
+   * @return The place of the team within its division, or <b>-1</b> if the
+   *         team is not at the event or does not have any scores.
+   */
+  public synchronized int
+  place(int season_id, int event_id, int team_id)
+  {
+    Index index = indexGet(season_id, event_id);
+
+    // Find the team, and make sure that it has a score.
+    Team team = index.m_teams.get(team_id);
+    if((team == null) || (team.m_high == -100))
+    {
+      return(-1);
+    }
+
+    // The place is one more than the number of higher placed teams.
+    return(countHigher(index.m_roots.get(team.m_division), team) + 1);
+  }
+
+  /**
+   * Gets the highest placed teams in a division at an event.
+   *
+   * @param season_id The ID of the season.
+   *
+   * @param event_id The ID of the event.
+   *
+   * @param division The division (which should be zero if divisions are not
+   *                 enabled).
+   *
+   * @param count The maximum number of teams to return.
+   *
+   * @param places The array for the places of the teams.
+   *
+   * @param numbers The array for the numbers of the teams.
+   *
+   * @param names The array for the names of the teams.
+   *
+   * @param high The array for the high scores of the teams.
+   */
+  public synchronized void
+  top(int season_id, int event_id, int division, int count,
+      ArrayList<Integer> places, ArrayList<Integer> numbers,
+      ArrayList<String> names, ArrayList<Float> high)
+  {
+    Index index = indexGet(season_id, event_id);
+
+    // Get the first teams in this division.
+    ArrayList<Team> teams = new ArrayList<Team>();
+    collect(index.m_roots.get(division), teams, count);
+
+    // Loop through the teams, stopping at the first team without a score.
+    for(int idx = 0; (idx < teams.size()) && (teams.get(idx).m_high != -100);
+        idx++)
+    {
+      Team team = teams.get(idx);
+
+      // Add this team's information to the lists (with tied teams sharing the
+      // highest place).
+      if((idx != 0) && (compareScores(team, teams.get(idx - 1)) == 0))
+      {
+        places.add(places.get(places.size() - 1));
+      }
+      else
+      {
+        places.add(idx + 1);
+      }
+      numbers.add(team.m_number);
+      names.add(team.m_name);
+      high.add(team.m_high);
+    }
+  }
+
+  /**
+   * Handles requests for /scoreboard/ranking.json.  With a <i>team</i>
+   * parameter (a team number), returns the place of that team; otherwise,
+   * returns the <i>top</i> (default 10) highest placed teams in the
+   * <i>division</i> (default 0).
+   *
+   * @param path The path from the request.
+   *
+   * @param paramMap The parameters from the request.
+   *
+   * @return An array of bytes to return to the client.
+   */
+  private byte[]
+  serveRanking(String path, HashMap<String, String> paramMap)
+  {
+    JSONObject result = new SimpleJSONObject();
+    int season_id = m_season.seasonIdGet();
+    int event_id = m_event.eventIdGet();
+
+    // A try/catch to handle malformed parameters.
+    try
+    {
+      // See if the place of a single team was requested.
+      if(paramMap.containsKey("team"))
+      {
+        // Get the ID of this team and find its place.
+        int number = Integer.parseInt(paramMap.get("team"));
+        int team_id = m_database.teamGet(season_id, number);
+        int place = place(season_id, event_id, team_id);
+
+        // Add the team and its place to the JSON response.
+        result.set("team", number);
+        if(place != -1)
+        {
+          result.set("place", place);
+        }
+      }
+
+      // Otherwise, return the highest placed teams.
+      else
+      {
+        int division = 0;
+        int count = 10;
+
+        // Get the division and count from the parameters, if provided.
+        if(paramMap.containsKey("division"))
+        {
+          division = Integer.parseInt(paramMap.get("division"));
+        }
+        if(paramMap.containsKey("top"))
+        {
+          count = Integer.parseInt(paramMap.get("top"));
+        }
+
+        // Get the highest placed teams.
+        ArrayList<Integer> places = new ArrayList<Integer>();
+        ArrayList<Integer> numbers = new ArrayList<Integer>();
+        ArrayList<String> names = new ArrayList<String>();
+        ArrayList<Float> high = new ArrayList<Float>();
+        top(season_id, event_id, division, count, places, numbers, names,
+            high);
+
+        // Add the teams to the JSON response.
+        JSONArray teams = new SimpleJSONArray();
+        for(int idx = 0; idx < places.size(); idx++)
+        {
+          JSONObject team = new SimpleJSONObject();
+          team.set("place", places.get(idx));
+          team.set("num", numbers.get(idx));
+          team.set("name", names.get(idx));
+          team.set("high", (high.get(idx) < 0) ? 0 : high.get(idx));
+          teams.addEntry(team);
+        }
+        result.set("top", teams);
+      }
+    }
+    catch(Exception e)
+    {
+      result.set("result", "error");
+    }
+
+    // Convert the response into a byte array and return it.
+    try
+    {
+      String json = JSONParser.serialize(result);
+      return(json.getBytes(StandardCharsets.UTF_8));
+    }
+    catch(Exception e)
+    {
+      return("{}".getBytes(StandardCharsets.UTF_8));
+    }
+  }
+
+  /**
+   * Handles requests for /scoreboard/projection.json, which projects the
+   * places of the teams at the current event if some teams had different
+   * match scores.  The <i>scores</i> parameter is a comma-separated list of
+   * hypothetical scores, each as "team:match:score" (with an empty score
+   * removing the team's score for the match).  If the <i>standings</i>
+   * parameter is <b>1</b>, the projected league standings of the teams with
+   * hypothetical scores are returned as well.
+   *
+   * @param path The path from the request.
+   *
+   * @param paramMap The parameters from the request.
+   *
+   * @return An array of bytes to return to the client.
+   */
+  private byte[]
+  serveProjection(String path, HashMap<String, String> paramMap)
+  {
+    JSONObject result = new SimpleJSONObject();
+    int season_id = m_season.seasonIdGet();
+    int event_id = m_event.eventIdGet();
+
+    // A try/catch to handle malformed parameters.
+    try
+    {
+      // Parse the hypothetical scores.
+      ArrayList<Integer> teamIds = new ArrayList<Integer>();
+      ArrayList<Integer> numberList = new ArrayList<Integer>();
+      ArrayList<Integer> matches = new ArrayList<Integer>();
+      ArrayList<Float> scores = new ArrayList<Float>();
+      if(paramMap.containsKey("scores"))
+      {
+        for(String entry : paramMap.get("scores").split(","))
+        {
+          String[] parts = entry.split(":", -1);
+          int number = Integer.parseInt(parts[0]);
+          numberList.add(number);
+          teamIds.add(m_database.teamGet(season_id, number));
+          matches.add(Integer.parseInt(parts[1]));
+          Float score = parts[2].isEmpty() ? null :
+                        Float.parseFloat(parts[2]);
+
+          // Reject scores that are not finite numbers (such as "NaN" or
+          // "Infinity"), which Float.parseFloat() accepts.
+          if((score != null) && !Float.isFinite(score))
+          {
+            throw new NumberFormatException("Invalid score: " + parts[2]);
+          }
+          scores.add(score);
+        }
+      }
+
+      // Project the ranking of the teams at the event.
+      ArrayList<Integer> places = new ArrayList<Integer>();
+      ArrayList<Integer> current = new ArrayList<Integer>();
+      ArrayList<Integer> numbers = new ArrayList<Integer>();
+      ArrayList<String> names = new ArrayList<String>();
+      ArrayList<Integer> divisions = new ArrayList<Integer>();
+      ArrayList<Float> high = new ArrayList<Float>();
+      project(season_id, event_id, teamIds, matches, scores, places, current,
+              numbers, names, divisions, high);
+
+      // Add the teams to the JSON response.
+      JSONArray teams = new SimpleJSONArray();
+      for(int idx = 0; idx < places.size(); idx++)
+      {
+        JSONObject team = new SimpleJSONObject();
+        if(places.get(idx) != -1)
+        {
+          team.set("place", places.get(idx));
+        }
+        if(current.get(idx) != -1)
+        {
+          team.set("current", current.get(idx));
+        }
+        team.set("num", numbers.get(idx));
+        team.set("name", names.get(idx));
+        team.set("division", divisions.get(idx));
+        team.set("high", (high.get(idx) < 0) ? 0 : high.get(idx));
+        teams.addEntry(team);
+      }
+      result.set("teams", teams);
+
+      // See if the league standings were requested.
+      if("1".equals(paramMap.get("standings")) && (event_id != -1))
+      {
+        // Project the league standings of the teams with hypothetical
+        // scores.
+        ArrayList<Integer> leaguePlaces = new ArrayList<Integer>();
+        ArrayList<Integer> leagueScores = new ArrayList<Integer>();
+        Standings.getInstance().project(season_id, event_id, teamIds, matches,
+                                        scores, leaguePlaces, leagueScores);
+
+        // Add the teams to the JSON response (once each).
+        JSONArray standings = new SimpleJSONArray();
+        for(int idx = 0; idx < teamIds.size(); idx++)
+        {
+          if(teamIds.indexOf(teamIds.get(idx)) != idx)
+          {
+            continue;
+          }
+          JSONObject team = new SimpleJSONObject();
+          team.set("num", numberList.get(idx));
+          if(leaguePlaces.get(idx) != -1)
+          {
+            team.set("place", leaguePlaces.get(idx));
+            team.set("score", leagueScores.get(idx));
+          }
+          standings.addEntry(team);
+        }
+        result.set("standings", standings);
+      }
+
+      // Success.
+      result.set("result", "ok");
+    }
+    catch(Exception e)
+    {
+      result.set("result", "error");
+    }
+
+    // Convert the response into a byte array and return it.
+    try
+    {
+      String json = JSONParser.serialize(result);
+      return(json.getBytes(StandardCharsets.UTF_8));
+    }
+    catch(Exception e)
+    {
+      return("{}".getBytes(StandardCharsets.UTF_8));
+    }
+  }
+
+  /**
+   * Builds the index for the current event, if it is not already built.  The
+   * application startup does this once the web server is running, so that
+   * the first ranking request does not need to wait for it.
+   */
+  public void
+  load()
+  {
+    // Get the currently selected season and event (which loads the seasons
+    // if they have not already been loaded).
+    int season_id = m_season.seasonIdGet();
+    int event_id = m_event.eventIdGet();
+
+    // Build the index for the current event from the database.
+    synchronized(this)
+    {
+      indexGet(season_id, event_id);
+    }
+  }
+
+  /**
+   * Performs initial setup for the ranking index.
+   */
+  public void
+  setup()
+  {
+    // Get references to the database, config, season, and event objects.
+    m_database = Database.getInstance();
+    m_config = Config.getInstance();
+    m_season = Seasons.getInstance();
+    m_event = Events.getInstance();
+
+    // Register the dynamic handlers for the ranking.json and projection.json
+    // files.
+    WebServer.getInstance().registerDynamicFile("/scoreboard/ranking.json",
+                                                this::serveRanking);
+    WebServer.getInstance().registerDynamicFile("/scoreboard/projection.json",
+                                                this::serveProjection);
+  }
+}
@@ -10,6 +10,8 @@ import java.net.URLDecoder;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.UUID;
 import java.util.concurrent.TimeUnit;
 
 import org.bspfsystems.simplejson.JSONArray;
@@ -20,15 +22,11 @@ import org.bspfsystems.simplejson.parser.JSONParser;
 import org.eclipse.jetty.ee10.websocket.server.JettyServerUpgradeRequest;
 import org.eclipse.jetty.ee10.websocket.server.JettyServerUpgradeResponse;
 import org.eclipse.jetty.ee10.websocket.server.JettyWebSocketCreator;
-import org.eclipse.jetty.websocket.api.Callback;
 import org.eclipse.jetty.websocket.api.Session;
 import org.eclipse.jetty.websocket.api.annotations.OnWebSocketClose;
 import org.eclipse.jetty.websocket.api.annotations.OnWebSocketOpen;
 import org.eclipse.jetty.websocket.api.annotations.WebSocket;
 
-import com.fathzer.soft.javaluator.DoubleEvaluator;
-import com.fathzer.soft.javaluator.StaticVariableSet;
-
 /**
  * Handles the referee page.
  * <p>
@@ -36,6 +34,18 @@ import com.fathzer.soft.javaluator.StaticVariableSet;
  */
 public class Referee
 {
+  /**
+   * The time, in milliseconds, after which an unused live scoring session is
+   * discarded.
+   */
+  private static final long LIVE_TIMEOUT = 15 * 60 * 1000;
+
+  /**
+   * The time, in milliseconds, between the sweeps that discard the unused
+   * live scoring sessions.
+   */
+  private static final long LIVE_SWEEP = 60 * 1000;
+
   /**
    * The object for the Referee singleton.
    */
@@ -66,6 +76,11 @@ public class Referee
    */
   private Events m_event = null;
 
+  /**
+   * The Flight object.
+   */
+  private Flight m_flight = null;
+
   /**
    * The JSON scoresheet for the current season.
    */
@@ -76,12 +91,51 @@ public class Referee
    */
   private String m_scoresheetSeason = null;
 
+  /**
+   * The compiled scoresheet for the current season, or <b>null</b> if it could
+   * not be compiled.
+   */
+  private Scoresheet m_compiled = null;
+
+  /**
+   * A scoresheet that is being scored live by a referee.
+   */
+  private static class LiveSession
+  {
+    /**
+     * The compiled scoresheet that is being used for scoring.
+     */
+    private Scoresheet m_scoresheet;
+
+    /**
+     * The state of the scoresheet.
+     */
+    private Scoresheet.Live m_live;
+
+    /**
+     * The time, in milliseconds, at which the session was last used.
+     */
+    private long m_lastUse;
+  }
+
+  /**
+   * The live scoring sessions, indexed by their token.
+   */
+  private HashMap<String, LiveSession> m_liveSessions =
+    new HashMap<String, LiveSession>();
+
   /**
    * The time of the last score update; used to determine when to push changes
    * to the active referees.
    */
   private long m_lastUpdate = 0;
 
+  /**
+   * The ID of the publish that caused the last score update, for the flight
+   * recorder events.
+   */
+  private long m_lastPublishId = 0;
+
   /**
    * Gets the Referee singleton object, creating it if necessary.
    *
@@ -147,7 +201,23 @@ public class Referee
     try
     {
       fragment = new String(in.readAllBytes(), StandardCharsets.UTF_8);
-      m_scoresheet = JSONParser.deserializeObject(fragment);
+      JSONObject scoresheet = JSONParser.deserializeObject(fragment);
+
+      // Compile the scoresheet.  If it can not be compiled, it is interpreted
+      // when scoring instead.
+      Scoresheet compiled = null;
+      try
+      {
+        compiled = new Scoresheet(scoresheet);
+      }
+      catch(Exception e)
+      {
+        System.out.println("Scoresheet compile error: " + e);
+      }
+
+      // Save the scoresheet.
+      m_compiled = compiled;
+      m_scoresheet = scoresheet;
       m_scoresheetSeason = season;
     }
     catch(Exception e)
@@ -156,6 +226,24 @@ public class Referee
     }
   }
 
+  /**
+   * Reloads the scoresheet for the current season, such as after it has been
+   * corrected or overridden.  Any live scoring sessions that use the previous
+   * scoresheet expire.
+   *
+   * @return The JSON scoresheet, or <b>null</b> if it could not be loaded.
+   */
+  public JSONObject
+  scoresheetReload()
+  {
+    // Forget the loaded scoresheet and load it again.
+    m_scoresheetSeason = null;
+    loadScoresheet();
+
+    // Return the scoresheet if it was loaded.
+    return((m_scoresheetSeason == null) ? null : m_scoresheet);
+  }
+
   /**
    * Gets a scoresheet.
    *
@@ -227,123 +315,26 @@ public class Referee
     int season_id = m_season.seasonIdGet();
     int event_id = m_event.eventIdGet();
 
-    // A list of information about teams, maintained in team number order.
-    ArrayList<Integer> ids = new ArrayList<Integer>();
-    ArrayList<Integer> numbers = new ArrayList<Integer>();
-    ArrayList<String> names = new ArrayList<String>();
-    ArrayList<Integer> match0 = new ArrayList<Integer>();
-    ArrayList<Integer> match1 = new ArrayList<Integer>();
-    ArrayList<Integer> match2 = new ArrayList<Integer>();
-    ArrayList<Integer> match3 = new ArrayList<Integer>();
-    ArrayList<Integer> match4 = new ArrayList<Integer>();
-
-    // Enumerate the teams from the database for this season.
-    m_database.teamEnumerate(season_id, event_id, ids, numbers, names, null);
-
-    // Set the score indicator for each team to no score available.
-    for(int idx = 0; idx < numbers.size(); idx++)
-    {
-      match0.add(idx, 0);
-      match1.add(idx, 0);
-      match2.add(idx, 0);
-      match3.add(idx, 0);
-      match4.add(idx, 0);
-    }
-
-    // A list of information about scores.
-    ArrayList<Integer> teams = new ArrayList<Integer>();
-    ArrayList<Float> score0 = new ArrayList<Float>();
-    ArrayList<String> match0_sheet = new ArrayList<String>();
-    ArrayList<Float> score1 = new ArrayList<Float>();
-    ArrayList<String> match1_sheet = new ArrayList<String>();
-    ArrayList<Float> score2 = new ArrayList<Float>();
-    ArrayList<String> match2_sheet = new ArrayList<String>();
-    ArrayList<Float> score3 = new ArrayList<Float>();
-    ArrayList<String> match3_sheet = new ArrayList<String>();
-    ArrayList<Float> score4 = new ArrayList<Float>();
-    ArrayList<String> match4_sheet = new ArrayList<String>();
-
-    // Enumerate the scores for this event.
-    m_database.scoreEnumerate(season_id, event_id, null, teams, score0, null,
-                              match0_sheet, score1, null, match1_sheet, score2,
-                              null, match2_sheet, score3, null, match3_sheet,
-                              score4, null, match4_sheet);
-
-    // Loop through all the scores.
-    for(int idx = 0; idx < teams.size(); idx++)
-    {
-      // Get the index the team for these scores.
-      int team_idx = ids.indexOf(teams.get(idx));
-      if(team_idx == -1)
-      {
-        continue;
-      }
-
-      // Determine the correct indicator for the match0 score.
-      if(score0.get(idx) != null)
-      {
-        match0.set(team_idx, 2);
-      }
-      else if(match0_sheet.get(idx) != null)
-      {
-        match0.set(team_idx, 1);
-      }
-
-      // Determine the correct indicator for the match1 score.
-      if(score1.get(idx) != null)
-      {
-        match1.set(team_idx, 2);
-      }
-      else if(match1_sheet.get(idx) != null)
-      {
-        match1.set(team_idx, 1);
-      }
-
-      // Determine the correct indicator for the match2 score.
-      if(score2.get(idx) != null)
-      {
-        match2.set(team_idx, 2);
-      }
-      else if(match2_sheet.get(idx) != null)
-      {
-        match2.set(team_idx, 1);
-      }
-
-      // Determine the correct indicator for the match3 score.
-      if(score3.get(idx) != null)
-      {
-        match3.set(team_idx, 2);
-      }
-      else if(match3_sheet.get(idx) != null)
-      {
-        match3.set(team_idx, 1);
-      }
-
-      // Determine the correct indicator for the match4 score.
-      if(score4.get(idx) != null)
-      {
-        match4.set(team_idx, 2);
-      }
-      else if(match4_sheet.get(idx) != null)
-      {
-        match4.set(team_idx, 1);
-      }
-    }
+    // Read the teams, scores, and scoresheet presence for this event.
+    EventData data = EventData.read(season_id, event_id, true, true, false);
 
     // Loop through the teams.
     JSONArray scores = new SimpleJSONArray();
-    for(int i = 0; i < numbers.size(); i++)
+    for(int i = 0; i < data.countGet(); i++)
     {
-      // Add this team's scores to the score array.
+      // Add this team's scores to the score array, with an indicator for each
+      // match of whether it has a score (2), only a scoresheet (1), or
+      // neither (0).
       JSONObject score = new SimpleJSONObject();
-      score.set("id", ids.get(i));
-      score.set("number", numbers.get(i));
-      score.set("name", names.get(i));
-      score.set("match0", match0.get(i));
-      score.set("match1", match1.get(i));
-      score.set("match2", match2.get(i));
-      score.set("match3", match3.get(i));
-      score.set("match4", match4.get(i));
+      score.set("id", data.idGet(i));
+      score.set("number", data.numberGet(i));
+      score.set("name", data.nameGet(i));
+      for(int match = 0; match < EventData.MATCHES; match++)
+      {
+        score.set("match" + match,
+                  (data.scoreGet(match, i) != EventData.NO_SCORE) ? 2 :
+                  (data.sheetGet(match, i) ? 1 : 0));
+      }
       scores.addEntry(score);
     }
 
@@ -397,6 +388,7 @@ public class Referee
       result.set("result", "ok");
 
       // There are changes that need to be sent to the active referees.
+      m_lastPublishId = 0;
       m_lastUpdate = java.lang.System.currentTimeMillis();
     }
   }
@@ -407,21 +399,17 @@ public class Referee
    * @param result The JSON object into which the result is placed.
    *
    * @param json The JSON representation of the scoresheet selections.
+   *
+   * @param live <b>true</b> if a live scoring session should be started for
+   *             the scoresheet, in which case its token is placed into the
+   *             "live" field of the result.
    */
   private void
-  score(JSONObject result, String json)
+  score(JSONObject result, String json, boolean live)
   {
-    // An expression evaluator for any scoring rules.
-    DoubleEvaluator eval = new DoubleEvaluator();
-
-    // The set of variables used by the scoring rules.
-    StaticVariableSet<Double> vars = new StaticVariableSet<Double>();
-
-    // The set of game pieces.
-    HashMap<String, String> pieces_desc = new HashMap<String, String>();
-    HashMap<String, Integer> pieces_qty = new HashMap<String, Integer>();
-    HashMap<String, Integer> pieces_used = new HashMap<String, Integer>();
-    HashMap<String, String> pieces_mission = new HashMap<String, String>();
+    // Start the flight recorder event for scoring the scoresheet.
+    Flight.ScoreEvent event = new Flight.ScoreEvent();
+    event.begin();
 
     // Catch any exceptions and return an error.
     try
@@ -432,227 +420,210 @@ public class Referee
       // Load the current season's scoresheet if necessary.
       loadScoresheet();
 
-      // Get the game pieces from the scoresheet.
-      JSONArray pieces = m_scoresheet.getArray("pieces");
+      // Get the too many pieces error message.
+      String message = m_webserver.getSSI("str_referee_too_many_pieces");
 
-      // Loop through the game pieces.
-      for(int i = 0; (pieces != null) && (i < pieces.size()); i++)
+      // Score the scoresheet, using the compiled scoresheet if there is one
+      // and interpreting the JSON scoresheet otherwise.
+      Scoresheet compiled = m_compiled;
+      event.compiled = compiled != null;
+      if(compiled != null)
       {
-        // Get the JSON object for this game piece.
-        JSONObject piece = pieces.getObject(i);
+        Scoresheet.Live state = compiled.live(sheet);
+        state.report(result, m_config.localeGet(), message);
 
-        // Get the name of this game piece.
-        String name = piece.getString("name");
-
-        // Get the description of this game piece.  If it is not available in
-        // the current locale, default back to en_US.
-        String desc =
-          piece.getObject("description").getString(m_config.localeGet());
-        if(desc == null)
+        // Start a live scoring session if requested.
+        if(live)
         {
-          desc = piece.getObject("description").getString("en_US");
+          result.set("live", liveStart(compiled, state));
         }
-
-        // Get the quantity of this game piece.
-        int quantity = piece.getInteger("quantity");
-
-        // Get the mission for which an over use of this game pieces is marked
-        // as being in error.
-        String mission = piece.getString("mission");
-
-        // Add this piece to the map of game pieces.
-        pieces_desc.put(name, desc);
-        pieces_qty.put(name, quantity);
-        pieces_used.put(name, 0);
-        pieces_mission.put(name, mission);
+      }
+      else
+      {
+        Scoresheet.interpret(m_scoresheet, result, sheet, m_config.localeGet(),
+                             message);
       }
 
-      // Get the missions from the scoresheet.
-      JSONArray missions = m_scoresheet.getArray("missions");
-
-      // Start with zero points.
-      float points = 0;
+      // Add the core values score to the JSON response.
+      if(!sheet.isNull("CV_1"))
+      {
+        result.set("cv", sheet.getInteger("CV_1") + 1);
+      }
+      if(!sheet.isNull("GP_1"))
+      {
+        result.set("cv", sheet.getInteger("GP_1") + 1);
+      }
 
-      // Loop through the missions.
-      for(int i = 0; i < missions.size(); i++)
+      // Success.
+      if(result.getString("result") == null)
       {
-        // For a multiple item mission, start with an accumlated selection of
-        // zero.
-        int sel = 0;
+        result.set("result", "ok");
+      }
+    }
+    catch(Exception e)
+    {
+      System.out.println("JSON error: " + e);
+      result.set("result", m_webserver.getSSI("str_referee_parse_fail"));
+    }
 
-        // The mission-specific score starts at zero.
-        int mission_points = 0;
+    // Record the flight recorder event.
+    event.publishId = m_flight.publishIdGet();
+    event.commit();
+  }
 
-        // Get the JSON object for this mission, and the mission ID from that.
-        JSONObject mission = missions.getObject(i);
-        String mission_id = mission.getString("mission");
+  /**
+   * Discards the live scoring sessions that have not been used recently.  The
+   * caller must hold the lock on the sessions.
+   *
+   * @param now The current time, in milliseconds.
+   */
+  private void
+  liveSweep(long now)
+  {
+    // Loop through the sessions, discarding the ones that have timed out.
+    Iterator<LiveSession> iter = m_liveSessions.values().iterator();
+    while(iter.hasNext())
+    {
+      if((now - iter.next().m_lastUse) > LIVE_TIMEOUT)
+      {
+        iter.remove();
+      }
+    }
+  }
 
-        // Get the mission items and loop through them.
-        JSONArray items = mission.getArray("items");
-        for(int j = items.size(); j > 0; j--)
+  /**
+   * The thread that periodically discards the live scoring sessions that
+   * have not been used recently (such as those of a tablet that was put
+   * away), so that they do not stay in memory until the next session is
+   * started.
+   */
+  private class LiveSweeper implements Runnable
+  {
+    /**
+     * The code that runs in the sweeper thread.
+     */
+    @Override
+    public void
+    run()
+    {
+      // Loop forever.
+      while(true)
+      {
+        try
         {
-          // Get the JSON object for this mission item, and the ID for it.
-          JSONObject item = items.getObject(j - 1);
-          Integer item_id = item.getInteger("id");
-
-          // Get the selection for this item.
-          int selection = sheet.getInteger(mission_id + "_" + item_id);
-
-          // Save the value of this selection to the rules variable set.
-          vars.set(mission_id + "_" + item_id, (double)selection);
-
-          // Get the score list for this item.
-          JSONArray scores = item.getArray("score");
-          if(scores == null)
-          {
-            // There is not a score list for this item, so the entire mission
-            // is scored based on the accumulation of items. Get the type of
-            // this item.
-            String choice = item.getString("type");
-            if(choice.equals("yesno"))
-            {
-              // This item is a yes/no choice, so double the previous
-              // accumulation (since this selection has two choices) and add
-              // the value of this selection.
-              sel = (sel * 2) + selection;
-            }
-            else if(choice.equals("enum"))
-            {
-              // This item is an enumeration, so multiply by the number of
-              // choices and add the value of this selection.
-              sel = ((sel *
-                      item.getObject("choices").getArray("en_US").size()) +
-                     selection);
-            }
-          }
-          else
+          // Wait for the next sweep, then discard the unused sessions.
+          Thread.sleep(LIVE_SWEEP);
+          synchronized(m_liveSessions)
           {
-            // There are scores for this item, so add to the score based on
-            // this selection.
-            points += scores.getInteger(selection);
-            mission_points += scores.getInteger(selection);
-          }
-
-          // Get the pieces for this item.
-          pieces = item.getArray("pieces");
-
-          // Loop through the pieces for this item.
-          for(int k = 0; (pieces != null) && (k < pieces.size()); k++)
-          {
-            // Get the name and quantity from this game piece.
-            String name = pieces.getObject(k).getString("name");
-            int quantity =
-              pieces.getObject(k).getArray("quantity").getInteger(selection);
-
-            // Update the quantity of this piece in use.
-            pieces_used.put(name, pieces_used.get(name) + quantity);
+            liveSweep(java.lang.System.currentTimeMillis());
           }
         }
-
-        // See if there is a mission-based score list.
-        JSONArray scores = mission.getArray("score");
-        if(scores != null)
+        catch(Exception e)
         {
-          // Add to the score based on the accumulation of selections.
-          points += scores.getInteger(sel);
-          mission_points += scores.getInteger(sel);
+          System.out.println("Referee error: " + e);
         }
-
-        // Save the score of this mission to the rules variable set.
-        vars.set(mission_id, (double)mission_points);
       }
+    }
+  }
 
-      // Loop through the missions.
-      for(int i = 0; i < missions.size(); i++)
-      {
-        // Get the JSON object for this mission, and the mission ID from that.
-        JSONObject mission = missions.getObject(i);
-        String mission_id = mission.getString("mission");
-
-        // See if there are any constraints on this mission.
-        JSONArray constraints = mission.getArray("constraints");
-        if(constraints != null)
-        {
-          // Loop through the constraints.
-          for(int j = 0; j < constraints.size(); j++)
-          {
-            // Get this constraint.
-            JSONObject constraint = constraints.getObject(j);
-
-            // Get the rule for this constraint.
-            String rule = constraint.getString("rule");
+  /**
+   * Starts a live scoring session, discarding any sessions that have not been
+   * used recently.
+   *
+   * @param scoresheet The compiled scoresheet being used for scoring.
+   *
+   * @param live The state of the scoresheet.
+   *
+   * @return The token for the session.
+   */
+  private String
+  liveStart(Scoresheet scoresheet, Scoresheet.Live live)
+  {
+    long now = java.lang.System.currentTimeMillis();
 
-            // Evaluate this rule.
-            if(eval.evaluate(rule, vars) < 0)
-            {
-              // The rule failed, so get the description of the failure.
-              JSONObject desc = constraint.getObject("description");
-              String error = desc.getString(m_config.localeGet());
-              if(error == null)
-              {
-                error = desc.getString("en_US");
-              }
-
-              // Add this failure description to the result.
-              String res = result.getString("result");
-              if(res == null)
-              {
-                res = "";
-              }
-              result.set("result", res + mission_id + ":" + error + "\n");
-            }
-          }
-        }
+    // Create the session.
+    LiveSession session = new LiveSession();
+    session.m_scoresheet = scoresheet;
+    session.m_live = live;
+    session.m_lastUse = now;
 
-        // See if there is a scoring rule for this mission.
-        String rule = mission.getString("score_rule");
-        if(rule != null)
-        {
-          // Evaluate this rule and add the resulting points to the score.
-          points += eval.evaluate(rule, vars);
-        }
-      }
+    // Generate a token for the session.
+    String token = UUID.randomUUID().toString();
 
-      // Interate through the game pieces.
-      pieces_used.forEach((name, qty) ->
-        {
-          // See if more pieces were used than are available.
-          if(pieces_used.get(name) > pieces_qty.get(name))
-          {
-            // Too many pieces were used, so add this failure description to
-            // the result.
-            String res = result.getString("result");
-            if(res == null)
-            {
-              res = "";
-            }
+    synchronized(m_liveSessions)
+    {
+      // Discard the sessions that have not been used recently.
+      liveSweep(now);
 
-            // Get the name of this game piece.
-            String piece = pieces_desc.get(name);
+      // Add this session.
+      m_liveSessions.put(token, session);
+    }
 
-            // Get the too many pieces error message.
-            String message = m_webserver.getSSI("str_referee_too_many_pieces");
+    // Return the token for the session.
+    return(token);
+  }
 
-            // Substitue in the name of this game piece.
-            message = message.replace("${piece}", piece);
+  /**
+   * Scores a single change to a scoresheet that is being scored live.  Only
+   * the affected mission, the rules that depend on it, and the game pieces it
+   * uses are scored again.  The result contains the new score and all errors,
+   * as for a full scoring, plus the change in the score ("delta") and the
+   * errors that were caused by this change ("new").  If the session is not
+   * known (because it has expired, the server restarted, or the season
+   * changed), the result is "expired" and the client should score the full
+   * scoresheet again.
+   *
+   * @param result The JSON object into which the result is placed.
+   *
+   * @param token The token for the live scoring session.
+   *
+   * @param item The key of the changed selection, in "mission_item" form.
+   *
+   * @param selection The new selection.
+   */
+  private void
+  rescore(JSONObject result, String token, String item, int selection)
+  {
+    LiveSession session;
 
-            // Append this error message to the existing result.
-            result.set("result",
-                       res + pieces_mission.get(name) + ":" + message + "\n");
-          }
-        });
+    // Load the current season's scoresheet if necessary.
+    loadScoresheet();
 
-      // Add the score to the JSON response.
-      result.set("score", points);
+    // Discard the sessions that have not been used recently, and find this
+    // session.
+    synchronized(m_liveSessions)
+    {
+      liveSweep(java.lang.System.currentTimeMillis());
+      session = m_liveSessions.get(token);
+    }
 
-      // Add the core values score to the JSON response.
-      if(!sheet.isNull("CV_1"))
+    // Discard the session if it is not for the current scoresheet.
+    if((session != null) && (session.m_scoresheet != m_compiled))
+    {
+      synchronized(m_liveSessions)
       {
-        result.set("cv", sheet.getInteger("CV_1") + 1);
+        m_liveSessions.remove(token);
       }
-      if(!sheet.isNull("GP_1"))
+      session = null;
+    }
+
+    // Let the client know if the session does not exist.
+    if(session == null)
+    {
+      result.set("result", "expired");
+      return;
+    }
+
+    // Catch any exceptions and return an error.
+    try
+    {
+      // Score the change.
+      synchronized(session)
       {
-        result.set("cv", sheet.getInteger("GP_1") + 1);
+        session.m_live.update(item, selection, result, m_config.localeGet(),
+                              m_webserver.
+                                getSSI("str_referee_too_many_pieces"));
+        session.m_lastUse = java.lang.System.currentTimeMillis();
       }
 
       // Success.
@@ -681,9 +652,47 @@ public class Referee
    */
   private void
   publish(JSONObject result, int id, int match, String json)
+  {
+    // Start the flight recorder event for the publish, assigning it the
+    // publish ID that is carried by the events that it causes.
+    Flight.PublishEvent event = new Flight.PublishEvent();
+    event.begin();
+    event.publishId = m_flight.publishStart();
+    event.team = id;
+    event.match = match;
+
+    // Publish the scoresheet, then record the flight recorder event.
+    try
+    {
+      publishSheet(result, id, match, json, event.publishId);
+    }
+    finally
+    {
+      m_flight.publishEnd();
+      event.result = result.getString("result");
+      event.commit();
+    }
+  }
+
+  /**
+   * Scores and then saves a scoresheet that is being published.
+   *
+   * @param result The JSON object into which the result is placed.
+   *
+   * @param id The ID of the team.
+   *
+   * @param match The match.
+   *
+   * @param json The JSON representation of the scoresheet selections.
+   *
+   * @param publishId The ID of the publish, for the flight recorder events.
+   */
+  private void
+  publishSheet(JSONObject result, int id, int match, String json,
+               long publishId)
   {
     // Score the scoresheet.
-    score(result, json);
+    score(result, json, false);
     if(!result.getString("result").equals("ok"))
     {
       return;
@@ -713,6 +722,7 @@ public class Referee
       result.set("result", "ok");
 
       // There are changes that need to be sent to the active referees.
+      m_lastPublishId = publishId;
       m_lastUpdate = java.lang.System.currentTimeMillis();
     }
   }
@@ -760,7 +770,23 @@ public class Referee
       {
         // Score the scoresheet.
         score(result,
-              URLDecoder.decode(paramMap.get("json"), StandardCharsets.UTF_8));
+              URLDecoder.decode(paramMap.get("json"), StandardCharsets.UTF_8),
+              paramMap.containsKey("live"));
+        if(result.isSet("score") && (result.getInteger("score") < 0))
+        {
+          result.set("score", 0);
+        }
+      }
+
+      // See if the action is "rescore", for scoring a single change to a
+      // scoresheet that is being scored live.
+      else if(paramMap.get("action").equals("rescore") &&
+              paramMap.containsKey("live") && paramMap.containsKey("item") &&
+              paramMap.containsKey("value"))
+      {
+        // Score the change to the scoresheet.
+        rescore(result, paramMap.get("live"), paramMap.get("item"),
+                Integer.parseInt(paramMap.get("value")));
         if(result.isSet("score") && (result.getInteger("score") < 0))
         {
           result.set("score", 0);
@@ -828,6 +854,11 @@ public class Referee
      */
     private Session m_session;
 
+    /**
+     * The outbound message queue for this WebSocket.
+     */
+    private SocketQueue m_queue;
+
     /**
      * The time, in milliseconds, at which the update was sent to the
      * WebSocket.
@@ -843,11 +874,12 @@ public class Referee
     public void
     onOpen(Session session)
     {
-      // Save the session.
+      // Save the session and create the outbound message queue for it.
       m_session = session;
+      m_queue = new SocketQueue("referee", session);
 
       // Start the thread that handles sending updates via the WebSocket.
-      new Thread(this).start();
+      new Thread(this, "Referee socket").start();
     }
 
     /**
@@ -861,6 +893,9 @@ public class Referee
     public void
     onClose(int closeCode, String closeReasonPhrase)
     {
+      // Discard any messages that have not been sent.
+      m_queue.close();
+
       // Clear the stored session, which causes the background thread to exit.
       m_session = null;
     }
@@ -884,6 +919,11 @@ public class Referee
           // Capture the time of the update that is being performed.
           now = m_instance.m_lastUpdate;
 
+          // Start the flight recorder event for sending the update.
+          Flight.FanOutEvent event = new Flight.FanOutEvent();
+          event.begin();
+          event.publishId = m_instance.m_lastPublishId;
+
           // Arrays to hold the score data from the database.
           ArrayList<Integer> teamNumber = new ArrayList<Integer>();
           ArrayList<String> match0Sheet = new ArrayList<String>();
@@ -928,9 +968,8 @@ public class Referee
             }
 
             // Send this team's first round state to the client.
-            m_session.sendText("m0:" + teamNumber.get(idx) + ":" + state +
-                               ":" + ((score == null) ? "" : score),
-                               Callback.NOOP);
+            m_queue.send("m0:" + teamNumber.get(idx) + ":" + state +
+                         ":" + ((score == null) ? "" : score));
 
             // Determine the state of this team's first round.
             score = match1Score.get(idx);
@@ -948,9 +987,8 @@ public class Referee
             }
 
             // Send this team's first round state to the client.
-            m_session.sendText("m1:" + teamNumber.get(idx) + ":" + state +
-                               ":" + ((score == null) ? "" : score),
-                               Callback.NOOP);
+            m_queue.send("m1:" + teamNumber.get(idx) + ":" + state +
+                         ":" + ((score == null) ? "" : score));
 
             // Determine the state of this team's second round.
             score = match2Score.get(idx);
@@ -968,9 +1006,8 @@ public class Referee
             }
 
             // Send this team's second round state to the client.
-            m_session.sendText("m2:" + teamNumber.get(idx) + ":" + state +
-                               ":" + ((score == null) ? "" : score),
-                               Callback.NOOP);
+            m_queue.send("m2:" + teamNumber.get(idx) + ":" + state +
+                         ":" + ((score == null) ? "" : score));
 
             // Determine the state of this team's third round.
             score = match3Score.get(idx);
@@ -988,9 +1025,8 @@ public class Referee
             }
 
             // Send this team's third round state to the client.
-            m_session.sendText("m3:" + teamNumber.get(idx) + ":" + state +
-                               ":" + ((score == null) ? "" : score),
-                               Callback.NOOP);
+            m_queue.send("m3:" + teamNumber.get(idx) + ":" + state +
+                         ":" + ((score == null) ? "" : score));
 
             // Determine the state of this team's fourth round.
             score = match4Score.get(idx);
@@ -1008,11 +1044,16 @@ public class Referee
             }
 
             // Send this team's fourth round state to the client.
-            m_session.sendText("m4:" + teamNumber.get(idx) + ":" + state +
-                               ":" + ((score == null) ? "" : score),
-                               Callback.NOOP);
+            m_queue.send("m4:" + teamNumber.get(idx) + ":" + state +
+                         ":" + ((score == null) ? "" : score));
           }
 
+          // Record the flight recorder event.
+          event.channel = "referee";
+          event.clients = 1;
+          event.messages = teamNumber.size() * 5;
+          event.commit();
+
           // Set the last send time to the update time.  It is possible that
           // another update came in during the time it took to send this
           // update, but it will get sent out the next time through the loop.
@@ -1022,7 +1063,7 @@ public class Referee
         {
           // Send a NOP via the WebSocket (to keep it from timing out and
           // closing).
-          m_session.sendText("nop", Callback.NOOP);
+          m_queue.send("nop");
 
           // Increment the last send time by a second.  This effectively
           // precludes the possibility of a missed update.
@@ -1057,6 +1098,31 @@ public class Referee
     }
   }
 
+  /**
+   * Gets the time of the last score update.
+   *
+   * @return The time, in milliseconds, of the last score update.
+   */
+  public long
+  lastUpdateGet()
+  {
+    // Return the time of the last score update.
+    return(m_lastUpdate);
+  }
+
+  /**
+   * Gets the ID of the publish that caused the last score update.
+   *
+   * @return The ID of the publish, or zero if the last update was not caused
+   *         by a publish.
+   */
+  public long
+  lastPublishIdGet()
+  {
+    // Return the ID of the publish.
+    return(m_lastPublishId);
+  }
+
   /**
    * Requests an update of the referee displays.
    */
@@ -1065,6 +1131,7 @@ public class Referee
   {
     // Set the last update time to now, forcing an update to be sent to all
     // connected clients.
+    m_lastPublishId = 0;
     m_lastUpdate = java.lang.System.currentTimeMillis();
   }
 
@@ -1074,13 +1141,14 @@ public class Referee
   public void
   setup()
   {
-    // Get references to the web server, database, config, season, and event
-    // objects.
+    // Get references to the web server, database, config, season, event, and
+    // flight objects.
     m_webserver = WebServer.getInstance();
     m_database = Database.getInstance();
     m_config = Config.getInstance();
     m_season = Seasons.getInstance();
     m_event = Events.getInstance();
+    m_flight = Flight.getInstance();
 
     // Register the dynamic handler for the referee.json file.
     m_webserver.registerDynamicFile("/referee/referee.json",
@@ -1089,5 +1157,10 @@ public class Referee
     // Register the WebSocket that supports the referee page.
     m_webserver.addWebSocket("/referee/referee.ws", new RefereeSocketCreator(),
                              5000);
+
+    // Start the thread that discards the unused live scoring sessions.
+    Thread thread = new Thread(new LiveSweeper(), "Referee live sweeper");
+    thread.setDaemon(true);
+    thread.start();
   }
 }
\ No newline at end of file
@@ -0,0 +1,592 @@
+// Copyright (c) 2024 Brian Kircher
+//
+// Open Source Software; you can modify and/or share it under the terms of BSD
+// license file in the root directory of this project.
+
+package FLLScorer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+import org.bspfsystems.simplejson.JSONArray;
+import org.bspfsystems.simplejson.JSONObject;
+import org.bspfsystems.simplejson.SimpleJSONArray;
+import org.bspfsystems.simplejson.SimpleJSONObject;
+import org.bspfsystems.simplejson.parser.JSONParser;
+
+/**
+ * Handles re-scoring all the published scoresheets of the current season or
+ * event, such as after the season's scoresheet has been corrected.
+ * <p>
+ * The re-score runs in the background.  The stored scoresheets are read from
+ * the database a block at a time, each block is scored in parallel, and the
+ * scores that changed are written back in a single transaction per block.  The
+ * progress, and the scores that changed, can be polled while it runs.
+ * <p>
+ * This is a singleton that is acquired via the getInstance() method.
+ */
+public class Rescore implements Runnable
+{
+  /**
+   * The number of score rows (each of which holds up to five scoresheets)
+   * that are read, scored, and written at a time.
+   */
+  private static final int BLOCK = 500;
+
+  /**
+   * The maximum number of changed scores that are reported in detail.
+   */
+  private static final int MAX_DIFFS = 1000;
+
+  /**
+   * The object for the Rescore singleton.
+   */
+  private static Rescore m_instance = null;
+
+  /**
+   * The Webserver object.
+   */
+  private WebServer m_webserver = null;
+
+  /**
+   * The Database object.
+   */
+  private Database m_database = null;
+
+  /**
+   * The Seasons object.
+   */
+  private Seasons m_season = null;
+
+  /**
+   * The Events object.
+   */
+  private Events m_event = null;
+
+  /**
+   * The Referee object.
+   */
+  private Referee m_referee = null;
+
+  /**
+   * Indicates if a re-score is running.
+   */
+  private boolean m_running = false;
+
+  /**
+   * The ID of the season being re-scored.
+   */
+  private int m_seasonId = -1;
+
+  /**
+   * The ID of the event being re-scored, or <b>-1</b> to re-score the entire
+   * season.
+   */
+  private int m_eventId = -1;
+
+  /**
+   * Indicates if the changed scores should be written to the database (as
+   * opposed to only being reported).
+   */
+  private boolean m_apply = true;
+
+  /**
+   * The number of scoresheets to be re-scored.
+   */
+  private int m_total = 0;
+
+  /**
+   * The number of scoresheets that have been re-scored.
+   */
+  private int m_sheets = 0;
+
+  /**
+   * The number of scores that changed.
+   */
+  private int m_changed = 0;
+
+  /**
+   * The number of scoresheets that could not be scored (because they are
+   * incomplete or no longer pass the scoresheet's constraints); their scores
+   * are left unchanged.
+   */
+  private int m_invalid = 0;
+
+  /**
+   * The number of changed scores that were written to the database.
+   */
+  private int m_written = 0;
+
+  /**
+   * The error that stopped the re-score, or <b>null</b> if there was none.
+   */
+  private String m_error = null;
+
+  /**
+   * The time, in milliseconds, at which the re-score started.
+   */
+  private long m_start = 0;
+
+  /**
+   * The time, in milliseconds, at which the re-score finished, or <b>0</b> if
+   * it is still running.
+   */
+  private long m_end = 0;
+
+  /**
+   * The details of the scores that changed (up to MAX_DIFFS of them).
+   */
+  private JSONArray m_diffs = new SimpleJSONArray();
+
+  /**
+   * Gets the Rescore singleton object, creating it if necessary.
+   *
+   * @return Returns the Rescore singleton.
+   */
+  public static Rescore
+  getInstance()
+  {
+    // Create the Rescore object if required.
+    if(m_instance == null)
+    {
+      m_instance = new Rescore();
+    }
+
+    // Return the Rescore object.
+    return(m_instance);
+  }
+
+  /**
+   * The constructor.  This is private so that the object can only be created
+   * via the getIntance() method.
+   */
+  private
+  Rescore()
+  {
+  }
+
+  /**
+   * Scores a single stored scoresheet.
+   *
+   * @param scoresheet The JSON scoresheet.
+   *
+   * @param compiled The compiled scoresheet, or <b>null</b> if the JSON
+   *                 scoresheet must be interpreted.
+   *
+   * @param json The stored scoresheet selections.
+   *
+   * @return The score, or <b>null</b> if the scoresheet could not be scored.
+   */
+  private static Float
+  scoreSheet(JSONObject scoresheet, Scoresheet compiled, String json)
+  {
+    JSONObject result = new SimpleJSONObject();
+
+    // Catch any exceptions, which mean that the scoresheet can not be scored.
+    try
+    {
+      // Score the scoresheet.
+      JSONObject sheet = JSONParser.deserializeObject(json);
+      if(compiled != null)
+      {
+        compiled.score(result, sheet, "en_US", "");
+      }
+      else
+      {
+        Scoresheet.interpret(scoresheet, result, sheet, "en_US", "");
+      }
+    }
+    catch(Exception e)
+    {
+      return(null);
+    }
+
+    // A scoresheet with errors can not be published, so it has no score.
+    if(result.getString("result") != null)
+    {
+      return(null);
+    }
+
+    // Return the score.
+    return(result.getFloat("score"));
+  }
+
+  /**
+   * Scores a block of stored scoresheets in parallel.  The block is split into
+   * one slice per thread in the pool, and each slice is scored as a single
+   * task.
+   *
+   * @param scoresheet The JSON scoresheet.
+   *
+   * @param compiled The compiled scoresheet, or <b>null</b> if the JSON
+   *                 scoresheet must be interpreted.
+   *
+   * @param sheets The stored scoresheet selections.
+   *
+   * @param pool The fork-join pool in which to score the scoresheets.
+   *
+   * @return The score of each scoresheet, or <b>null</b> for each one that
+   *         could not be scored.
+   */
+  static Float[]
+  scoreBlock(JSONObject scoresheet, Scoresheet compiled,
+             ArrayList<String> sheets, ForkJoinPool pool)
+  {
+    Float[] scores = new Float[sheets.size()];
+    ArrayList<ForkJoinTask<?>> tasks = new ArrayList<ForkJoinTask<?>>();
+
+    // Split the block into slices, and submit a task for each one.
+    int slice = Math.max(1, (sheets.size() + pool.getParallelism() - 1) /
+                            pool.getParallelism());
+    for(int start = 0; start < sheets.size(); start += slice)
+    {
+      int first = start;
+      int last = Math.min(start + slice, sheets.size());
+      tasks.add(pool.submit(() ->
+        {
+          // Score each scoresheet in this slice.
+          for(int idx = first; idx < last; idx++)
+          {
+            scores[idx] = scoreSheet(scoresheet, compiled, sheets.get(idx));
+          }
+        }));
+    }
+
+    // Wait for all of the tasks to complete.
+    for(ForkJoinTask<?> task : tasks)
+    {
+      task.join();
+    }
+
+    // Return the scores.
+    return(scores);
+  }
+
+  /**
+   * Records the details of a score that changed, if there are not already too
+   * many.
+   *
+   * @param events The names of the events, indexed by ID, which is filled in
+   *               as needed.
+   *
+   * @param event_id The ID of the event.
+   *
+   * @param team_id The ID of the team.
+   *
+   * @param match The match.
+   *
+   * @param before The stored score.
+   *
+   * @param after The new score, or <b>null</b> if the scoresheet could not be
+   *              scored.
+   */
+  private void
+  diffAdd(HashMap<Integer, String> events, int event_id, int team_id,
+          int match, Float before, Float after)
+  {
+    // Do nothing if there are already too many changes recorded.
+    synchronized(this)
+    {
+      if(m_diffs.size() >= MAX_DIFFS)
+      {
+        return;
+      }
+    }
+
+    // Get the name of the event, if it has not already been found.
+    if(!events.containsKey(event_id))
+    {
+      events.put(event_id, m_database.eventGetName(event_id));
+    }
+
+    // Create the details of this change.
+    JSONObject diff = new SimpleJSONObject();
+    diff.set("event", events.get(event_id));
+    diff.set("number", m_database.teamNumberGet(m_seasonId, team_id));
+    diff.set("match", match);
+    diff.set("before", before);
+    if(after != null)
+    {
+      diff.set("after", after);
+    }
+
+    // Add the details to the list.
+    synchronized(this)
+    {
+      m_diffs.addEntry(diff);
+    }
+  }
+
+  /**
+   * The code that runs in the re-score thread.
+   */
+  @Override
+  public void
+  run()
+  {
+    HashMap<Integer, String> events = new HashMap<Integer, String>();
+
+    // Reload the scoresheet, so that any correction to it is used (both here
+    // and by the referees from now on).
+    JSONObject scoresheet = m_referee.scoresheetReload();
+    if(scoresheet == null)
+    {
+      synchronized(this)
+      {
+        m_error = m_webserver.getSSI("str_scores_rescore_no_sheet");
+        m_end = java.lang.System.currentTimeMillis();
+        m_running = false;
+      }
+      return;
+    }
+
+    // Compile the scoresheet, interpreting it if it can not be compiled.
+    Scoresheet compiled = null;
+    try
+    {
+      compiled = new Scoresheet(scoresheet);
+    }
+    catch(Exception e)
+    {
+      System.out.println("Scoresheet compile error: " + e);
+    }
+
+    // Loop through the blocks of scoresheets.
+    int after = 0;
+    while(true)
+    {
+      ArrayList<Integer> ids = new ArrayList<Integer>();
+      ArrayList<Integer> eventIds = new ArrayList<Integer>();
+      ArrayList<Integer> teamIds = new ArrayList<Integer>();
+      ArrayList<Integer> matches = new ArrayList<Integer>();
+      ArrayList<Float> stored = new ArrayList<Float>();
+      ArrayList<String> sheets = new ArrayList<String>();
+
+      // Read the next block of scoresheets, stopping when there are no more.
+      after = m_database.scoreSheetEnumerate(m_seasonId, m_eventId, after,
+                                             BLOCK, ids, eventIds, teamIds,
+                                             matches, stored, sheets);
+      if(after == -1)
+      {
+        break;
+      }
+
+      // Score the block.
+      Float[] scores = scoreBlock(scoresheet, compiled, sheets,
+                                  ForkJoinPool.commonPool());
+
+      // The scores that changed.
+      ArrayList<Integer> changedIds = new ArrayList<Integer>();
+      ArrayList<Integer> changedEvents = new ArrayList<Integer>();
+      ArrayList<Integer> changedTeams = new ArrayList<Integer>();
+      ArrayList<Integer> changedMatches = new ArrayList<Integer>();
+      ArrayList<Float> changedScores = new ArrayList<Float>();
+      int invalid = 0;
+
+      // Loop through the scoresheets in this block.
+      for(int idx = 0; idx < sheets.size(); idx++)
+      {
+        // Record, but do not change, the scoresheets that can not be scored.
+        if(scores[idx] == null)
+        {
+          invalid++;
+          diffAdd(events, eventIds.get(idx), teamIds.get(idx),
+                  matches.get(idx), stored.get(idx), null);
+        }
+
+        // Record the scores that changed.
+        else if(Float.compare(scores[idx], stored.get(idx)) != 0)
+        {
+          changedIds.add(ids.get(idx));
+          changedEvents.add(eventIds.get(idx));
+          changedTeams.add(teamIds.get(idx));
+          changedMatches.add(matches.get(idx));
+          changedScores.add(scores[idx]);
+          diffAdd(events, eventIds.get(idx), teamIds.get(idx),
+                  matches.get(idx), stored.get(idx), scores[idx]);
+        }
+      }
+
+      // Write the changed scores to the database.
+      boolean written = true;
+      if(m_apply && (changedIds.size() != 0))
+      {
+        written = m_database.scoreMatchUpdate(m_seasonId, changedIds,
+                                              changedEvents, changedTeams,
+                                              changedMatches, changedScores);
+      }
+
+      // Update the progress.
+      synchronized(this)
+      {
+        m_sheets += sheets.size();
+        m_changed += changedIds.size();
+        m_invalid += invalid;
+        if(m_apply && written)
+        {
+          m_written += changedIds.size();
+        }
+        if(!written)
+        {
+          m_error = m_webserver.getSSI("str_scores_rescore_write_error");
+        }
+      }
+
+      // Stop if the scores could not be written.
+      if(!written)
+      {
+        break;
+      }
+    }
+
+    // Send the new scores to the referees.
+    if(m_written != 0)
+    {
+      m_referee.refresh();
+    }
+
+    // The re-score is complete.
+    synchronized(this)
+    {
+      m_end = java.lang.System.currentTimeMillis();
+      m_running = false;
+    }
+  }
+
+  /**
+   * Starts a re-score, if one is not already running.
+   *
+   * @param result The JSON object that is used to communicate the result back
+   *               to the client.
+   *
+   * @param season <b>true</b> to re-score the entire season, or <b>false</b>
+   *               to re-score the current event.
+   *
+   * @param apply <b>true</b> to write the changed scores to the database, or
+   *              <b>false</b> to only report them.
+   */
+  private synchronized void
+  start(JSONObject result, boolean season, boolean apply)
+  {
+    // Do not start a re-score if one is already running.
+    if(m_running)
+    {
+      result.set("result", m_webserver.getSSI("str_scores_rescore_busy"));
+      return;
+    }
+
+    // Reset the state of the re-score.
+    m_seasonId = m_season.seasonIdGet();
+    m_eventId = season ? -1 : m_event.eventIdGet();
+    m_apply = apply;
+    m_total = m_database.scoreSheetCount(m_seasonId, m_eventId);
+    m_sheets = 0;
+    m_changed = 0;
+    m_invalid = 0;
+    m_written = 0;
+    m_error = null;
+    m_start = java.lang.System.currentTimeMillis();
+    m_end = 0;
+    m_diffs = new SimpleJSONArray();
+    m_running = true;
+
+    // Start the thread that performs the re-score.
+    new Thread(this, "Rescore").start();
+
+    // Success.
+    result.set("result", "ok");
+  }
+
+  /**
+   * Reports the progress of the current (or last) re-score.
+   *
+   * @param result The JSON object into which the progress is placed.
+   */
+  private synchronized void
+  status(JSONObject result)
+  {
+    // Add the progress to the result.
+    result.set("running", m_running);
+    result.set("total", m_total);
+    result.set("sheets", m_sheets);
+    result.set("changed", m_changed);
+    result.set("invalid", m_invalid);
+    result.set("written", m_written);
+    result.set("elapsed", ((m_end == 0) ?
+                           java.lang.System.currentTimeMillis() : m_end) -
+                          m_start);
+
+    // Add a copy of the details of the scores that changed (since the
+    // re-score may still be adding to them).
+    JSONArray diffs = new SimpleJSONArray();
+    for(int idx = 0; idx < m_diffs.size(); idx++)
+    {
+      diffs.addEntry(m_diffs.getObject(idx));
+    }
+    result.set("diffs", diffs);
+
+    // Report the error that stopped the re-score, if there was one.
+    result.set("result", (m_error == null) ? "ok" : m_error);
+  }
+
+  /**
+   * Handles requests for /admin/scores/rescore.json.
+   *
+   * @param path The path from the request.
+   *
+   * @param paramMap The parameters from the request.
+   *
+   * @return An array of bytes to return to the client.
+   */
+  private byte[]
+  serveRescoreJSON(String path, HashMap<String, String> paramMap)
+  {
+    JSONObject result = new SimpleJSONObject();
+
+    // See if the action is "start", for starting a re-score.
+    if(paramMap.containsKey("action") && paramMap.get("action").equals("start"))
+    {
+      start(result, "season".equals(paramMap.get("scope")),
+            !"0".equals(paramMap.get("apply")));
+    }
+
+    // Otherwise, report the progress of the re-score.
+    else
+    {
+      status(result);
+    }
+
+    // Convert the response into a byte array and return it.
+    try
+    {
+      String json = JSONParser.serialize(result);
+      return(json.getBytes(StandardCharsets.UTF_8));
+    }
+    catch(Exception e)
+    {
+      return("{}".getBytes(StandardCharsets.UTF_8));
+    }
+  }
+
+  /**
+   * Performs initial setup for the re-score handler.
+   */
+  public void
+  setup()
+  {
+    // Get references to the web server, database, seasons, events, and referee
+    // objects.
+    m_webserver = WebServer.getInstance();
+    m_database = Database.getInstance();
+    m_season = Seasons.getInstance();
+    m_event = Events.getInstance();
+    m_referee = Referee.getInstance();
+
+    // Register the dynamic handler for the rescore.json file.
+    m_webserver.registerDynamicFile("/admin/scores/rescore.json",
+                                    this::serveRescoreJSON);
+  }
+}
@@ -5,6 +5,7 @@
 
 package FLLScorer;
 
+import java.io.File;
 import java.io.FileInputStream;
 import java.io.InputStream;
 
@@ -27,18 +28,27 @@ public class ResourceStream
   public static InputStream
   getResourceStream(String path)
   {
-    InputStream in;
+    InputStream in = null;
 
-    // A try/catch to handle exceptions.
-    try
+    // Open the given path as a file if it exists.  This is checked first,
+    // since most paths are not overridden and a failed open is expensive.
+    if(new File(path).isFile())
     {
-      // Open the given path as a file.
-      in = new FileInputStream(path);
+      // A try/catch to handle exceptions.
+      try
+      {
+        // Open the given path as a file.
+        in = new FileInputStream(path);
+      }
+      catch(Exception e)
+      {
+      }
     }
-    catch(Exception e)
+
+    // If the file could not be opened, read it from the JAR file instead.
+    if(in == null)
     {
-      // The path does not exist, so get the class loader so that resources can
-      // be read.
+      // Get the class loader so that resources can be read.
       ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
 
       // Create an input stream for the given resource.
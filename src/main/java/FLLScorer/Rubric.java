@@ -0,0 +1,375 @@
+// Copyright (c) 2024 Brian Kircher
+//
+// Open Source Software; you can modify and/or share it under the terms of BSD
+// license file in the root directory of this project.
+
+package FLLScorer;
+
+import java.util.ArrayList;
+
+import org.bspfsystems.simplejson.JSONArray;
+import org.bspfsystems.simplejson.JSONObject;
+
+/**
+ * A judging rubric that has been compiled for totaling.
+ * <p>
+ * The JSON rubric for a season is walked once, when it is loaded, and turned
+ * into flat arrays with one entry per rubric item, in the order that the items
+ * appear in the rubric.  The items of each area are contiguous, so the offset
+ * of the first item of each area is computed in advance, along with the key
+ * of each item in a team's rubric, the number of levels that can be selected
+ * for it, and the area totals that it counts towards.  Totaling a team's
+ * rubric is then a single pass over these arrays.  The original walk of the
+ * JSON rubric is retained as interpret(), and is used for any rubric that can
+ * not be compiled.
+ */
+public class Rubric
+{
+  /**
+   * The index of the Innovation Project total.
+   */
+  public static final int PROJECT = 0;
+
+  /**
+   * The index of the Robot Design total.
+   */
+  public static final int ROBOT_DESIGN = 1;
+
+  /**
+   * The index of the Core Values total.
+   */
+  public static final int CORE_VALUES = 2;
+
+  /**
+   * The number of area totals.
+   */
+  public static final int TOTALS = 3;
+
+  /**
+   * The offset of the first item of each area, followed by the number of
+   * items in the rubric.
+   */
+  private int[] m_offsets;
+
+  /**
+   * The total that each area counts towards, or <b>-1</b> if it does not
+   * count towards any total.
+   */
+  private int[] m_totals;
+
+  /**
+   * The key of each item in a team's rubric.
+   */
+  private String[] m_keys;
+
+  /**
+   * The number of levels that can be selected for each item.
+   */
+  private int[] m_levels;
+
+  /**
+   * Whether each item also counts towards the Core Values total.
+   */
+  private boolean[] m_coreValues;
+
+  /**
+   * Gets the total that an area of a given type counts towards.
+   *
+   * @param type The type of the area.
+   *
+   * @return The index of the total, or <b>-1</b> if the area does not count
+   *         towards any total.
+   */
+  private static int
+  total(String type)
+  {
+    // Return the total that matches this type.
+    if(type.equals("project"))
+    {
+      return(PROJECT);
+    }
+    if(type.equals("robot_design"))
+    {
+      return(ROBOT_DESIGN);
+    }
+    if(type.equals("core_values"))
+    {
+      return(CORE_VALUES);
+    }
+
+    // This area does not count towards any total.
+    return(-1);
+  }
+
+  /**
+   * Compiles a JSON rubric.
+   *
+   * @param rubric The JSON rubric.
+   *
+   * @throws IllegalArgumentException If the rubric is malformed.
+   */
+  public
+  Rubric(JSONObject rubric)
+  {
+    ArrayList<String> keys = new ArrayList<String>();
+    ArrayList<Integer> levels = new ArrayList<Integer>();
+    ArrayList<Boolean> coreValues = new ArrayList<Boolean>();
+
+    // Get the areas from the rubric.
+    JSONArray areas = rubric.getArray("areas");
+    if(areas == null)
+    {
+      throw(new IllegalArgumentException("The rubric has no areas"));
+    }
+    m_offsets = new int[areas.size() + 1];
+    m_totals = new int[areas.size()];
+
+    // Loop through the areas.
+    for(int i = 0; i < areas.size(); i++)
+    {
+      // Get the JSON object for this area, and the total that it counts
+      // towards.
+      JSONObject area = areas.getObject(i);
+      m_offsets[i] = keys.size();
+      m_totals[i] = total(area.getString("type"));
+
+      // Loop through the sections in this area.
+      JSONArray sections = area.getArray("sections");
+      for(int j = 0; j < sections.size(); j++)
+      {
+        // Loop through the items in this section.
+        JSONArray items = sections.getObject(j).getArray("items");
+        for(int k = 0; k < items.size(); k++)
+        {
+          // Get the JSON object for this item.
+          JSONObject item = items.getObject(k);
+
+          // Count the levels of this item, which are numbered from one.
+          int count = 0;
+          while(item.getObject(Integer.toString(count + 1)) != null)
+          {
+            count++;
+          }
+          if(count == 0)
+          {
+            throw(new IllegalArgumentException("Rubric item R" + i + "_" + j +
+                                               "_" + k + " has no levels"));
+          }
+
+          // Add this item to the lists.
+          keys.add("R" + i + "_" + j + "_" + k);
+          levels.add(count);
+          coreValues.add(((m_totals[i] == PROJECT) ||
+                          (m_totals[i] == ROBOT_DESIGN)) &&
+                         item.isBoolean("isCoreValues") &&
+                         item.getBoolean("isCoreValues"));
+        }
+      }
+    }
+    m_offsets[areas.size()] = keys.size();
+
+    // Convert the lists into arrays.
+    m_keys = keys.toArray(new String[keys.size()]);
+    m_levels = new int[keys.size()];
+    m_coreValues = new boolean[keys.size()];
+    for(int i = 0; i < keys.size(); i++)
+    {
+      m_levels[i] = levels.get(i);
+      m_coreValues[i] = coreValues.get(i);
+    }
+  }
+
+  /**
+   * Totals the areas of a team's rubric.  A selection that is outside the
+   * levels of its item is treated the same as a missing selection.
+   *
+   * @param scores The team's rubric selections.
+   *
+   * @param totals The array into which the area totals are placed, indexed by
+   *               PROJECT, ROBOT_DESIGN, and CORE_VALUES.  A total is
+   *               <b>-1</b> if none of the team's selections count towards
+   *               it.
+   *
+   * @return <b>true</b> if every item in the rubric has a selection.
+   */
+  public boolean
+  total(JSONObject scores, int[] totals)
+  {
+    int[] sums = new int[TOTALS];
+    int[] selected = new int[TOTALS];
+    boolean complete = true;
+
+    // Loop through the areas.
+    for(int i = 0; i < m_totals.length; i++)
+    {
+      int total = m_totals[i];
+
+      // Loop through the items in this area.
+      for(int idx = m_offsets[i]; idx < m_offsets[i + 1]; idx++)
+      {
+        // The rubric is not complete if this item does not have a valid
+        // selection.
+        if(!scores.isInteger(m_keys[idx]))
+        {
+          complete = false;
+          continue;
+        }
+        int score = scores.getInteger(m_keys[idx]) + 1;
+        if((score < 1) || (score > m_levels[idx]))
+        {
+          complete = false;
+          continue;
+        }
+
+        // Add the team's score on this item to the area total, and to the
+        // Core Values total if it also counts towards Core Values.
+        if(total != -1)
+        {
+          sums[total] += score;
+          selected[total]++;
+        }
+        if(m_coreValues[idx])
+        {
+          sums[CORE_VALUES] += score;
+          selected[CORE_VALUES]++;
+        }
+      }
+    }
+
+    // Provide the totals that have selections.
+    for(int i = 0; i < TOTALS; i++)
+    {
+      totals[i] = (selected[i] == 0) ? -1 : sums[i];
+    }
+
+    // Return whether the rubric is complete.
+    return(complete);
+  }
+
+  /**
+   * Totals the areas of a team's rubric by walking the JSON rubric.  This is
+   * used when the rubric can not be compiled, and as the reference that the
+   * compiled rubric is compared against.  A selection that is outside the
+   * levels of its item is treated the same as a missing selection.
+   *
+   * @param rubric The JSON rubric.
+   *
+   * @param scores The team's rubric selections.
+   *
+   * @param totals The array into which the area totals are placed, indexed by
+   *               PROJECT, ROBOT_DESIGN, and CORE_VALUES; each total must be
+   *               <b>-1</b> on entry, and remains <b>-1</b> if none of the
+   *               team's selections count towards it.
+   *
+   * @return <b>true</b> if every item in the rubric has a selection.
+   */
+  public static boolean
+  interpret(JSONObject rubric, JSONObject scores, int[] totals)
+  {
+    // Assume the rubric is complete until a missing entry is found.
+    boolean complete = true;
+
+    // Get the areas from the rubric.
+    JSONArray areas = rubric.getArray("areas");
+
+    // Loop through the areas.
+    for(int i = 0; i < areas.size(); i++)
+    {
+      // Get the JSON object for this area.
+      JSONObject area = areas.getObject(i);
+
+      // Get the type of this area.
+      String type = area.getString("type");
+
+      // Get the sections in this area.
+      JSONArray sections = area.getArray("sections");
+
+      // Loop through the sections.
+      for(int j = 0; j < sections.size(); j++)
+      {
+        // Get the JSON object for this section.
+        JSONObject section = sections.getObject(j);
+
+        // Get the items in this section.
+        JSONArray items = section.getArray("items");
+
+        // Loop through the items.
+        for(int k = 0; k < items.size(); k++)
+        {
+          // Get the JSON object for this item.
+          JSONObject item = items.getObject(k);
+
+          // Determine if this is an individual item that also counts towards
+          // Core Values.
+          boolean isCoreValues = (item.isBoolean("isCoreValues") &&
+                                  item.getBoolean("isCoreValues"));
+
+          // Get the team's score for this item, treating a selection that is
+          // not one of the item's levels the same as a missing selection.
+          int score = 0;
+          if(scores.isInteger("R" + i + "_" + j + "_" + k))
+          {
+            score = scores.getInteger("R" + i + "_" + j + "_" + k) + 1;
+            if((score < 1) ||
+               (item.getObject(Integer.toString(score)) == null))
+            {
+              score = 0;
+            }
+          }
+
+          // See if this item has a valid value in the team's rubric.
+          if(score != 0)
+          {
+            // See if this area is Project.
+            if(type.equals("project"))
+            {
+              // Add the team's score on this item to the Project score.
+              totals[PROJECT] = ((totals[PROJECT] == -1) ? score :
+                                 (totals[PROJECT] + score));
+
+              // If this item is a Core Values item, also add the team's
+              // score on this item to the Core Values score.
+              if(isCoreValues)
+              {
+                totals[CORE_VALUES] = ((totals[CORE_VALUES] == -1) ? score :
+                                       (totals[CORE_VALUES] + score));
+              }
+            }
+
+            // See if this area is Robot Design.
+            if(type.equals("robot_design"))
+            {
+              // Add the team's score on this item to the Robot Design score.
+              totals[ROBOT_DESIGN] = ((totals[ROBOT_DESIGN] == -1) ? score :
+                                      (totals[ROBOT_DESIGN] + score));
+
+              // If this item is a Core Values item, also add the team's
+              // score on this item to the Core Values score.
+              if(isCoreValues)
+              {
+                totals[CORE_VALUES] = ((totals[CORE_VALUES] == -1) ? score :
+                                       (totals[CORE_VALUES] + score));
+              }
+            }
+
+            // See if this area is Core Values.
+            if(type.equals("core_values"))
+            {
+              // Add the team's score on this item to the Core Values score.
+              totals[CORE_VALUES] = ((totals[CORE_VALUES] == -1) ? score :
+                                     (totals[CORE_VALUES] + score));
+            }
+          }
+          else
+          {
+            // The rubric is not complete.
+            complete = false;
+          }
+        }
+      }
+    }
+
+    // Return whether the rubric is complete.
+    return(complete);
+  }
+}
@@ -197,89 +197,25 @@ public class Rubrics
     int season_id = m_season.seasonIdGet();
     int event_id = m_event.eventIdGet();
 
-    // A list of information about teams, maintained in team number order.
-    ArrayList<Integer> ids = new ArrayList<Integer>();
-    ArrayList<Integer> numbers = new ArrayList<Integer>();
-    ArrayList<String> names = new ArrayList<String>();
-    ArrayList<Integer> project = new ArrayList<Integer>();
-    ArrayList<Integer> robot = new ArrayList<Integer>();
-    ArrayList<Integer> core = new ArrayList<Integer>();
-    ArrayList<Boolean> haveRubric = new ArrayList<Boolean>();
-
-    // Enumerate the teams from the database for this season.
-    m_database.teamEnumerate(season_id, event_id, ids, numbers, names, null);
-
-    // Set the score indicator for each team to no score available.
-    for(int idx = 0; idx < numbers.size(); idx++)
-    {
-      project.add(idx, -1);
-      robot.add(idx, -1);
-      core.add(idx, -1);
-      haveRubric.add(idx, false);
-    };
-
-    // A list of information about the rubrics.
-    ArrayList<Integer> teams = new ArrayList<Integer>();
-    ArrayList<Integer> ip = new ArrayList<Integer>();
-    ArrayList<Integer> rd = new ArrayList<Integer>();
-    ArrayList<Integer> cv = new ArrayList<Integer>();
-    ArrayList<String> rb = new ArrayList<String>();
-
-    // Enumerate the rubrics for this event.
-    m_database.judgingEnumerate(season_id, event_id, null, null, null, teams,
-                                ip, rd, cv, rb);
-
-    // Loop through all the rubrics.
-    for(int idx = 0; idx < teams.size(); idx++)
-    {
-      // Ignore this rubric if it is not for a team at this event (should not
-      // happen).
-      int team_idx = ids.indexOf(teams.get(idx));
-      if(team_idx == -1)
-      {
-        continue;
-      }
-
-      // Save the Innovation Project score, if it exists.
-      if(ip.get(idx) != null)
-      {
-        project.set(team_idx, ip.get(idx));
-      }
-
-      // Save the Robot Design score, if it exists.
-      if(rd.get(idx) != null)
-      {
-        robot.set(team_idx, rd.get(idx));
-      }
-
-      // Save the Core Values score, if it exists.
-      if(cv.get(idx) != null)
-      {
-        core.set(team_idx, cv.get(idx));
-      }
-
-      // Determine if there is a rubric.
-      if(rb.get(idx) != null)
-      {
-        haveRubric.set(team_idx, true);
-      }
-    }
+    // Read the teams and judging results for this event.
+    EventData data = EventData.read(season_id, event_id, false, false, true);
 
     // Loop through the teams.
     JSONArray rubrics = new SimpleJSONArray();
-    for(int i = 0; i < numbers.size(); i++)
+    for(int i = 0; i < data.countGet(); i++)
     {
       // Add this team's judging scores to the rubrics array.
+      boolean haveRubric = data.rubricGet(i);
       JSONObject rubric = new SimpleJSONObject();
-      rubric.set("id", ids.get(i));
-      rubric.set("number", numbers.get(i));
-      rubric.set("name", names.get(i));
-      rubric.set("project", (project.get(i) != -1) ? project.get(i) :
-                            (haveRubric.get(i) ? "***" : "-"));
-      rubric.set("robot", (robot.get(i) != -1) ? robot.get(i) :
-                          (haveRubric.get(i) ? "***" : "-"));
-      rubric.set("core", (core.get(i) != -1) ? core.get(i) :
-                         (haveRubric.get(i) ? "***" : "-"));
+      rubric.set("id", data.idGet(i));
+      rubric.set("number", data.numberGet(i));
+      rubric.set("name", data.nameGet(i));
+      rubric.set("project", (data.projectGet(i) != -1) ? data.projectGet(i) :
+                            (haveRubric ? "***" : "-"));
+      rubric.set("robot", (data.robotGet(i) != -1) ? data.robotGet(i) :
+                          (haveRubric ? "***" : "-"));
+      rubric.set("core", (data.coreValuesGet(i) != -1) ?
+                         data.coreValuesGet(i) : (haveRubric ? "***" : "-"));
       rubrics.addEntry(rubric);
     }
 
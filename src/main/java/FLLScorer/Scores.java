@@ -7,8 +7,6 @@ package FLLScorer;
 
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.Collections;
 import java.util.HashMap;
 
 import org.bspfsystems.simplejson.JSONArray;
@@ -221,98 +219,24 @@ public class Scores
     int season_id = m_season.seasonIdGet();
     int event_id = m_event.eventIdGet();
 
-    // A list of information about teams, maintained in team number order.
-    ArrayList<Integer> ids = new ArrayList<Integer>();
-    ArrayList<Integer> numbers = new ArrayList<Integer>();
-    ArrayList<String> names = new ArrayList<String>();
-    ArrayList<Float> match0 = new ArrayList<Float>();
-    ArrayList<Float> match1 = new ArrayList<Float>();
-    ArrayList<Float> match2 = new ArrayList<Float>();
-    ArrayList<Float> match3 = new ArrayList<Float>();
-    ArrayList<Float> match4 = new ArrayList<Float>();
-
-    // Enumerate the teams from the database for this season.
-    m_database.teamEnumerate(season_id, event_id, ids, numbers, names, null);
-
-    // Set the score indicator for each team to no score available.
-    for(int idx = 0; idx < numbers.size(); idx++)
-    {
-      match0.add(idx, (float)-100);
-      match1.add(idx, (float)-100);
-      match2.add(idx, (float)-100);
-      match3.add(idx, (float)-100);
-      match4.add(idx, (float)-100);
-    };
-
-    // A list of information about the scores.
-    ArrayList<Integer> teams = new ArrayList<Integer>();
-    ArrayList<Float> score0 = new ArrayList<Float>();
-    ArrayList<Float> score1 = new ArrayList<Float>();
-    ArrayList<Float> score2 = new ArrayList<Float>();
-    ArrayList<Float> score3 = new ArrayList<Float>();
-    ArrayList<Float> score4 = new ArrayList<Float>();
-
-    // Enumerate the scores for this event.
-    m_database.scoreEnumerate(season_id, event_id, null, teams, score0, null,
-                              null, score1, null, null, score2, null, null,
-                              score3, null, null, score4, null, null);
-
-    // Loop through all the scores
-    for(int idx = 0; idx < teams.size(); idx++)
-    {
-      // Ignore this score if it is not for a team at this event (should not
-      // happen).
-      int team_idx = ids.indexOf(teams.get(idx));
-      if(team_idx == -1)
-      {
-        continue;
-      }
-
-      // Save the match 0 score, if it exists.
-      if(score0.get(idx) != null)
-      {
-        match0.set(team_idx, score0.get(idx));
-      }
-
-      // Save the match 1 score, if it exists.
-      if(score1.get(idx) != null)
-      {
-        match1.set(team_idx, score1.get(idx));
-      }
-
-      // Save the match 2 score, if it exists.
-      if(score2.get(idx) != null)
-      {
-        match2.set(team_idx, score2.get(idx));
-      }
-
-      // Save the match 3 score, if it exists.
-      if(score3.get(idx) != null)
-      {
-        match3.set(team_idx, score3.get(idx));
-      }
-
-      // Save the match 4 score, if it exists.
-      if(score4.get(idx) != null)
-      {
-        match4.set(team_idx, score4.get(idx));
-      }
-    }
+    // Read the teams and scores for this event.
+    EventData data = EventData.read(season_id, event_id, true, false, false);
 
     // Loop through the teams.
     JSONArray scores = new SimpleJSONArray();
-    for(int i = 0; i < numbers.size(); i++)
+    for(int i = 0; i < data.countGet(); i++)
     {
       // Add this team's scores to the score array.
       JSONObject score = new SimpleJSONObject();
-      score.set("id", ids.get(i));
-      score.set("number", numbers.get(i));
-      score.set("name", names.get(i));
-      score.set("match0", (match0.get(i) == -100) ? "" : match0.get(i));
-      score.set("match1", (match1.get(i) == -100) ? "" : match1.get(i));
-      score.set("match2", (match2.get(i) == -100) ? "" : match2.get(i));
-      score.set("match3", (match3.get(i) == -100) ? "" : match3.get(i));
-      score.set("match4", (match4.get(i) == -100) ? "" : match4.get(i));
+      score.set("id", data.idGet(i));
+      score.set("number", data.numberGet(i));
+      score.set("name", data.nameGet(i));
+      for(int match = 0; match < EventData.MATCHES; match++)
+      {
+        float value = data.scoreGet(match, i);
+        score.set("match" + match,
+                  (value == EventData.NO_SCORE) ? "" : value);
+      }
       scores.addEntry(score);
     }
 
@@ -401,89 +325,6 @@ public class Scores
     }
   }
 
-  /**
-   * Compares two sets of team scores to determine the placement order.
-   *
-   * @param ad The division of the first team.
-   *
-   * @param a1 The match 1 score for the first team.
-   *
-   * @param a2 The match 2 scores for the first team.
-   *
-   * @param a3 The match 3 score for the first team.
-   *
-   * @param a4 The match 4 score for the first team.
-   *
-   * @param bd The division of the second team.
-   *
-   * @param b1 The match 1 score for the second team.
-   *
-   * @param b2 The match 2 score for the second team.
-   *
-   * @param b3 The match 3 score for the second team.
-   *
-   * @param b4 The match 4 score for the second team.
-   *
-   * @return 1 if the first team places higher than the second team, -1 if the
-   *         second team places higher than the first team, and 0 if the teams
-   *         are tied.
-   */
-  private int
-  scoresCompare(int ad, float a1, float a2, float a3, float a4, int bd,
-                float b1, float b2, float b3, float b4)
-  {
-    // See if the second team "places" higher than the first team, based on
-    // their divisions.
-    if(ad > bd)
-    {
-      return(-1);
-    }
-
-    // See if the first team "places" higher than the second team, based on
-    // their diviison.
-    if(ad < bd)
-    {
-      return(1);
-    }
-
-    // Convert the scores into integer arrays.
-    Float a[] = { a1, a2, a3, a4 };
-    Float b[] = { b1, b2, b3, b4 };
-
-    // Sort the array in descrending order.
-    Arrays.sort(a, Collections.reverseOrder());
-    Arrays.sort(b, Collections.reverseOrder());
-
-    // See if the first team does not have any scores.
-    if(a[0] == -1)
-    {
-      // The teams either sort the same, or the second team places higher than
-      // the first team, based on if the second team has any scores.
-      return((b[0] == -1) ? 0 : -1);
-    }
-
-    // Loop through the four scores.
-    for(int idx = 0; idx < 4; idx++)
-    {
-      // See if the second team places higher than the first team, based on
-      // this score.
-      if(a[idx] < b[idx])
-      {
-        return(-1);
-      }
-
-      // See if the first team places higher than the seocnd team, based on
-      // this score.
-      if(a[idx] > b[idx])
-      {
-        return(1);
-      }
-    }
-
-    // All of the scores match, so the teams are tied.
-    return(0);
-  }
-
   /**
    * Handles requests for /admin/scores/scores.csv.
    *
@@ -511,236 +352,51 @@ public class Scores
       matches = 3;
     }
 
-    // A list of information about teams, maintained in team number order.
-    ArrayList<Integer> ids = new ArrayList<Integer>();
-    ArrayList<Integer> numbers = new ArrayList<Integer>();
-    ArrayList<String> names = new ArrayList<String>();
-    ArrayList<Integer> divisions = new ArrayList<Integer>();
-    ArrayList<Float> high = new ArrayList<Float>();
-    ArrayList<Float> match0 = new ArrayList<Float>();
-    ArrayList<Integer> cv0 = new ArrayList<Integer>();
-    ArrayList<Float> match1 = new ArrayList<Float>();
-    ArrayList<Integer> cv1 = new ArrayList<Integer>();
-    ArrayList<Float> match2 = new ArrayList<Float>();
-    ArrayList<Integer> cv2 = new ArrayList<Integer>();
-    ArrayList<Float> match3 = new ArrayList<Float>();
-    ArrayList<Integer> cv3 = new ArrayList<Integer>();
-    ArrayList<Float> match4 = new ArrayList<Float>();
-    ArrayList<Integer> cv4 = new ArrayList<Integer>();
-
-    // Enumerate the teams from the database for this season.
-    m_database.teamEnumerate(season_id, event_id, ids, numbers, names,
-                             divisions);
-
-    // Set the score indicator for each team to no score available.
-    for(int idx = 0; idx < numbers.size(); idx++)
-    {
-      high.add(idx, (float)-100);
-      match0.add(idx, (float)-100);
-      cv0.add(idx, -100);
-      match1.add(idx, (float)-100);
-      cv1.add(idx, -100);
-      match2.add(idx, (float)-100);
-      cv2.add(idx, -100);
-      match3.add(idx, (float)-100);
-      cv3.add(idx, -100);
-      match4.add(idx, (float)-100);
-      cv4.add(idx, -100);
-    };
-
-    // A list of information about the scores.
-    ArrayList<Integer> teams = new ArrayList<Integer>();
-    ArrayList<Float> score0 = new ArrayList<Float>();
-    ArrayList<Integer> core0 = new ArrayList<Integer>();
-    ArrayList<Float> score1 = new ArrayList<Float>();
-    ArrayList<Integer> core1 = new ArrayList<Integer>();
-    ArrayList<Float> score2 = new ArrayList<Float>();
-    ArrayList<Integer> core2 = new ArrayList<Integer>();
-    ArrayList<Float> score3 = new ArrayList<Float>();
-    ArrayList<Integer> core3 = new ArrayList<Integer>();
-    ArrayList<Float> score4 = new ArrayList<Float>();
-    ArrayList<Integer> core4 = new ArrayList<Integer>();
-
-    // Enumerate the scores for this event.
-    m_database.scoreEnumerate(season_id, event_id, null, teams, score0, core0,
-                              null, score1, core1, null, score2, core2, null,
-                              score3, core3, null, score4, core4, null);
-
-    // Loop through all the scores
-    for(int idx = 0; idx < teams.size(); idx++)
-    {
-      float max = -1;
+    // Read the teams and scores for this event.
+    EventData data = EventData.read(season_id, event_id, true, false, false);
+    int teams = data.countGet();
 
-      // Ignore this score if it is not for a team at this event (should not
-      // happen).
-      int team_idx = ids.indexOf(teams.get(idx));
-      if(team_idx == -1)
+    // Loop through the teams, finding the high score of each team that has
+    // scores.
+    float[] high = new float[teams];
+    for(int idx = 0; idx < teams; idx++)
+    {
+      // Teams without any scores do not have a high score.
+      if(!data.scoredGet(idx))
       {
+        high[idx] = EventData.NO_SCORE;
         continue;
       }
 
-      // Save the match 0 score, if it exists.
-      if(score0.get(idx) != null)
-      {
-        match0.set(team_idx, score0.get(idx));
-      }
-      if(core0.get(idx) != null)
-      {
-        cv0.set(team_idx, core0.get(idx));
-      }
-
-      // Save the match 1 score, if it exists.
-      if(score1.get(idx) != null)
-      {
-        match1.set(team_idx, score1.get(idx));
-        if(score1.get(idx) > max)
-        {
-          max = score1.get(idx);
-        }
-      }
-      if(core1.get(idx) != null)
-      {
-        cv1.set(team_idx, core1.get(idx));
-      }
-
-      // Save the match 2 score, if it exists.
-      if(score2.get(idx) != null)
-      {
-        match2.set(team_idx, score2.get(idx));
-        if(score2.get(idx) > max)
-        {
-          max = score2.get(idx);
-        }
-      }
-      if(core2.get(idx) != null)
-      {
-        cv2.set(team_idx, core2.get(idx));
-      }
-
-      // Save the match 3 score, if it exists.
-      if(score3.get(idx) != null)
-      {
-        match3.set(team_idx, score3.get(idx));
-        if(score3.get(idx) > max)
-        {
-          max = score3.get(idx);
-        }
-      }
-      if(core3.get(idx) != null)
-      {
-        cv3.set(team_idx, core3.get(idx));
-      }
-
-      // Save the match 4 score, if it exists.
-      if(score4.get(idx) != null)
+      // Find the highest of the match 1 through 4 scores.
+      float max = -1;
+      for(int match = 1; match < EventData.MATCHES; match++)
       {
-        match4.set(team_idx, score4.get(idx));
-        if(score4.get(idx) > max)
+        if((data.scoreGet(match, idx) != EventData.NO_SCORE) &&
+           (data.scoreGet(match, idx) > max))
         {
-          max = score4.get(idx);
+          max = data.scoreGet(match, idx);
         }
       }
-      if(core4.get(idx) != null)
-      {
-        cv4.set(team_idx, core4.get(idx));
-      }
-
-      // Save the high score.
-      high.set(team_idx, max);
-    }
-
-    // Generate an array that has a default mapping of teams to their place.
-    ArrayList<Integer> place = new ArrayList<Integer>();
-    for(int idx = 0; idx < numbers.size(); idx++)
-    {
-      place.add(idx, idx);
-    }
-    for(int idx = 0; idx < numbers.size(); idx++)
-    {
-      place.add(numbers.size() + idx, -1);
+      high[idx] = max;
     }
 
     // Determine which scores to consider.
     boolean bScore3 = (matches == 3) || (matches == 103) || (matches == 4);
     boolean bScore4 = (matches == 4);
 
-    // Loop through all the teams, placing them into the correct placement
-    // order.
-    for(int idx1 = 0; idx1 < (numbers.size() - 1); idx1++)
-    {
-      // Compare this team against all the following teams.
-      for(int idx2 = idx1 + 1; idx2 < numbers.size(); idx2++)
-      {
-        // Get the current places for these two teams.
-        int p1 = place.get(idx1);
-        int p2 = place.get(idx2);
-
-        // See if the first team has a lower score than the second team.
-        if(scoresCompare(divisions.get(p1), match1.get(p1), match2.get(p1),
-                         bScore3 ? match3.get(p1) : 0,
-                         bScore4 ? match4.get(p1) : 0, divisions.get(p2),
-                         match1.get(p2), match2.get(p2),
-                         bScore3 ? match3.get(p2) : 0,
-                         bScore4 ? match4.get(p2) : 0) < 0)
-        {
-          // Swap the places of the two teams.
-          place.set(idx1, p2);
-          place.set(idx2, p1);
-        }
-      }
-    }
-
-    // Loop through all the teams converting the ordering of the teams into
-    // their assigned places (giving tying teams the same place).
-    int placenum = 1;
-    for(int idx = 0; idx < numbers.size(); idx++)
-    {
-      // If this is the first team, set it to first place.
-      if(idx == 0)
-      {
-        place.set(numbers.size() + place.get(idx), placenum);
-      }
-      else
-      {
-        // Get the index of this team and the previous team.
-        int p1 = place.indexOf(idx - 1);
-        int p2 = place.indexOf(idx);
-
-        // See if these two teams have the same scores.
-        if(scoresCompare(divisions.get(p1), match1.get(p1), match2.get(p1),
-                         bScore3 ? match3.get(p1) : 0,
-                         bScore4 ? match4.get(p1) : 0, divisions.get(p2),
-                         match1.get(p2), match2.get(p2),
-                         bScore3 ? match3.get(p2) : 0,
-                         bScore4 ? match4.get(p2) : 0) == 0)
-        {
-          // Give this team the same place as the previous team.
-          place.set(numbers.size() + place.get(idx),
-                    place.get(numbers.size() + place.get(idx - 1)));
-        }
-        else
-        {
-          // See if there is a change in division.
-          if(divisions.get(p1) != divisions.get(p2))
-          {
-            // Reset the place back to one with the change in division.
-            placenum = 1;
-          }
-
-          // Give this team the current place.
-          place.set(numbers.size() + place.get(idx), placenum);
-        }
-      }
-
-      // Increment the place.
-      placenum++;
-    }
-
-    // Removing the mapping from the start of the placement array.
-    for(int idx = 0; idx < numbers.size(); idx++)
+    // Rank the teams by their considered scores (the divisions are only
+    // considered when they are enabled).
+    Ranking ranking = new Ranking(teams);
+    for(int idx = 0; idx < teams; idx++)
     {
-      place.remove(0);
+      ranking.set(idx,
+                  m_config.divisionEnableGet() ? data.divisionGet(idx) : 0,
+                  data.scoreGet(1, idx), data.scoreGet(2, idx),
+                  bScore3 ? data.scoreGet(3, idx) : 0,
+                  bScore4 ? data.scoreGet(4, idx) : 0, high[idx] != -100);
     }
+    ranking.rank();
 
     // Add the header to the CSV string.
     if(m_config.divisionEnableGet())
@@ -766,62 +422,62 @@ public class Scores
     }
 
     // Loop through the teams.
-    for(int i = 0; i < numbers.size(); i++)
+    for(int i = 0; i < teams; i++)
     {
       // Add this team's information and scores to the CSV string.
       if(m_config.divisionEnableGet())
       {
-        csv += divisions.get(i) + ",";
+        csv += data.divisionGet(i) + ",";
       }
-      csv += numbers.get(i);
-      csv += "," + names.get(i);
-      float value = high.get(i);
-      csv += "," + ((value == -100) ? "" : place.get(i));
+      csv += data.numberGet(i);
+      csv += "," + data.nameGet(i);
+      float value = high[i];
+      csv += "," + ((value == -100) ? "" : ranking.place(i));
       csv += "," + ((value == -100) ? "" : ((value == Math.floor(value)) ?
                                             ("" + (int)Math.floor(value)) :
                                             ("" + value)));
       if(matches == 103)
       {
-        value = match0.get(i);
+        value = data.scoreGet(0, i);
         csv += "," + ((value == -100) ? "" : ((value == Math.floor(value)) ?
                                               ("" + (int)Math.floor(value)) :
                                               ("" + value)));
       }
-      value = match1.get(i);
+      value = data.scoreGet(1, i);
       csv += "," + ((value == -100) ? "" : ((value == Math.floor(value)) ?
                                             ("" + (int)Math.floor(value)) :
                                             ("" + value)));
-      value = match2.get(i);
+      value = data.scoreGet(2, i);
       csv += "," + ((value == -100) ? "" : ((value == Math.floor(value)) ?
                                             ("" + (int)Math.floor(value)) :
                                             ("" + value)));
       if(bScore3)
       {
-        value = match3.get(i);
+        value = data.scoreGet(3, i);
         csv += "," + ((value == -100) ? "" : ((value == Math.floor(value)) ?
                                               ("" + (int)Math.floor(value)) :
                                               ("" + value)));
       }
       if(bScore4)
       {
-        value = match4.get(i);
+        value = data.scoreGet(4, i);
         csv += "," + ((value == -100) ? "" : ((value == Math.floor(value)) ?
                                               ("" + (int)Math.floor(value)) :
                                               ("" + value)));
       }
       if(matches == 103)
       {
-        csv += "," + ((cv0.get(i) == -100) ? "" : cv0.get(i));
+        csv += "," + ((data.coreGet(0, i) == -100) ? "" : data.coreGet(0, i));
       }
-      csv += "," + ((cv1.get(i) == -100) ? "" : cv1.get(i));
-      csv += "," + ((cv2.get(i) == -100) ? "" : cv2.get(i));
+      csv += "," + ((data.coreGet(1, i) == -100) ? "" : data.coreGet(1, i));
+      csv += "," + ((data.coreGet(2, i) == -100) ? "" : data.coreGet(2, i));
       if(bScore3)
       {
-        csv += "," + ((cv3.get(i) == -100) ? "" : cv3.get(i));
+        csv += "," + ((data.coreGet(3, i) == -100) ? "" : data.coreGet(3, i));
       }
       if(bScore4)
       {
-        csv += "," + ((cv4.get(i) == -100) ? "" : cv4.get(i));
+        csv += "," + ((data.coreGet(4, i) == -100) ? "" : data.coreGet(4, i));
       }
       csv += "\n";
     }
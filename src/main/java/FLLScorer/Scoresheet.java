@@ -0,0 +1,1514 @@
+// Copyright (c) 2024 Brian Kircher
+//
+// Open Source Software; you can modify and/or share it under the terms of BSD
+// license file in the root directory of this project.
+
+package FLLScorer;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+
+import org.bspfsystems.simplejson.JSONArray;
+import org.bspfsystems.simplejson.JSONObject;
+import org.bspfsystems.simplejson.SimpleJSONObject;
+
+import com.fathzer.soft.javaluator.DoubleEvaluator;
+import com.fathzer.soft.javaluator.StaticVariableSet;
+
+/**
+ * A robot game scoresheet that has been compiled for scoring.
+ * <p>
+ * The JSON scoresheet for a season is walked once, when it is loaded, and
+ * turned into arrays of missions and mission items.  Every variable that the
+ * scoring rules can refer to (each mission item, by "mission_item", and each
+ * mission, by its ID) is assigned a slot in an array, the number of choices
+ * for each mission item is computed in advance, and the constraint and
+ * scoring rules are parsed into postfix programs that refer to the variable
+ * slots.  Scoring a scoresheet is then a walk over these arrays, performing
+ * the same arithmetic in the same order as the original interpreter (which
+ * is retained as interpret(), and is used for any scoresheet that can not be
+ * compiled).
+ */
+public class Scoresheet
+{
+  /**
+   * The instruction that pushes a constant onto the stack.
+   */
+  private static final int OP_CONST = 0;
+
+  /**
+   * The instruction that pushes a variable onto the stack.
+   */
+  private static final int OP_VAR = 1;
+
+  /**
+   * The instruction that negates the top of the stack.
+   */
+  private static final int OP_NEG = 2;
+
+  /**
+   * The instruction that adds the top two values on the stack.
+   */
+  private static final int OP_ADD = 3;
+
+  /**
+   * The instruction that subtracts the top two values on the stack.
+   */
+  private static final int OP_SUB = 4;
+
+  /**
+   * The instruction that multiplies the top two values on the stack.
+   */
+  private static final int OP_MUL = 5;
+
+  /**
+   * The instruction that divides the top two values on the stack.
+   */
+  private static final int OP_DIV = 6;
+
+  /**
+   * The instruction that takes the absolute value of the top of the stack.
+   */
+  private static final int OP_ABS = 7;
+
+  /**
+   * The instruction that rounds the top of the stack up.
+   */
+  private static final int OP_CEIL = 8;
+
+  /**
+   * The instruction that rounds the top of the stack down.
+   */
+  private static final int OP_FLOOR = 9;
+
+  /**
+   * The instruction that replaces the top <i>n</i> values on the stack with
+   * their minimum.
+   */
+  private static final int OP_MIN = 10;
+
+  /**
+   * The instruction that replaces the top <i>n</i> values on the stack with
+   * their maximum.
+   */
+  private static final int OP_MAX = 11;
+
+  /**
+   * A scoring or constraint rule, compiled into a postfix program.
+   */
+  private static class Rule
+  {
+    /**
+     * The instructions of the program; the OP_CONST, OP_VAR, OP_MIN, and
+     * OP_MAX instructions are followed by their operand (the index of the
+     * constant, the slot of the variable, or the number of arguments).
+     */
+    private int[] m_code;
+
+    /**
+     * The constants used by the program.
+     */
+    private double[] m_constants;
+
+    /**
+     * The maximum depth of the stack while running the program.
+     */
+    private int m_depth;
+
+    /**
+     * The variable slots that are read by the program.
+     */
+    private int[] m_reads;
+
+    /**
+     * The index of the rule in the scoresheet's list of rules.
+     */
+    private int m_index;
+
+    /**
+     * Runs the program.
+     *
+     * @param vars The values of the variables.
+     *
+     * @param stack The stack, which must be at least as deep as the program
+     *              requires.
+     *
+     * @return The value of the rule.
+     */
+    private double
+    evaluate(double[] vars, double[] stack)
+    {
+      int sp = 0;
+
+      // Loop through the instructions of the program.
+      for(int pc = 0; pc < m_code.length; pc++)
+      {
+        switch(m_code[pc])
+        {
+          case OP_CONST:
+            stack[sp++] = m_constants[m_code[++pc]];
+            break;
+
+          case OP_VAR:
+            stack[sp++] = vars[m_code[++pc]];
+            break;
+
+          case OP_NEG:
+            stack[sp - 1] = -stack[sp - 1];
+            break;
+
+          case OP_ADD:
+            sp--;
+            stack[sp - 1] = stack[sp - 1] + stack[sp];
+            break;
+
+          case OP_SUB:
+            sp--;
+            stack[sp - 1] = stack[sp - 1] - stack[sp];
+            break;
+
+          case OP_MUL:
+            sp--;
+            stack[sp - 1] = stack[sp - 1] * stack[sp];
+            break;
+
+          case OP_DIV:
+            sp--;
+            stack[sp - 1] = stack[sp - 1] / stack[sp];
+            break;
+
+          case OP_ABS:
+            stack[sp - 1] = Math.abs(stack[sp - 1]);
+            break;
+
+          case OP_CEIL:
+            stack[sp - 1] = Math.ceil(stack[sp - 1]);
+            break;
+
+          case OP_FLOOR:
+            stack[sp - 1] = Math.floor(stack[sp - 1]);
+            break;
+
+          case OP_MIN:
+          case OP_MAX:
+          {
+            // Combine the arguments from left to right.
+            int count = m_code[pc + 1];
+            int base = sp - count;
+            double value = stack[base];
+            for(int idx = 1; idx < count; idx++)
+            {
+              value = (m_code[pc] == OP_MIN) ?
+                      Math.min(value, stack[base + idx]) :
+                      Math.max(value, stack[base + idx]);
+            }
+            stack[base] = value;
+            sp = base + 1;
+            pc++;
+            break;
+          }
+        }
+      }
+
+      // The result is the only value left on the stack.
+      return(stack[0]);
+    }
+  }
+
+  /**
+   * Compiles a rule into a postfix program.
+   * <p>
+   * The rules use the subset of the expression evaluator's syntax that the
+   * scoresheets need: numbers, variables, parentheses, the +, -, *, and /
+   * operators, unary minus, and the abs(), ceil(), floor(), min(), and max()
+   * functions.  Anything else (or a reference to an unknown variable) causes
+   * the compile to fail, in which case the scoresheet is interpreted instead.
+   */
+  private static class Compiler
+  {
+    /**
+     * The text of the rule.
+     */
+    private String m_text;
+
+    /**
+     * The position of the next character to be read.
+     */
+    private int m_pos = 0;
+
+    /**
+     * The slot of each variable, indexed by name.
+     */
+    private HashMap<String, Integer> m_slots;
+
+    /**
+     * The instructions of the program.
+     */
+    private ArrayList<Integer> m_code = new ArrayList<Integer>();
+
+    /**
+     * The constants used by the program.
+     */
+    private ArrayList<Double> m_constants = new ArrayList<Double>();
+
+    /**
+     * The current depth of the stack.
+     */
+    private int m_sp = 0;
+
+    /**
+     * The maximum depth of the stack.
+     */
+    private int m_depth = 0;
+
+    /**
+     * The variable slots that are read by the program.
+     */
+    private ArrayList<Integer> m_reads = new ArrayList<Integer>();
+
+    /**
+     * The constructor.
+     *
+     * @param text The text of the rule.
+     *
+     * @param slots The slot of each variable, indexed by name.
+     */
+    private
+    Compiler(String text, HashMap<String, Integer> slots)
+    {
+      m_text = text;
+      m_slots = slots;
+    }
+
+    /**
+     * Adds an instruction to the program.
+     *
+     * @param op The instruction.
+     *
+     * @param pushes The change in the depth of the stack caused by the
+     *               instruction.
+     */
+    private void
+    emit(int op, int pushes)
+    {
+      // Add the instruction and track the depth of the stack.
+      m_code.add(op);
+      m_sp += pushes;
+      m_depth = Math.max(m_depth, m_sp);
+    }
+
+    /**
+     * Skips any whitespace and returns the next character.
+     *
+     * @return The next character, or <b>0</b> at the end of the rule.
+     */
+    private char
+    peek()
+    {
+      // Skip whitespace.
+      while((m_pos < m_text.length()) &&
+            Character.isWhitespace(m_text.charAt(m_pos)))
+      {
+        m_pos++;
+      }
+
+      // Return the next character.
+      return((m_pos < m_text.length()) ? m_text.charAt(m_pos) : 0);
+    }
+
+    /**
+     * Consumes an expected character.
+     *
+     * @param c The expected character.
+     *
+     * @throws IllegalArgumentException if the next character is not the
+     *                                  expected character.
+     */
+    private void
+    expect(char c)
+    {
+      if(peek() != c)
+      {
+        throw(new IllegalArgumentException("Expected '" + c + "' in " +
+                                           m_text));
+      }
+      m_pos++;
+    }
+
+    /**
+     * Compiles an expression, which is a sum of terms.
+     */
+    private void
+    expression()
+    {
+      // Compile the first term, then any further terms.
+      term();
+      while((peek() == '+') || (peek() == '-'))
+      {
+        char op = m_text.charAt(m_pos++);
+        term();
+        emit((op == '+') ? OP_ADD : OP_SUB, -1);
+      }
+    }
+
+    /**
+     * Compiles a term, which is a product of factors.
+     */
+    private void
+    term()
+    {
+      // Compile the first factor, then any further factors.
+      factor();
+      while((peek() == '*') || (peek() == '/'))
+      {
+        char op = m_text.charAt(m_pos++);
+        factor();
+        emit((op == '*') ? OP_MUL : OP_DIV, -1);
+      }
+    }
+
+    /**
+     * Compiles a factor, which is a (possibly negated) number, variable,
+     * function call, or parenthesized expression.
+     */
+    private void
+    factor()
+    {
+      char c = peek();
+
+      // Handle unary minus.
+      if(c == '-')
+      {
+        m_pos++;
+        factor();
+        emit(OP_NEG, 0);
+      }
+
+      // Handle a parenthesized expression.
+      else if(c == '(')
+      {
+        m_pos++;
+        expression();
+        expect(')');
+      }
+
+      // Handle a number.
+      else if(Character.isDigit(c) || (c == '.'))
+      {
+        int start = m_pos;
+        while((m_pos < m_text.length()) &&
+              (Character.isDigit(m_text.charAt(m_pos)) ||
+               (m_text.charAt(m_pos) == '.')))
+        {
+          m_pos++;
+        }
+        m_constants.add(Double.parseDouble(m_text.substring(start, m_pos)));
+        emit(OP_CONST, 1);
+        m_code.add(m_constants.size() - 1);
+      }
+
+      // Handle a variable or function call.
+      else if(Character.isLetter(c))
+      {
+        int start = m_pos;
+        while((m_pos < m_text.length()) &&
+              (Character.isLetterOrDigit(m_text.charAt(m_pos)) ||
+               (m_text.charAt(m_pos) == '_')))
+        {
+          m_pos++;
+        }
+        String name = m_text.substring(start, m_pos);
+
+        // See if this is a function call.
+        if(peek() == '(')
+        {
+          function(name);
+        }
+
+        // Otherwise, it is a variable, which must be known.
+        else
+        {
+          Integer slot = m_slots.get(name);
+          if(slot == null)
+          {
+            throw(new IllegalArgumentException("Unknown variable " + name +
+                                               " in " + m_text));
+          }
+          emit(OP_VAR, 1);
+          m_code.add(slot);
+          if(!m_reads.contains(slot))
+          {
+            m_reads.add(slot);
+          }
+        }
+      }
+
+      // Anything else is not supported.
+      else
+      {
+        throw(new IllegalArgumentException("Unexpected '" + c + "' in " +
+                                           m_text));
+      }
+    }
+
+    /**
+     * Compiles a function call.
+     *
+     * @param name The name of the function.
+     */
+    private void
+    function(String name)
+    {
+      int count = 0;
+
+      // Compile the arguments.
+      expect('(');
+      do
+      {
+        if(count != 0)
+        {
+          m_pos++;
+        }
+        expression();
+        count++;
+      }
+      while(peek() == ',');
+      expect(')');
+
+      // Emit the instruction for the function.
+      if(name.equals("abs") && (count == 1))
+      {
+        emit(OP_ABS, 0);
+      }
+      else if(name.equals("ceil") && (count == 1))
+      {
+        emit(OP_CEIL, 0);
+      }
+      else if(name.equals("floor") && (count == 1))
+      {
+        emit(OP_FLOOR, 0);
+      }
+      else if(name.equals("min") || name.equals("max"))
+      {
+        emit(name.equals("min") ? OP_MIN : OP_MAX, 1 - count);
+        m_code.add(count);
+      }
+      else
+      {
+        throw(new IllegalArgumentException("Unsupported function " + name +
+                                           " in " + m_text));
+      }
+    }
+
+    /**
+     * Compiles the rule.
+     *
+     * @return The compiled rule.
+     */
+    private Rule
+    compile()
+    {
+      // Compile the rule, which must be a single expression.
+      expression();
+      if(peek() != 0)
+      {
+        throw(new IllegalArgumentException("Unexpected '" + peek() +
+                                           "' in " + m_text));
+      }
+
+      // Copy the program into the rule.
+      Rule rule = new Rule();
+      rule.m_code = new int[m_code.size()];
+      for(int idx = 0; idx < m_code.size(); idx++)
+      {
+        rule.m_code[idx] = m_code.get(idx);
+      }
+      rule.m_constants = new double[m_constants.size()];
+      for(int idx = 0; idx < m_constants.size(); idx++)
+      {
+        rule.m_constants[idx] = m_constants.get(idx);
+      }
+      rule.m_depth = m_depth;
+      rule.m_reads = new int[m_reads.size()];
+      for(int idx = 0; idx < m_reads.size(); idx++)
+      {
+        rule.m_reads[idx] = m_reads.get(idx);
+      }
+
+      // Return the compiled rule.
+      return(rule);
+    }
+  }
+
+  /**
+   * A type of game piece.
+   */
+  private static class Piece
+  {
+    /**
+     * The description of the game piece, in each locale.
+     */
+    private JSONObject m_description;
+
+    /**
+     * The quantity of the game piece that is available.
+     */
+    private int m_quantity;
+
+    /**
+     * The mission that is marked as being in error when too many of the game
+     * piece are used.
+     */
+    private String m_mission;
+  }
+
+  /**
+   * A mission item.
+   */
+  private static class Item
+  {
+    /**
+     * The key for the item's selection in a scoresheet.
+     */
+    private String m_key;
+
+    /**
+     * The variable slot for the item's selection.
+     */
+    private int m_slot;
+
+    /**
+     * The index of the mission to which the item belongs.
+     */
+    private int m_mission;
+
+    /**
+     * The points for each selection, or <b>null</b> if the item is scored as
+     * part of the mission's accumulated selection.
+     */
+    private int[] m_scores;
+
+    /**
+     * The number of choices that the item contributes to the mission's
+     * accumulated selection, or <b>-1</b> if it does not contribute.
+     */
+    private int m_radix;
+
+    /**
+     * The index of each game piece used by the item.
+     */
+    private int[] m_pieces;
+
+    /**
+     * The quantity of each game piece used by each selection of the item.
+     */
+    private int[][] m_quantities;
+  }
+
+  /**
+   * A constraint on a mission.
+   */
+  private static class Constraint
+  {
+    /**
+     * The rule, which fails if it is negative.
+     */
+    private Rule m_rule;
+
+    /**
+     * The description of the failure, in each locale.
+     */
+    private JSONObject m_description;
+  }
+
+  /**
+   * A mission.
+   */
+  private static class Mission
+  {
+    /**
+     * The ID of the mission.
+     */
+    private String m_id;
+
+    /**
+     * The variable slot for the mission's points.
+     */
+    private int m_slot;
+
+    /**
+     * The items of the mission, in the order in which they are scored (which
+     * is the reverse of the order in the scoresheet).
+     */
+    private Item[] m_items;
+
+    /**
+     * The points for each accumulated selection, or <b>null</b> if the
+     * mission does not have a score list.
+     */
+    private int[] m_scores;
+
+    /**
+     * The constraints on the mission.
+     */
+    private Constraint[] m_constraints;
+
+    /**
+     * The scoring rule for the mission, or <b>null</b> if it does not have
+     * one.
+     */
+    private Rule m_rule;
+  }
+
+  /**
+   * The missions, in scoresheet order.
+   */
+  private Mission[] m_missions;
+
+  /**
+   * The game pieces, in the order in which errors are reported.
+   */
+  private Piece[] m_pieces;
+
+  /**
+   * The mission items, indexed by the key for their selection.
+   */
+  private HashMap<String, Item> m_items = new HashMap<String, Item>();
+
+  /**
+   * The constraint and scoring rules, in the order in which they are
+   * evaluated.
+   */
+  private Rule[] m_rules;
+
+  /**
+   * The indices of the rules that read each variable slot.
+   */
+  private int[][] m_readers;
+
+  /**
+   * The number of variable slots.
+   */
+  private int m_slots;
+
+  /**
+   * The maximum stack depth needed by any rule.
+   */
+  private int m_depth = 1;
+
+  /**
+   * Converts a JSON array of integers into an array.
+   *
+   * @param array The JSON array.
+   *
+   * @return The array of integers.
+   */
+  private static int[]
+  toArray(JSONArray array)
+  {
+    // Copy each entry of the JSON array.
+    int[] result = new int[array.size()];
+    for(int idx = 0; idx < result.length; idx++)
+    {
+      result[idx] = array.getInteger(idx);
+    }
+
+    // Return the array.
+    return(result);
+  }
+
+  /**
+   * Gets a description in the given locale, defaulting back to en_US.
+   *
+   * @param desc The description in each locale.
+   *
+   * @param locale The locale.
+   *
+   * @return The description.
+   */
+  private static String
+  describe(JSONObject desc, String locale)
+  {
+    // Get the description in this locale, or en_US if it is not available.
+    String text = desc.getString(locale);
+    if(text == null)
+    {
+      text = desc.getString("en_US");
+    }
+
+    // Return the description.
+    return(text);
+  }
+
+  /**
+   * Appends an error to the result.
+   *
+   * @param result The JSON object into which the result is placed.
+   *
+   * @param mission The ID of the mission in error.
+   *
+   * @param error The description of the error.
+   */
+  private static void
+  error(JSONObject result, String mission, String error)
+  {
+    // Append this error to any existing errors.
+    String res = result.getString("result");
+    if(res == null)
+    {
+      res = "";
+    }
+    result.set("result", res + mission + ":" + error + "\n");
+  }
+
+  /**
+   * Compiles a JSON scoresheet.
+   *
+   * @param scoresheet The JSON scoresheet.
+   *
+   * @throws Exception if the scoresheet can not be compiled (in which case it
+   *                   should be interpreted).
+   */
+  public
+  Scoresheet(JSONObject scoresheet) throws Exception
+  {
+    HashMap<String, Integer> slots = new HashMap<String, Integer>();
+
+    // Collect the game pieces in the same way as the interpreter, so that
+    // they are reported in the same order.
+    HashMap<String, Piece> pieceMap = new HashMap<String, Piece>();
+    JSONArray pieces = scoresheet.getArray("pieces");
+    for(int i = 0; (pieces != null) && (i < pieces.size()); i++)
+    {
+      JSONObject json = pieces.getObject(i);
+      Piece piece = new Piece();
+      piece.m_description = json.getObject("description");
+      piece.m_quantity = json.getInteger("quantity");
+      piece.m_mission = json.getString("mission");
+      if(piece.m_description == null)
+      {
+        throw(new IllegalArgumentException("Piece without a description"));
+      }
+      pieceMap.put(json.getString("name"), piece);
+    }
+    HashMap<String, Integer> pieceIndex = new HashMap<String, Integer>();
+    m_pieces = new Piece[pieceMap.size()];
+    for(String name : pieceMap.keySet())
+    {
+      pieceIndex.put(name, pieceIndex.size());
+      m_pieces[pieceIndex.get(name)] = pieceMap.get(name);
+    }
+
+    // Loop through the missions, compiling their items.
+    JSONArray missions = scoresheet.getArray("missions");
+    m_missions = new Mission[missions.size()];
+    for(int i = 0; i < missions.size(); i++)
+    {
+      JSONObject json = missions.getObject(i);
+      Mission mission = new Mission();
+      mission.m_id = json.getString("mission");
+
+      // Loop through the items, in the order in which they are scored.
+      JSONArray items = json.getArray("items");
+      mission.m_items = new Item[items.size()];
+      for(int j = items.size(); j > 0; j--)
+      {
+        JSONObject itemJson = items.getObject(j - 1);
+        Item item = new Item();
+        mission.m_items[items.size() - j] = item;
+
+        // Assign a slot to this item's selection.  Each selection must be
+        // unique so that it can be changed independently.
+        item.m_key = mission.m_id + "_" + itemJson.getInteger("id");
+        if(slots.containsKey(item.m_key))
+        {
+          throw(new IllegalArgumentException("Duplicate item " + item.m_key));
+        }
+        slots.put(item.m_key, slots.size());
+        item.m_slot = slots.get(item.m_key);
+        item.m_mission = i;
+        m_items.put(item.m_key, item);
+
+        // Get the points for each selection, or the number of choices that
+        // the item contributes to the accumulated selection.
+        JSONArray scores = itemJson.getArray("score");
+        item.m_radix = -1;
+        if(scores != null)
+        {
+          item.m_scores = toArray(scores);
+        }
+        else if(itemJson.getString("type").equals("yesno"))
+        {
+          item.m_radix = 2;
+        }
+        else if(itemJson.getString("type").equals("enum"))
+        {
+          item.m_radix =
+            itemJson.getObject("choices").getArray("en_US").size();
+        }
+
+        // Get the game pieces used by this item.
+        pieces = itemJson.getArray("pieces");
+        int count = (pieces == null) ? 0 : pieces.size();
+        item.m_pieces = new int[count];
+        item.m_quantities = new int[count][];
+        for(int k = 0; k < count; k++)
+        {
+          Integer index = pieceIndex.get(pieces.getObject(k).getString("name"));
+          if(index == null)
+          {
+            throw(new IllegalArgumentException("Unknown piece"));
+          }
+          item.m_pieces[k] = index;
+          item.m_quantities[k] =
+            toArray(pieces.getObject(k).getArray("quantity"));
+        }
+      }
+
+      // Get the mission's score list, and assign a slot to its points.
+      JSONArray scores = json.getArray("score");
+      mission.m_scores = (scores == null) ? null : toArray(scores);
+      if(slots.containsKey(mission.m_id))
+      {
+        throw(new IllegalArgumentException("Duplicate mission " +
+                                           mission.m_id));
+      }
+      slots.put(mission.m_id, slots.size());
+      mission.m_slot = slots.get(mission.m_id);
+
+      m_missions[i] = mission;
+    }
+
+    // Loop through the missions again, compiling their rules (which can
+    // refer to any mission or item).
+    ArrayList<Rule> rules = new ArrayList<Rule>();
+    for(int i = 0; i < missions.size(); i++)
+    {
+      JSONObject json = missions.getObject(i);
+      Mission mission = m_missions[i];
+
+      // Compile the constraints.
+      JSONArray constraints = json.getArray("constraints");
+      int count = (constraints == null) ? 0 : constraints.size();
+      mission.m_constraints = new Constraint[count];
+      for(int j = 0; j < count; j++)
+      {
+        Constraint constraint = new Constraint();
+        constraint.m_rule =
+          new Compiler(constraints.getObject(j).getString("rule"),
+                       slots).compile();
+        constraint.m_description =
+          constraints.getObject(j).getObject("description");
+        m_depth = Math.max(m_depth, constraint.m_rule.m_depth);
+        constraint.m_rule.m_index = rules.size();
+        rules.add(constraint.m_rule);
+        mission.m_constraints[j] = constraint;
+      }
+
+      // Compile the scoring rule.
+      String rule = json.getString("score_rule");
+      if(rule != null)
+      {
+        mission.m_rule = new Compiler(rule, slots).compile();
+        m_depth = Math.max(m_depth, mission.m_rule.m_depth);
+        mission.m_rule.m_index = rules.size();
+        rules.add(mission.m_rule);
+      }
+    }
+
+    // Save the number of variable slots.
+    m_slots = slots.size();
+
+    // Save the rules, and find the rules that read each variable slot (which
+    // are the rules that need to be evaluated again when it changes).
+    m_rules = rules.toArray(new Rule[0]);
+    ArrayList<ArrayList<Integer>> readers = new ArrayList<ArrayList<Integer>>();
+    for(int slot = 0; slot < m_slots; slot++)
+    {
+      readers.add(new ArrayList<Integer>());
+    }
+    for(Rule r : m_rules)
+    {
+      for(int slot : r.m_reads)
+      {
+        readers.get(slot).add(r.m_index);
+      }
+    }
+    m_readers = new int[m_slots][];
+    for(int slot = 0; slot < m_slots; slot++)
+    {
+      m_readers[slot] = new int[readers.get(slot).size()];
+      for(int idx = 0; idx < m_readers[slot].length; idx++)
+      {
+        m_readers[slot][idx] = readers.get(slot).get(idx);
+      }
+    }
+  }
+
+  /**
+   * The state of a scoresheet that is being scored live, as its selections are
+   * changed one at a time.
+   * <p>
+   * The variables, the points of each mission, the value of each rule, and the
+   * quantity of each game piece in use are retained, so that changing a single
+   * selection only requires scoring its mission again and evaluating the rules
+   * that refer to that selection or mission.
+   */
+  public class Live
+  {
+    /**
+     * The values of the variables.
+     */
+    private double[] m_vars = new double[m_slots];
+
+    /**
+     * The stack used for evaluating rules.
+     */
+    private double[] m_stack = new double[m_depth];
+
+    /**
+     * The quantity of each game piece in use.
+     */
+    private int[] m_used = new int[m_pieces.length];
+
+    /**
+     * The value of each rule.
+     */
+    private double[] m_values = new double[m_rules.length];
+
+    /**
+     * The sum of the points of all the missions (excluding the points from
+     * scoring rules).
+     */
+    private int m_total = 0;
+
+    /**
+     * The constructor.  The scoresheet is scored in full.
+     *
+     * @param sheet The scoresheet selections.
+     */
+    private
+    Live(JSONObject sheet)
+    {
+      // Loop through the missions.
+      for(Mission mission : m_missions)
+      {
+        // Start with an accumulated selection and mission score of zero.
+        int sel = 0;
+        int mission_points = 0;
+
+        // Loop through the mission items.
+        for(Item item : mission.m_items)
+        {
+          // Get the selection for this item and save it to its variable.
+          int selection = sheet.getInteger(item.m_key);
+          m_vars[item.m_slot] = selection;
+
+          // Either accumulate this selection or add its points to the score.
+          if(item.m_scores == null)
+          {
+            if(item.m_radix != -1)
+            {
+              sel = (sel * item.m_radix) + selection;
+            }
+          }
+          else
+          {
+            mission_points += item.m_scores[selection];
+          }
+
+          // Update the quantity of the game pieces in use.
+          for(int k = 0; k < item.m_pieces.length; k++)
+          {
+            m_used[item.m_pieces[k]] += item.m_quantities[k][selection];
+          }
+        }
+
+        // Add to the score based on the accumulated selection.
+        if(mission.m_scores != null)
+        {
+          mission_points += mission.m_scores[sel];
+        }
+
+        // Save the score of this mission to its variable and the total.
+        m_vars[mission.m_slot] = mission_points;
+        m_total += mission_points;
+      }
+
+      // Evaluate all the rules.
+      for(Rule rule : m_rules)
+      {
+        m_values[rule.m_index] = rule.evaluate(m_vars, m_stack);
+      }
+    }
+
+    /**
+     * Computes the score.  The points of the missions are all integers, so
+     * their sum is exact regardless of the order in which they are added; the
+     * points from the scoring rules are added afterwards, in mission order, to
+     * match the rounding of a full scoring.
+     *
+     * @return The score.
+     */
+    private float
+    total()
+    {
+      // Start with the points of the missions.
+      float points = m_total;
+
+      // Add the points from each scoring rule.
+      for(Mission mission : m_missions)
+      {
+        if(mission.m_rule != null)
+        {
+          points += m_values[mission.m_rule.m_index];
+        }
+      }
+
+      // Return the score.
+      return(points);
+    }
+
+    /**
+     * Reports the score and errors of the scoresheet.  The score is placed
+     * into the "score" field of the result, and any errors are appended to
+     * its "result" field.
+     *
+     * @param result The JSON object into which the result is placed.
+     *
+     * @param locale The locale for the error messages.
+     *
+     * @param tooMany The message for too many game pieces being used, in
+     *                which "${piece}" is replaced by the name of the game
+     *                piece.
+     */
+    public void
+    report(JSONObject result, String locale, String tooMany)
+    {
+      // Add an error for each constraint that fails.
+      for(Mission mission : m_missions)
+      {
+        for(Constraint constraint : mission.m_constraints)
+        {
+          if(m_values[constraint.m_rule.m_index] < 0)
+          {
+            error(result, mission.m_id,
+                  describe(constraint.m_description, locale));
+          }
+        }
+      }
+
+      // Add an error for each game piece that is over used.
+      for(int idx = 0; idx < m_pieces.length; idx++)
+      {
+        if(m_used[idx] > m_pieces[idx].m_quantity)
+        {
+          error(result, m_pieces[idx].m_mission,
+                tooMany.replace("${piece}",
+                                describe(m_pieces[idx].m_description,
+                                         locale)));
+        }
+      }
+
+      // Add the score to the result.
+      result.set("score", total());
+    }
+
+    /**
+     * Changes a single selection of the scoresheet.  Only the mission that
+     * contains the selection is scored again, and only the rules that refer
+     * to the selection or to the mission are evaluated again.  The result is
+     * the same as report() (the new score and all errors), plus the change in
+     * the score in the "delta" field and any errors that were not present
+     * before the change in the "new" field.
+     *
+     * @param key The key for the selection, in "mission_item" form.
+     *
+     * @param selection The new selection.
+     *
+     * @param result The JSON object into which the result is placed.
+     *
+     * @param locale The locale for the error messages.
+     *
+     * @param tooMany The message for too many game pieces being used, in
+     *                which "${piece}" is replaced by the name of the game
+     *                piece.
+     *
+     * @throws IllegalArgumentException if the key is not a selection on the
+     *                                  scoresheet.
+     *
+     * @throws ArrayIndexOutOfBoundsException if the selection is not valid
+     *                                        for the item; the state is left
+     *                                        unchanged.
+     */
+    public void
+    update(String key, int selection, JSONObject result, String locale,
+           String tooMany)
+    {
+      // Find the item for this selection.
+      Item item = m_items.get(key);
+      if(item == null)
+      {
+        throw(new IllegalArgumentException("Unknown item " + key));
+      }
+      Mission mission = m_missions[item.m_mission];
+      int old = (int)m_vars[item.m_slot];
+
+      // Score the mission with the new selection.  This, and computing the
+      // change in the game pieces in use, throws an exception for an invalid
+      // selection before any of the state is changed.
+      int sel = 0;
+      int mission_points = 0;
+      for(Item other : mission.m_items)
+      {
+        int value = (other == item) ? selection : (int)m_vars[other.m_slot];
+        if(other.m_scores == null)
+        {
+          if(other.m_radix != -1)
+          {
+            sel = (sel * other.m_radix) + value;
+          }
+        }
+        else
+        {
+          mission_points += other.m_scores[value];
+        }
+      }
+      if(mission.m_scores != null)
+      {
+        mission_points += mission.m_scores[sel];
+      }
+      int[] used = new int[item.m_pieces.length];
+      for(int k = 0; k < item.m_pieces.length; k++)
+      {
+        used[k] = item.m_quantities[k][selection] -
+                  item.m_quantities[k][old];
+      }
+
+      // Remember the previous score and which game pieces were over used.
+      float before = total();
+      boolean[] over = new boolean[item.m_pieces.length];
+      for(int k = 0; k < item.m_pieces.length; k++)
+      {
+        over[k] = m_used[item.m_pieces[k]] >
+                  m_pieces[item.m_pieces[k]].m_quantity;
+      }
+
+      // Save the new selection and mission score.
+      m_vars[item.m_slot] = selection;
+      m_total += mission_points - (int)m_vars[mission.m_slot];
+      m_vars[mission.m_slot] = mission_points;
+      for(int k = 0; k < item.m_pieces.length; k++)
+      {
+        m_used[item.m_pieces[k]] += used[k];
+      }
+
+      // Evaluate the rules that refer to the selection or the mission,
+      // remembering which constraints failed before.
+      boolean[] failed = new boolean[m_rules.length];
+      boolean[] changed = new boolean[m_rules.length];
+      for(int[] readers : new int[][] { m_readers[item.m_slot],
+                                        m_readers[mission.m_slot] })
+      {
+        for(int idx : readers)
+        {
+          if(!changed[idx])
+          {
+            failed[idx] = m_values[idx] < 0;
+            changed[idx] = true;
+            m_values[idx] = m_rules[idx].evaluate(m_vars, m_stack);
+          }
+        }
+      }
+
+      // Report the new score and errors.
+      report(result, locale, tooMany);
+      result.set("delta", total() - before);
+
+      // Collect the constraints that fail now but did not before.
+      JSONObject added = new SimpleJSONObject();
+      for(Mission m : m_missions)
+      {
+        for(Constraint constraint : m.m_constraints)
+        {
+          int idx = constraint.m_rule.m_index;
+          if(changed[idx] && !failed[idx] && (m_values[idx] < 0))
+          {
+            error(added, m.m_id, describe(constraint.m_description, locale));
+          }
+        }
+      }
+
+      // Collect the game pieces that are over used now but were not before.
+      for(int k = 0; k < item.m_pieces.length; k++)
+      {
+        Piece piece = m_pieces[item.m_pieces[k]];
+        if(!over[k] && (m_used[item.m_pieces[k]] > piece.m_quantity))
+        {
+          error(added, piece.m_mission,
+                tooMany.replace("${piece}",
+                                describe(piece.m_description, locale)));
+        }
+      }
+
+      // Add the new errors to the result.
+      if(added.getString("result") != null)
+      {
+        result.set("new", added.getString("result"));
+      }
+    }
+  }
+
+  /**
+   * Starts scoring a scoresheet live.  The scoresheet is scored in full, and
+   * its selections can then be changed one at a time with Live.update().
+   *
+   * @param sheet The scoresheet selections.
+   *
+   * @return The live scoresheet state.
+   */
+  public Live
+  live(JSONObject sheet)
+  {
+    // Score the scoresheet and return its state.
+    return(new Live(sheet));
+  }
+
+  /**
+   * Scores a scoresheet.  The score is placed into the "score" field of the
+   * result, and any errors are appended to its "result" field.
+   *
+   * @param result The JSON object into which the result is placed.
+   *
+   * @param sheet The scoresheet selections.
+   *
+   * @param locale The locale for the error messages.
+   *
+   * @param tooMany The message for too many game pieces being used, in which
+   *                "${piece}" is replaced by the name of the game piece.
+   */
+  public void
+  score(JSONObject result, JSONObject sheet, String locale, String tooMany)
+  {
+    // Score the scoresheet and report the result.
+    new Live(sheet).report(result, locale, tooMany);
+  }
+
+  /**
+   * Scores a scoresheet by interpreting the JSON scoresheet directly.  The
+   * score is placed into the "score" field of the result, and any errors are
+   * appended to its "result" field.
+   *
+   * @param scoresheet The JSON scoresheet.
+   *
+   * @param result The JSON object into which the result is placed.
+   *
+   * @param sheet The scoresheet selections.
+   *
+   * @param locale The locale for the error messages.
+   *
+   * @param tooMany The message for too many game pieces being used, in which
+   *                "${piece}" is replaced by the name of the game piece.
+   */
+  public static void
+  interpret(JSONObject scoresheet, JSONObject result, JSONObject sheet,
+            String locale, String tooMany)
+  {
+    // An expression evaluator for any scoring rules.
+    DoubleEvaluator eval = new DoubleEvaluator();
+
+    // The set of variables used by the scoring rules.
+    StaticVariableSet<Double> vars = new StaticVariableSet<Double>();
+
+    // The set of game pieces.
+    HashMap<String, String> pieces_desc = new HashMap<String, String>();
+    HashMap<String, Integer> pieces_qty = new HashMap<String, Integer>();
+    HashMap<String, Integer> pieces_used = new HashMap<String, Integer>();
+    HashMap<String, String> pieces_mission = new HashMap<String, String>();
+
+    // Get the game pieces from the scoresheet.
+    JSONArray pieces = scoresheet.getArray("pieces");
+
+    // Loop through the game pieces.
+    for(int i = 0; (pieces != null) && (i < pieces.size()); i++)
+    {
+      // Get the JSON object for this game piece.
+      JSONObject piece = pieces.getObject(i);
+
+      // Get the name of this game piece.
+      String name = piece.getString("name");
+
+      // Get the description of this game piece.  If it is not available in
+      // the current locale, default back to en_US.
+      String desc = piece.getObject("description").getString(locale);
+      if(desc == null)
+      {
+        desc = piece.getObject("description").getString("en_US");
+      }
+
+      // Get the quantity of this game piece.
+      int quantity = piece.getInteger("quantity");
+
+      // Get the mission for which an over use of this game pieces is marked
+      // as being in error.
+      String mission = piece.getString("mission");
+
+      // Add this piece to the map of game pieces.
+      pieces_desc.put(name, desc);
+      pieces_qty.put(name, quantity);
+      pieces_used.put(name, 0);
+      pieces_mission.put(name, mission);
+    }
+
+    // Get the missions from the scoresheet.
+    JSONArray missions = scoresheet.getArray("missions");
+
+    // Start with zero points.
+    float points = 0;
+
+    // Loop through the missions.
+    for(int i = 0; i < missions.size(); i++)
+    {
+      // For a multiple item mission, start with an accumlated selection of
+      // zero.
+      int sel = 0;
+
+      // The mission-specific score starts at zero.
+      int mission_points = 0;
+
+      // Get the JSON object for this mission, and the mission ID from that.
+      JSONObject mission = missions.getObject(i);
+      String mission_id = mission.getString("mission");
+
+      // Get the mission items and loop through them.
+      JSONArray items = mission.getArray("items");
+      for(int j = items.size(); j > 0; j--)
+      {
+        // Get the JSON object for this mission item, and the ID for it.
+        JSONObject item = items.getObject(j - 1);
+        Integer item_id = item.getInteger("id");
+
+        // Get the selection for this item.
+        int selection = sheet.getInteger(mission_id + "_" + item_id);
+
+        // Save the value of this selection to the rules variable set.
+        vars.set(mission_id + "_" + item_id, (double)selection);
+
+        // Get the score list for this item.
+        JSONArray scores = item.getArray("score");
+        if(scores == null)
+        {
+          // There is not a score list for this item, so the entire mission
+          // is scored based on the accumulation of items. Get the type of
+          // this item.
+          String choice = item.getString("type");
+          if(choice.equals("yesno"))
+          {
+            // This item is a yes/no choice, so double the previous
+            // accumulation (since this selection has two choices) and add
+            // the value of this selection.
+            sel = (sel * 2) + selection;
+          }
+          else if(choice.equals("enum"))
+          {
+            // This item is an enumeration, so multiply by the number of
+            // choices and add the value of this selection.
+            sel = ((sel *
+                    item.getObject("choices").getArray("en_US").size()) +
+                   selection);
+          }
+        }
+        else
+        {
+          // There are scores for this item, so add to the score based on
+          // this selection.
+          points += scores.getInteger(selection);
+          mission_points += scores.getInteger(selection);
+        }
+
+        // Get the pieces for this item.
+        pieces = item.getArray("pieces");
+
+        // Loop through the pieces for this item.
+        for(int k = 0; (pieces != null) && (k < pieces.size()); k++)
+        {
+          // Get the name and quantity from this game piece.
+          String name = pieces.getObject(k).getString("name");
+          int quantity =
+            pieces.getObject(k).getArray("quantity").getInteger(selection);
+
+          // Update the quantity of this piece in use.
+          pieces_used.put(name, pieces_used.get(name) + quantity);
+        }
+      }
+
+      // See if there is a mission-based score list.
+      JSONArray scores = mission.getArray("score");
+      if(scores != null)
+      {
+        // Add to the score based on the accumulation of selections.
+        points += scores.getInteger(sel);
+        mission_points += scores.getInteger(sel);
+      }
+
+      // Save the score of this mission to the rules variable set.
+      vars.set(mission_id, (double)mission_points);
+    }
+
+    // Loop through the missions.
+    for(int i = 0; i < missions.size(); i++)
+    {
+      // Get the JSON object for this mission, and the mission ID from that.
+      JSONObject mission = missions.getObject(i);
+      String mission_id = mission.getString("mission");
+
+      // See if there are any constraints on this mission.
+      JSONArray constraints = mission.getArray("constraints");
+      if(constraints != null)
+      {
+        // Loop through the constraints.
+        for(int j = 0; j < constraints.size(); j++)
+        {
+          // Get this constraint.
+          JSONObject constraint = constraints.getObject(j);
+
+          // Get the rule for this constraint.
+          String rule = constraint.getString("rule");
+
+          // Evaluate this rule.
+          if(eval.evaluate(rule, vars) < 0)
+          {
+            // The rule failed, so add the description of the failure to the
+            // result.
+            error(result, mission_id,
+                  describe(constraint.getObject("description"), locale));
+          }
+        }
+      }
+
+      // See if there is a scoring rule for this mission.
+      String rule = mission.getString("score_rule");
+      if(rule != null)
+      {
+        // Evaluate this rule and add the resulting points to the score.
+        points += eval.evaluate(rule, vars);
+      }
+    }
+
+    // Interate through the game pieces.
+    pieces_used.forEach((name, qty) ->
+      {
+        // See if more pieces were used than are available.
+        if(pieces_used.get(name) > pieces_qty.get(name))
+        {
+          // Too many pieces were used, so substitute the name of this game
+          // piece into the error message and add it to the result.
+          error(result, pieces_mission.get(name),
+                tooMany.replace("${piece}", pieces_desc.get(name)));
+        }
+      });
+
+    // Add the score to the result.
+    result.set("score", points);
+  }
+}
@@ -84,6 +84,11 @@ public class Seasons
    */
   private ArrayList<Integer> m_databaseId = null;
 
+  /**
+   * <b>true</b> once the seasons have been loaded.
+   */
+  private volatile boolean m_loaded = false;
+
   /**
    * Gets the Seasons singleton object, creating it if necessary.
    *
@@ -119,6 +124,9 @@ public class Seasons
   public int
   seasonIdGet()
   {
+    // Load the seasons if necessary.
+    load();
+
     // Return the season_id.
     String year = m_config.seasonGet();
     return(m_databaseId.get(m_index.indexOf(year)));
@@ -132,6 +140,9 @@ public class Seasons
   private void
   list(JSONObject result)
   {
+    // Load the seasons if necessary.
+    load();
+
     // Create a JSON array to hold the seasons.
     SimpleJSONArray seasons = new SimpleJSONArray();
 
@@ -167,6 +178,9 @@ public class Seasons
   private void
   get(JSONObject result)
   {
+    // Load the seasons if necessary.
+    load();
+
     // Get the currently selected season.
     String year = m_config.seasonGet();
     int idx = m_index.indexOf(year);
@@ -190,6 +204,9 @@ public class Seasons
   private void
   set(JSONObject result, String year)
   {
+    // Load the seasons if necessary.
+    load();
+
     // See if this is a known season, and it is enabled.
     int idx = m_index.indexOf(year);
     if((idx != -1) && m_enabled.get(idx))
@@ -282,25 +299,57 @@ public class Seasons
   }
 
   /**
-   * Performs initial setup for the seasons handler.
+   * Loads the seasons, if they have not already been loaded.  This is done
+   * on first use, and by the application startup in parallel with the other
+   * startup steps.
    */
   public void
-  setup()
+  load()
+  {
+    // Do nothing if the seasons have already been loaded.
+    if(m_loaded)
+    {
+      return;
+    }
+
+    // Load the seasons, unless another thread loaded them while this one was
+    // waiting.
+    synchronized(this)
+    {
+      if(!m_loaded)
+      {
+        loadSeasons();
+        m_loaded = true;
+      }
+    }
+  }
+
+  /**
+   * Loads the seasons from their information files, adding any new seasons
+   * to the database.
+   */
+  private void
+  loadSeasons()
   {
-    String locale = Config.getInstance().localeGet();
+    String locale = m_config.localeGet();
     String name, year, latest, fragment;
     Boolean enabled;
     JSONObject json;
     InputStream in;
     int matchLen;
 
-    // Get references to the web server, database, configuration manager,
-    // events, and timekeeper objects.
-    m_webserver = WebServer.getInstance();
-    m_database = Database.getInstance();
-    m_config = Config.getInstance();
-    m_events = Events.getInstance();
-    m_timekeeper = TimeKeeper.getInstance();
+    // Get the seasons that are already in the database, so that only the new
+    // seasons need to be added.
+    ArrayList<Integer> knownIds = new ArrayList<Integer>();
+    ArrayList<String> knownYears = new ArrayList<String>();
+    ArrayList<String> knownNames = new ArrayList<String>();
+    m_database.seasonEnumerate(knownIds, knownYears, knownNames);
+    HashMap<String, Integer> known = new HashMap<String, Integer>();
+    for(int idx = 0; idx < knownIds.size(); idx++)
+    {
+      known.put(knownYears.get(idx) + "\n" + knownNames.get(idx),
+                knownIds.get(idx));
+    }
 
     // Create the arrays to keep track of the known seasons.
     m_index = new ArrayList<String>();
@@ -361,7 +410,7 @@ public class Seasons
       m_names.add(name);
       m_matchLens.add(matchLen);
       m_enabled.add(enabled);
-      m_databaseId.add(m_database.seasonAdd(year + ".0", name));
+      m_databaseId.add(seasonId(known, year + ".0", name));
 
       // Loop through the possible alternate season scoresheets.
       for(int j = 1; ; j++)
@@ -396,7 +445,7 @@ public class Seasons
         m_names.add(name);
         m_matchLens.add(matchLen);
         m_enabled.add(enabled);
-        m_databaseId.add(m_database.seasonAdd(year + "." + j, name));
+        m_databaseId.add(seasonId(known, year + "." + j, name));
       }
 
       // If this season is enabled, it is the latest season found so far.
@@ -431,6 +480,49 @@ public class Seasons
     {
       m_timekeeper.matchLength(m_matchLens.get(idx));
     }
+  }
+
+  /**
+   * Gets the database ID of a season, adding it to the database if it is not
+   * already there.
+   *
+   * @param known The IDs of the seasons already in the database, indexed by
+   *              their year and name.
+   *
+   * @param year The year of the season.
+   *
+   * @param name The name of the season.
+   *
+   * @return The database ID of the season.
+   */
+  private int
+  seasonId(HashMap<String, Integer> known, String year, String name)
+  {
+    // Return the ID of the season if it is already in the database.
+    Integer id = known.get(year + "\n" + name);
+    if(id != null)
+    {
+      return(id);
+    }
+
+    // Add the season to the database.
+    return(m_database.seasonAdd(year, name));
+  }
+
+  /**
+   * Performs initial setup for the seasons handler.  The seasons themselves
+   * are loaded on first use (see load()).
+   */
+  public void
+  setup()
+  {
+    // Get references to the web server, database, configuration manager,
+    // events, and timekeeper objects.
+    m_webserver = WebServer.getInstance();
+    m_database = Database.getInstance();
+    m_config = Config.getInstance();
+    m_events = Events.getInstance();
+    m_timekeeper = TimeKeeper.getInstance();
 
     // Register the dynamic handler for the season.json file.
     m_webserver.registerDynamicFile("/admin/seasons/seasons.json",
@@ -0,0 +1,597 @@
+// Copyright (c) 2024 Brian Kircher
+//
+// Open Source Software; you can modify and/or share it under the terms of BSD
+// license file in the root directory of this project.
+
+package FLLScorer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.bspfsystems.simplejson.JSONArray;
+import org.bspfsystems.simplejson.JSONObject;
+import org.bspfsystems.simplejson.SimpleJSONArray;
+import org.bspfsystems.simplejson.SimpleJSONObject;
+import org.bspfsystems.simplejson.parser.JSONParser;
+import org.eclipse.jetty.websocket.api.Callback;
+import org.eclipse.jetty.websocket.api.Session;
+import org.eclipse.jetty.websocket.api.StatusCode;
+
+/**
+ * Handles the outbound messages for a single WebSocket session.
+ * <p>
+ * Messages are queued and sent one at a time, with the next message being
+ * sent only once the previous one has been written to the client.  State
+ * messages that are superseded by a newer message (such as the match time or
+ * the state of a team's score) are replaced in place in the queue instead of
+ * being sent twice, so the messages are still sent in the order in which
+ * their state first changed.  A client that falls too far behind, or that
+ * does not accept a message within the stall deadline, is disconnected; it
+ * will reconnect and receive the full current state at that point.
+ */
+public class SocketQueue
+{
+  /**
+   * The maximum number of bytes (of UTF-8 encoded text) that can be queued
+   * for a single session before the client is considered to be too slow and
+   * is disconnected.
+   */
+  private static final int MAX_BYTES = 64 * 1024;
+
+  /**
+   * The amount of time, in milliseconds, that a single message can be in
+   * flight before the client is considered to be stalled and is
+   * disconnected.
+   */
+  private static final long STALL_DEADLINE = 10000;
+
+  /**
+   * The lock that protects the list of active queues and the counters.
+   */
+  private static Lock m_globalLock = new ReentrantLock();
+
+  /**
+   * The list of queues for the currently active sessions.
+   */
+  private static ArrayList<SocketQueue> m_queues =
+    new ArrayList<SocketQueue>();
+
+  /**
+   * The total number of messages that have been sent.
+   */
+  private static long m_sent = 0;
+
+  /**
+   * The total number of messages that have been replaced in a queue by a
+   * newer message of the same kind.
+   */
+  private static long m_coalesced = 0;
+
+  /**
+   * The total number of messages that have been dropped because the session
+   * was closed or the client was too slow.
+   */
+  private static long m_dropped = 0;
+
+  /**
+   * The total number of clients that have been disconnected because they
+   * were too slow.
+   */
+  private static long m_disconnected = 0;
+
+  /**
+   * The name of the endpoint for this session.
+   */
+  private String m_name;
+
+  /**
+   * The session for this queue.
+   */
+  private Session m_session;
+
+  /**
+   * The path of the WebSocket for this session.
+   */
+  private String m_path;
+
+  /**
+   * The lock that protects the state of this queue.
+   */
+  private Lock m_lock = new ReentrantLock();
+
+  /**
+   * The messages that are waiting to be sent.
+   */
+  private ArrayList<String> m_messages = new ArrayList<String>();
+
+  /**
+   * The coalescing key for each of the messages that are waiting to be
+   * sent.
+   */
+  private ArrayList<String> m_keys = new ArrayList<String>();
+
+  /**
+   * The size, in bytes, of each of the messages that are waiting to be sent.
+   */
+  private ArrayList<Integer> m_sizes = new ArrayList<Integer>();
+
+  /**
+   * The time, in milliseconds, at which each of the messages that are
+   * waiting to be sent was queued.
+   */
+  private ArrayList<Long> m_times = new ArrayList<Long>();
+
+  /**
+   * The number of bytes that are queued (including the message in flight).
+   */
+  private int m_bytes = 0;
+
+  /**
+   * The number of bytes in the message that is in flight, or <b>-1</b> if
+   * there is no message in flight.
+   */
+  private int m_inFlight = -1;
+
+  /**
+   * The time, in milliseconds, at which the message in flight was sent.
+   */
+  private long m_sendTime = 0;
+
+  /**
+   * The time, in milliseconds, at which the message in flight was queued.
+   */
+  private long m_queueTime = 0;
+
+  /**
+   * The longest time, in milliseconds, that a message has waited from being
+   * queued to being written to the client.
+   */
+  private long m_maxDelay = 0;
+
+  /**
+   * Set to <b>true</b> while messages are being handed to the session; used
+   * to avoid recursion when the session completes a send immediately.
+   */
+  private boolean m_flushing = false;
+
+  /**
+   * Set to <b>true</b> once the session has been closed.
+   */
+  private boolean m_closed = false;
+
+  /**
+   * The constructor.
+   *
+   * @param name The name of the endpoint for this session.
+   *
+   * @param session The WebSocket session to send messages to.
+   */
+  public
+  SocketQueue(String name, Session session)
+  {
+    // Save the endpoint name and session.
+    m_name = name;
+    m_session = session;
+    m_path = session.getUpgradeRequest().getRequestURI().getPath();
+
+    // Add this queue to the list of active queues.
+    m_globalLock.lock();
+    m_queues.add(this);
+    m_globalLock.unlock();
+
+    // Capture the opening of this session, if the traffic is being captured.
+    TrafficCapture.getInstance().socketOpen(this);
+  }
+
+  /**
+   * Gets the path of the WebSocket for this session.
+   *
+   * @return The path of the WebSocket.
+   */
+  public String
+  pathGet()
+  {
+    // Return the path.
+    return(m_path);
+  }
+
+  /**
+   * Determines the coalescing key for a message.  Messages with the same key
+   * describe the same piece of state, so only the newest needs to be sent.
+   *
+   * @param message The message to be sent.
+   *
+   * @return The key for the message.
+   */
+  private static String
+  key(String message)
+  {
+    // Find the first and second separators in the message.
+    int first = message.indexOf(':');
+    int second = (first == -1) ? -1 : message.indexOf(':', first + 1);
+
+    // Messages without a separator (such as "nop") are keyed by the message
+    // itself.
+    if(first == -1)
+    {
+      return(message);
+    }
+
+    // Messages with a team number (such as "m1:<team>:<state>:<score>" or
+    // "ip:<team>:<score>") are keyed by the type and team number.
+    if(second != -1)
+    {
+      return(message.substring(0, second));
+    }
+
+    // The timer display enable/disable is separate from the display
+    // location.
+    if(message.equals("s:timer_enable") || message.equals("s:timer_disable"))
+    {
+      return("s:enable");
+    }
+    if(message.startsWith("s:timer_"))
+    {
+      return("s:location");
+    }
+
+    // Otherwise, the message is keyed by its type (such as "t:" or "m:").
+    return(message.substring(0, first + 1));
+  }
+
+  /**
+   * Queues a message to be sent to the client.
+   *
+   * @param message The message to be sent.
+   */
+  public void
+  send(String message)
+  {
+    boolean stalled = false;
+    int coalesced = 0;
+    int dropped = 0;
+
+    // Compute the coalescing key and size of this message.  The size is the
+    // length of the message once it is encoded for the WebSocket.
+    String key = key(message);
+    int size = message.getBytes(StandardCharsets.UTF_8).length;
+
+    // Lock the queue.
+    m_lock.lock();
+
+    // Drop the message if the session has already been closed.
+    if(m_closed)
+    {
+      dropped++;
+    }
+    else
+    {
+      // Find any queued message with the same key, since it has been
+      // superseded by this one.
+      int idx = m_keys.indexOf(key);
+      int replaced = 0;
+      if(idx != -1)
+      {
+        replaced = m_sizes.get(idx);
+        coalesced++;
+      }
+
+      // See if the client has stopped accepting messages, or has fallen too
+      // far behind.
+      if(((m_inFlight != -1) &&
+          ((java.lang.System.currentTimeMillis() - m_sendTime) >
+           STALL_DEADLINE)) ||
+         ((m_bytes - replaced + size) > MAX_BYTES))
+      {
+        // The client is stalled, so drop all the queued messages (including
+        // this one, unless it replaced a queued message).
+        dropped += m_messages.size() + ((idx == -1) ? 1 : 0);
+        m_messages.clear();
+        m_keys.clear();
+        m_sizes.clear();
+        m_times.clear();
+        m_bytes = 0;
+        m_closed = true;
+        stalled = true;
+      }
+      else if(idx != -1)
+      {
+        // Replace the superseded message in place, so that it keeps its
+        // position in the queue (and the time it was queued).
+        m_messages.set(idx, message);
+        m_sizes.set(idx, size);
+        m_bytes += size - replaced;
+      }
+      else
+      {
+        // Add this message to the end of the queue.
+        m_messages.add(message);
+        m_keys.add(key);
+        m_sizes.add(size);
+        m_times.add(java.lang.System.currentTimeMillis());
+        m_bytes += size;
+      }
+    }
+
+    // Unlock the queue.
+    m_lock.unlock();
+
+    // Update the global counters.
+    m_globalLock.lock();
+    m_coalesced += coalesced;
+    m_dropped += dropped;
+    if(stalled)
+    {
+      m_disconnected++;
+    }
+    m_globalLock.unlock();
+
+    // Disconnect a stalled client; it will reconnect and receive the current
+    // state.
+    if(stalled)
+    {
+      System.out.println("WebSocket error: disconnecting slow " + m_name +
+                         " client");
+      m_session.close(StatusCode.TRY_AGAIN_LATER, "slow consumer",
+                      Callback.NOOP);
+      remove();
+    }
+
+    // Otherwise, start sending the queued messages.
+    else
+    {
+      flush();
+    }
+  }
+
+  /**
+   * Sends the next message in the queue, if there is not already a message in
+   * flight.
+   */
+  private void
+  flush()
+  {
+    // Lock the queue.
+    m_lock.lock();
+
+    // Do nothing if another call is already sending messages.  This happens
+    // when a send completes immediately, from within the sendText() call.
+    if(m_flushing)
+    {
+      m_lock.unlock();
+      return;
+    }
+    m_flushing = true;
+
+    // Loop while there is no message in flight and there are messages to be
+    // sent.
+    while(!m_closed && (m_inFlight == -1) && (m_messages.size() != 0))
+    {
+      // Remove the next message from the queue.
+      String message = m_messages.remove(0);
+      m_keys.remove(0);
+      m_queueTime = m_times.remove(0);
+
+      // Mark this message as in flight.
+      m_inFlight = m_sizes.remove(0);
+      m_sendTime = java.lang.System.currentTimeMillis();
+
+      // Send the message to the client; the callback will send the next
+      // message once this one has been written.
+      m_session.sendText(message, new Callback()
+        {
+          @Override
+          public void
+          succeed()
+          {
+            // The message has been sent.
+            complete(true);
+          }
+
+          @Override
+          public void
+          fail(Throwable x)
+          {
+            // The message could not be sent.
+            complete(false);
+          }
+        });
+    }
+
+    // Done sending messages.
+    m_flushing = false;
+
+    // Unlock the queue.
+    m_lock.unlock();
+  }
+
+  /**
+   * Called when the message in flight has been written to the client.
+   *
+   * @param success <b>true</b> if the message was successfully written.
+   */
+  private void
+  complete(boolean success)
+  {
+    long delay = 0;
+
+    // Lock the queue.
+    m_lock.lock();
+
+    // Compute the time from queuing the message to it being written.
+    if(success && (m_inFlight != -1))
+    {
+      delay = java.lang.System.currentTimeMillis() - m_queueTime;
+      if(delay > m_maxDelay)
+      {
+        m_maxDelay = delay;
+      }
+    }
+
+    // Remove the message in flight from the queued byte count.
+    if(m_inFlight != -1)
+    {
+      m_bytes -= m_inFlight;
+      m_inFlight = -1;
+    }
+
+    // Unlock the queue.
+    m_lock.unlock();
+
+    // Update the global counters.
+    m_globalLock.lock();
+    if(success)
+    {
+      m_sent++;
+    }
+    else
+    {
+      m_dropped++;
+    }
+    m_globalLock.unlock();
+
+    // Record the delay of messages to the timer displays with the timer
+    // statistics.
+    if(success && (m_name.equals("timer") || m_name.equals("timekeeper")))
+    {
+      TimerStats.getInstance().queue(delay);
+    }
+
+    // Send the next message in the queue.
+    if(success)
+    {
+      flush();
+    }
+  }
+
+  /**
+   * Called when the session has been closed, discarding any queued messages.
+   */
+  public void
+  close()
+  {
+    int dropped;
+
+    // Lock the queue.
+    m_lock.lock();
+
+    // Discard the queued messages.
+    dropped = m_messages.size();
+    m_messages.clear();
+    m_keys.clear();
+    m_sizes.clear();
+    m_times.clear();
+    m_bytes = 0;
+    m_inFlight = -1;
+    m_closed = true;
+
+    // Unlock the queue.
+    m_lock.unlock();
+
+    // Count the discarded messages as dropped.
+    m_globalLock.lock();
+    m_dropped += dropped;
+    m_globalLock.unlock();
+
+    // Remove this queue from the list of active queues.
+    remove();
+
+    // Capture the closing of this session, if the traffic is being captured.
+    TrafficCapture.getInstance().socketClose(this);
+  }
+
+  /**
+   * Removes this queue from the list of active queues.
+   */
+  private void
+  remove()
+  {
+    // Remove this queue from the list of active queues.
+    m_globalLock.lock();
+    m_queues.remove(this);
+    m_globalLock.unlock();
+  }
+
+  /**
+   * Counts the active queues (which is the open WebSocket sessions) for each
+   * endpoint.
+   *
+   * @return The number of active queues, indexed by the endpoint name.
+   */
+  public static HashMap<String, Integer>
+  countsGet()
+  {
+    HashMap<String, Integer> counts = new HashMap<String, Integer>();
+
+    // Count the active queues for each endpoint.
+    m_globalLock.lock();
+    for(SocketQueue queue : m_queues)
+    {
+      counts.merge(queue.m_name, 1, Integer::sum);
+    }
+    m_globalLock.unlock();
+
+    // Return the counts.
+    return(counts);
+  }
+
+  /**
+   * Handles requests for /admin/status/sockets.json.
+   *
+   * @param path The path from the request.
+   *
+   * @param paramMap The parameters from the request.
+   *
+   * @return An array of bytes to return to the client.
+   */
+  public static byte[]
+  serveStatus(String path, HashMap<String, String> paramMap)
+  {
+    JSONObject result = new SimpleJSONObject();
+    JSONArray sockets = new SimpleJSONArray();
+
+    // Lock the list of active queues.
+    m_globalLock.lock();
+
+    // Loop through the active queues.
+    for(int idx = 0; idx < m_queues.size(); idx++)
+    {
+      SocketQueue queue = m_queues.get(idx);
+
+      // Add the depth of this queue to the sockets array.
+      queue.m_lock.lock();
+      JSONObject socket = new SimpleJSONObject();
+      socket.set("endpoint", queue.m_name);
+      socket.set("depth", queue.m_messages.size() +
+                          ((queue.m_inFlight == -1) ? 0 : 1));
+      socket.set("bytes", queue.m_bytes);
+      socket.set("max_delay", queue.m_maxDelay);
+      queue.m_lock.unlock();
+      sockets.addEntry(socket);
+    }
+
+    // Add the counters to the JSON response.
+    result.set("sockets", sockets);
+    result.set("sent", m_sent);
+    result.set("coalesced", m_coalesced);
+    result.set("dropped", m_dropped);
+    result.set("disconnected", m_disconnected);
+
+    // Unlock the list of active queues.
+    m_globalLock.unlock();
+
+    // Convert the response into a byte array and return it.
+    try
+    {
+      String json = JSONParser.serialize(result);
+      return(json.getBytes(StandardCharsets.UTF_8));
+    }
+    catch(Exception e)
+    {
+      return("{}".getBytes(StandardCharsets.UTF_8));
+    }
+  }
+}
@@ -10,6 +10,8 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 
 import org.bspfsystems.simplejson.JSONArray;
 import org.bspfsystems.simplejson.JSONObject;
@@ -49,6 +51,256 @@ public class Standings
    */
   private Seasons m_season = null;
 
+  /**
+   * A snapshot of the data for an event that is used to compute its
+   * contribution to the league standings.  A snapshot is read from the
+   * database on a single thread and never modified afterwards, so the
+   * contributions of several events can be computed concurrently.
+   */
+  static class Snapshot
+  {
+    /**
+     * The ID of the event.
+     */
+    private final int m_eventId;
+
+    /**
+     * The version of the shared data when this snapshot was read.
+     */
+    private final int m_version;
+
+    /**
+     * The version of the event's data when this snapshot was read.
+     */
+    private final int m_eventVersion;
+
+    /**
+     * The teams at the event, with their robot game scores and judging
+     * results.
+     */
+    private final EventData m_data;
+
+    /**
+     * Creates a snapshot of the data for an event.
+     *
+     * @param eventId The ID of the event.
+     *
+     * @param version The version of the shared data.
+     *
+     * @param eventVersion The version of the event's data.
+     *
+     * @param data The teams at the event, with their robot game scores and
+     *             judging results.
+     */
+    Snapshot(int eventId, int version, int eventVersion, EventData data)
+    {
+      m_eventId = eventId;
+      m_version = version;
+      m_eventVersion = eventVersion;
+      m_data = data;
+    }
+
+    /**
+     * Gets the ID of the event.
+     *
+     * @return The ID of the event.
+     */
+    int
+    eventIdGet()
+    {
+      return(m_eventId);
+    }
+
+    /**
+     * Gets the version of the shared data when this snapshot was read.
+     *
+     * @return The version of the shared data.
+     */
+    int
+    versionGet()
+    {
+      return(m_version);
+    }
+
+    /**
+     * Gets the version of the event's data when this snapshot was read.
+     *
+     * @return The version of the event's data.
+     */
+    int
+    eventVersionGet()
+    {
+      return(m_eventVersion);
+    }
+
+    /**
+     * Gets the teams at the event, with their robot game scores and judging
+     * results.
+     *
+     * @return The event's data.
+     */
+    EventData
+    dataGet()
+    {
+      return(m_data);
+    }
+  }
+
+  /**
+   * The contribution of an event to the league standings.
+   */
+  static class Contribution
+  {
+    /**
+     * The version of the shared data when this contribution was computed.
+     */
+    private final int m_version;
+
+    /**
+     * The version of the event's data when this contribution was computed.
+     */
+    private final int m_eventVersion;
+
+    /**
+     * The IDs of the teams that earned an event score, in the order that the
+     * scores are applied.
+     */
+    private final ArrayList<Integer> m_teams = new ArrayList<Integer>();
+
+    /**
+     * The event scores earned by the teams.
+     */
+    private final ArrayList<Integer> m_scores = new ArrayList<Integer>();
+
+    /**
+     * Creates an empty contribution.
+     *
+     * @param version The version of the shared data.
+     *
+     * @param eventVersion The version of the event's data.
+     */
+    Contribution(int version, int eventVersion)
+    {
+      m_version = version;
+      m_eventVersion = eventVersion;
+    }
+
+    /**
+     * Gets the version of the shared data when this contribution was
+     * computed.
+     *
+     * @return The version of the shared data.
+     */
+    int
+    versionGet()
+    {
+      return(m_version);
+    }
+
+    /**
+     * Gets the version of the event's data when this contribution was
+     * computed.
+     *
+     * @return The version of the event's data.
+     */
+    int
+    eventVersionGet()
+    {
+      return(m_eventVersion);
+    }
+
+    /**
+     * Gets the number of teams that earned an event score.
+     *
+     * @return The number of teams.
+     */
+    int
+    countGet()
+    {
+      return(m_teams.size());
+    }
+
+    /**
+     * Gets the ID of a team that earned an event score.
+     *
+     * @param idx The index of the team in the contribution.
+     *
+     * @return The ID of the team.
+     */
+    int
+    teamGet(int idx)
+    {
+      return(m_teams.get(idx));
+    }
+
+    /**
+     * Gets the event score earned by a team.
+     *
+     * @param idx The index of the team in the contribution.
+     *
+     * @return The event score earned by the team.
+     */
+    int
+    scoreGet(int idx)
+    {
+      return(m_scores.get(idx));
+    }
+
+    /**
+     * Adds a team's event score to the contribution.
+     *
+     * @param team The ID of the team.
+     *
+     * @param score The event score earned by the team.
+     */
+    void
+    add(int team, int score)
+    {
+      m_teams.add(team);
+      m_scores.add(score);
+    }
+
+    /**
+     * Adds the event scores of another contribution to this contribution.
+     *
+     * @param other The contribution whose event scores are added.
+     */
+    void
+    addAll(Contribution other)
+    {
+      m_teams.addAll(other.m_teams);
+      m_scores.addAll(other.m_scores);
+    }
+  }
+
+  /**
+   * The cached contribution of each event to the league standings, indexed by
+   * the event ID.
+   */
+  private HashMap<Integer, Contribution> m_contributions =
+    new HashMap<Integer, Contribution>();
+
+  /**
+   * The cached JSON data for the standings, or <b>null</b> if it has not been
+   * computed.
+   */
+  private byte[] m_json = null;
+
+  /**
+   * The ID of the season for the cached JSON data.
+   */
+  private int m_jsonSeason = -1;
+
+  /**
+   * The number of database changes when the cached JSON data was computed.
+   */
+  private int m_jsonChanges = -1;
+
+  /**
+   * The accent color when the cached JSON data was computed.
+   */
+  private String m_jsonAccent = null;
+
   /**
    * Gets the Standings singleton object, creating it if necessary.
    *
@@ -76,6 +328,30 @@ public class Standings
   {
   }
 
+  /**
+   * Discards the cached contribution of an event, since the event has been
+   * removed from the database.
+   *
+   * @param event_id The ID of the event.
+   */
+  public synchronized void
+  eventRemoved(int event_id)
+  {
+    // Discard the event's contribution.
+    m_contributions.remove(event_id);
+  }
+
+  /**
+   * Discards the cached contributions of every event.  This is called when a
+   * season (along with its events) is removed from the database.
+   */
+  public synchronized void
+  invalidate()
+  {
+    // Discard all the contributions.
+    m_contributions.clear();
+  }
+
   /**
    * Compares two sets of team scores to determine the placement order.
    *
@@ -99,7 +375,7 @@ public class Standings
    *         second team places higher than the first team, and 0 if the teams
    *         are tied.
    */
-  private int
+  private static int
   scoresCompare(float a1, float a2, float a3, float a4, float b1, float b2,
                 float b3, float b4)
   {
@@ -136,11 +412,9 @@ public class Standings
   /**
    * Gets the robot game rankings for the teams at an event.
    *
-   * @param season_id The ID of the season.
-   *
-   * @param event_id The ID of the event.
+   * @param snapshot The snapshot of the event's data.
    *
-   * @param teams The set of teams for the season.
+   * @param teams The indices of the teams to rank in the snapshot.
    *
    * @param ranks The array into which the robot game rankings of the teams at
    *              this event are stored.
@@ -148,8 +422,8 @@ public class Standings
    * @param cv The array into which the robot game Core Values scores for the
    *           teams at this event are stored.
    */
-  private void
-  getRobotRankings(int season_id, int event_id, ArrayList<Integer> teams,
+  private static void
+  getRobotRankings(Snapshot snapshot, ArrayList<Integer> teams,
                    ArrayList<Integer> ranks, ArrayList<Integer> cv)
   {
     // A list of information about teams, maintained in team number order.
@@ -159,75 +433,33 @@ public class Standings
     ArrayList<Float> match4 = new ArrayList<Float>();
     ArrayList<Float> high = new ArrayList<Float>();
 
-    // Set the score indicator for each team to no score available.
+    // Get the scores of each team from the snapshot, summing up the core
+    // values scores of the teams that have scores.
+    EventData data = snapshot.dataGet();
     for(int idx = 0; idx < teams.size(); idx++)
     {
-      match1.add(idx, (float)-100);
-      match2.add(idx, (float)-100);
-      match3.add(idx, (float)-100);
-      match4.add(idx, (float)-100);
+      int team = teams.get(idx);
+      match1.add(idx, data.scoreGet(1, team));
+      match2.add(idx, data.scoreGet(2, team));
+      match3.add(idx, data.scoreGet(3, team));
+      match4.add(idx, data.scoreGet(4, team));
       high.add(idx, (float)-100);
-      cv.add(idx, null);
-    }
-
-    // A list of information about the scores.
-    ArrayList<Integer> ids2 = new ArrayList<Integer>();
-    ArrayList<Float> score1 = new ArrayList<Float>();
-    ArrayList<Integer> core1 = new ArrayList<Integer>();
-    ArrayList<Float> score2 = new ArrayList<Float>();
-    ArrayList<Integer> core2 = new ArrayList<Integer>();
-    ArrayList<Float> score3 = new ArrayList<Float>();
-    ArrayList<Integer> core3 = new ArrayList<Integer>();
-    ArrayList<Float> score4 = new ArrayList<Float>();
-    ArrayList<Integer> core4 = new ArrayList<Integer>();
-
-    // Enumerate the scores for this event.
-    m_database.scoreEnumerate(season_id, event_id, null, ids2, null, null,
-                              null, score1, core1, null, score2, core2, null,
-                              score3, core3, null, score4, core4, null);
-
-    // Loop through all the scores.
-    for(int idx = 0; idx < ids2.size(); idx++)
-    {
-      // Ignore this score if it is not for a team at this event (should not
-      // happen).
-      int team_idx = teams.indexOf(ids2.get(idx));
-      if(team_idx == -1)
-      {
-        continue;
-      }
-
-      // Save the match 1 score, if it exists.
-      if(score1.get(idx) != null)
-      {
-        match1.set(team_idx, score1.get(idx));
-      }
-
-      // Save the match 2 score, if it exists.
-      if(score2.get(idx) != null)
+      if(data.scoredGet(team))
       {
-        match2.set(team_idx, score2.get(idx));
-      }
-
-      // Save the match 3 score, if it exists.
-      if(score3.get(idx) != null)
-      {
-        match3.set(team_idx, score3.get(idx));
+        int sum = 0;
+        for(int match = 1; match < EventData.MATCHES; match++)
+        {
+          if(data.coreGet(match, team) != EventData.NO_SCORE)
+          {
+            sum += data.coreGet(match, team);
+          }
+        }
+        cv.add(idx, sum);
       }
-
-      // Save the match 4 score, if it exists.
-      if(score4.get(idx) != null)
+      else
       {
-        match4.set(team_idx, score4.get(idx));
+        cv.add(idx, null);
       }
-
-      // Sum up and save the core values scores, if they exist.
-      Integer s1 = core1.get(idx);
-      Integer s2 = core2.get(idx);
-      Integer s3 = core3.get(idx);
-      Integer s4 = core4.get(idx);
-      cv.set(team_idx, (((s1 == null) ? 0 : s1) + ((s2 == null) ? 0 : s2) +
-                        ((s3 == null) ? 0 : s3) + ((s4 == null) ? 0 : s4)));
     }
 
     // Loop through all the teams to find their high score.
@@ -324,18 +556,14 @@ public class Standings
   /**
    * Gets the rankings for a particular judging area for the teams at an event.
    *
-   * @param teams The list of team IDs in the order that matches the other team
-   *              information.
-   *
-   * @param ids The list of team IDs in the order that matches the scores.
+   * @param teams The list of teams in the order that matches the scores.
    *
    * @param scores The array containing the scores for a judging area, which is
    *               replaced with the rankings for the teams in this judging
    *               area.
    */
-  private void
-  rankJudgingArea(ArrayList<Integer> teams, ArrayList<Integer> ids,
-                  ArrayList<Integer> scores)
+  private static void
+  rankJudgingArea(ArrayList<Integer> teams, ArrayList<Integer> scores)
   {
     // An array that maps between the teams in their given order and a sorted
     // order.  Start with that order being a 1-to-1 mapping.
@@ -348,14 +576,6 @@ public class Standings
     // Sort the teams by their judging score.
     for(int idx = 0; idx < teams.size(); idx++)
     {
-      // Ignore this score if it is not for a team at this event (should not
-      // happen).
-      int team_idx = teams.indexOf(ids.get(idx));
-      if(team_idx == -1)
-      {
-        continue;
-      }
-
       // This team does not need to be moved if it does not have a judging
       // score.
       if(scores.get(sort.get(idx)) == -1)
@@ -426,11 +646,9 @@ public class Standings
   /**
    * Gets the judging rankings for the teams at an event.
    *
-   * @param season_id The ID of the season.
+   * @param snapshot The snapshot of the event's data.
    *
-   * @param event_id The ID of the event.
-   *
-   * @param teams The set of teams for the season.
+   * @param teams The indices of the teams to rank in the snapshot.
    *
    * @param robotCore The Core Values scores from the robot game.
    *
@@ -443,53 +661,22 @@ public class Standings
    * @param core The array into which the Core Values rankings for this event
    *             are stored.
    */
-  private void
-  getJudgingRankings(int season_id, int event_id,
-                     ArrayList<Integer> teams,
+  private static void
+  getJudgingRankings(Snapshot snapshot, ArrayList<Integer> teams,
                      ArrayList<Integer> robotCore,
                      ArrayList<Integer> project,
                      ArrayList<Integer> robot,
                      ArrayList<Integer> core)
   {
-    // A list of information about the judging scores.
-    ArrayList<Integer> ids = new ArrayList<Integer>();
-
-    // Enumerate the judging scores for this event.
-    m_database.judgingEnumerate(season_id, event_id, null, null, null, ids,
-                                project, robot, core, null);
-
-    // Insert empty scores to the judging list for teams that do not have any
-    // judging scores at the event.
-    for(int idx = 0; idx < teams.size(); idx++)
-    {
-      int idx2 = ids.indexOf(teams.get(idx));
-      if(idx2 == -1)
-      {
-        ids.add(idx, -1);
-        project.add(idx, -1);
-        robot.add(idx, -1);
-        core.add(idx, -1);
-      }
-    }
-
-    // Sort the judging scores to match the team list order.
-    for(int idx = 0; idx < teams.size(); idx++)
+    // Copy the judging scores of the teams from the snapshot (since they are
+    // modified below), using -1 for the teams that do not have any judging
+    // scores at the event.
+    EventData data = snapshot.dataGet();
+    for(int team : teams)
     {
-      // Get the index of this team in the team list.  If it does not exist
-      // (which should not happen) or it matches the current index of the team,
-      // there is nothing to do with this team.
-      int idx2 = ids.indexOf(teams.get(idx));
-      if((idx2 == -1) || (idx == idx2))
-      {
-        continue;
-      }
-
-      // Swap these two entries, so that these arrays match the order of the
-      // teams array.
-      Collections.swap(ids, idx, idx2);
-      Collections.swap(project, idx, idx2);
-      Collections.swap(robot, idx, idx2);
-      Collections.swap(core, idx, idx2);
+      project.add(data.projectGet(team));
+      robot.add(data.robotGet(team));
+      core.add(data.coreValuesGet(team));
     }
 
     // Add the robot game Core Values scores to the judging Core Values scores.
@@ -516,42 +703,37 @@ public class Standings
     }
 
     // Rank the teams in the various judging areas.
-    rankJudgingArea(teams, ids, project);
-    rankJudgingArea(teams, ids, robot);
-    rankJudgingArea(teams, ids, core);
+    rankJudgingArea(teams, project);
+    rankJudgingArea(teams, robot);
+    rankJudgingArea(teams, core);
   }
 
   /**
    * Computes the scores for an event.
    *
-   * @param eventId The ID of the event.
-   *
-   * @param teams The list of the teams in the league.
-   *
-   * @param eventTeams The list of the teams at this event.
+   * @param snapshot The snapshot of the event's data.
    *
-   * @param event1 The list of first event scores for the teams in the league.
+   * @param eventTeams The indices of the teams to score in the snapshot.
    *
-   * @param event2 The list of second event scores for the teams in the league.
+   * @param contribution The contribution of the event to the league
+   *                     standings, to which the teams that earned an event
+   *                     score are added.
    */
-  private void
-  computeScores(int eventId, ArrayList<Integer> teams,
-                ArrayList<Integer> eventTeams, ArrayList<Integer> event1,
-                ArrayList<Integer> event2)
+  private static void
+  computeScores(Snapshot snapshot, ArrayList<Integer> eventTeams,
+                Contribution contribution)
   {
-    int season_id = m_season.seasonIdGet();
-
     // Get the robot ranking for this event.
     ArrayList<Integer> robotRanks = new ArrayList<Integer>();
     ArrayList<Integer> robotCore = new ArrayList<Integer>();
-    getRobotRankings(season_id, eventId, eventTeams, robotRanks, robotCore);
+    getRobotRankings(snapshot, eventTeams, robotRanks, robotCore);
 
     // Get the judging rankings for this event.
     ArrayList<Integer> judgingProject = new ArrayList<Integer>();
     ArrayList<Integer> judgingRobot = new ArrayList<Integer>();
     ArrayList<Integer> judgingCore = new ArrayList<Integer>();
-    getJudgingRankings(season_id, eventId, eventTeams, robotCore,
-                       judgingProject, judgingRobot, judgingCore);
+    getJudgingRankings(snapshot, eventTeams, robotCore, judgingProject,
+                       judgingRobot, judgingCore);
 
     // The number of teams in each ranking area.
     int teamsRobotGame = 0;
@@ -674,24 +856,198 @@ public class Standings
         }
       }
 
-      // Save this score in the appropriate place.  The score is ignored if
-      // it is zero, otherwise it is saved as the first or second event score
-      // for this team.  If the team already has a first and second event
-      // score, this score is discarded (only the scores from the first two
-      // events count).
-      int teamIdx = teams.indexOf(eventTeams.get(team));
-      if(score == 0)
+      // Add this score to the event's contribution, unless it is zero (in
+      // which case the team did not earn an event score).
+      if(score != 0)
+      {
+        contribution.add(snapshot.dataGet().idGet(eventTeams.get(team)),
+                         score);
+      }
+    }
+  }
+
+  /**
+   * Reads a snapshot of the data for an event from the database.
+   *
+   * @param season_id The ID of the season.
+   *
+   * @param eventId The ID of the event.
+   *
+   * @param version The version of the shared data.
+   *
+   * @param eventVersion The version of the event's data.
+   *
+   * @return The snapshot of the event's data.
+   */
+  private Snapshot
+  snapshotGet(int season_id, int eventId, int version, int eventVersion)
+  {
+    // Read the teams, scores, and judging results for this event, and save
+    // them along with the event ID and the versions of the data.
+    return(new Snapshot(eventId, version, eventVersion,
+                        EventData.read(season_id, eventId, true, false,
+                                       true)));
+  }
+
+  /**
+   * Computes the contribution of a single division at an event.
+   *
+   * @param snapshot The snapshot of the event's data.
+   *
+   * @param teamDivisions The division of each team in the league, indexed by
+   *                      the team ID.
+   *
+   * @param division The division, or <b>0</b> to include all the teams at
+   *                 the event (when division support is disabled).
+   *
+   * @return The contribution of the teams in the division.
+   */
+  private static Contribution
+  computeDivision(Snapshot snapshot, HashMap<Integer, Integer> teamDivisions,
+                  int division)
+  {
+    Contribution contribution =
+      new Contribution(snapshot.versionGet(), snapshot.eventVersionGet());
+
+    // Loop through the teams in this event, adding them to the list of teams
+    // in this division if they are in the correct division (or all the teams
+    // if division support is disabled).
+    EventData data = snapshot.dataGet();
+    ArrayList<Integer> divTeams = new ArrayList<Integer>();
+    for(int team = 0; team < data.countGet(); team++)
+    {
+      if((division == 0) ||
+         (teamDivisions.get(data.idGet(team)) == division))
+      {
+        divTeams.add(team);
+      }
+    }
+
+    // Compute the scores for the teams in this division.
+    computeScores(snapshot, divTeams, contribution);
+    return(contribution);
+  }
+
+  /**
+   * Computes the contributions of a set of events to the league standings.
+   * Each division of each event is computed as a separate task in the
+   * fork-join pool; the results are merged in event and division order, so
+   * they are identical to computing the contributions sequentially.
+   *
+   * @param snapshots The snapshots of the events' data.
+   *
+   * @param teamDivisions The division of each team in the league, indexed by
+   *                      the team ID.
+   *
+   * @param divisions The number of divisions, or <b>0</b> if division
+   *                  support is disabled.
+   *
+   * @param pool The fork-join pool in which to compute the contributions, or
+   *             <b>null</b> to compute them on the calling thread.
+   *
+   * @return The contributions of the events, in the same order as the
+   *         snapshots.
+   */
+  static ArrayList<Contribution>
+  computeContributions(ArrayList<Snapshot> snapshots,
+                       HashMap<Integer, Integer> teamDivisions,
+                       int divisions, ForkJoinPool pool)
+  {
+    ArrayList<ForkJoinTask<Contribution>> tasks =
+      new ArrayList<ForkJoinTask<Contribution>>();
+    ArrayList<Contribution> parts = new ArrayList<Contribution>();
+    int first = (divisions == 0) ? 0 : 1;
+
+    // Loop through the divisions of the events, computing them directly or
+    // submitting them to the pool.
+    for(Snapshot snapshot : snapshots)
+    {
+      for(int div = first; div <= divisions; div++)
       {
+        if(pool == null)
+        {
+          parts.add(computeDivision(snapshot, teamDivisions, div));
+        }
+        else
+        {
+          final int division = div;
+          tasks.add(pool.submit(() -> computeDivision(snapshot, teamDivisions,
+                                                      division)));
+        }
       }
-      else if(event1.get(teamIdx) == -1)
+    }
+
+    // Wait for the tasks in the pool to complete, in submission order.
+    for(ForkJoinTask<Contribution> task : tasks)
+    {
+      parts.add(task.join());
+    }
+
+    // Merge the divisions of each event into the event's contribution.
+    ArrayList<Contribution> contributions = new ArrayList<Contribution>();
+    int part = 0;
+    for(Snapshot snapshot : snapshots)
+    {
+      Contribution contribution =
+        new Contribution(snapshot.versionGet(), snapshot.eventVersionGet());
+      for(int div = first; div <= divisions; div++, part++)
       {
-        event1.set(teamIdx, score);
+        contribution.addAll(parts.get(part));
       }
-      else if(event2.get(teamIdx) == -1)
+      contributions.add(contribution);
+    }
+
+    // Return the contributions.
+    return(contributions);
+  }
+
+  /**
+   * Brings the cached contributions of a season's events to the league
+   * standings up to date, recomputing (in parallel) those whose data has
+   * changed since they were computed.
+   *
+   * @param season_id The ID of the season.
+   *
+   * @param events The IDs of the events in the season.
+   *
+   * @param teamDivisions The division of each team in the league, indexed by
+   *                      the team ID.
+   */
+  private void
+  contributionsUpdate(int season_id, ArrayList<Integer> events,
+                      HashMap<Integer, Integer> teamDivisions)
+  {
+    // Get the current version of the shared data.  The versions are read
+    // before the data so that a change while the contributions are being
+    // computed causes them to be recomputed next time.
+    int version = m_database.versionGet();
+
+    // Read a snapshot of each event whose cached contribution is out of date.
+    ArrayList<Snapshot> snapshots = new ArrayList<Snapshot>();
+    for(int idx = 0; idx < events.size(); idx++)
+    {
+      int eventVersion = m_database.eventVersionGet(events.get(idx));
+      Contribution contribution = m_contributions.get(events.get(idx));
+      if((contribution == null) || (contribution.versionGet() != version) ||
+         (contribution.eventVersionGet() != eventVersion))
       {
-        event2.set(teamIdx, score);
+        snapshots.add(snapshotGet(season_id, events.get(idx), version,
+                                  eventVersion));
       }
     }
+
+    // Compute the contributions of these events in parallel, and save them in
+    // the cache.
+    ArrayList<Contribution> computed =
+      computeContributions(snapshots, teamDivisions,
+                           m_config.divisionEnableGet() ?
+                           m_config.divisionCountGet() : 0,
+                           (snapshots.size() > 1) ?
+                           ForkJoinPool.commonPool() : null);
+    for(int idx = 0; idx < snapshots.size(); idx++)
+    {
+      m_contributions.put(snapshots.get(idx).eventIdGet(), computed.get(idx));
+    }
   }
 
   /**
@@ -783,6 +1139,198 @@ public class Standings
     return(0);
   }
 
+  /**
+   * Projects the league standings of some teams if they had different match
+   * scores at an event.  The event's contribution is recomputed from a
+   * snapshot with the hypothetical scores applied, and combined with the
+   * cached contributions of the other events; only the places of the
+   * requested teams are determined, so the full standings are not sorted.
+   *
+   * @param season_id The ID of the season.
+   *
+   * @param event_id The ID of the event.
+   *
+   * @param teamIds The IDs of the teams with hypothetical scores.
+   *
+   * @param matches The match number of each hypothetical score.
+   *
+   * @param scores The hypothetical scores, where <b>null</b> removes the
+   *               team's score for the match.
+   *
+   * @param places The array for the projected league place of each team in
+   *               <i>teamIds</i>, where <b>-1</b> indicates a team without a
+   *               league score.
+   *
+   * @param leagueScores The array for the projected league score of each
+   *                     team in <i>teamIds</i>, or <b>-1</b> if the team does
+   *                     not have a league score.
+   */
+  public synchronized void
+  project(int season_id, int event_id, ArrayList<Integer> teamIds,
+          ArrayList<Integer> matches, ArrayList<Float> scores,
+          ArrayList<Integer> places, ArrayList<Integer> leagueScores)
+  {
+    // Get the list of events for this season.
+    ArrayList<Integer> events = new ArrayList<Integer>();
+    m_database.eventEnumerate(season_id, events, null, null, null, null);
+
+    // Enumerate the teams from the database for this season.
+    ArrayList<Integer> teams = new ArrayList<Integer>();
+    ArrayList<Integer> numbers = new ArrayList<Integer>();
+    ArrayList<Integer> divisions = new ArrayList<Integer>();
+    m_database.teamEnumerate(season_id, -1, teams, numbers, null, divisions);
+
+    // Build a map of the division and index of each team in the league (with
+    // all the teams in the same division if division support is not
+    // enabled).
+    HashMap<Integer, Integer> teamDivisions = new HashMap<Integer, Integer>();
+    HashMap<Integer, Integer> teamIndex = new HashMap<Integer, Integer>();
+    for(int idx = 0; idx < teams.size(); idx++)
+    {
+      if(!m_config.divisionEnableGet())
+      {
+        divisions.set(idx, 0);
+      }
+      teamDivisions.put(teams.get(idx), divisions.get(idx));
+      teamIndex.put(teams.get(idx), idx);
+    }
+
+    // Bring the cached contributions of the events up to date.
+    contributionsUpdate(season_id, events, teamDivisions);
+
+    // Read a snapshot of this event and apply the hypothetical scores to it.
+    Snapshot snapshot =
+      snapshotGet(season_id, event_id, m_database.versionGet(),
+                  m_database.eventVersionGet(event_id));
+    for(int idx = 0; idx < teamIds.size(); idx++)
+    {
+      // Ignore this score if the team is not at this event, or if it is not
+      // for one of the matches that count towards the standings.
+      int team = snapshot.dataGet().indexOf(teamIds.get(idx));
+      int match = matches.get(idx);
+      if((team == -1) || (match < 1) || (match > 4))
+      {
+        continue;
+      }
+
+      // Replace the team's score for this match.
+      snapshot.dataGet().scoreSet(match, team,
+                                  (scores.get(idx) == null) ?
+                                  EventData.NO_SCORE : scores.get(idx));
+    }
+
+    // Compute the projected contribution of this event.
+    ArrayList<Snapshot> snapshots = new ArrayList<Snapshot>();
+    snapshots.add(snapshot);
+    Contribution projected =
+      computeContributions(snapshots, teamDivisions,
+                           m_config.divisionEnableGet() ?
+                           m_config.divisionCountGet() : 0, null).get(0);
+
+    // Give each team a "no event score" indicator for the two events.
+    int[] event1 = new int[teams.size()];
+    int[] event2 = new int[teams.size()];
+    int[] league = new int[teams.size()];
+    Arrays.fill(event1, -1);
+    Arrays.fill(event2, -1);
+    Arrays.fill(league, -1);
+
+    // Loop through the events for this season, using the projected
+    // contribution for this event.
+    for(int idx = 0; idx < events.size(); idx++)
+    {
+      Contribution contribution = (events.get(idx) == event_id) ? projected :
+                                  m_contributions.get(events.get(idx));
+
+      // Save each event score as the first or second event score for the
+      // team (only the scores from the first two events count).
+      for(int team = 0; team < contribution.countGet(); team++)
+      {
+        // Ignore a team that is no longer in the league (the contribution
+        // may have been cached before it was removed).
+        Integer teamIdx = teamIndex.get(contribution.teamGet(team));
+        if(teamIdx == null)
+        {
+          continue;
+        }
+        int score = contribution.scoreGet(team);
+        if(event1[teamIdx] == -1)
+        {
+          event1[teamIdx] = score;
+        }
+        else if(event2[teamIdx] == -1)
+        {
+          event2[teamIdx] = score;
+        }
+      }
+    }
+
+    // Determine the league scores of the teams from their two event scores.
+    for(int idx = 0; idx < teams.size(); idx++)
+    {
+      if((event1[idx] != -1) && (event2[idx] != -1))
+      {
+        league[idx] = event1[idx] + event2[idx];
+      }
+      else if(event1[idx] != -1)
+      {
+        league[idx] = event1[idx];
+      }
+    }
+
+    // Loop through the requested teams.
+    for(int id : teamIds)
+    {
+      // A team that is not in the league or that does not have a league
+      // score does not have a place.
+      Integer i = teamIndex.get(id);
+      if((i == null) || (league[i] == -1))
+      {
+        places.add(-1);
+        leagueScores.add(-1);
+        continue;
+      }
+
+      // The place is one more than the number of teams in the same division
+      // that place higher.
+      int place = 1;
+      for(int j = 0; j < teams.size(); j++)
+      {
+        if((league[j] != -1) && divisions.get(j).equals(divisions.get(i)) &&
+           (eventScoresCompare(divisions.get(j), league[j], event1[j],
+                               event2[j], divisions.get(i), league[i],
+                               event1[i], event2[i]) > 0))
+        {
+          place++;
+        }
+      }
+      places.add(place);
+      leagueScores.add(league[i]);
+    }
+  }
+
+  /**
+   * Rearranges a list into a new order.
+   *
+   * @param list The list to rearrange.
+   *
+   * @param order The index in the list of each entry, in the new order.
+   */
+  private static <T> void
+  reorder(ArrayList<T> list, Integer[] order)
+  {
+    // Copy the entries of the list in the new order.
+    ArrayList<T> copy = new ArrayList<T>(order.length);
+    for(int idx = 0; idx < order.length; idx++)
+    {
+      copy.add(list.get(order[idx]));
+    }
+
+    // Replace the contents of the list.
+    list.clear();
+    list.addAll(copy);
+  }
+
   /**
    * Serves the JSON data for the current state of the scoreboard.
    *
@@ -792,11 +1340,22 @@ public class Standings
    *
    * @return A byte array containing the JSON data for the scoreboard.
    */
-  private byte[]
+  private synchronized byte[]
   serveStandingsJson(String path, HashMap<String, String> paramMap)
   {
     JSONObject result = new SimpleJSONObject();
     int season_id = m_season.seasonIdGet();
+    int changes = m_database.changeCountGet();
+    String accent = m_webserver.getSSI("accent-color");
+
+    // Return the cached JSON data if nothing has changed since it was
+    // computed.
+    if((m_json != null) && (m_jsonSeason == season_id) &&
+       (m_jsonChanges == changes) && (accent != null) &&
+       accent.equals(m_jsonAccent))
+    {
+      return(m_json);
+    }
 
     // Arrays to store information about the events.
     ArrayList<Integer> events = new ArrayList<Integer>();
@@ -837,46 +1396,46 @@ public class Standings
       event2.add(idx, -1);
     }
 
+    // Build a map of the division of each team in the league.
+    HashMap<Integer, Integer> teamDivisions = new HashMap<Integer, Integer>();
+    HashMap<Integer, Integer> teamIndex = new HashMap<Integer, Integer>();
+    for(int idx = 0; idx < teams.size(); idx++)
+    {
+      teamDivisions.put(teams.get(idx), divisions.get(idx));
+      teamIndex.put(teams.get(idx), idx);
+    }
+
+    // Bring the cached contributions of the events up to date.
+    contributionsUpdate(season_id, events, teamDivisions);
+
     // Loop through the events for this season.
     for(int idx = 0; idx < events.size(); idx++)
     {
-      // Enumerate the teams from the database for this event.
-      ArrayList<Integer> eventTeams = new ArrayList<Integer>();
-      ArrayList<Integer> eventNumbers = new ArrayList<Integer>();
-      m_database.teamEnumerate(season_id, events.get(idx), eventTeams,
-                               eventNumbers, null, null);
-
-      // See if division support is enabled.
-      if(m_config.divisionEnableGet())
-      {
-        ArrayList<Integer> divTeams = new ArrayList<Integer>();
+      // Get the contribution of this event to the league standings.
+      Contribution contribution = m_contributions.get(events.get(idx));
 
-        // Loop through the divisions.
-        for(int div = 1; div <= m_config.divisionCountGet(); div++)
+      // Loop through the teams that earned an event score at this event.
+      for(int team = 0; team < contribution.countGet(); team++)
+      {
+        // Save this score as the first or second event score for this team.
+        // If the team already has a first and second event score, this score
+        // is discarded (only the scores from the first two events count).  A
+        // team that is no longer in the league (because the contribution was
+        // cached before it was removed) is ignored.
+        Integer teamIdx = teamIndex.get(contribution.teamGet(team));
+        if(teamIdx == null)
         {
-          // Remove any teams from the division list for this event.
-          divTeams.clear();
-
-          // Loop through the teams in this event.
-          for(int team = 0; team < eventTeams.size(); team++)
-          {
-            // Add this team to the list of teams in this division at the event
-            // if they are in the correct division.
-            if(divisions.get(teams.indexOf(eventTeams.get(team))) == div)
-            {
-              divTeams.add(eventTeams.get(team));
-            }
-          }
-
-          // Compute the scores for the teams in this division.
-          computeScores(events.get(idx), teams, divTeams, event1, event2);
+          continue;
+        }
+        int score = contribution.scoreGet(team);
+        if(event1.get(teamIdx) == -1)
+        {
+          event1.set(teamIdx, score);
+        }
+        else if(event2.get(teamIdx) == -1)
+        {
+          event2.set(teamIdx, score);
         }
-      }
-      else
-      {
-        // Compute the scores for all the teams at the event (since division
-        // support is disabled).
-        computeScores(events.get(idx), teams, eventTeams, event1, event2);
       }
     }
 
@@ -899,35 +1458,44 @@ public class Standings
       }
     }
 
-    // Loop through the teams, sorting them by league score. (with
-    // equally-placed teams and teams without any scores remaining in team
-    // number order).
-    for(int i = 0; i < teams.size(); i++)
+    // Sort the teams by division and then by league score, with the teams
+    // without any scores at the end of their division.  The sort is stable,
+    // so equally-placed teams and teams without any scores remain in team
+    // number order.
+    Integer[] order = new Integer[teams.size()];
+    for(int idx = 0; idx < order.length; idx++)
     {
-      // Loop through the preceeding teams.
-      for(int j = 0; j < i; j++)
+      order[idx] = idx;
+    }
+    Arrays.sort(order, (i, j) ->
       {
-        // See if this preceeding team has a score, and it has a lower score
-        // than the current team.
-        if((scores.get(j) == -1) ||
-           (eventScoresCompare(divisions.get(i), scores.get(i), event1.get(i),
-                               event2.get(i), divisions.get(j), scores.get(j),
-                               event1.get(j), event2.get(j)) > 0))
+        // Group the teams by division.
+        if(!divisions.get(i).equals(divisions.get(j)))
         {
-          // Remove this team from it's current position and insert it before
-          // the preceeding team, since this team has a higher score.
-          numbers.add(j, numbers.remove(i));
-          names.add(j, names.remove(i));
-          scores.add(j, scores.remove(i));
-          event1.add(j, event1.remove(i));
-          event2.add(j, event2.remove(i));
-
-          // This team is placed in the correct order, so no further checking
-          // is required.
-          break;
+          return(Integer.compare(divisions.get(i), divisions.get(j)));
         }
-      }
-    }
+
+        // Place the teams without any scores after those with scores.
+        if((scores.get(i) == -1) || (scores.get(j) == -1))
+        {
+          return(Boolean.compare(scores.get(i) == -1, scores.get(j) == -1));
+        }
+
+        // Place the team with the higher score first.
+        return(eventScoresCompare(divisions.get(j), scores.get(j),
+                                  event1.get(j), event2.get(j),
+                                  divisions.get(i), scores.get(i),
+                                  event1.get(i), event2.get(i)));
+      });
+
+    // Rearrange the teams into the sorted order.
+    reorder(teams, order);
+    reorder(numbers, order);
+    reorder(names, order);
+    reorder(divisions, order);
+    reorder(scores, order);
+    reorder(event1, order);
+    reorder(event2, order);
 
     // Loop through all the teams, assigning places (with equally-placed teams
     // sharing the highest place).
@@ -1047,11 +1615,16 @@ public class Standings
       result.set("color", m_webserver.getSSI("accent-color"));
     }
 
-    // Convert the response into a byte array and return it.
+    // Convert the response into a byte array, save it as the cached JSON
+    // data, and return it.
     try
     {
       String json = JSONParser.serialize(result);
-      return(json.getBytes(StandardCharsets.UTF_8));
+      m_json = json.getBytes(StandardCharsets.UTF_8);
+      m_jsonSeason = season_id;
+      m_jsonChanges = changes;
+      m_jsonAccent = accent;
+      return(m_json);
     }
     catch(Exception e)
     {
@@ -1059,6 +1632,18 @@ public class Standings
     }
   }
 
+  /**
+   * Gets the JSON data for the current state of the standings.
+   *
+   * @return A byte array containing the JSON data for the standings.
+   */
+  public byte[]
+  standingsJsonGet()
+  {
+    // Return the JSON data for the standings.
+    return(serveStandingsJson(null, null));
+  }
+
   /**
    * Performs initial setup for the scoreboard.
    */
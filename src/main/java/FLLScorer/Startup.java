@@ -0,0 +1,338 @@
+// Copyright (c) 2024 Brian Kircher
+//
+// Open Source Software; you can modify and/or share it under the terms of BSD
+// license file in the root directory of this project.
+
+package FLLScorer;
+
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.bspfsystems.simplejson.JSONObject;
+import org.bspfsystems.simplejson.SimpleJSONArray;
+import org.bspfsystems.simplejson.SimpleJSONObject;
+import org.bspfsystems.simplejson.parser.JSONParser;
+
+/**
+ * Runs the steps that start the application, each as soon as the steps that
+ * it depends upon have completed, so that independent steps (such as
+ * creating the application window, loading the sounds, and initializing the
+ * TLS context) run at the same time.  The time taken by each step, and the
+ * time from the launch of the application until it is ready for requests and
+ * until the first request is served, are reported on the console and via
+ * /admin/status/startup.json.
+ * <p>
+ * The getInstance() methods of the singletons are not thread safe, so the
+ * steps should be given as method references to the singletons (for example,
+ * Seasons.getInstance()::setup); this creates all of the singletons on the
+ * main thread before any of the steps are run.
+ * <p>
+ * This is a singleton that is acquired via the getInstance() method.
+ */
+public class Startup
+{
+  /**
+   * The object for the Startup singleton.
+   */
+  private static Startup m_instance = null;
+
+  /**
+   * A step in starting the application.
+   */
+  private static class Step
+  {
+    /**
+     * The name of the step.
+     */
+    private String m_name;
+
+    /**
+     * The code that performs the step.
+     */
+    private Runnable m_run;
+
+    /**
+     * The names of the steps that must complete before this step is run.
+     */
+    private String[] m_after;
+
+    /**
+     * The time, in milliseconds since the launch of the application, at which
+     * the step started.
+     */
+    private long m_begin;
+
+    /**
+     * The time, in milliseconds, taken by the step.
+     */
+    private long m_time;
+
+    /**
+     * The future that completes when the step has completed.
+     */
+    private CompletableFuture<Void> m_future;
+  }
+
+  /**
+   * The steps, in the order they were added.
+   */
+  private LinkedHashMap<String, Step> m_steps =
+    new LinkedHashMap<String, Step>();
+
+  /**
+   * The time, in milliseconds since the epoch, at which the application was
+   * launched.
+   */
+  private long m_launch = ManagementFactory.getRuntimeMXBean().getStartTime();
+
+  /**
+   * The time, in milliseconds since the launch of the application, at which
+   * the web server was ready for requests, or zero if it is not.
+   */
+  private volatile long m_ready = 0;
+
+  /**
+   * The time, in milliseconds since the launch of the application, at which
+   * all of the steps had completed, or zero if they have not.
+   */
+  private volatile long m_complete = 0;
+
+  /**
+   * The time, in milliseconds since the launch of the application, at which
+   * the first request was served, or zero if it has not been.
+   */
+  private volatile long m_firstRequest = 0;
+
+  /**
+   * Gets the Startup singleton object, creating it if necessary.
+   *
+   * @return Returns the Startup singleton.
+   */
+  public static Startup
+  getInstance()
+  {
+    // Create the Startup object if required.
+    if(m_instance == null)
+    {
+      m_instance = new Startup();
+    }
+
+    // Return the Startup object.
+    return(m_instance);
+  }
+
+  /**
+   * The constructor.  This is private so that the object can only be created
+   * via the getIntance() method.
+   */
+  private
+  Startup()
+  {
+  }
+
+  /**
+   * Gets the time since the launch of the application.
+   *
+   * @return The time, in milliseconds, since the launch of the application.
+   */
+  private long
+  elapsed()
+  {
+    // Return the time since the launch.
+    return(System.currentTimeMillis() - m_launch);
+  }
+
+  /**
+   * Adds a step.  The steps that it depends upon must already have been
+   * added.
+   *
+   * @param name The name of the step.
+   *
+   * @param run The code that performs the step.
+   *
+   * @param after The names of the steps that must complete before this step
+   *              is run.
+   */
+  public void
+  step(String name, Runnable run, String... after)
+  {
+    // Create the step and add it to the list.
+    Step step = new Step();
+    step.m_name = name;
+    step.m_run = run;
+    step.m_after = after;
+    m_steps.put(name, step);
+  }
+
+  /**
+   * Runs a step, recording how long it takes.
+   *
+   * @param step The step to run.
+   */
+  private void
+  run(Step step)
+  {
+    // Run the step, timing it.  An error is reported but does not prevent
+    // the remaining steps from running, just as if the steps were run one
+    // after another.
+    step.m_begin = elapsed();
+    try
+    {
+      step.m_run.run();
+    }
+    catch(Exception e)
+    {
+      System.out.println("Startup error (" + step.m_name + "): " + e);
+    }
+    step.m_time = elapsed() - step.m_begin;
+  }
+
+  /**
+   * Runs the steps, returning once they have all completed.
+   */
+  public void
+  run()
+  {
+    // Create the threads that run the steps.
+    int threads = Math.max(2, Runtime.getRuntime().availableProcessors());
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+    // Start each step once the steps it depends upon have completed.
+    ArrayList<CompletableFuture<Void>> futures =
+      new ArrayList<CompletableFuture<Void>>();
+    for(Step step : m_steps.values())
+    {
+      CompletableFuture<?>[] after =
+        new CompletableFuture<?>[step.m_after.length];
+      for(int idx = 0; idx < step.m_after.length; idx++)
+      {
+        after[idx] = m_steps.get(step.m_after[idx]).m_future;
+      }
+      step.m_future = CompletableFuture.allOf(after).
+        thenRunAsync(() -> run(step), executor);
+      futures.add(step.m_future);
+    }
+
+    // Wait for all of the steps to complete, then stop the threads.
+    CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).
+      join();
+    executor.shutdown();
+
+    // Report the time it took to complete the steps, along with the slowest
+    // step.
+    m_complete = elapsed();
+    Step slowest = null;
+    for(Step step : m_steps.values())
+    {
+      if((slowest == null) || (step.m_time > slowest.m_time))
+      {
+        slowest = step;
+      }
+    }
+    String message = "Startup completed " + m_complete + " ms after launch";
+    if(slowest != null)
+    {
+      message += " (slowest step: " + slowest.m_name + ", " + slowest.m_time +
+                 " ms)";
+    }
+    System.out.println(message);
+  }
+
+  /**
+   * Records that the web server is ready for requests, reporting the time
+   * that it took.
+   */
+  public void
+  ready()
+  {
+    // Record and report the time.
+    m_ready = elapsed();
+    System.out.println("Ready for requests " + m_ready + " ms after launch");
+  }
+
+  /**
+   * Records that a request has been served, reporting the time to the first
+   * request.
+   */
+  public void
+  requestServed()
+  {
+    // Nothing needs to be done once the first request has been served.
+    if(m_firstRequest != 0)
+    {
+      return;
+    }
+
+    // Record and report the time of the first request.
+    synchronized(this)
+    {
+      if(m_firstRequest == 0)
+      {
+        m_firstRequest = elapsed();
+        System.out.println("First request served " + m_firstRequest +
+                           " ms after launch");
+      }
+    }
+  }
+
+  /**
+   * Serves the JSON data for the time taken by the startup.
+   *
+   * @param path The path that was requested.
+   *
+   * @param paramMap The parameters associated with the request.
+   *
+   * @return The array of bytes that contain the JSON response.
+   */
+  private byte[]
+  serveStats(String path, HashMap<String, String> paramMap)
+  {
+    JSONObject result = new SimpleJSONObject();
+
+    // Add the time at which the application was ready for requests, at which
+    // it served the first request, and at which it completed the startup.
+    result.set("ready", m_ready);
+    result.set("first_request", m_firstRequest);
+    result.set("complete", m_complete);
+
+    // Add the start time and duration of each step.
+    SimpleJSONArray steps = new SimpleJSONArray();
+    for(Step step : m_steps.values())
+    {
+      JSONObject item = new SimpleJSONObject();
+      item.set("name", step.m_name);
+      item.set("begin", step.m_begin);
+      item.set("time", step.m_time);
+      steps.add(item);
+    }
+    result.set("steps", steps);
+
+    // Convert the response into a byte array and return it.
+    try
+    {
+      String json = JSONParser.serialize(result);
+      return(json.getBytes(StandardCharsets.UTF_8));
+    }
+    catch(Exception e)
+    {
+      return("{}".getBytes(StandardCharsets.UTF_8));
+    }
+  }
+
+  /**
+   * Performs initial setup for the startup statistics.
+   */
+  public void
+  setup()
+  {
+    // Register the dynamic handler for the startup.json file.
+    WebServer.getInstance().registerDynamicFile("/admin/status/startup.json",
+                                                this::serveStats);
+  }
+}
@@ -7,16 +7,26 @@ package FLLScorer;
 
 import java.io.BufferedInputStream;
 import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
 
 import javax.sound.sampled.AudioInputStream;
 import javax.sound.sampled.AudioSystem;
 import javax.sound.sampled.Clip;
+import javax.sound.sampled.LineEvent;
+
+import org.bspfsystems.simplejson.JSONArray;
+import org.bspfsystems.simplejson.JSONObject;
+import org.bspfsystems.simplejson.SimpleJSONArray;
+import org.bspfsystems.simplejson.SimpleJSONObject;
+import org.bspfsystems.simplejson.parser.JSONParser;
 
 import org.eclipse.jetty.ee10.websocket.server.JettyServerUpgradeRequest;
 import org.eclipse.jetty.ee10.websocket.server.JettyServerUpgradeResponse;
 import org.eclipse.jetty.ee10.websocket.server.JettyWebSocketCreator;
-import org.eclipse.jetty.websocket.api.Callback;
 import org.eclipse.jetty.websocket.api.Session;
 import org.eclipse.jetty.websocket.api.annotations.OnWebSocketClose;
 import org.eclipse.jetty.websocket.api.annotations.OnWebSocketMessage;
@@ -78,6 +88,45 @@ public class TimeKeeper
    */
   private int m_matchTime = 150;
 
+  /**
+   * The names of the audio files that are played by the time keeper.
+   */
+  private ArrayList<String> m_soundNames = new ArrayList<String>();
+
+  /**
+   * The preloaded Clip for each of the audio files; <b>null</b> if the audio
+   * file could not be loaded.
+   */
+  private ArrayList<Clip> m_soundClips = new ArrayList<Clip>();
+
+  /**
+   * The time, in nanoseconds, at which playback of each audio file was most
+   * recently requested.
+   */
+  private long[] m_soundRequest;
+
+  /**
+   * The number of times each audio file has started playing.
+   */
+  private long[] m_soundCount;
+
+  /**
+   * The total start latency, in nanoseconds, of each audio file.
+   */
+  private long[] m_soundLatencyTotal;
+
+  /**
+   * The maximum start latency, in nanoseconds, of each audio file.
+   */
+  private long[] m_soundLatencyMax;
+
+  /**
+   * The queue of requests for audio files to be played, as an index into
+   * m_soundNames.
+   */
+  private LinkedBlockingQueue<Integer> m_soundQueue =
+    new LinkedBlockingQueue<Integer>();
+
   /**
    * Gets the TimeKeeper singleton object, creating it if necessary.
    *
@@ -222,6 +271,49 @@ public class TimeKeeper
     return(m_matchTime);
   }
 
+  /**
+   * Gets the message that describes the running match to a client that
+   * renders the match time locally.
+   * <p>
+   * The message is "a:&lt;start&gt;:&lt;length&gt;", where &lt;start&gt; is
+   * the server time, in milliseconds, at which the match started and
+   * &lt;length&gt; is the length of the match, in seconds.
+   *
+   * @return The match start message.
+   */
+  public String
+  startMessage()
+  {
+    // Return the match start message.
+    return("a:" + m_startTimeMillis + ":" + m_matchLen);
+  }
+
+  /**
+   * Handles a clock synchronization request from a client.
+   * <p>
+   * The request is "y:&lt;client&gt;", where &lt;client&gt; is the client
+   * time at which the request was sent.  The reply is
+   * "y:&lt;client&gt;:&lt;server&gt;", which allows the client to compute the
+   * offset between its clock and the server clock from the round trip time.
+   *
+   * @param text The text that was received from the client.
+   *
+   * @return The reply to send to the client, or <b>null</b> if the text is
+   *         not a clock synchronization request.
+   */
+  public String
+  syncReply(String text)
+  {
+    // Ignore anything that is not a clock synchronization request.
+    if(!text.startsWith("y:"))
+    {
+      return(null);
+    }
+
+    // Return the client time along with the current server time.
+    return(text + ":" + java.lang.System.currentTimeMillis());
+  }
+
   /**
    * Computes the time elapsed in the match.
    *
@@ -257,12 +349,15 @@ public class TimeKeeper
   }
 
   /**
-   * Plays an audio file.
+   * Loads an audio file into a Clip, ready to be played.
    *
-   * @param file The name of the audio file to play.
+   * @param file The name of the audio file to load.
+   *
+   * @return The Clip for the audio file, or <b>null</b> if it could not be
+   *         loaded.
    */
-  private void
-  play(String file)
+  private Clip
+  loadSound(String file)
   {
     // A try/catch to handle exceptions.
     try
@@ -281,15 +376,200 @@ public class TimeKeeper
       // Create a Clip object for playing the contents of the file.
       Clip clip = AudioSystem.getClip();
 
-      // Attach the audio input stream to the Clip object.
+      // Attach the audio input stream to the Clip object.  This decodes the
+      // entire file into the Clip's buffer, so it does not need to be done
+      // again when the Clip is played.
       clip.open(audioIn);
 
-      // Start playback of the audio file.
-      clip.start();
+      // Close the audio input stream, since its contents are now in the Clip.
+      audioIn.close();
+
+      // Return the Clip.
+      return(clip);
     }
     catch(Exception e)
     {
       System.out.println("Sound error: " + e);
+      return(null);
+    }
+  }
+
+  /**
+   * Loads all of the audio files that are played by the time keeper.
+   */
+  private void
+  loadSounds()
+  {
+    // The audio files that are played by the time keeper.
+    m_soundNames.add("start.wav");
+    m_soundNames.add("end_game.wav");
+    m_soundNames.add("end.wav");
+    m_soundNames.add("cancel.wav");
+
+    // Create the arrays that track the start latency of the audio files.
+    m_soundRequest = new long[m_soundNames.size()];
+    m_soundCount = new long[m_soundNames.size()];
+    m_soundLatencyTotal = new long[m_soundNames.size()];
+    m_soundLatencyMax = new long[m_soundNames.size()];
+
+    // Loop through the audio files.
+    for(int idx = 0; idx < m_soundNames.size(); idx++)
+    {
+      // Load this audio file.
+      Clip clip = loadSound(m_soundNames.get(idx));
+      m_soundClips.add(clip);
+
+      // Add a listener that measures the time from the request to play this
+      // audio file to the time that playback actually starts.
+      if(clip != null)
+      {
+        final int sound = idx;
+        clip.addLineListener(event ->
+          {
+            // Record the start latency when playback starts.
+            if(event.getType() == LineEvent.Type.START)
+            {
+              soundStarted(sound);
+            }
+          });
+      }
+    }
+  }
+
+  /**
+   * Records the start latency of an audio file once it starts playing.
+   *
+   * @param idx The index of the audio file that started playing.
+   */
+  private synchronized void
+  soundStarted(int idx)
+  {
+    // Compute the time from the request to the start of playback.
+    long latency = java.lang.System.nanoTime() - m_soundRequest[idx];
+
+    // Update the latency statistics for this audio file.
+    m_soundCount[idx]++;
+    m_soundLatencyTotal[idx] += latency;
+    if(latency > m_soundLatencyMax[idx])
+    {
+      m_soundLatencyMax[idx] = latency;
+    }
+  }
+
+  /**
+   * Plays an audio file.  The audio file is played by the sound thread, so
+   * this returns immediately.
+   *
+   * @param file The name of the audio file to play.
+   */
+  private void
+  play(String file)
+  {
+    // Find the audio file, ignoring it if it is not known.
+    int idx = m_soundNames.indexOf(file);
+    if(idx == -1)
+    {
+      return;
+    }
+
+    // Save the time of this request, used to measure the start latency.
+    synchronized(this)
+    {
+      m_soundRequest[idx] = java.lang.System.nanoTime();
+    }
+
+    // Queue the audio file to be played by the sound thread.
+    m_soundQueue.add(idx);
+  }
+
+  /**
+   * Plays the audio files that are requested via play(), in the background.
+   */
+  private static class Sounds implements Runnable
+  {
+    /**
+     * The code that runs in the sound thread.
+     */
+    @Override
+    public void
+    run()
+    {
+      // Loop forever.
+      while(true)
+      {
+        int idx;
+
+        // Wait for the next audio file to be requested.
+        try
+        {
+          idx = m_instance.m_soundQueue.take();
+        }
+        catch(InterruptedException e)
+        {
+          continue;
+        }
+
+        // Get the preloaded Clip for this audio file, skipping it if it could
+        // not be loaded.
+        Clip clip = m_instance.m_soundClips.get(idx);
+        if(clip == null)
+        {
+          continue;
+        }
+
+        // Stop the Clip if it is still playing from a previous request, then
+        // rewind it to the beginning and start playback.
+        clip.stop();
+        clip.flush();
+        clip.setFramePosition(0);
+        clip.start();
+      }
+    }
+  }
+
+  /**
+   * Handles requests for /admin/status/sounds.json.
+   *
+   * @param path The path from the request.
+   *
+   * @param paramMap The parameters from the request.
+   *
+   * @return An array of bytes to return to the client.
+   */
+  private synchronized byte[]
+  serveSounds(String path, HashMap<String, String> paramMap)
+  {
+    JSONObject result = new SimpleJSONObject();
+    JSONArray sounds = new SimpleJSONArray();
+
+    // Loop through the audio files.
+    for(int idx = 0; idx < m_soundNames.size(); idx++)
+    {
+      // Add the start latency statistics, in milliseconds, for this audio file
+      // to the sounds array.
+      JSONObject sound = new SimpleJSONObject();
+      sound.set("name", m_soundNames.get(idx));
+      sound.set("loaded", m_soundClips.get(idx) != null);
+      sound.set("count", m_soundCount[idx]);
+      sound.set("average", (m_soundCount[idx] == 0) ? 0.0 :
+                           (m_soundLatencyTotal[idx] / m_soundCount[idx]) /
+                           1000000.0);
+      sound.set("max", m_soundLatencyMax[idx] / 1000000.0);
+      sounds.addEntry(sound);
+    }
+
+    // Add the sounds array to the JSON response.
+    result.set("sounds", sounds);
+
+    // Convert the response into a byte array and return it.
+    try
+    {
+      String json = JSONParser.serialize(result);
+      return(json.getBytes(StandardCharsets.UTF_8));
+    }
+    catch(Exception e)
+    {
+      return("{}".getBytes(StandardCharsets.UTF_8));
     }
   }
 
@@ -343,6 +623,9 @@ public class TimeKeeper
           // See if the timer is now running.
           if(m_state == TimerState.RUN)
           {
+            // Start measuring the timing of this match.
+            TimerStats.getInstance().matchStart(m_instance.startTime());
+
             // Play the start of match sound.
             m_instance.play("start.wav");
 
@@ -371,6 +654,9 @@ public class TimeKeeper
               m_instance.play("cancel.wav");
             }
 
+            // Stop measuring the timing of this match.
+            TimerStats.getInstance().matchEnd(now);
+
             // Save the time that the timer was stopped.
             m_lastCheck = now;
           }
@@ -408,6 +694,9 @@ public class TimeKeeper
             // Get the time elapsed in the match.
             long elapsed = m_instance.timeElapsed();
 
+            // Record how late this second of the match is being handled.
+            TimerStats.getInstance().tick(elapsed % 1000);
+
             // See if it is time to play the end game sound effect.
             if((m_instance.matchTime() <= 30) && !m_playedEndGame)
             {
@@ -476,6 +765,11 @@ public class TimeKeeper
      */
     private Session m_session;
 
+    /**
+     * The outbound message queue for this WebSocket.
+     */
+    private SocketQueue m_queue;
+
     /**
      * The cached state of the match timer; used to detect when the timer has
      * changed state.
@@ -488,6 +782,18 @@ public class TimeKeeper
      */
     private long m_lastSend = 0;
 
+    /**
+     * Set to <b>true</b> when the client renders the match time locally, in
+     * which case the match time is only sent when the timer changes state.
+     */
+    private volatile boolean m_sync = false;
+
+    /**
+     * Set to <b>true</b> when the client has been asked to report when it
+     * shows each second of the match.
+     */
+    private boolean m_echo = false;
+
     /**
      * Called when the WebSocket is first opened.
      *
@@ -497,11 +803,12 @@ public class TimeKeeper
     public void
     onOpen(Session session)
     {
-      // Save the session.
+      // Save the session and create the outbound message queue for it.
       m_session = session;
+      m_queue = new SocketQueue("timekeeper", session);
 
       // Start the thread that handles sending updates via the WebSocket.
-      new Thread(this).start();
+      new Thread(this, "TimeKeeper socket").start();
     }
 
     /**
@@ -513,6 +820,41 @@ public class TimeKeeper
     public void
     onMessage(String text)
     {
+      // Capture this message, if the traffic is being captured.
+      TrafficCapture.getInstance().socketMessage(m_queue, text);
+
+      // See if this is a request to render the match time locally.
+      if(text.equals("sync"))
+      {
+        // Stop sending the match time every second.
+        m_sync = true;
+
+        // If the match is running, send the match start time so the client
+        // can start rendering the match time.
+        if(m_instance.state() == TimerState.RUN)
+        {
+          m_queue.send(m_instance.startMessage());
+        }
+      }
+
+      // See if this is a report of when the client showed a second of the
+      // match.
+      if(text.startsWith("e:"))
+      {
+        // Record how late the client showed this second of the match.
+        TimerStats.getInstance().render("timekeeper " +
+                                        m_session.getRemoteSocketAddress(),
+                                        text, m_instance.matchLength());
+      }
+
+      // See if this is a clock synchronization request.
+      String reply = m_instance.syncReply(text);
+      if(reply != null)
+      {
+        // Send the reply immediately.
+        m_queue.send(reply);
+      }
+
       // See if this is a start request.
       if(text.equals("start"))
       {
@@ -574,6 +916,9 @@ public class TimeKeeper
     public void
     onClose(int closeCode, String closeReasonPhrase)
     {
+      // Discard any messages that have not been sent.
+      m_queue.close();
+
       // Clear the stored session, which causes the background thread to exit.
       m_session = null;
     }
@@ -591,25 +936,25 @@ public class TimeKeeper
       if(m_state == TimerState.RUN)
       {
         // Send a run mode message via the WebSocket.
-        m_session.sendText("m:run", Callback.NOOP);
+        m_queue.send("m:run");
       }
 
       // See if the timer is currently stopped.
       else if(m_state == TimerState.STOP)
       {
         // Send a stop mode message via the WebSocket.
-        m_session.sendText("m:stop", Callback.NOOP);
+        m_queue.send("m:stop");
       }
 
       // Otherwise the the timer is currently reset.
       else
       {
         // Send a reset mode message via the WebSocket.
-        m_session.sendText("m:reset", Callback.NOOP);
+        m_queue.send("m:reset");
       }
 
       // Send the current match time via the WebSocket.
-      m_session.sendText("t:" + m_instance.matchTime(), Callback.NOOP);
+      m_queue.send("t:" + m_instance.matchTime());
 
       // Loop while the session is still active.
       while (m_session != null)
@@ -627,7 +972,14 @@ public class TimeKeeper
           if(m_state == TimerState.RUN)
           {
             // Send a mode run message via the WebSocket.
-            m_session.sendText("m:run", Callback.NOOP);
+            m_queue.send("m:run");
+
+            // Send the match start time to a client that renders the match
+            // time locally.
+            if(m_sync)
+            {
+              m_queue.send(m_instance.startMessage());
+            }
 
             // Set the last time a message was sent to zero, so that a new
             // determination of of the timer state is made immediately.
@@ -638,30 +990,45 @@ public class TimeKeeper
           else if(m_state == TimerState.STOP)
           {
             // Send a mode stop message via the WebSocket.
-            m_session.sendText("m:stop", Callback.NOOP);
+            m_queue.send("m:stop");
           }
 
           // Otherwise, the timer is now reset.
           else
           {
             // Send a mode reset message via the WebSocket.
-            m_session.sendText("m:reset", Callback.NOOP);
+            m_queue.send("m:reset");
           }
 
           // Send the current match time via the WebSocket.
-          m_session.sendText("t:" + m_instance.matchTime(), Callback.NOOP);
+          m_queue.send("t:" + m_instance.matchTime());
         }
 
-        // See if the timer is not running.
-        if((m_state == TimerState.STOP) || (m_state == TimerState.RESET))
+        // See if the client should start or stop reporting when it shows each
+        // second of the match.
+        if(m_sync && (m_echo != TimerStats.getInstance().echoGet()))
+        {
+          // Send the new echo state to the client.
+          m_echo = TimerStats.getInstance().echoGet();
+          m_queue.send(m_echo ? "e:1" : "e:0");
+        }
+
+        // See if the timer is not running, or the client is rendering the
+        // match time locally (in which case only state changes are sent).
+        if((m_state == TimerState.STOP) || (m_state == TimerState.RESET) ||
+           m_sync)
         {
           // See if it has been more than a second since the last message was
-          // sent via the WebSocket.
-          if((now - m_lastSend) >= 1000)
+          // sent via the WebSocket.  A client that renders the match time
+          // locally does not need a message every second, so it is only sent
+          // every two seconds; this leaves a wide margin before the
+          // WebSocket reaches its five second idle timeout, even if a send is
+          // delayed.
+          if((now - m_lastSend) >= (m_sync ? 2000 : 1000))
           {
             // Send a NOP via the WebSocket (to keep it from timing out and
             // closing).
-            m_session.sendText("nop", Callback.NOOP);
+            m_queue.send("nop");
 
             // Reset the last send time to now.
             m_lastSend = now;
@@ -689,7 +1056,10 @@ public class TimeKeeper
             long elapsed = m_instance.timeElapsed();
 
             // Send the current match time via the WebSocket.
-            m_session.sendText("t:" + m_instance.matchTime(), Callback.NOOP);
+            m_queue.send("t:" + m_instance.matchTime());
+
+            // Record how late this second of the match is being sent.
+            TimerStats.getInstance().socket(elapsed % 1000);
 
             // See if the timer is now stopped.
             if(m_instance.state() == TimerState.STOP)
@@ -759,11 +1129,21 @@ public class TimeKeeper
   public void
   setup()
   {
+    // Load the audio files, so they are ready to be played immediately.
+    loadSounds();
+
+    // Register the dynamic handler for the audio start latency.
+    WebServer.getInstance().registerDynamicFile("/admin/status/sounds.json",
+                                                this::serveSounds);
+
     // Register the WebSocket that supports the time keeper page.
     WebServer.getInstance().addWebSocket("/timekeeper/timekeeper.ws",
                                          new TimeKeeperSocketCreator(), 5000);
 
+    // Start the background thread that plays the audio files.
+    new Thread(new Sounds(), "TimeKeeper sounds").start();
+
     // Start the background thread that manages the match timer.
-    new Thread(new Timer()).start();
+    new Thread(new Timer(), "TimeKeeper timer").start();
   }
 }
\ No newline at end of file
@@ -10,9 +10,9 @@ import java.util.concurrent.TimeUnit;
 import org.eclipse.jetty.ee10.websocket.server.JettyServerUpgradeRequest;
 import org.eclipse.jetty.ee10.websocket.server.JettyServerUpgradeResponse;
 import org.eclipse.jetty.ee10.websocket.server.JettyWebSocketCreator;
-import org.eclipse.jetty.websocket.api.Callback;
 import org.eclipse.jetty.websocket.api.Session;
 import org.eclipse.jetty.websocket.api.annotations.OnWebSocketClose;
+import org.eclipse.jetty.websocket.api.annotations.OnWebSocketMessage;
 import org.eclipse.jetty.websocket.api.annotations.OnWebSocketOpen;
 import org.eclipse.jetty.websocket.api.annotations.WebSocket;
 
@@ -68,6 +68,30 @@ public class Timer
     m_displayEnable = enable;
   }
 
+  /**
+   * Gets the timer enable state.
+   *
+   * @return The timer display enable state.
+   */
+  public boolean
+  displayEnableGet()
+  {
+    // Return the timer display enable state.
+    return(m_displayEnable);
+  }
+
+  /**
+   * Gets the timer location.
+   *
+   * @return The timer location.
+   */
+  public String
+  displayLocationGet()
+  {
+    // Return the timer display location.
+    return(m_displayLocation);
+  }
+
   /**
    * Sets the timer location.
    *
@@ -110,6 +134,11 @@ public class Timer
      */
     private Session m_session;
 
+    /**
+     * The outbound message queue for this WebSocket.
+     */
+    private SocketQueue m_queue;
+
     /**
      * The cached state of the match timer; used to detect when the timer has
      * changed state.
@@ -134,6 +163,18 @@ public class Timer
      */
     private long m_lastSend = 0;
 
+    /**
+     * Set to <b>true</b> when the client renders the match time locally, in
+     * which case the match time is only sent when the timer changes state.
+     */
+    private volatile boolean m_sync = false;
+
+    /**
+     * Set to <b>true</b> when the client has been asked to report when it
+     * shows each second of the match.
+     */
+    private boolean m_echo = false;
+
     /**
      * Called when the WebSocket is first opened.
      *
@@ -143,11 +184,57 @@ public class Timer
     public void
     onOpen(Session session)
     {
-      // Save the session.
+      // Save the session and create the outbound message queue for it.
       m_session = session;
+      m_queue = new SocketQueue("timer", session);
 
       // Start the thread that handles sending updates via the WebSocket.
-      new Thread(this).start();
+      new Thread(this, "Timer socket").start();
+    }
+
+    /**
+     * Called when data is received from the WebSocket.
+     *
+     * @param text The text that was received.
+     */
+    @OnWebSocketMessage
+    public void
+    onMessage(String text)
+    {
+      // Capture this message, if the traffic is being captured.
+      TrafficCapture.getInstance().socketMessage(m_queue, text);
+
+      // See if this is a request to render the match time locally.
+      if(text.equals("sync"))
+      {
+        // Stop sending the match time every second.
+        m_sync = true;
+
+        // If the match is running, send the match start time so the client
+        // can start rendering the match time.
+        if(m_timeKeeper.state() == TimeKeeper.TimerState.RUN)
+        {
+          m_queue.send(m_timeKeeper.startMessage());
+        }
+      }
+
+      // See if this is a report of when the client showed a second of the
+      // match.
+      if(text.startsWith("e:"))
+      {
+        // Record how late the client showed this second of the match.
+        TimerStats.getInstance().render("timer " +
+                                        m_session.getRemoteSocketAddress(),
+                                        text, m_timeKeeper.matchLength());
+      }
+
+      // See if this is a clock synchronization request.
+      String reply = m_timeKeeper.syncReply(text);
+      if(reply != null)
+      {
+        // Send the reply immediately.
+        m_queue.send(reply);
+      }
     }
 
     /**
@@ -161,6 +248,9 @@ public class Timer
     public void
     onClose(int closeCode, String closeReasonPhrase)
     {
+      // Discard any messages that have not been sent.
+      m_queue.close();
+
       // Clear the stored session, which causes the background thread to exit.
       m_session = null;
     }
@@ -178,38 +268,38 @@ public class Timer
       if(m_state == TimeKeeper.TimerState.RUN)
       {
         // Send a run mode message via the WebSocket.
-        m_session.sendText("m:run", Callback.NOOP);
+        m_queue.send("m:run");
       }
 
       // See if the timer is currently stopped.
       else if(m_state == TimeKeeper.TimerState.STOP)
       {
         // Send a stop mode message via the WebSocket.
-        m_session.sendText("m:stop", Callback.NOOP);
+        m_queue.send("m:stop");
       }
 
       // Otherwise the the timer is currently reset.
       else
       {
         // Send a reset mode message via the WebSocket.
-        m_session.sendText("m:reset", Callback.NOOP);
+        m_queue.send("m:reset");
       }
 
       // Send the current state of the timer display.
       if(m_displayEnable)
       {
-        m_session.sendText("s:timer_enable", Callback.NOOP);
+        m_queue.send("s:timer_enable");
       }
       else
       {
-        m_session.sendText("s:timer_disable", Callback.NOOP);
+        m_queue.send("s:timer_disable");
       }
 
       // Send the current location of the timer display.
-      m_session.sendText("s:timer_" + m_displayLocation, Callback.NOOP);
+      m_queue.send("s:timer_" + m_displayLocation);
 
       // Send the current match time via the WebSocket.
-      m_session.sendText("t:" + m_timeKeeper.matchTime(), Callback.NOOP);
+      m_queue.send("t:" + m_timeKeeper.matchTime());
 
       // Loop while the session is still active.
       while (m_session != null)
@@ -227,7 +317,14 @@ public class Timer
           if(m_state == TimeKeeper.TimerState.RUN)
           {
             // Send a mode run message via the WebSocket.
-            m_session.sendText("m:run", Callback.NOOP);
+            m_queue.send("m:run");
+
+            // Send the match start time to a client that renders the match
+            // time locally.
+            if(m_sync)
+            {
+              m_queue.send(m_timeKeeper.startMessage());
+            }
 
             // Set the last time a message was sent to zero, so that a new
             // determination of of the timer state is made immediately.
@@ -238,18 +335,18 @@ public class Timer
           else if(m_state == TimeKeeper.TimerState.STOP)
           {
             // Send a mode stop message via the WebSocket.
-            m_session.sendText("m:stop", Callback.NOOP);
+            m_queue.send("m:stop");
           }
 
           // Otherwise, the timer is now reset.
           else
           {
             // Send a mode reset message via the WebSocket.
-            m_session.sendText("m:reset", Callback.NOOP);
+            m_queue.send("m:reset");
           }
 
           // Send the current match time via the WebSocket.
-          m_session.sendText("t:" + m_timeKeeper.matchTime(), Callback.NOOP);
+          m_queue.send("t:" + m_timeKeeper.matchTime());
         }
 
         // See if the state of the timer display changed.
@@ -261,11 +358,11 @@ public class Timer
           // Send the new state of the timer display.
           if(m_displayEnable)
           {
-            m_session.sendText("s:timer_enable", Callback.NOOP);
+            m_queue.send("s:timer_enable");
           }
           else
           {
-            m_session.sendText("s:timer_disable", Callback.NOOP);
+            m_queue.send("s:timer_disable");
           }
         }
 
@@ -276,20 +373,34 @@ public class Timer
           m_displayLocation = m_timer.m_displayLocation;
 
           // Send the new location of the timer display.
-          m_session.sendText("s:timer_" + m_displayLocation, Callback.NOOP);
+          m_queue.send("s:timer_" + m_displayLocation);
+        }
+
+        // See if the client should start or stop reporting when it shows each
+        // second of the match.
+        if(m_sync && (m_echo != TimerStats.getInstance().echoGet()))
+        {
+          // Send the new echo state to the client.
+          m_echo = TimerStats.getInstance().echoGet();
+          m_queue.send(m_echo ? "e:1" : "e:0");
         }
 
-        // See if the timer is not running.
+        // See if the timer is not running, or the client is rendering the
+        // match time locally (in which case only state changes are sent).
         if((m_state == TimeKeeper.TimerState.STOP) ||
-           (m_state == TimeKeeper.TimerState.RESET))
+           (m_state == TimeKeeper.TimerState.RESET) || m_sync)
         {
           // See if it has been more than a second since the last message was
-          // sent via the WebSocket.
-          if((now - m_lastSend) >= 1000)
+          // sent via the WebSocket.  A client that renders the match time
+          // locally does not need a message every second, so it is only sent
+          // every two seconds; this leaves a wide margin before the
+          // WebSocket reaches its five second idle timeout, even if a send is
+          // delayed.
+          if((now - m_lastSend) >= (m_sync ? 2000 : 1000))
           {
             // Send a NOP via the WebSocket (to keep it from timing out and
             // closing).
-            m_session.sendText("nop", Callback.NOOP);
+            m_queue.send("nop");
 
             // Reset the last send time to now.
             m_lastSend = now;
@@ -317,7 +428,10 @@ public class Timer
             long elapsed = m_timeKeeper.timeElapsed();
 
             // Send the current match time via the WebSocket.
-            m_session.sendText("t:" + m_timeKeeper.matchTime(), Callback.NOOP);
+            m_queue.send("t:" + m_timeKeeper.matchTime());
+
+            // Record how late this second of the match is being sent.
+            TimerStats.getInstance().socket(elapsed % 1000);
 
             // See if the timer is now stopped.
             if(m_timeKeeper.state() == TimeKeeper.TimerState.STOP)
@@ -0,0 +1,430 @@
+// Copyright (c) 2024 Brian Kircher
+//
+// Open Source Software; you can modify and/or share it under the terms of BSD
+// license file in the root directory of this project.
+
+package FLLScorer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+
+import org.bspfsystems.simplejson.JSONArray;
+import org.bspfsystems.simplejson.JSONObject;
+import org.bspfsystems.simplejson.SimpleJSONArray;
+import org.bspfsystems.simplejson.SimpleJSONObject;
+import org.bspfsystems.simplejson.parser.JSONParser;
+
+/**
+ * Measures how accurately the match timer is delivered to the timer displays.
+ * <p>
+ * Three things are measured for each match: how late (after the second
+ * boundary) the timing threads handle each second of the match, how long
+ * messages to the timer displays wait in the WebSocket send queues, and how
+ * late (after the second boundary, in server time) each display actually
+ * shows each second of the match (which is reported by the display via an
+ * echo frame, when enabled).
+ * <p>
+ * This is a singleton that is acquired via the getInstance() method.
+ */
+public class TimerStats
+{
+  /**
+   * The object for the TimerStats singleton.
+   */
+  private static TimerStats m_instance = null;
+
+  /**
+   * The maximum number of completed matches that are retained.
+   */
+  private static final int MAX_MATCHES = 20;
+
+  /**
+   * A set of measurements, in milliseconds.
+   */
+  private static class Stat
+  {
+    /**
+     * The number of measurements.
+     */
+    private long m_count = 0;
+
+    /**
+     * The sum of the measurements.
+     */
+    private long m_total = 0;
+
+    /**
+     * The smallest measurement.
+     */
+    private long m_min = 0;
+
+    /**
+     * The largest measurement.
+     */
+    private long m_max = 0;
+
+    /**
+     * Adds a measurement.
+     *
+     * @param value The measurement to add.
+     */
+    private void
+    add(long value)
+    {
+      // Update the minimum and maximum.
+      if((m_count == 0) || (value < m_min))
+      {
+        m_min = value;
+      }
+      if((m_count == 0) || (value > m_max))
+      {
+        m_max = value;
+      }
+
+      // Update the count and total.
+      m_count++;
+      m_total += value;
+    }
+
+    /**
+     * Converts the measurements into a JSON object.
+     *
+     * @return The JSON object describing the measurements.
+     */
+    private JSONObject
+    toJSON()
+    {
+      // Add the summary of the measurements to a JSON object.
+      JSONObject result = new SimpleJSONObject();
+      result.set("count", m_count);
+      result.set("average", (m_count == 0) ? 0 : (m_total / m_count));
+      result.set("min", m_min);
+      result.set("max", m_max);
+
+      // Return the JSON object.
+      return(result);
+    }
+  }
+
+  /**
+   * The measurements for a single match.
+   */
+  private static class Match
+  {
+    /**
+     * The time, in milliseconds, at which the match started.
+     */
+    private long m_start;
+
+    /**
+     * The time, in milliseconds, at which the match stopped, or <b>0</b> if
+     * it is still running.
+     */
+    private long m_end = 0;
+
+    /**
+     * How late the time keeper handled each second of the match.
+     */
+    private Stat m_tick = new Stat();
+
+    /**
+     * How late the WebSocket threads sent each second of the match (for
+     * displays that do not render the match time locally).
+     */
+    private Stat m_socket = new Stat();
+
+    /**
+     * How long messages to the timer displays waited in the send queues.
+     */
+    private Stat m_queue = new Stat();
+
+    /**
+     * How late each display showed each second of the match, indexed by the
+     * name of the display.
+     */
+    private HashMap<String, Stat> m_render = new HashMap<String, Stat>();
+
+    /**
+     * Converts the measurements into a JSON object.
+     *
+     * @return The JSON object describing the match.
+     */
+    private JSONObject
+    toJSON()
+    {
+      // Add the summary of this match to a JSON object.
+      JSONObject result = new SimpleJSONObject();
+      result.set("start", m_start);
+      result.set("end", m_end);
+      result.set("tick", m_tick.toJSON());
+      result.set("socket", m_socket.toJSON());
+      result.set("queue", m_queue.toJSON());
+
+      // Add the measurements for each display.
+      JSONArray displays = new SimpleJSONArray();
+      m_render.forEach((name, stat) ->
+        {
+          // Add this display to the displays array.
+          JSONObject display = stat.toJSON();
+          display.set("name", name);
+          displays.addEntry(display);
+        });
+      result.set("render", displays);
+
+      // Return the JSON object.
+      return(result);
+    }
+  }
+
+  /**
+   * The measurements for the current (or most recent) match, or <b>null</b>
+   * if no match has been started.
+   */
+  private Match m_current = null;
+
+  /**
+   * The measurements for the completed matches, oldest first.
+   */
+  private ArrayList<Match> m_matches = new ArrayList<Match>();
+
+  /**
+   * When set to <b>true</b>, the timer displays report when they show each
+   * second of the match.
+   */
+  private volatile boolean m_echo = false;
+
+  /**
+   * Gets the TimerStats singleton object, creating it if necessary.
+   *
+   * @return Returns the TimerStats singleton.
+   */
+  public static TimerStats
+  getInstance()
+  {
+    // Create the TimerStats object if required.
+    if(m_instance == null)
+    {
+      m_instance = new TimerStats();
+    }
+
+    // Return the TimerStats object.
+    return(m_instance);
+  }
+
+  /**
+   * The constructor.  This is private so that the object can only be created
+   * via the getIntance() method.
+   */
+  private
+  TimerStats()
+  {
+  }
+
+  /**
+   * Determines if the timer displays should report when they show each second
+   * of the match.
+   *
+   * @return <b>true</b> if the timer displays should send echo frames.
+   */
+  public boolean
+  echoGet()
+  {
+    // Return the echo enable.
+    return(m_echo);
+  }
+
+  /**
+   * Called when a match starts.
+   *
+   * @param start The time, in milliseconds, at which the match started.
+   */
+  public synchronized void
+  matchStart(long start)
+  {
+    // Start a new set of measurements for this match.
+    m_current = new Match();
+    m_current.m_start = start;
+  }
+
+  /**
+   * Called when a match stops.
+   *
+   * @param end The time, in milliseconds, at which the match stopped.
+   */
+  public synchronized void
+  matchEnd(long end)
+  {
+    // Ignore this if a match was not running.
+    if((m_current == null) || (m_current.m_end != 0))
+    {
+      return;
+    }
+
+    // Save the end time of the match, and add it to the completed matches.
+    m_current.m_end = end;
+    m_matches.add(m_current);
+
+    // Discard the oldest match if there are too many.
+    if(m_matches.size() > MAX_MATCHES)
+    {
+      m_matches.remove(0);
+    }
+  }
+
+  /**
+   * Records how late the time keeper handled a second of the match.
+   *
+   * @param late The time, in milliseconds, after the second boundary.
+   */
+  public synchronized void
+  tick(long late)
+  {
+    // Record the measurement if a match is running.
+    if((m_current != null) && (m_current.m_end == 0))
+    {
+      m_current.m_tick.add(late);
+    }
+  }
+
+  /**
+   * Records how late a WebSocket thread sent a second of the match.
+   *
+   * @param late The time, in milliseconds, after the second boundary.
+   */
+  public synchronized void
+  socket(long late)
+  {
+    // Record the measurement if a match is running.
+    if((m_current != null) && (m_current.m_end == 0))
+    {
+      m_current.m_socket.add(late);
+    }
+  }
+
+  /**
+   * Records how long a message to a timer display waited in the send queue.
+   *
+   * @param delay The time, in milliseconds, from queuing the message to it
+   *              being written.
+   */
+  public synchronized void
+  queue(long delay)
+  {
+    // Record the measurement if a match is running.
+    if((m_current != null) && (m_current.m_end == 0))
+    {
+      m_current.m_queue.add(delay);
+    }
+  }
+
+  /**
+   * Records an echo frame from a timer display.
+   * <p>
+   * The echo frame is "e:&lt;time&gt;:&lt;when&gt;", where &lt;time&gt; is
+   * the match time that was displayed and &lt;when&gt; is the server time, in
+   * milliseconds, at which the display showed it.
+   *
+   * @param name The name of the display.
+   *
+   * @param text The echo frame from the display.
+   *
+   * @param matchLen The length of the match, in seconds.
+   */
+  public synchronized void
+  render(String name, String text, int matchLen)
+  {
+    // Ignore this if a match is not running.
+    if((m_current == null) || (m_current.m_end != 0))
+    {
+      return;
+    }
+
+    // A try/catch to handle a malformed echo frame.
+    try
+    {
+      // Split the frame into the displayed time and the time it was shown.
+      String[] parts = text.split(":");
+      int time = Integer.parseInt(parts[1]);
+      long when = Long.parseLong(parts[2]);
+
+      // Compute how late the display showed this second of the match,
+      // relative to the second boundary.
+      long late = when - (m_current.m_start + ((matchLen - time) * 1000L));
+
+      // Record the measurement for this display.
+      Stat stat = m_current.m_render.get(name);
+      if(stat == null)
+      {
+        stat = new Stat();
+        m_current.m_render.put(name, stat);
+      }
+      stat.add(late);
+    }
+    catch(Exception e)
+    {
+    }
+  }
+
+  /**
+   * Handles requests for /admin/status/timer.json.
+   *
+   * @param path The path from the request.
+   *
+   * @param paramMap The parameters from the request.
+   *
+   * @return An array of bytes to return to the client.
+   */
+  private synchronized byte[]
+  serveStats(String path, HashMap<String, String> paramMap)
+  {
+    JSONObject result = new SimpleJSONObject();
+
+    // See if the echo frames are being enabled or disabled, which can only
+    // be done by a POST request.
+    if("POST".equals(paramMap.get("request_method")) &&
+       paramMap.containsKey("echo"))
+    {
+      m_echo = paramMap.get("echo").equals("1");
+    }
+
+    // Add the echo enable to the JSON response.
+    result.set("echo", m_echo);
+
+    // Add the current match, if it is still running.
+    if((m_current != null) && (m_current.m_end == 0))
+    {
+      result.set("current", m_current.toJSON());
+    }
+
+    // Add the completed matches, most recent first.
+    JSONArray matches = new SimpleJSONArray();
+    for(int idx = m_matches.size() - 1; idx >= 0; idx--)
+    {
+      matches.addEntry(m_matches.get(idx).toJSON());
+    }
+    result.set("matches", matches);
+
+    // Convert the response into a byte array and return it.
+    try
+    {
+      String json = JSONParser.serialize(result);
+      return(json.getBytes(StandardCharsets.UTF_8));
+    }
+    catch(Exception e)
+    {
+      return("{}".getBytes(StandardCharsets.UTF_8));
+    }
+  }
+
+  /**
+   * Performs initial setup for the timer statistics.
+   */
+  public void
+  setup()
+  {
+    // Register the dynamic handler for the timer.json file.
+    WebServer.getInstance().registerDynamicFile("/admin/status/timer.json",
+                                                this::serveStats);
+  }
+}
@@ -0,0 +1,506 @@
+// Copyright (c) 2024 Brian Kircher
+//
+// Open Source Software; you can modify and/or share it under the terms of BSD
+// license file in the root directory of this project.
+
+package FLLScorer;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.bspfsystems.simplejson.JSONObject;
+import org.bspfsystems.simplejson.SimpleJSONObject;
+import org.bspfsystems.simplejson.parser.JSONParser;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpSession;
+import jakarta.servlet.http.HttpSessionEvent;
+import jakarta.servlet.http.HttpSessionListener;
+
+/**
+ * Captures the traffic from the browsers (the HTTP requests, and the opening,
+ * messages, and closing of the WebSockets) to a file, so that a real
+ * tournament can later be replayed against a fresh instance of the
+ * application (by the ReplayTraffic tool) for capacity testing.
+ * <p>
+ * The capture is enabled via the "httpCapture" value in the configuration
+ * database table, and is written next to the database file, in a file named
+ * capture-&lt;date&gt;-&lt;time&gt;.jsonl.  Each line of the file is a JSON
+ * object for one record, with the following fields:
+ * <ul>
+ *   <li>t - The time of the record, in milliseconds since the capture
+ *       started.</li>
+ *   <li>c - The client that made the record; a number for each browser
+ *       session, and for each WebSocket.</li>
+ *   <li>k - The kind of record; "get", "post", "open", "msg", or
+ *       "close".</li>
+ *   <li>p - The path of the request or WebSocket.</li>
+ *   <li>q - The query string of a GET request.</li>
+ *   <li>f - The form parameters of a POST request.</li>
+ *   <li>d - The time taken to handle a request, in microseconds.</li>
+ *   <li>s - The HTTP status of a request.</li>
+ *   <li>x - The text of a WebSocket message from the client.</li>
+ * </ul>
+ * The values of passwords are removed, as are the user names sent to the
+ * user management page, and the session cookies are not captured.  The
+ * records are queued for a writer thread; if the writer falls too far behind,
+ * records are dropped (and the number dropped is reported) rather than
+ * letting the queue grow without bound.
+ * <p>
+ * This is a singleton that is acquired via the getInstance() method.
+ */
+public class TrafficCapture implements HttpSessionListener
+{
+  /**
+   * The object for the TrafficCapture singleton.
+   */
+  private static TrafficCapture m_instance = null;
+
+  /**
+   * The parameters whose values are removed from the capture, since they are
+   * passwords.
+   */
+  private static final String[] m_redacted =
+    { "password", "wifi_password", "old", "new", "verify" };
+
+  /**
+   * The path of the user management requests, whose "name" parameter is also
+   * removed from the capture, since it is a user name.
+   */
+  private static final String m_usersPath = "/admin/users/users.json";
+
+  /**
+   * The maximum number of records that can be waiting to be written to the
+   * capture file.
+   */
+  private static final int MAX_RECORDS = 100000;
+
+  /**
+   * <b>true</b> if the traffic is being captured.
+   */
+  private volatile boolean m_enabled = false;
+
+  /**
+   * The time, in nanoseconds, at which the capture started.
+   */
+  private long m_start;
+
+  /**
+   * The number of each client, indexed by its session ID (or remote address
+   * when it does not have a session) or its WebSocket queue.  Clients are
+   * removed when their session ends or their WebSocket closes.
+   */
+  private HashMap<Object, Integer> m_clients = new HashMap<Object, Integer>();
+
+  /**
+   * The number of the next client.
+   */
+  private int m_nextClient = 0;
+
+  /**
+   * The records that are waiting to be written to the capture file.
+   */
+  private LinkedBlockingQueue<String> m_records =
+    new LinkedBlockingQueue<String>(MAX_RECORDS);
+
+  /**
+   * The number of records that have been dropped because the queue was full.
+   */
+  private AtomicLong m_dropped = new AtomicLong();
+
+  /**
+   * Gets the TrafficCapture singleton object, creating it if necessary.
+   *
+   * @return Returns the TrafficCapture singleton.
+   */
+  public static TrafficCapture
+  getInstance()
+  {
+    // Create the TrafficCapture object if required.
+    if(m_instance == null)
+    {
+      m_instance = new TrafficCapture();
+    }
+
+    // Return the TrafficCapture object.
+    return(m_instance);
+  }
+
+  /**
+   * The constructor.  This is private so that the object can only be created
+   * via the getIntance() method.
+   */
+  private
+  TrafficCapture()
+  {
+  }
+
+  /**
+   * Determines if the traffic is being captured.
+   *
+   * @return <b>true</b> if the traffic is being captured.
+   */
+  public boolean
+  enabled()
+  {
+    // Return the capture state.
+    return(m_enabled);
+  }
+
+  /**
+   * Gets the number of a client, assigning it a number if it does not
+   * already have one.
+   *
+   * @param key The key for the client.
+   *
+   * @return The number of the client.
+   */
+  private synchronized int
+  client(Object key)
+  {
+    // Find the client's number, assigning the next number if it does not
+    // have one.
+    Integer client = m_clients.get(key);
+    if(client == null)
+    {
+      client = m_nextClient++;
+      m_clients.put(key, client);
+    }
+
+    // Return the client's number.
+    return(client);
+  }
+
+  /**
+   * Creates a record, with the time, client, kind, and path filled in.
+   *
+   * @param time The time of the record, in nanoseconds.
+   *
+   * @param client The number of the client.
+   *
+   * @param kind The kind of record.
+   *
+   * @param path The path of the request or WebSocket.
+   *
+   * @return The record.
+   */
+  private JSONObject
+  record(long time, int client, String kind, String path)
+  {
+    JSONObject record = new SimpleJSONObject();
+
+    // Fill in the common fields of the record.
+    record.set("t", (time - m_start) / 1000000);
+    record.set("c", client);
+    record.set("k", kind);
+    record.set("p", path);
+
+    // Return the record.
+    return(record);
+  }
+
+  /**
+   * Queues a record to be written to the capture file.
+   *
+   * @param record The record.
+   */
+  private void
+  write(JSONObject record)
+  {
+    // Serialize the record and add it to the queue, dropping it if the
+    // queue is full.  The first dropped record is reported immediately; the
+    // total is reported once the writer catches up.
+    try
+    {
+      if(!m_records.offer(JSONParser.serialize(record)) &&
+         (m_dropped.getAndIncrement() == 0))
+      {
+        System.out.println("Capture error: queue full, dropping records");
+      }
+    }
+    catch(Exception e)
+    {
+      System.out.println("Capture error: " + e);
+    }
+  }
+
+  /**
+   * Determines if the value of a parameter should be removed from the
+   * capture.
+   *
+   * @param path The path of the request.
+   *
+   * @param key The name of the parameter.
+   *
+   * @return <b>true</b> if the value should be removed.
+   */
+  private static boolean
+  redacted(String path, String key)
+  {
+    // The user name is removed from the user management requests.
+    if(path.equals(m_usersPath) && key.equals("name"))
+    {
+      return(true);
+    }
+
+    // See if this parameter is one of the password parameters.
+    for(String name : m_redacted)
+    {
+      if(name.equals(key))
+      {
+        return(true);
+      }
+    }
+
+    // This parameter is captured.
+    return(false);
+  }
+
+  /**
+   * Captures an HTTP request.
+   *
+   * @param request The request.
+   *
+   * @param status The HTTP status of the response.
+   *
+   * @param start The time, in nanoseconds, at which the request was
+   *              received.
+   */
+  public void
+  request(HttpServletRequest request, int status, long start)
+  {
+    // Do nothing if the traffic is not being captured.
+    if(!m_enabled)
+    {
+      return;
+    }
+
+    // Find the client, from its session or its address.
+    HttpSession session = request.getSession(false);
+    int client = client((session != null) ? session.getId() :
+                                            request.getRemoteAddr());
+
+    // Create the record for this request.
+    boolean post = request.getMethod().equals("POST");
+    String path = request.getRequestURI();
+    JSONObject record = record(start, client, post ? "post" : "get", path);
+    record.set("d", (System.nanoTime() - start) / 1000);
+    record.set("s", status);
+
+    // Add the parameters of a POST request, without the passwords and user
+    // names.
+    if(post)
+    {
+      JSONObject form = new SimpleJSONObject();
+      Enumeration<String> keys = request.getParameterNames();
+      while(keys.hasMoreElements())
+      {
+        String key = keys.nextElement();
+        form.set(key, redacted(path, key) ? "" : request.getParameter(key));
+      }
+      record.set("f", form);
+    }
+
+    // Add the query string of a GET request, without the passwords and user
+    // names.
+    else if(request.getQueryString() != null)
+    {
+      StringBuilder query = new StringBuilder();
+      for(String param : request.getQueryString().split("&"))
+      {
+        String key = param.split("=")[0];
+        query.append((query.length() == 0) ? "" : "&");
+        query.append(redacted(path, key) ? (key + "=") : param);
+      }
+      record.set("q", query.toString());
+    }
+
+    // Write the record.
+    write(record);
+  }
+
+  /**
+   * Captures the opening of a WebSocket.
+   *
+   * @param queue The outbound message queue of the WebSocket, which
+   *              identifies it.
+   */
+  public void
+  socketOpen(SocketQueue queue)
+  {
+    // Write the record if the traffic is being captured.
+    if(m_enabled)
+    {
+      write(record(System.nanoTime(), client(queue), "open",
+                   queue.pathGet()));
+    }
+  }
+
+  /**
+   * Captures a message from the client of a WebSocket.
+   *
+   * @param queue The outbound message queue of the WebSocket.
+   *
+   * @param text The message.
+   */
+  public void
+  socketMessage(SocketQueue queue, String text)
+  {
+    // Write the record if the traffic is being captured.
+    if(m_enabled)
+    {
+      JSONObject record = record(System.nanoTime(), client(queue), "msg",
+                                 queue.pathGet());
+      record.set("x", text);
+      write(record);
+    }
+  }
+
+  /**
+   * Captures the closing of a WebSocket.
+   *
+   * @param queue The outbound message queue of the WebSocket.
+   */
+  public void
+  socketClose(SocketQueue queue)
+  {
+    // Do nothing if the traffic is not being captured.
+    if(!m_enabled)
+    {
+      return;
+    }
+
+    // Write the record, and forget the WebSocket.
+    write(record(System.nanoTime(), client(queue), "close",
+                 queue.pathGet()));
+    synchronized(this)
+    {
+      m_clients.remove(queue);
+    }
+  }
+
+  /**
+   * Forgets the client of a browser session when the session ends, so that
+   * the client numbers do not accumulate over a long tournament.
+   *
+   * @param event The session event.
+   */
+  @Override
+  public void
+  sessionDestroyed(HttpSessionEvent event)
+  {
+    // Forget the session.
+    synchronized(this)
+    {
+      m_clients.remove(event.getSession().getId());
+    }
+  }
+
+  /**
+   * The thread that writes the records to the capture file.
+   */
+  private class Writer implements Runnable
+  {
+    /**
+     * The capture file.
+     */
+    private BufferedWriter m_writer;
+
+    /**
+     * The constructor.
+     *
+     * @param writer The capture file.
+     */
+    private
+    Writer(BufferedWriter writer)
+    {
+      m_writer = writer;
+    }
+
+    /**
+     * The code that runs in the writer thread.
+     */
+    @Override
+    public void
+    run()
+    {
+      // Loop forever.
+      while(true)
+      {
+        try
+        {
+          // Wait for the next record, and write it.
+          m_writer.write(m_records.take());
+          m_writer.newLine();
+
+          // Flush the file once there are no more records waiting, so that
+          // the capture is complete if the application is stopped, and
+          // report any records that were dropped while the queue was full.
+          if(m_records.isEmpty())
+          {
+            m_writer.flush();
+            long dropped = m_dropped.getAndSet(0);
+            if(dropped != 0)
+            {
+              System.out.println("Capture error: dropped " + dropped +
+                                 " records");
+            }
+          }
+        }
+        catch(Exception e)
+        {
+          System.out.println("Capture error: " + e);
+        }
+      }
+    }
+  }
+
+  /**
+   * Performs initial setup for the traffic capture, starting the capture if
+   * it is enabled.
+   */
+  public void
+  setup()
+  {
+    // Do nothing if the capture is not enabled.
+    if(!Config.getInstance().httpCaptureGet())
+    {
+      return;
+    }
+
+    // Create the capture file next to the database file.
+    File db = new File(Database.getInstance().databaseFilenameGet());
+    String name = "capture-" +
+                  new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date()) +
+                  ".jsonl";
+    File file = new File(db.getAbsoluteFile().getParentFile(), name);
+    try
+    {
+      BufferedWriter writer =
+        new BufferedWriter(new FileWriter(file, StandardCharsets.UTF_8));
+
+      // Start the thread that writes the records.
+      Thread thread = new Thread(new Writer(writer), "TrafficCapture");
+      thread.setDaemon(true);
+      thread.start();
+    }
+    catch(Exception e)
+    {
+      System.out.println("Capture error: " + e);
+      return;
+    }
+
+    // Start capturing the traffic.
+    m_start = System.nanoTime();
+    m_enabled = true;
+    System.out.println("Capturing traffic to " + file.getPath());
+  }
+}
@@ -14,8 +14,10 @@ import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Enumeration;
 import java.util.HashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.eclipse.jetty.ee10.servlet.ServletContextHandler;
+import org.eclipse.jetty.ee10.servlet.ServletHolder;
 import org.eclipse.jetty.ee10.servlet.SessionHandler;
 import org.eclipse.jetty.ee10.servlet.security.ConstraintMapping;
 import org.eclipse.jetty.ee10.servlet.security.ConstraintSecurityHandler;
@@ -92,6 +94,11 @@ public class WebServer extends HttpServlet
    */
   private Server m_server = null;
 
+  /**
+   * The TLS context for the secured connector.
+   */
+  private SslContextFactory.Server m_sslContextFactory = null;
+
   /**
    * The Jetty servlet context handler object.
    */
@@ -165,6 +172,17 @@ public class WebServer extends HttpServlet
    */
   private ArrayList<String> m_pathMappingDest;
 
+  /**
+   * The list of web paths that are served as Server-Sent Event streams.
+   */
+  private ArrayList<String> m_eventPaths;
+
+  /**
+   * The list of event channels for the entries of <i>m_eventPaths</i>,
+   * stored in the same order.
+   */
+  private ArrayList<String> m_eventChannels;
+
   /**
    * When set to <b>true</b>, every request is printed to the terminal for
    * debugging purposes.  This is configurable via the "httpDebug" value in
@@ -179,6 +197,11 @@ public class WebServer extends HttpServlet
    */
   private static boolean m_securityBypass = false;
 
+  /**
+   * The number of HTTP requests that have been served.
+   */
+  private AtomicLong m_requests = new AtomicLong(0);
+
   /**
    * Gets the WebServer singleton object, creating it if necessary.
    *
@@ -216,7 +239,7 @@ public class WebServer extends HttpServlet
    * @param useSSI <b>true</b> if files with this extension should have
    *               Server Side Inclusion processing performed.
    */
-  public void
+  public synchronized void
   registerMimeType(String extension, String mimeType, boolean useSSI)
   {
     // Add this mime type to the lists.
@@ -233,7 +256,7 @@ public class WebServer extends HttpServlet
    * @param value The value to be put in place of the name when performing
    *              Server Side Inclusions.
    */
-  public void
+  public synchronized void
   registerSSI(String name, String value)
   {
     // Loop through the existing SSIs.
@@ -264,7 +287,7 @@ public class WebServer extends HttpServlet
    * @param handler The method that generates the dynamic content when it is
    *                requested.
    */
-  public void
+  public synchronized void
   registerDynamicSSI(String name, DynamicSSIHandler handler)
   {
     // Loop through the existing dynamic SSIs.
@@ -294,7 +317,7 @@ public class WebServer extends HttpServlet
    * @param handler The method that generates the dynamic content when it is
    *                requested.
    */
-  public void
+  public synchronized void
   registerDynamicFile(String path, DynamicPageHandler handler)
   {
     // Add the values to the dynamic handler lists.
@@ -302,6 +325,42 @@ public class WebServer extends HttpServlet
     m_dynamicHandlers.add(handler);
   }
 
+  /**
+   * Gets the handler for dynamic content that is associated with a web path.
+   * This allows the dynamic content to be generated without an HTTP request,
+   * such as by the benchmarks.
+   *
+   * @param path The web path that is served dynamically.
+   *
+   * @return The method that generates the dynamic content, or <b>null</b> if
+   *         the path is not served dynamically.
+   */
+  DynamicPageHandler
+  dynamicHandlerGet(String path)
+  {
+    // Find the path in the dynamic handler list.
+    int idx = m_dynamicPaths.indexOf("www" + path);
+
+    // Return the handler for this path, if there is one.
+    return((idx == -1) ? null : m_dynamicHandlers.get(idx));
+  }
+
+  /**
+   * Associates a Server-Sent Events channel with a web path.
+   *
+   * @param path The web path to serve as an event stream.
+   *
+   * @param channel The channel of the EventPublisher to stream.
+   */
+  public synchronized void
+  registerEventStream(String path, String channel)
+  {
+    // Add the values to the event stream lists (without the leading "/", to
+    // match the request path before it is mapped into "www/").
+    m_eventPaths.add(path.substring(1));
+    m_eventChannels.add(channel);
+  }
+
   /**
    * Provides a path mapping to the web server.
    * <p>
@@ -314,7 +373,7 @@ public class WebServer extends HttpServlet
    *
    * @param dest The resource path to the content.
    */
-  public void
+  public synchronized void
   registerPathMapping(String src, String dest)
   {
     // Add the values to the path mapping lists.
@@ -440,6 +499,38 @@ public class WebServer extends HttpServlet
     return(resp.getBytes(StandardCharsets.UTF_8));
   }
 
+  // Processes HTTP requests, capturing them if the traffic is being
+  // captured.
+  @Override
+  protected void
+  service(HttpServletRequest request, HttpServletResponse response)
+    throws ServletException, IOException
+  {
+    // Handle the request, timing it for the capture.
+    long start = System.nanoTime();
+    super.service(request, response);
+
+    // Capture the request.
+    TrafficCapture.getInstance().request(request, response.getStatus(),
+                                         start);
+
+    // Count the request, and report the time to the first request.
+    m_requests.incrementAndGet();
+    Startup.getInstance().requestServed();
+  }
+
+  /**
+   * Gets the number of HTTP requests that have been served.
+   *
+   * @return The number of requests.
+   */
+  public long
+  requestCountGet()
+  {
+    // Return the number of requests.
+    return(m_requests.get());
+  }
+
   // Processes HTTP POST requests.
   @Override
   protected void
@@ -506,12 +597,17 @@ public class WebServer extends HttpServlet
       // Get this parameter's value and add it to the parameter map.
       if(!key.equals("authenticated_user") && !key.equals("role_admin") &&
          !key.equals("role_host") && !key.equals("role_judge") &&
-         !key.equals("role_referee") && !key.equals("role_timekeeper"))
+         !key.equals("role_referee") && !key.equals("role_timekeeper") &&
+         !key.equals("request_method"))
       {
         paramMap.put(key, request.getParameter(key));
       }
     }
 
+    // Add the request method to the parameter map, so that the dynamic
+    // handlers can only make changes for a POST request.
+    paramMap.put("request_method", "POST");
+
     // Add the authenticated user, if one exists, to the parameter map.
     if(request.getRemoteUser() != null)
     {
@@ -660,6 +756,19 @@ public class WebServer extends HttpServlet
       return;
     }
 
+    // See if this is a request for an event stream.
+    int eventIdx = m_eventPaths.indexOf(path);
+    if(eventIdx != -1)
+    {
+      // Hand the request to the event publisher, which streams the events
+      // asynchronously.
+      EventPublisher.getInstance().subscribe(request, response,
+                                             m_eventChannels.get(eventIdx));
+
+      // There is nothing further to be done.
+      return;
+    }
+
     // Prepend the path with "www/" (so that only those resources are served)
     // and append "/index.html" if there is not a file name extension in the
     // request.
@@ -698,13 +807,18 @@ public class WebServer extends HttpServlet
         // Add this key/value to the parameter map.
         if(!key.equals("authenticated_user") && !key.equals("role_admin") &&
            !key.equals("role_host") && !key.equals("role_judge") &&
-           !key.equals("role_referee") && !key.equals("role_timekeeper"))
+           !key.equals("role_referee") && !key.equals("role_timekeeper") &&
+           !key.equals("request_method"))
         {
           paramMap.put(key, value);
         }
       }
     }
 
+    // Add the request method to the parameter map, so that the dynamic
+    // handlers can only make changes for a POST request.
+    paramMap.put("request_method", "GET");
+
     // Add the authenticated user, if one exists, to the parameter map.
     if(request.getRemoteUser() != null)
     {
@@ -834,7 +948,7 @@ public class WebServer extends HttpServlet
    *
    * @param idleTimeout The idle timeout for the WebSocket, in milliseconds.
    */
-  public void
+  public synchronized void
   addWebSocket(String path, JettyWebSocketCreator creator, long idleTimeout)
   {
     // Configure this WebSocket.
@@ -864,30 +978,38 @@ public class WebServer extends HttpServlet
   public String
   getSSI(String name)
   {
-    // Loop through the SSI names.
-    for(int i = 0; i < m_SSINames.size(); i++)
+    DynamicSSIHandler handler = null;
+
+    // Lock the lists while they are searched, since they can be changed by
+    // the startup steps that run in parallel.
+    synchronized(this)
     {
-      // See if this name matches.
-      if(name.equalsIgnoreCase(m_SSINames.get(i)))
+      // Loop through the SSI names.
+      for(int i = 0; i < m_SSINames.size(); i++)
       {
-        // Return the corresponding value.
-        return(m_SSIValues.get(i));
+        // See if this name matches.
+        if(name.equalsIgnoreCase(m_SSINames.get(i)))
+        {
+          // Return the corresponding value.
+          return(m_SSIValues.get(i));
+        }
       }
-    }
 
-    // Loop through the dynamic SSI names.
-    for(int i = 0; i < m_dynamicSSINames.size(); i++)
-    {
-      // See if this name matches.
-      if(name.equalsIgnoreCase(m_dynamicSSINames.get(i)))
+      // Loop through the dynamic SSI names.
+      for(int i = 0; i < m_dynamicSSINames.size(); i++)
       {
-        // Return the corresponding dynamic value.
-        return(m_dynamicSSIHandlers.get(i).run(name, null));
+        // See if this name matches.
+        if(name.equalsIgnoreCase(m_dynamicSSINames.get(i)))
+        {
+          // Save the corresponding dynamic handler.
+          handler = m_dynamicSSIHandlers.get(i);
+          break;
+        }
       }
     }
 
-    // The SSI name could not be found.
-    return(null);
+    // Return the corresponding dynamic value, if the name was found.
+    return((handler == null) ? null : handler.run(name, null));
   }
 
   /**
@@ -1069,7 +1191,7 @@ public class WebServer extends HttpServlet
    * @param timekeeper <b>1</b> if the user has the <i>timekeeper</i> role, and
    *                   <b>0</b> otherwise.
    */
-  public void
+  public synchronized void
   addUser(String name, String password, int admin, int host, int judge,
           int referee, int timekeeper)
   {
@@ -1208,6 +1330,8 @@ public class WebServer extends HttpServlet
     m_dynamicHandlers = new ArrayList<DynamicPageHandler>();
     m_pathMappingSrc = new ArrayList<String>();
     m_pathMappingDest = new ArrayList<String>();
+    m_eventPaths = new ArrayList<String>();
+    m_eventChannels = new ArrayList<String>();
 
     // Register the MIME types for the various content that will be served.
     registerMimeType(".css", "text/css", true);
@@ -1218,8 +1342,13 @@ public class WebServer extends HttpServlet
     registerMimeType(".json", "application/json", false);
     registerMimeType(".mp3", "audio/mpeg", false);
     registerMimeType(".png", "image/png", false);
+    registerMimeType(".svg", "image/svg+xml", false);
     registerMimeType(".wav", "audio/wav", false);
 
+    // Register the dynamic handler for the WebSocket queue status.
+    registerDynamicFile("/admin/status/sockets.json",
+                        SocketQueue::serveStatus);
+
     // Set the application version as a Server Side Include.
     String version = getClass().getPackage().getImplementationVersion();
     if(version == null)
@@ -1273,11 +1402,10 @@ public class WebServer extends HttpServlet
     ResourceFactory resourceFactory = ResourceFactory.of(m_server);
 
     // Setup the SSL/TLS context.
-    SslContextFactory.Server sslContextFactory =
-      new SslContextFactory.Server();
-    sslContextFactory.setKeyStoreResource(findKeyStore(resourceFactory));
-    sslContextFactory.setKeyStorePassword("12345678");
-    sslContextFactory.setKeyManagerPassword("12345678");
+    m_sslContextFactory = new SslContextFactory.Server();
+    m_sslContextFactory.setKeyStoreResource(findKeyStore(resourceFactory));
+    m_sslContextFactory.setKeyStorePassword("12345678");
+    m_sslContextFactory.setKeyManagerPassword("12345678");
 
     // Configure the HttpConfiguration for the secured connection. The SNI host
     // check is disabled (which will cause a browser warning) since a canned,
@@ -1292,7 +1420,7 @@ public class WebServer extends HttpServlet
     // Add the secured connector to the server.
     ServerConnector httpsConnector =
       new ServerConnector(m_server,
-                          new SslConnectionFactory(sslContextFactory,
+                          new SslConnectionFactory(m_sslContextFactory,
                                                    "http/1.1"),
                           new HttpConnectionFactory(httpsConf));
     httpsConnector.setPort(8443);
@@ -1314,8 +1442,13 @@ public class WebServer extends HttpServlet
                         "jdbc:sqlite:" + m_database.databaseFilenameGet());
     m_handler.setSessionHandler(sessionHandler);
 
-    // Add a servlet to the server for serving up the content.
-    m_handler.addServlet(this, "/");
+    // Let the traffic capture forget the sessions that have ended.
+    sessionHandler.addEventListener(TrafficCapture.getInstance());
+
+    // Add a servlet to the server for serving up the content.  Asynchronous
+    // support is required for the event streams.
+    ServletHolder holder = m_handler.addServlet(this, "/");
+    holder.setAsyncSupported(true);
 
     // Create the security handler that contains the role restrictions.
     ConstraintSecurityHandler securityHandler =
@@ -1361,6 +1494,25 @@ public class WebServer extends HttpServlet
     }
   }
 
+  /**
+   * Initializes the TLS context (loading the keystore and creating the SSL
+   * context) before the web server is started, so that this can be done
+   * while the rest of the application is being set up.
+   */
+  public void
+  tlsSetup()
+  {
+    // Start the TLS context.  The server leaves it running when it starts.
+    try
+    {
+      m_sslContextFactory.start();
+    }
+    catch(Exception e)
+    {
+      System.out.println("Jetty error: " + e);
+    }
+  }
+
   /**
    * Starts the web server.
    */
@@ -1375,6 +1527,10 @@ public class WebServer extends HttpServlet
     catch(Exception e)
     {
       System.out.println("Jetty error: " + e);
+      return;
     }
+
+    // The server is ready for requests.
+    Startup.getInstance().ready();
   }
 }
\ No newline at end of file
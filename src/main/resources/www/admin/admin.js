@@ -347,6 +347,7 @@ ready()
   $("#btn_scores").click(function() { showTab("scores"); });
   $("#btn_rubrics").click(function() { showTab("rubrics"); });
   $("#btn_users").click(function() { showTab("users"); });
+  $("#btn_health").click(function() { showTab("health"); });
   $("#btn_about").click(showAbout);
 
   // Show the seasons tab by default.
@@ -316,6 +316,109 @@ configError(evt)
     .fail(onFail);
 }
 
+// Handles changes to the database and HTTP request logging.
+function
+configDebug(evt)
+{
+  const id = $(evt.currentTarget).attr("id");
+  const target = $("#" + id).find(".fa-check");
+
+  // Called when the query to the server has completed.
+  function
+  onDone(result)
+  {
+    // Display a failure if the result was not success.
+    if(result["result"] !== "ok")
+    {
+      onFail(result);
+      return;
+    }
+
+    // Toggle the visibility of the check mark.
+    if(target.is(":visible"))
+    {
+      target.hide();
+    }
+    else
+    {
+      target.show();
+    }
+  }
+
+  // Called when the query to the server fails.
+  function
+  onFail(result)
+  {
+    // Display an error message.
+    showError("<!--#str_config_load_failed-->", null);
+  }
+
+  // Send a request to the server to change the logging.  The button ID,
+  // without the "btn_" prefix, is the name of the configuration value.
+  $.getJSON("/admin/config/config.json?action=set&" + id.substring(4) +
+            "=" + (target.is(":visible") ? "0" : "1"))
+    .done(onDone)
+    .fail(onFail);
+}
+
+// Handles changes to the flight recording enable.
+function
+configFlightEnable()
+{
+  const target = $("#btn_flight").find(".fa-check");
+
+  // Called when the query to the server has completed.
+  function
+  onDone(result)
+  {
+    // Display a failure if the result was not success.
+    if(result["result"] !== "ok")
+    {
+      onFail(result);
+      return;
+    }
+
+    // Toggle the visibility of the flight recording enable and the download
+    // button.
+    if(target.is(":visible"))
+    {
+      target.hide();
+      $("#row_flight_download").hide();
+    }
+    else
+    {
+      target.show();
+      $("#row_flight_download").show();
+    }
+  }
+
+  // Called when the query to the server fails.
+  function
+  onFail(result)
+  {
+    // Display an error message.
+    showError("<!--#str_config_load_failed-->", null);
+  }
+
+  // Send a request to the server to start or stop the flight recording.
+  $.getJSON("/admin/config/config.json?action=set&flight_recorder=" +
+            (target.is(":visible") ? "0" : "1"))
+    .done(onDone)
+    .fail(onFail);
+}
+
+// Downloads the flight recording.
+function
+configFlightDownload()
+{
+  // Create a link element and click it, triggering the recording download.
+  Object.assign(document.createElement('a'),
+                {
+                  href: "/admin/status/flight.jfr",
+                  download: "fllscorer.jfr"
+                }).click();
+}
+
 // Handles changes to the timer enable.
 function
 configTimerEnable()
@@ -629,6 +732,34 @@ configLoad()
         addClass("selected");
     }
 
+    // If the database and HTTP request logging are present, set them in the
+    // configuration screen.
+    for(const name of [ "db_debug", "http_debug" ])
+    {
+      if(result.hasOwnProperty(name) && (result[name] == true))
+      {
+        $(".config_container #btn_" + name + " .fa-check").show();
+      }
+      else
+      {
+        $(".config_container #btn_" + name + " .fa-check").hide();
+      }
+    }
+
+    // If the flight recording is running, show it in the configuration
+    // screen.
+    if(result.hasOwnProperty("flight_recorder") &&
+       (result["flight_recorder"] == true))
+    {
+      $(".config_container #btn_flight .fa-check").show();
+      $(".config_container #row_flight_download").show();
+    }
+    else
+    {
+      $(".config_container #btn_flight .fa-check").hide();
+      $(".config_container #row_flight_download").hide();
+    }
+
     // If the timer enable is present, set it in the configuration screen.
     if(result.hasOwnProperty("timer_enable") &&
        (result["timer_enable"] == true))
@@ -752,6 +883,18 @@ configSetup()
   $(".config_container #btn_timer_center").on("click", configTimerLocation).
     on("keyup", configKeyUp);
 
+  // Add the click and key up handlers for the logging buttons.
+  $(".config_container #btn_db_debug").on("click", configDebug).
+    on("keyup", configKeyUp);
+  $(".config_container #btn_http_debug").on("click", configDebug).
+    on("keyup", configKeyUp);
+
+  // Add the click and key up handlers for the flight recording buttons.
+  $(".config_container #btn_flight").on("click", configFlightEnable).
+    on("keyup", configKeyUp);
+  $(".config_container #btn_flight_download").
+    on("click", configFlightDownload).on("keyup", configKeyUp);
+
   // Add the change handlers for the WiFi credential inputs.
   $(".config_container #wifi_ssid").on("change", configWiFiSSID);
   $(".config_container #wifi_password").on("change", configWiFiPassword);
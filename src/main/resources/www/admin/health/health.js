@@ -0,0 +1,192 @@
+// Copyright (c) 2024 Brian Kircher
+//
+// Open Source Software; you can modify and/or share it under the terms of BSD
+// license file in the root directory of this project.
+
+// The samples that have been received from the server, oldest first.
+var healthSamples = [];
+
+// The number of samples that the server keeps, which is the width of the
+// charts.
+var healthLength = 120;
+
+// The timer used to fetch the next samples, or null if the health tab is not
+// shown.
+var healthTimer = null;
+
+// Converts a number of bytes into a string in megabytes.
+function
+healthBytes(bytes)
+{
+  // Convert the number to megabytes, with one decimal place.
+  return((bytes / (1024 * 1024)).toFixed(1) + " MB");
+}
+
+// Computes a count from a sample as a rate per second.
+function
+healthRate(sample, count)
+{
+  // Divide the count by the time covered by the sample.
+  return((sample["elapsed"] > 0) ? ((count * 1000) / sample["elapsed"]) : 0);
+}
+
+// Draws the values of a measurement, from all the samples, in a chart.
+function
+healthChart(id, values)
+{
+  // Find the largest value, which is used as the top of the chart.
+  const max = Math.max(1, ...values);
+
+  // Convert the values into the points of a line, with the newest value at
+  // the right edge of the chart.
+  var points = "";
+  for(var idx = 0; idx < values.length; idx++)
+  {
+    points += (healthLength - values.length + idx + 1) + "," +
+              (30 - ((values[idx] * 30) / max)) + " ";
+  }
+
+  // Draw the line in the chart.
+  $("#chart_" + id).attr("viewBox", "0 0 " + healthLength + " 30").
+    attr("preserveAspectRatio", "none").
+    html("<polyline points=\"" + points + "\"/>");
+}
+
+// Updates the display from the samples.
+function
+healthUpdate()
+{
+  // There is nothing to display until the first sample has been received.
+  if(healthSamples.length == 0)
+  {
+    return;
+  }
+  const sample = healthSamples[healthSamples.length - 1];
+
+  // Display the Java heap and garbage collection.  The time spent in
+  // garbage collection is highlighted when it exceeds 10% of the time.
+  $("#health_heap").text(healthBytes(sample["heap_used"]) + " / " +
+                         healthBytes(sample["heap_max"]));
+  healthChart("heap", healthSamples.map(s => s["heap_used"]));
+  $("#health_gc_time").text(sample["gc_time"] + " ms").
+    toggleClass("busy", (sample["gc_time"] * 10) > sample["elapsed"]);
+  healthChart("gc_time", healthSamples.map(s => s["gc_time"]));
+  $("#health_gc_last").text(sample["gc_last"] + " ms");
+  healthChart("gc_last", healthSamples.map(s => s["gc_last"]));
+
+  // Display the HTTP requests and the WebSocket sessions.
+  $("#health_requests").text(healthRate(sample,
+                                        sample["requests"]).toFixed(1));
+  healthChart("requests",
+              healthSamples.map(s => healthRate(s, s["requests"])));
+  for(const endpoint of [ "timer", "timekeeper", "referee", "judge" ])
+  {
+    $("#health_socket_" + endpoint).text(sample["sockets"][endpoint]);
+    healthChart("socket_" + endpoint,
+                healthSamples.map(s => s["sockets"][endpoint]));
+  }
+
+  // Display the database.  The connection wait is the average time each
+  // statement waited for the database connection.
+  $("#health_statements").text(healthRate(sample,
+                                          sample["statements"]).toFixed(1));
+  healthChart("statements",
+              healthSamples.map(s => healthRate(s, s["statements"])));
+  const wait = healthSamples.map(s => ((s["statements"] > 0) ?
+                                       (s["wait"] / s["statements"]) : 0));
+  $("#health_wait").text((wait[wait.length - 1] / 1000).toFixed(2) + " ms");
+  healthChart("wait", wait);
+  $("#health_db_size").text(healthBytes(sample["db_size"]));
+  $("#health_db_free").text(healthBytes(sample["db_free"]));
+  $("#health_cache").text(healthBytes(sample["cache_size"]));
+
+  // Display the number of threads.
+  $("#health_threads").text(sample["threads"]);
+  healthChart("threads", healthSamples.map(s => s["threads"]));
+
+  // Display the threads of each subsystem, along with the CPU they used (as
+  // a percentage of one processor).  Subsystems that used more than half of
+  // a processor are highlighted, since they may have a runaway thread.
+  var html = "";
+  for(const subsystem of sample["subsystems"])
+  {
+    const cpu = (sample["elapsed"] > 0) ?
+                ((subsystem["cpu"] * 100) / sample["elapsed"]) : 0;
+    html += "<tr>" +
+            "<td>" + htmlEncode(subsystem["name"]) + "</td>" +
+            "<td class=\"value\">" + subsystem["threads"] + "</td>" +
+            "<td class=\"value" + ((cpu > 50) ? " busy" : "") + "\">" +
+            cpu.toFixed(1) + "%</td>" +
+            "</tr>";
+  }
+  $(".health_container .subsystems tbody").html(html);
+}
+
+// Fetches the new samples from the server.
+function
+healthLoad()
+{
+  // The time of the newest sample that has been received.
+  const since = (healthSamples.length == 0) ? 0 :
+                healthSamples[healthSamples.length - 1]["time"];
+
+  // The time until the samples are next fetched.
+  var interval = 5000;
+
+  // Called when the query to the server has completed.
+  function
+  onDone(result)
+  {
+    // Add the new samples, discarding the oldest samples once there are
+    // more than the server keeps.
+    healthLength = result["length"];
+    healthSamples = healthSamples.concat(result["samples"]);
+    if(healthSamples.length > healthLength)
+    {
+      healthSamples = healthSamples.slice(healthSamples.length -
+                                          healthLength);
+    }
+    interval = result["interval"];
+
+    // Update the display.
+    healthUpdate();
+  }
+
+  // Called when the query to the server has finished, whether or not it
+  // was successful.
+  function
+  onAlways()
+  {
+    // Fetch the samples again after the sample interval, unless the health
+    // tab is no longer shown.
+    if(healthTimer !== null)
+    {
+      healthTimer = setTimeout(healthLoad, interval);
+    }
+  }
+
+  // Request the new samples from the server.  A failure is not reported,
+  // since the samples are simply fetched again later.
+  $.getJSON("/admin/status/health.json?since=" + since)
+    .done(onDone)
+    .always(onAlways);
+}
+
+// Handles setup of the health tab.
+function
+healthSetup()
+{
+  // Start fetching the samples from the server.
+  healthSamples = [];
+  healthTimer = 0;
+  healthLoad();
+}
+
+// Handles cleanup of the health tab.
+function
+healthCleanup()
+{
+  // Stop fetching the samples.
+  clearTimeout(healthTimer);
+  healthTimer = null;
+}
\ No newline at end of file
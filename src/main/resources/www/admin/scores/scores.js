@@ -369,6 +369,143 @@ scoresDownload()
                 }).click();
 }
 
+// Re-scores the published scoresheets with the current scoresheet.
+function
+scoresRescore()
+{
+  // Called when the progress of the re-score has been fetched.
+  function
+  onStatus(result)
+  {
+    // Keep polling while the re-score is running.
+    if(result["running"])
+    {
+      $("#scores-rescore").attr("title",
+                                "<!--#str_scores_rescore_running-->"
+                                  .replace("${sheets}", result["sheets"])
+                                  .replace("${total}", result["total"]));
+      setTimeout(poll, 500);
+      return;
+    }
+
+    // Stop indicating that the re-score is running.
+    $("#scores-rescore").removeClass("fa-spin").removeAttr("title");
+
+    // See if the re-score failed.
+    if(result["result"] != "ok")
+    {
+      onFail(result["result"]);
+      return;
+    }
+
+    // Construct a summary of the re-score.
+    var html = "<!--#str_scores_rescore_done-->"
+                 .replace("${sheets}", result["sheets"])
+                 .replace("${seconds}", (result["elapsed"] / 1000).toFixed(1))
+                 .replace("${changed}", result["changed"]);
+    if(result["invalid"] != 0)
+    {
+      html += "<br>" + "<!--#str_scores_rescore_invalid-->"
+                         .replace("${invalid}", result["invalid"]);
+    }
+
+    // Add the first few of the scores that changed.
+    for(var diff of result["diffs"].slice(0, 20))
+    {
+      var match_name = $(".scores_container .heading .match" + diff["match"]).
+                         html().trim();
+      html += "<br>" + htmlEncode(diff["event"]) + " : " + diff["number"] +
+              " : " + match_name + " : " + diff["before"] + " &rarr; " +
+              (Object.hasOwn(diff, "after") ? diff["after"] : "?");
+    }
+
+    // Show the summary and reload the scores.
+    showMessage(html);
+    scoresLoad();
+  }
+
+  // Fetches the progress of the re-score.
+  function
+  poll()
+  {
+    $.getJSON("/admin/scores/rescore.json")
+      .done(onStatus)
+      .fail(onFail);
+  }
+
+  // Starts the re-score.
+  function
+  onStart(scope)
+  {
+    // Called when the query to the server has completed.
+    function
+    onDone(result)
+    {
+      // See if the request was successful.
+      if(result["result"] != "ok")
+      {
+        // It was not, so call the failure function.
+        onFail(result["result"]);
+      }
+      else
+      {
+        // Indicate that the re-score is running and poll for its progress.
+        $("#scores-rescore").addClass("fa-spin");
+        poll();
+      }
+    }
+
+    // Send a request to the server to start the re-score.
+    $.getJSON("/admin/scores/rescore.json?action=start&scope=" + scope)
+      .done(onDone)
+      .fail(onFail);
+  }
+
+  // Called when a query to the server fails.
+  function
+  onFail(result)
+  {
+    // Stop indicating that the re-score is running.
+    $("#scores-rescore").removeClass("fa-spin").removeAttr("title");
+
+    // Display an error message.
+    showError((typeof(result) === "string") ? result :
+              "<!--#str_connect_error-->", null);
+  }
+
+  // Skip this request if a re-score is already running.
+  if($("#scores-rescore").hasClass("fa-spin"))
+  {
+    return;
+  }
+
+  // Ask whether the current event or the entire season should be re-scored.
+  var html = `
+<div class="warning_container">
+  <div>
+    <p>
+      <!--#str_scores_rescore_conf-->
+    </p>
+    <br>
+    <button id="rescore-cancel" class="gray">
+      <!--#str_button_cancel-->
+    </button>
+    <button id="rescore-event" class="red">
+      <!--#str_scores_rescore_event-->
+    </button>
+    <button id="rescore-season" class="red">
+      <!--#str_scores_rescore_season-->
+    </button>
+  </div>
+</div>`;
+  showPopup(html,
+            {
+              "rescore-cancel": null,
+              "rescore-event": () => { onStart("event"); },
+              "rescore-season": () => { onStart("season"); }
+            });
+}
+
 // Connects to the server WebSocket interface.
 function
 wsConnect()
@@ -551,6 +688,7 @@ scoresSetup()
   $("#scores-search").on("keyup", scoresSearch);
   $("#scores-refresh").on("click", scoresLoad);
   $("#scores-download").on("click", scoresDownload);
+  $("#scores-rescore").on("click", scoresRescore);
 
   // Add a keydown event listener.
   document.addEventListener("keydown", scoresKeydown);
@@ -19,6 +19,22 @@ var closeOnExit = false;
 // The web socket for communicating with the server.
 var ws = null;
 
+// The token for the live scoring session of the scoresheet, or null if there
+// is not one.
+var liveToken = null;
+
+// The mission item selections that have changed but have not yet been sent to
+// the server for live scoring.
+var livePending = {};
+
+// Set to true while a live scoring request is outstanding.
+var liveBusy = false;
+
+// The generation of the scoresheet, which is incremented each time a
+// scoresheet is loaded so that the replies to requests sent for a previous
+// scoresheet can be ignored.
+var liveGeneration = 0;
+
 // Enable/disable the compute button based on the completeness of the
 // scoresheet.
 function
@@ -120,11 +136,14 @@ itemToggle(mission_sel, button)
 
   // The scoresheet has been modified.
   modified = true;
+
+  // Score this change live.
+  liveUpdate(mission_sel);
 }
 
 // Called when a text input changes.
 function
-itemChange()
+itemChange(input)
 {
   // Update the publish and compute buttons.
   computeEnable();
@@ -134,68 +153,79 @@ itemChange()
 
   // The scoresheet has been modified.
   modified = true;
+
+  // Score this change live.
+  liveUpdate("#" + $(input).closest(".mission_sel").attr("id"));
 }
 
-// Gets the JSON representation of the current selection state of the
-// scoresheet.
+// Gets the current selection of a mission item, or undefined if there is no
+// selection.
 function
-getSheetJSON()
+getItemValue(mission)
 {
-  var result = {};
   var idx;
 
-  // Loop through all of the mission selections.
-  for(var mission of $(".mission_sel"))
+  // See if this mission item is an input field.
+  var input = $(mission).find("input");
+  if(input.length !== 0)
   {
-    // See if this mission item is an input field.
-    var input = $(mission).find("input");
-    if(input.length !== 0)
+    // Get the value of this input.
+    var value = parseFloat(input.val());
+
+    // If there is a minimum value, bump the value up to the minimum if it is
+    // less than the minimum (on some browsers, the minimum is not honored when
+    // directly typing a value).
+    if((input.attr("min") !== undefined) && (value < input.attr("min")))
     {
-      // Get the value of this input.
-      var value = parseFloat(input.val());
+      value = input.attr("min");
+    }
 
-      // If there is a minimum value, bump the value up to the minimum if it is
-      // less than the minimum (on some browsers, the minimum is not honored
-      // when directly typing a value).
-      if((input.attr("min") !== undefined) && (value < input.attr("min")))
-      {
-        value = input.attr("min");
-      }
+    // If there is a maximum value, bump the value down to the maximum if it is
+    // greater than the maximum (on some browsers, the maximum is not honored
+    // hwne directly typing a value).
+    if((input.attr("max") !== undefined) && (value > input.attr("max")))
+    {
+      value = input.attr("max");
+    }
 
-      // If there is a maximum value, bump the value down to the maximum if it
-      // is greater than the maximum (on some browsers, the maximum is not
-      // honored hwne directly typing a value).
-      if((input.attr("max") !== undefined) && (value > input.attr("max")))
-      {
-        value = input.attr("max");
-      }
+    // Return the value of this input.
+    return(value);
+  }
 
-      // Save the value into the scoresheet state.
-      result[mission.id] = value;
+  // Get all of the buttons for this selection.
+  var buttons = $(mission).find("button");
 
-      // Go to the next mission item.
-      continue;
+  // Loop through all of the buttons.
+  for(idx = 0; idx < buttons.length; idx++)
+  {
+    // See if this button is selected.
+    if($(buttons[idx]).hasClass("selected"))
+    {
+      // Return the index of the selected button.
+      return(idx);
     }
+  }
 
-    // Get all of the buttons for this selection.
-    var buttons = $(mission).find("button");
+  // None of the buttons are selected.
+  return(undefined);
+}
 
-    // Loop through all of the buttons.
-    for(idx = 0; idx < buttons.length; idx++)
-    {
-      // See if this button is selected.
-      if($(buttons[idx]).hasClass("selected"))
-      {
-        // Stop looking.
-        break;
-      }
-    }
+// Gets the JSON representation of the current selection state of the
+// scoresheet.
+function
+getSheetJSON()
+{
+  var result = {};
 
-    // See if one of the buttons is selected.
-    if(idx != buttons.length)
+  // Loop through all of the mission selections.
+  for(var mission of $(".mission_sel"))
+  {
+    // Save the selection for this item into the scoresheet state, if there is
+    // one.
+    var value = getItemValue(mission);
+    if(value !== undefined)
     {
-      // Save the button selection into the scoresheet state.
-      result[mission.id] = idx;
+      result[mission.id] = value;
     }
   }
 
@@ -341,6 +371,44 @@ publish()
     .fail(fail)
 }
 
+// Shows the mission errors from a scoring result, returning the number of
+// errors.
+function
+showMissionErrors(errors)
+{
+  // Start with no detected errors.
+  var count = 0;
+
+  // Hide all the mission error messages.
+  $(".error").hide();
+
+  // Split the result into lines.
+  var items = errors.split("\n");
+
+  // Loop through the result lines.
+  for(var item of items)
+  {
+    // Ignore this line if it does not contain a colon.
+    if(item.indexOf(":") == -1)
+    {
+      continue;
+    }
+
+    // Split the line around the colon.
+    var fragments = item.split(":");
+
+    // Set the error text to the mission error and show it.
+    $("#" + fragments[0] + " .error  .mission_error").html(fragments[1]);
+    $("#" + fragments[0] + " .error").show();
+
+    // Increment the count of errors.
+    count++;
+  }
+
+  // Return the number of errors.
+  return(count);
+}
+
 // Handles computing the score for the scoresheet.
 function
 compute()
@@ -349,6 +417,16 @@ compute()
   function
   done(result)
   {
+    // Ignore this reply if it is for a previous scoresheet.
+    if(generation != liveGeneration)
+    {
+      return;
+    }
+
+    // Save the token for the live scoring session, if one was started.
+    liveBusy = false;
+    liveToken = Object.hasOwn(result, "live") ? result["live"] : null;
+
     // See if the request was successful.
     if((result != null) && (result["result"] != "ok"))
     {
@@ -368,38 +446,21 @@ compute()
   function
   fail(result)
   {
+    // Ignore this reply if it is for a previous scoresheet.
+    if(generation != liveGeneration)
+    {
+      return;
+    }
+
+    // A failed request does not complete a live scoring request.
+    liveBusy = false;
+
     // See if there is a result, and it contains at least one colon.
     if(Object.hasOwn(result, "result") &&
        (result["result"].indexOf(":") != -1))
     {
-      // Start with no detected errors.
-      var count = 0;
-
-      // Hide all the mission error messages.
-      $(".error").hide();
-
-      // Split the result into lines.
-      var items = result["result"].split("\n");
-
-      // Loop through the result lines.
-      for(var item of items)
-      {
-        // Ignore this line if it does not contain a colon.
-        if(item.indexOf(":") == -1)
-        {
-          continue;
-        }
-
-        // Split the line around the colon.
-        var fragments = item.split(":");
-
-        // Set the error text to the mission error and show it.
-        $("#" + fragments[0] + " .error  .mission_error").html(fragments[1]);
-        $("#" + fragments[0] + " .error").show();
-
-        // Increment the count of errors.
-        count++;
-      }
+      // Show the mission errors.
+      var count = showMissionErrors(result["result"]);
 
       // Change the response to a general error message for the popup.
       if(count == 1)
@@ -417,15 +478,199 @@ compute()
               "<!--#str_connect_error-->", null);
   }
 
+  // Get the JSON representation of the current scoresheet selections, which
+  // replaces any changes that are waiting to be scored live.
+  var json = getSheetJSON();
+  var generation = liveGeneration;
+  livePending = {};
+
+  // Send a request to the server to score the scoresheet, starting a new live
+  // scoring session for it.
+  liveBusy = true;
+  $.getJSON("/referee/referee.json?action=score&live=1&json=" + json)
+    .done(done)
+    .fail(fail)
+}
+
+// Shows the result of live scoring.
+function
+liveShow(result)
+{
+  // Show the mission errors, if there are any.
+  if(result["result"] == "ok")
+  {
+    $(".error").hide();
+  }
+  else if(result["result"].indexOf(":") != -1)
+  {
+    showMissionErrors(result["result"]);
+  }
+
+  // Show the score if it has no errors, is for a complete scoresheet, and
+  // there are no further changes waiting to be scored.
+  if((result["result"] == "ok") &&
+     ($("#compute").attr("disabled") === undefined) &&
+     (Object.keys(livePending).length == 0))
+  {
+    setScore(result["score"]);
+  }
+  else
+  {
+    setScore(-1);
+  }
+}
+
+// Starts live scoring of the scoresheet, once it is complete.
+function
+liveStart()
+{
+  // Called when the query to the server has completed.
+  function
+  done(result)
+  {
+    // Ignore this reply if it is for a previous scoresheet.
+    if(generation != liveGeneration)
+    {
+      return;
+    }
+
+    // Save the token for the live scoring session, if one was started.
+    liveBusy = false;
+    liveToken = Object.hasOwn(result, "live") ? result["live"] : null;
+
+    // Show the result, and send any changes made in the mean time.
+    liveShow(result);
+    liveSend();
+  }
+
+  // Called when the query to the server fails.
+  function
+  fail(result)
+  {
+    // Live scoring is not available, so the compute button must be used
+    // (unless this reply is for a previous scoresheet).
+    if(generation == liveGeneration)
+    {
+      liveBusy = false;
+    }
+  }
+
+  // Do nothing if there is a request outstanding or the scoresheet is not
+  // complete.
+  if(liveBusy || ($("#compute").attr("disabled") !== undefined))
+  {
+    return;
+  }
+
   // Get the JSON representation of the current scoresheet selections.
   var json = getSheetJSON();
+  var generation = liveGeneration;
+  livePending = {};
 
-  // Send a request to the server to score the scoresheet.
-  $.getJSON("/referee/referee.json?action=score&json=" + json)
+  // Send a request to the server to score the scoresheet and start a live
+  // scoring session for it.
+  liveBusy = true;
+  $.getJSON("/referee/referee.json?action=score&live=1&json=" + json)
     .done(done)
     .fail(fail)
 }
 
+// Sends the next changed selection to the server for live scoring.  Only one
+// request is outstanding at a time, so that the changes are scored in the
+// order in which they were made.
+function
+liveSend()
+{
+  // Called when the query to the server has completed.
+  function
+  done(result)
+  {
+    // Ignore this reply if it is for a previous scoresheet.
+    if(generation != liveGeneration)
+    {
+      return;
+    }
+
+    // The request is no longer outstanding.
+    liveBusy = false;
+
+    // See if the live scoring session has expired.
+    if(result["result"] == "expired")
+    {
+      // Start a new session by scoring the full scoresheet.
+      liveToken = null;
+      liveStart();
+      return;
+    }
+
+    // Show the result, and send the next change.
+    liveShow(result);
+    liveSend();
+  }
+
+  // Called when the query to the server fails.
+  function
+  fail(result)
+  {
+    // Ignore this reply if it is for a previous scoresheet.
+    if(generation != liveGeneration)
+    {
+      return;
+    }
+
+    // Stop live scoring; the compute button must be used instead.
+    liveBusy = false;
+    liveToken = null;
+    livePending = {};
+  }
+
+  // Do nothing if there is a request outstanding, there is no live scoring
+  // session, or there are no changes to send.
+  var items = Object.keys(livePending);
+  if(liveBusy || (liveToken === null) || (items.length == 0))
+  {
+    return;
+  }
+
+  // Get the next change.
+  var item = items[0];
+  var value = livePending[item];
+  var generation = liveGeneration;
+  delete livePending[item];
+
+  // Send a request to the server to score this change.
+  liveBusy = true;
+  $.getJSON(`/referee/referee.json?action=rescore&live=${liveToken}` +
+            `&item=${item}&value=${value}`)
+    .done(done)
+    .fail(fail)
+}
+
+// Queues a changed mission item selection to be scored live.
+function
+liveUpdate(mission_sel)
+{
+  // Get the new selection for this item.  An item that no longer has a
+  // selection is sent once a new selection is made.
+  var value = getItemValue($(mission_sel));
+  if((value === undefined) || isNaN(value))
+  {
+    return;
+  }
+
+  // Start a live scoring session if there is not one (which scores the
+  // entire scoresheet).
+  if((liveToken === null) && !liveBusy)
+  {
+    liveStart();
+    return;
+  }
+
+  // Queue this change and send it if nothing else is outstanding.
+  livePending[mission_sel.substring(1)] = parseInt(value);
+  liveSend();
+}
+
 // Loads the current list of scores from the server.
 function
 loadScores()
@@ -654,7 +899,7 @@ loadMatch(id, match)
           let max = (item["max"] !== undefined) ? ` max="${item["max"]}"` : "";
 
           // Add the input for this item to the HTML.
-          html += `<input type="number"${min}${max} oninput="itemChange();">` +
+          html += `<input type="number"${min}${max} oninput="itemChange(this);">` +
                   `</input>`;
         }
 
@@ -713,6 +958,14 @@ loadMatch(id, match)
     teamID = id;
     theMatch = match;
 
+    // There is no live scoring session for this scoresheet yet, and the
+    // replies to any live scoring requests for the previous scoresheet are
+    // ignored.
+    liveGeneration++;
+    liveToken = null;
+    livePending = {};
+    liveBusy = false;
+
     // Hide all the match number indicators and show the appropriate one for
     // this match.
     $(".score_container [class^='match'").hide();
@@ -28,8 +28,18 @@ var timer_enable = "<!--#timer-enable-->";
 // The current location for the timer display.
 var timer_location = "<!--#timer-location-->";
 
-// The WebSocket for communicating with the server.
-var ws = null;
+// The event stream for the timer.
+var timerEvents = null;
+
+// The event stream for the scoreboard.
+var scoreEvents = null;
+
+// The most recent scoreboard data from the event stream; is null when it is
+// not available (in which case the scoreboard data is fetched directly).
+var latestData = null;
+
+// The most recently displayed match time.
+var lastTime = -1;
 
 // The state of the timer display.
 var state = "reset";
@@ -91,6 +101,14 @@ loadData()
     }
   }
 
+  // Use the latest scoreboard from the event stream, if it is available.
+  if(latestData !== null)
+  {
+    onDone(latestData);
+    onAlways();
+    return;
+  }
+
   // Fetch the latest scoreboard from the server.
   $.getJSON("/scoreboard/scoreboard.json")
     .done(onDone)
@@ -98,6 +116,33 @@ loadData()
     .always(onAlways);
 }
 
+// Connects to the scoreboard event stream.
+function
+scoreConnect()
+{
+  // Create a new event stream for the scoreboard; it reconnects
+  // automatically, receiving only the updates that it missed.
+  scoreEvents = new EventSource("/scoreboard/events");
+
+  // Save the scoreboard data whenever it changes; it is displayed the next
+  // time the scoreboard returns to the first screen.
+  scoreEvents.onmessage = function(e)
+  {
+    latestData = JSON.parse(e.data);
+  };
+
+  // Stop using the event stream data if it is permanently closed, and try to
+  // connect again after a second.
+  scoreEvents.onerror = function(e)
+  {
+    if(scoreEvents.readyState === EventSource.CLOSED)
+    {
+      latestData = null;
+      setTimeout(scoreConnect, 1000);
+    }
+  };
+}
+
 // Runs the timer, executed every ten seconds.
 function
 runTimer()
@@ -321,23 +366,32 @@ displayTime(time)
   document.body.appendChild(sheet);
 }
 
-// Connects to the server WebSocket interface.
+// Connects to the timer event stream.
 function
-wsConnect()
+timerConnect()
 {
-  // Create a new WebSocket.
-  ws = new WebSocket(window.location.origin.replace("https", "wss") +
-                     "/timer/timer.ws");
-
-  // Set the functions to call when a message is received for the WebSocket is
-  // closed.
-  ws.onmessage = wsMessage;
-  ws.onclose = wsClose;
+  // Create a new event stream for the timer; it reconnects automatically,
+  // receiving only the updates that it missed.
+  timerEvents = new EventSource("/timer/events");
+
+  // Set the functions to call when the event stream is opened, a message is
+  // received, or an error occurs.
+  timerEvents.onopen = timerOpen;
+  timerEvents.onmessage = timerMessage;
+  timerEvents.onerror = timerError;
 }
 
-// Called when a message is received from the WebSocket.
+// Called when the timer event stream opens.
 function
-wsMessage(e)
+timerOpen()
+{
+  // Restore the time display, since updates are only sent when it changes.
+  displayTime(lastTime);
+}
+
+// Called when a message is received from the timer event stream.
+function
+timerMessage(e)
 {
   // See if this is a mode run message.
   if(e.data.substring(0, 7) === "m:run")
@@ -427,21 +481,26 @@ wsMessage(e)
   else if(e.data.substring(0, 2) === "t:")
   {
     // Display the provided time.
-    displayTime(parseInt(e.data.substring(2)));
+    lastTime = parseInt(e.data.substring(2));
+    displayTime(lastTime);
   }
 }
 
-// Called when the WebSocket closes.
+// Called when an error occurs on the timer event stream.
 function
-wsClose()
+timerError()
 {
   // Change the time display to indicate that the server connection has been
   // lost.
   displayTime(-1);
 
-  // Attempt to reconnect to the server after a second (to avoid flooding the
-  // network with requests).
-  setTimeout(wsConnect, 1000);
+  // The event stream reconnects by itself, unless it has been permanently
+  // closed; in that case, attempt to reconnect to the server after a second
+  // (to avoid flooding the network with requests).
+  if(timerEvents.readyState === EventSource.CLOSED)
+  {
+    setTimeout(timerConnect, 1000);
+  }
 }
 
 // Handles keydown events.
@@ -496,8 +555,9 @@ ready()
   // Manually run the scoreboard the first time.
   runTimer();
 
-  // Connect to the server via a WebSocket.
-  wsConnect();
+  // Connect to the server's scoreboard and timer event streams.
+  scoreConnect();
+  timerConnect();
 }
 
 // Set the function to call when the page is ready.
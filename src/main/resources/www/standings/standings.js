@@ -22,6 +22,13 @@ var index = 0;
 // Whether the standings display is paused.
 var paused = false;
 
+// The event stream for the standings.
+var standingsEvents = null;
+
+// The most recent standings data from the event stream; is null when it is
+// not available (in which case the standings data is fetched directly).
+var latestData = null;
+
 // Loads the standings data from the server.
 function
 loadData()
@@ -73,6 +80,14 @@ loadData()
     }
   }
 
+  // Use the latest standings from the event stream, if it is available.
+  if(latestData != null)
+  {
+    onDone(latestData);
+    onAlways();
+    return;
+  }
+
   // Fetch the latest standings from the server.
   $.getJSON("/standings/standings.json")
     .done(onDone)
@@ -80,6 +95,33 @@ loadData()
     .always(onAlways);
 }
 
+// Connects to the standings event stream.
+function
+standingsConnect()
+{
+  // Create a new event stream for the standings; it reconnects
+  // automatically, receiving only the updates that it missed.
+  standingsEvents = new EventSource("/standings/events");
+
+  // Save the standings data whenever it changes; it is displayed the next
+  // time the standings return to the first screen.
+  standingsEvents.onmessage = function(e)
+  {
+    latestData = JSON.parse(e.data);
+  };
+
+  // Stop using the event stream data if it is permanently closed, and try to
+  // connect again after a second.
+  standingsEvents.onerror = function(e)
+  {
+    if(standingsEvents.readyState == EventSource.CLOSED)
+    {
+      latestData = null;
+      setTimeout(standingsConnect, 1000);
+    }
+  };
+}
+
 // Runs the timer, executed every ten seconds.
 function
 runTimer()
@@ -241,6 +283,9 @@ ready()
   // Add a keydown event listener.
   document.addEventListener("keydown", onKeydown);
 
+  // Connect to the standings event stream.
+  standingsConnect();
+
   // Manually run the standings the first time.
   runTimer();
 }
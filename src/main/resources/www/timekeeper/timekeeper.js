@@ -6,6 +6,37 @@
 // The WebSocket for communicating with the server.
 var ws = null;
 
+// The server time, in milliseconds, at which the current match started, or
+// null if a match is not running.
+var matchStart = null;
+
+// The length of the current match, in seconds.
+var matchLength = 0;
+
+// The most recently displayed match time.
+var lastTime = -1;
+
+// The offset, in milliseconds, from the local clock to the server clock, or
+// null if it is not yet known.
+var clockOffset = null;
+
+// The most recent clock synchronization samples, each an array of the round
+// trip time and the clock offset computed from it.
+var syncSamples = [];
+
+// The timer used to render the match time locally.
+var renderTimer = null;
+
+// The timer used to send clock synchronization requests.
+var syncTimer = null;
+
+// The number of clock synchronization requests sent on this connection.
+var syncCount = 0;
+
+// Set to true when the server has asked to be told when each second of the
+// match is displayed.
+var echo = false;
+
 // Displays the time remaining in the match.
 function
 displayTime(time)
@@ -198,12 +229,117 @@ wsConnect()
   ws = new WebSocket(window.location.origin.replace("https", "wss") +
                      "/timekeeper/timekeeper.ws");
 
-  // Set the functions to call when a message is received for the WebSocket is
-  // closed.
+  // Set the functions to call when the WebSocket is opened, a message is
+  // received, or the WebSocket is closed.
+  ws.onopen = wsOpen;
   ws.onmessage = wsMessage;
   ws.onclose = wsClose;
 }
 
+// Sends a clock synchronization request to the server.
+function
+syncClock()
+{
+  // Send the current local time to the server, which replies with its own
+  // time.
+  ws.send("y:" + Date.now());
+
+  // Send the first few requests in quick succession, so that the clock offset
+  // is known quickly, then slow down to track any drift.
+  syncCount++;
+  syncTimer = setTimeout(syncClock, (syncCount < 5) ? 200 : 10000);
+}
+
+// Handles a clock synchronization reply from the server.
+function
+syncReply(data)
+{
+  var parts, now, rtt, idx, best;
+
+  // Split the reply into the local send time and the server time.
+  parts = data.split(":");
+  now = Date.now();
+
+  // Compute the round trip time, and the offset to the server clock assuming
+  // the server time was taken half way through the round trip.
+  rtt = now - parseInt(parts[1]);
+  syncSamples.push([rtt,
+                    parseInt(parts[2]) - ((parseInt(parts[1]) + now) / 2)]);
+
+  // Only keep the most recent samples, so that clock drift is followed.
+  if(syncSamples.length > 8)
+  {
+    syncSamples.shift();
+  }
+
+  // Use the offset from the sample with the shortest round trip time, since
+  // it is the least affected by network jitter.
+  best = 0;
+  for(idx = 1; idx < syncSamples.length; idx++)
+  {
+    if(syncSamples[idx][0] < syncSamples[best][0])
+    {
+      best = idx;
+    }
+  }
+  clockOffset = syncSamples[best][1];
+}
+
+// Renders the match time from the local clock while a match is running.
+function
+renderTime()
+{
+  var time;
+
+  // Nothing to render if a match is not running or the clock offset is not yet
+  // known.
+  if((matchStart === null) || (clockOffset === null))
+  {
+    return;
+  }
+
+  // Compute the match time from the server time at which the match started.
+  time = matchLength - Math.floor((Date.now() + clockOffset - matchStart) /
+                                  1000);
+  if(time < 0)
+  {
+    time = 0;
+  }
+
+  // Update the display only when the match time changes.
+  if(time != lastTime)
+  {
+    lastTime = time;
+    displayTime(time);
+
+    // Tell the server when, in server time, this second was displayed.
+    if(echo)
+    {
+      ws.send("e:" + time + ":" + Math.round(Date.now() + clockOffset));
+    }
+  }
+}
+
+// Called when the WebSocket opens.
+function
+wsOpen()
+{
+  // Ask the server to only send the match time when the timer changes state,
+  // since it is rendered locally.
+  ws.send("sync");
+
+  // Start synchronizing with the server clock.
+  syncSamples = [];
+  syncCount = 0;
+  syncClock();
+
+  // Start rendering the match time locally.
+  if(renderTimer === null)
+  {
+    renderTimer = setInterval(renderTime, 50);
+  }
+}
+
 // Called when a message is received from the WebSocket.
 function
 wsMessage(e)
@@ -217,9 +353,34 @@ wsMessage(e)
     $("#btn_reset").prop("disabled", true);
   }
 
+  // See if this is a match start message.
+  else if(e.data.substring(0, 2) === "a:")
+  {
+    // Save the match start time and length.
+    matchStart = parseInt(e.data.split(":")[1]);
+    matchLength = parseInt(e.data.split(":")[2]);
+  }
+
+  // See if this is a clock synchronization reply.
+  else if(e.data.substring(0, 2) === "y:")
+  {
+    // Update the clock offset.
+    syncReply(e.data);
+  }
+
+  // See if this is an echo enable message.
+  else if(e.data.substring(0, 2) === "e:")
+  {
+    // Save the echo enable.
+    echo = (e.data === "e:1");
+  }
+
   // See if this is a mode stop message.
   else if(e.data.substring(0, 6) === "m:stop")
   {
+    // Stop rendering the match time locally.
+    matchStart = null;
+
     // Enable the timer reset button.
     $("#btn_start").prop("disabled", true);
     $("#btn_cancel").prop("disabled", true);
@@ -229,6 +390,9 @@ wsMessage(e)
   // See if this is a mode reset message.
   else if(e.data.substring(0, 7) === "m:reset")
   {
+    // Stop rendering the match time locally.
+    matchStart = null;
+
     // Enable the timer start button.
     $("#btn_start").prop("disabled", false);
     $("#btn_cancel").prop("disabled", true);
@@ -239,7 +403,8 @@ wsMessage(e)
   else if(e.data.substring(0, 2) === "t:")
   {
     // Display the provided time.
-    displayTime(parseInt(e.data.substring(2)));
+    lastTime = parseInt(e.data.substring(2));
+    displayTime(lastTime);
   }
 }
 
@@ -247,6 +412,11 @@ wsMessage(e)
 function
 wsClose()
 {
+  // Stop rendering the match time locally and synchronizing with the server
+  // clock.
+  matchStart = null;
+  clearTimeout(syncTimer);
+  echo = false;
   // Change the time display to indicate that the server connection has been
   // lost.
   displayTime(-1);
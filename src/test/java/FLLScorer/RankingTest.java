@@ -0,0 +1,265 @@
+// Copyright (c) 2024 Brian Kircher
+//
+// Open Source Software; you can modify and/or share it under the terms of BSD
+// license file in the root directory of this project.
+
+package FLLScorer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests that the Ranking engine produces exactly the same placement order and
+ * places as the insertion sort and place assignment that the scoreboard
+ * previously used.
+ */
+public class RankingTest
+{
+  /**
+   * Compares two sets of team scores, as the scoreboard previously did.
+   *
+   * @return 1 if the first team places higher than the second team, -1 if the
+   *         second team places higher than the first team, and 0 if the teams
+   *         are tied.
+   */
+  private static int
+  scoresCompare(int ad, float a1, float a2, float a3, float a4, int bd,
+                float b1, float b2, float b3, float b4)
+  {
+    // Lower numbered divisions place higher.
+    if(ad > bd)
+    {
+      return(-1);
+    }
+    if(ad < bd)
+    {
+      return(1);
+    }
+
+    // Compare the scores, from best to worst.
+    Float a[] = { a1, a2, a3, a4 };
+    Float b[] = { b1, b2, b3, b4 };
+    Arrays.sort(a, Collections.reverseOrder());
+    Arrays.sort(b, Collections.reverseOrder());
+    for(int idx = 0; idx < 4; idx++)
+    {
+      if(a[idx] < b[idx])
+      {
+        return(-1);
+      }
+      if(a[idx] > b[idx])
+      {
+        return(1);
+      }
+    }
+
+    // The teams are tied.
+    return(0);
+  }
+
+  /**
+   * Ranks teams with the insertion sort and place assignment that the
+   * scoreboard previously used.
+   *
+   * @param divisions The division of each team.
+   *
+   * @param scores The considered scores of each team, with unconsidered
+   *               scores passed as zero.
+   *
+   * @param high The high score of each team, or <b>-100</b> if the team has
+   *             no scores.
+   *
+   * @param order The list that is filled with the teams in placement order.
+   *
+   * @param places The array into which the place of each team is placed, or
+   *               <b>-1</b> if the team does not have a place.
+   */
+  private static void
+  legacy(int[] divisions, float[][] scores, float[] high,
+         ArrayList<Integer> order, int[] places)
+  {
+    ArrayList<Integer> a_divisions = new ArrayList<Integer>();
+    ArrayList<Float> a_high = new ArrayList<Float>();
+    ArrayList<Float> a_match1 = new ArrayList<Float>();
+    ArrayList<Float> a_match2 = new ArrayList<Float>();
+    ArrayList<Float> a_match3 = new ArrayList<Float>();
+    ArrayList<Float> a_match4 = new ArrayList<Float>();
+
+    // Copy the teams into the parallel lists.
+    for(int idx = 0; idx < divisions.length; idx++)
+    {
+      order.add(idx);
+      a_divisions.add(divisions[idx]);
+      a_high.add(high[idx]);
+      a_match1.add(scores[idx][0]);
+      a_match2.add(scores[idx][1]);
+      a_match3.add(scores[idx][2]);
+      a_match4.add(scores[idx][3]);
+    }
+
+    // Sort the teams into placement order.
+    for(int i = 0; i < order.size(); i++)
+    {
+      for(int j = 0; j < i; j++)
+      {
+        if(scoresCompare(a_divisions.get(i), a_match1.get(i), a_match2.get(i),
+                         a_match3.get(i), a_match4.get(i), a_divisions.get(j),
+                         a_match1.get(j), a_match2.get(j), a_match3.get(j),
+                         a_match4.get(j)) > 0)
+        {
+          order.add(j, order.remove(i));
+          a_divisions.add(j, a_divisions.remove(i));
+          a_high.add(j, a_high.remove(i));
+          a_match1.add(j, a_match1.remove(i));
+          a_match2.add(j, a_match2.remove(i));
+          a_match3.add(j, a_match3.remove(i));
+          a_match4.add(j, a_match4.remove(i));
+          break;
+        }
+      }
+    }
+
+    // Assign the places (with equally-placed teams sharing the highest place
+    // and the place restarting at one for each division).
+    int place = 1;
+    for(int i = 0; i < order.size(); i++)
+    {
+      if(a_high.get(i) == -100)
+      {
+        places[order.get(i)] = -1;
+      }
+      else if((i == 0) ||
+              (scoresCompare(a_divisions.get(i), a_match1.get(i),
+                             a_match2.get(i), a_match3.get(i),
+                             a_match4.get(i), a_divisions.get(i - 1),
+                             a_match1.get(i - 1), a_match2.get(i - 1),
+                             a_match3.get(i - 1), a_match4.get(i - 1)) != 0))
+      {
+        if((i != 0) && !a_divisions.get(i).equals(a_divisions.get(i - 1)))
+        {
+          place = 1;
+        }
+        places[order.get(i)] = place;
+      }
+      else
+      {
+        places[order.get(i)] = places[order.get(i - 1)];
+      }
+      place++;
+    }
+  }
+
+  /**
+   * Ranks a set of random teams both ways, and makes sure that the placement
+   * order and the place of every team are the same.
+   *
+   * @param random The random number generator.
+   *
+   * @param teams The number of teams.
+   *
+   * @param divisionCount The number of divisions.
+   *
+   * @param matches The number of matches that are considered.
+   */
+  private static void
+  compare(Random random, int teams, int divisionCount, int matches)
+  {
+    int[] divisions = new int[teams];
+    float[][] scores = new float[teams][4];
+    float[] high = new float[teams];
+
+    // Generate the teams.  Scores are in steps of five, so there are ties;
+    // some teams have no scores, and some matches have not been played.
+    for(int idx = 0; idx < teams; idx++)
+    {
+      divisions[idx] = 1 + random.nextInt(divisionCount);
+      boolean scored = random.nextInt(10) != 0;
+      high[idx] = -100;
+      for(int match = 0; match < 4; match++)
+      {
+        if(match >= matches)
+        {
+          scores[idx][match] = 0;
+        }
+        else
+        {
+          scores[idx][match] = (!scored || (random.nextInt(10) == 0)) ?
+                               -100 : (5 * random.nextInt(20));
+          high[idx] = Math.max(high[idx], scores[idx][match]);
+        }
+      }
+    }
+
+    // Rank the teams the old way.
+    ArrayList<Integer> expected = new ArrayList<Integer>();
+    int[] places = new int[teams];
+    legacy(divisions, scores, high, expected, places);
+
+    // Rank the teams with the Ranking engine.
+    Ranking ranking = new Ranking(teams);
+    for(int idx = 0; idx < teams; idx++)
+    {
+      ranking.set(idx, divisions[idx], scores[idx][0], scores[idx][1],
+                  scores[idx][2], scores[idx][3], high[idx] != -100);
+    }
+    ranking.rank();
+
+    // Make sure that the placement order and places match.
+    String message = teams + " teams, " + divisionCount + " divisions, " +
+                     matches + " matches";
+    for(int pos = 0; pos < teams; pos++)
+    {
+      int team = ranking.order(pos);
+      assertEquals((int)expected.get(pos), team,
+                   message + ", position " + pos);
+      assertEquals(places[team], ranking.place(team),
+                   message + ", team " + team);
+    }
+  }
+
+  /**
+   * Tests a single team, and an event with no teams.
+   */
+  @Test
+  public void
+  smallEvents()
+  {
+    Random random = new Random(2024);
+    compare(random, 0, 1, 3);
+    for(int idx = 0; idx < 20; idx++)
+    {
+      compare(random, 1, 1, 3);
+    }
+  }
+
+  /**
+   * Tests random events of various sizes, with and without divisions, and
+   * with each number of considered matches.  The random number generator is
+   * seeded so that every run ranks the same teams.
+   */
+  @Test
+  public void
+  randomEvents()
+  {
+    Random random = new Random(2024);
+    for(int teams : new int[] { 2, 5, 50, 500 })
+    {
+      for(int divisions = 1; divisions <= 3; divisions++)
+      {
+        for(int matches = 2; matches <= 4; matches++)
+        {
+          for(int idx = 0; idx < 10; idx++)
+          {
+            compare(random, teams, divisions, matches);
+          }
+        }
+      }
+    }
+  }
+}
\ No newline at end of file
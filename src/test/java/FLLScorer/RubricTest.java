@@ -0,0 +1,206 @@
+// Copyright (c) 2024 Brian Kircher
+//
+// Open Source Software; you can modify and/or share it under the terms of BSD
+// license file in the root directory of this project.
+
+package FLLScorer;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import org.bspfsystems.simplejson.JSONArray;
+import org.bspfsystems.simplejson.JSONObject;
+import org.bspfsystems.simplejson.SimpleJSONObject;
+import org.bspfsystems.simplejson.parser.JSONParser;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+/**
+ * Tests that the compiled rubrics produce exactly the same totals as walking
+ * the JSON rubric, for the rubric of every bundled season.
+ */
+public class RubricTest
+{
+  /**
+   * The number of random rubrics that are totaled.
+   */
+  private static final int RUBRICS = 1000;
+
+  /**
+   * Finds the rubrics of the bundled seasons, in the same way that the
+   * seasons and their rubrics are found by the application.
+   *
+   * @return The paths of the rubrics, relative to the resources directory.
+   */
+  static Stream<String>
+  rubrics()
+  {
+    ArrayList<String> paths = new ArrayList<String>();
+
+    // Loop through the seasons, stopping at the first one that has no
+    // information file.
+    for(int year = 2000;
+        ResourceStream.getResourceStream("seasons/" + year +
+                                         "/info.json") != null; year++)
+    {
+      // Add the rubric of this season, if it has one.
+      String path = "seasons/" + year + "/rubric.json";
+      if(ResourceStream.getResourceStream(path) != null)
+      {
+        paths.add(path);
+      }
+    }
+
+    // Return the paths of the rubrics.
+    return(paths.stream());
+  }
+
+  /**
+   * Loads a JSON rubric.
+   *
+   * @param path The path of the rubric, relative to the resources directory.
+   *
+   * @return The JSON rubric.
+   */
+  private static JSONObject
+  load(String path) throws Exception
+  {
+    InputStream in = ResourceStream.getResourceStream(path);
+    assertNotNull(in, path);
+    return(JSONParser.deserializeObject(new String(in.readAllBytes(),
+                                                   StandardCharsets.UTF_8)));
+  }
+
+  /**
+   * Totals a team's rubric both ways, and makes sure that they agree.
+   *
+   * @param rubric The JSON rubric.
+   *
+   * @param compiled The compiled rubric.
+   *
+   * @param scores The team's rubric selections.
+   *
+   * @param message The message to report if they do not agree.
+   *
+   * @return <b>true</b> if the rubric is complete.
+   */
+  private static boolean
+  compare(JSONObject rubric, Rubric compiled, JSONObject scores,
+          String message)
+  {
+    int[] expected = new int[] { -1, -1, -1 };
+    int[] actual = new int[Rubric.TOTALS];
+    boolean complete = Rubric.interpret(rubric, scores, expected);
+    assertEquals(complete, compiled.total(scores, actual), message);
+    assertArrayEquals(expected, actual, message);
+    return(complete);
+  }
+
+  /**
+   * Tests that the compiled rubric matches the JSON rubric for random
+   * selections, most of them complete.  Some of the selections are outside
+   * the levels of their item, so that the handling of those is compared as
+   * well.  The selections are round tripped through a string, as they are
+   * when submitted by the judge page, and the random number generator is
+   * seeded so that every run totals the same selections.
+   *
+   * @param path The path of the rubric, relative to the resources directory.
+   */
+  @ParameterizedTest
+  @MethodSource("rubrics")
+  public void
+  compiledMatchesInterpreter(String path) throws Exception
+  {
+    Random random = new Random(2024);
+    JSONObject rubric = load(path);
+    Rubric compiled = new Rubric(rubric);
+    JSONArray areas = rubric.getArray("areas");
+
+    // Loop through the random rubrics.
+    for(int idx = 0; idx < RUBRICS; idx++)
+    {
+      JSONObject scores = new SimpleJSONObject();
+      for(int i = 0; i < areas.size(); i++)
+      {
+        JSONArray sections = areas.getObject(i).getArray("sections");
+        for(int j = 0; j < sections.size(); j++)
+        {
+          JSONArray items = sections.getObject(j).getArray("items");
+          for(int k = 0; k < items.size(); k++)
+          {
+            // Leave an occasional item without a selection, and pick an
+            // occasional selection that is outside of the levels.
+            int pick = random.nextInt(100);
+            if(pick == 0)
+            {
+              continue;
+            }
+            scores.set("R" + i + "_" + j + "_" + k,
+                       (pick == 1) ? -1 :
+                       ((pick == 2) ? 4 + random.nextInt(4) :
+                        random.nextInt(4)));
+          }
+        }
+      }
+
+      // Make sure that both ways of totaling agree.
+      compare(rubric, compiled,
+              JSONParser.deserializeObject(JSONParser.serialize(scores)),
+              path + " rubric " + idx);
+    }
+  }
+
+  /**
+   * Tests that a selection outside the levels of its item leaves the rubric
+   * incomplete, and does not count towards the totals, both ways.
+   *
+   * @param path The path of the rubric, relative to the resources directory.
+   */
+  @ParameterizedTest
+  @MethodSource("rubrics")
+  public void
+  outOfRangeLevelIsMissing(String path) throws Exception
+  {
+    JSONObject rubric = load(path);
+    Rubric compiled = new Rubric(rubric);
+    JSONArray areas = rubric.getArray("areas");
+
+    // Select the first level of every item except the first.
+    JSONObject scores = new SimpleJSONObject();
+    for(int i = 0; i < areas.size(); i++)
+    {
+      JSONArray sections = areas.getObject(i).getArray("sections");
+      for(int j = 0; j < sections.size(); j++)
+      {
+        JSONArray items = sections.getObject(j).getArray("items");
+        for(int k = ((i == 0) && (j == 0)) ? 1 : 0; k < items.size(); k++)
+        {
+          scores.set("R" + i + "_" + j + "_" + k, 0);
+        }
+      }
+    }
+    int[] missing = new int[Rubric.TOTALS];
+    assertFalse(compiled.total(scores, missing), path);
+
+    // Give the first item a selection below its levels, and then one above
+    // its levels; either way, the totals are the same as when it has no
+    // selection.
+    for(int selection : new int[] { -1, 1000 })
+    {
+      scores.set("R0_0_0", selection);
+      assertFalse(compare(rubric, compiled, scores,
+                          path + " selection " + selection), path);
+      int[] actual = new int[Rubric.TOTALS];
+      compiled.total(scores, actual);
+      assertArrayEquals(missing, actual, path + " selection " + selection);
+    }
+  }
+}
\ No newline at end of file
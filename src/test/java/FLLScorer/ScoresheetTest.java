@@ -0,0 +1,277 @@
+// Copyright (c) 2024 Brian Kircher
+//
+// Open Source Software; you can modify and/or share it under the terms of BSD
+// license file in the root directory of this project.
+
+package FLLScorer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import org.bspfsystems.simplejson.JSONArray;
+import org.bspfsystems.simplejson.JSONObject;
+import org.bspfsystems.simplejson.SimpleJSONObject;
+import org.bspfsystems.simplejson.parser.JSONParser;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+/**
+ * Tests that the compiled scoresheets, and live scoring of a single changed
+ * selection, produce exactly the same results (including errors) as
+ * interpreting the JSON scoresheet, for every scoresheet of every bundled
+ * season.
+ */
+public class ScoresheetTest
+{
+  /**
+   * The number of random scoresheets that are scored.
+   */
+  private static final int SHEETS = 1000;
+
+  /**
+   * The message for too many game pieces being used.
+   */
+  private static final String TOO_MANY = "Too many ${piece}";
+
+  /**
+   * Finds the scoresheets of the bundled seasons, in the same way that the
+   * seasons and their scoresheets are found by the application.
+   *
+   * @return The paths of the scoresheets, relative to the resources
+   *         directory.
+   */
+  static Stream<String>
+  scoresheets()
+  {
+    ArrayList<String> paths = new ArrayList<String>();
+
+    // Loop through the seasons, stopping at the first one that has no
+    // information file.
+    for(int year = 2000;
+        ResourceStream.getResourceStream("seasons/" + year +
+                                         "/info.json") != null; year++)
+    {
+      // Loop through the scoresheets of this season; the first one has no
+      // number in its name.
+      for(int number = 0; ; number++)
+      {
+        String path = "seasons/" + year + "/scoresheet" +
+                      ((number == 0) ? "" : number) + ".json";
+        if(ResourceStream.getResourceStream(path) == null)
+        {
+          break;
+        }
+        paths.add(path);
+      }
+    }
+
+    // Return the paths of the scoresheets.
+    return(paths.stream());
+  }
+
+  /**
+   * Loads a JSON scoresheet.
+   *
+   * @param path The path of the scoresheet, relative to the resources
+   *             directory.
+   *
+   * @return The JSON scoresheet.
+   */
+  private static JSONObject
+  load(String path) throws Exception
+  {
+    InputStream in = ResourceStream.getResourceStream(path);
+    assertNotNull(in, path);
+    return(JSONParser.deserializeObject(new String(in.readAllBytes(),
+                                                   StandardCharsets.UTF_8)));
+  }
+
+  /**
+   * Scores a scoresheet, returning a string that describes the outcome.
+   *
+   * @param scoresheet The JSON scoresheet.
+   *
+   * @param compiled The compiled scoresheet, or <b>null</b> to interpret the
+   *                 JSON scoresheet.
+   *
+   * @param sheet The scoresheet selections.
+   *
+   * @return The errors and score, or "exception" if scoring failed.
+   */
+  private static String
+  outcome(JSONObject scoresheet, Scoresheet compiled, JSONObject sheet)
+  {
+    JSONObject result = new SimpleJSONObject();
+
+    // Score the scoresheet.
+    try
+    {
+      if(compiled != null)
+      {
+        compiled.score(result, sheet, "en_US", TOO_MANY);
+      }
+      else
+      {
+        Scoresheet.interpret(scoresheet, result, sheet, "en_US", TOO_MANY);
+      }
+    }
+    catch(Exception e)
+    {
+      return("exception");
+    }
+
+    // Return the errors and score.
+    return(result.getString("result") + "|" + result.getFloat("score"));
+  }
+
+  /**
+   * Generates random selections for a scoresheet.
+   *
+   * @param scoresheet The JSON scoresheet.
+   *
+   * @param random The random number generator.
+   *
+   * @param keys The list that is filled with the keys of the selections on
+   *             the scoresheet.
+   *
+   * @param invalid <b>true</b> if some of the selections should be out of
+   *                range, so that the error handling is compared as well.
+   *
+   * @return The random selections.
+   */
+  private static JSONObject[]
+  generate(JSONObject scoresheet, Random random, ArrayList<String> keys,
+           boolean invalid)
+  {
+    JSONArray missions = scoresheet.getArray("missions");
+    JSONObject[] sheets = new JSONObject[SHEETS];
+
+    // Loop through the scoresheets to generate.
+    for(int idx = 0; idx < SHEETS; idx++)
+    {
+      sheets[idx] = new SimpleJSONObject();
+      for(int i = 0; i < missions.size(); i++)
+      {
+        JSONObject mission = missions.getObject(i);
+        JSONArray items = mission.getArray("items");
+        for(int j = 0; j < items.size(); j++)
+        {
+          JSONObject item = items.getObject(j);
+
+          // Determine the range of valid selections for this item.
+          int min = 0, max;
+          if(item.getArray("score") != null)
+          {
+            max = item.getArray("score").size() - 1;
+          }
+          else if(item.getString("type").equals("yesno"))
+          {
+            max = 1;
+          }
+          else if(item.getString("type").equals("enum"))
+          {
+            max = item.getObject("choices").getArray("en_US").size() - 1;
+          }
+          else
+          {
+            min = item.getInteger("min");
+            max = item.getInteger("max");
+          }
+
+          // Pick a selection, occasionally picking one that is out of range.
+          int value = min + random.nextInt(max - min + 1);
+          if(invalid && ((idx % 10) == 0) && (random.nextInt(20) == 0))
+          {
+            value = random.nextBoolean() ? (max + 1) : (min - 1);
+          }
+          String key = mission.getString("mission") + "_" +
+                       item.getInteger("id");
+          sheets[idx].set(key, value);
+          if(idx == 0)
+          {
+            keys.add(key);
+          }
+        }
+      }
+    }
+
+    // Return the generated selections.
+    return(sheets);
+  }
+
+  /**
+   * Tests that the compiled scoresheet matches the interpreter for random
+   * selections.  The random number generator is seeded so that every run
+   * scores the same selections.
+   *
+   * @param path The path of the scoresheet, relative to the resources
+   *             directory.
+   */
+  @ParameterizedTest
+  @MethodSource("scoresheets")
+  public void
+  compiledMatchesInterpreter(String path) throws Exception
+  {
+    JSONObject scoresheet = load(path);
+    Scoresheet compiled = new Scoresheet(scoresheet);
+    JSONObject[] sheets = generate(scoresheet, new Random(2024),
+                                   new ArrayList<String>(), true);
+
+    // Make sure that every selection scores the same both ways.
+    for(int idx = 0; idx < SHEETS; idx++)
+    {
+      assertEquals(outcome(scoresheet, null, sheets[idx]),
+                   outcome(scoresheet, compiled, sheets[idx]),
+                   path + " selection " + idx);
+    }
+  }
+
+  /**
+   * Tests that live scoring matches the interpreter.  Starting from the
+   * first selections, one selection at a time is changed to the value it has
+   * in the next selections, and the result is compared after every change.
+   * Only valid selections are used, since live scoring rejects an invalid
+   * selection rather than reporting it.
+   *
+   * @param path The path of the scoresheet, relative to the resources
+   *             directory.
+   */
+  @ParameterizedTest
+  @MethodSource("scoresheets")
+  public void
+  liveMatchesInterpreter(String path) throws Exception
+  {
+    Random random = new Random(2024);
+    ArrayList<String> keys = new ArrayList<String>();
+    JSONObject scoresheet = load(path);
+    JSONObject[] sheets = generate(scoresheet, random, keys, false);
+
+    // Start live scoring from a copy of the first selections.
+    JSONObject sheet = new SimpleJSONObject();
+    for(String key : keys)
+    {
+      sheet.set(key, sheets[0].getInteger(key));
+    }
+    Scoresheet.Live live = new Scoresheet(scoresheet).live(sheet);
+
+    // Change one selection at a time and compare the result.
+    for(int idx = 1; idx < SHEETS; idx++)
+    {
+      String key = keys.get(random.nextInt(keys.size()));
+      int value = sheets[idx].getInteger(key);
+      sheet.set(key, value);
+      JSONObject result = new SimpleJSONObject();
+      live.update(key, value, result, "en_US", TOO_MANY);
+      assertEquals(outcome(scoresheet, null, sheet),
+                   result.getString("result") + "|" +
+                   result.getFloat("score"),
+                   path + " live change " + idx);
+    }
+  }
+}
\ No newline at end of file
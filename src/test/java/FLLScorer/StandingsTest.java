@@ -0,0 +1,276 @@
+// Copyright (c) 2024 Brian Kircher
+//
+// Open Source Software; you can modify and/or share it under the terms of BSD
+// license file in the root directory of this project.
+
+package FLLScorer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests that computing the league standings contributions in a fork-join pool
+ * produces exactly the same contributions, and therefore the same league
+ * standings and places, as computing them sequentially.
+ */
+public class StandingsTest
+{
+  /**
+   * The number of events in the season.
+   */
+  private static final int EVENTS = 100;
+
+  /**
+   * The number of teams at each event.
+   */
+  private static final int TEAMS_PER_EVENT = 40;
+
+  /**
+   * The number of teams in the league.
+   */
+  private static final int TEAMS = 1000;
+
+  /**
+   * Generates a season's events with random scores and judging results.  The
+   * random number generator is seeded so that every run uses the same
+   * events.
+   *
+   * @param teamDivisions The map that is filled with the division of each
+   *                      team in the league.
+   *
+   * @param divisions The number of divisions, or <b>0</b> if division
+   *                  support is disabled.
+   *
+   * @return The snapshots of the events.
+   */
+  private static ArrayList<Standings.Snapshot>
+  generate(HashMap<Integer, Integer> teamDivisions, int divisions)
+  {
+    Random random = new Random(2024);
+
+    // Assign each team in the league to a division.
+    for(int team = 0; team < TEAMS; team++)
+    {
+      teamDivisions.put(team, (divisions == 0) ? 0 :
+                              (1 + random.nextInt(divisions)));
+    }
+
+    // Create the events.
+    ArrayList<Standings.Snapshot> snapshots =
+      new ArrayList<Standings.Snapshot>();
+    for(int event = 0; event < EVENTS; event++)
+    {
+      // Pick the teams at this event (in team number order).
+      int start = random.nextInt(TEAMS - TEAMS_PER_EVENT);
+      int[] ids = new int[TEAMS_PER_EVENT];
+      int[] teamDivision = new int[TEAMS_PER_EVENT];
+      for(int idx = 0; idx < TEAMS_PER_EVENT; idx++)
+      {
+        ids[idx] = start + idx;
+        teamDivision[idx] = teamDivisions.get(ids[idx]);
+      }
+      EventData data = new EventData(ids, ids.clone(),
+                                     new String[TEAMS_PER_EVENT],
+                                     teamDivision);
+
+      // Give most of the teams robot game scores (in steps of five, so there
+      // are ties) and judging results.
+      for(int team = 0; team < TEAMS_PER_EVENT; team++)
+      {
+        if(random.nextInt(10) != 0)
+        {
+          for(int match = 1; match <= 3; match++)
+          {
+            data.scoreSet(match, team, 5 * random.nextInt(100));
+          }
+          for(int match = 1; match <= 3; match++)
+          {
+            data.coreSet(match, team, 2 + random.nextInt(3));
+          }
+        }
+        if(random.nextInt(10) != 0)
+        {
+          data.judgingSet(team, 4 + random.nextInt(13),
+                          4 + random.nextInt(13), 4 + random.nextInt(13));
+        }
+      }
+
+      snapshots.add(new Standings.Snapshot(event, 0, event, data));
+    }
+
+    // Return the snapshots.
+    return(snapshots);
+  }
+
+  /**
+   * Computes the league standings from the contributions of the events, in
+   * the same way as the standings page: each team's first two event scores
+   * are added to give its league score, and teams are placed within their
+   * division by league score and then by their best event score.
+   *
+   * @param contributions The contributions of the events.
+   *
+   * @param teamDivisions The division of each team in the league.
+   *
+   * @return A description of each team's event scores, league score, and
+   *         place, in team order.
+   */
+  private static ArrayList<String>
+  standings(ArrayList<Standings.Contribution> contributions,
+            HashMap<Integer, Integer> teamDivisions)
+  {
+    int[] event1 = new int[TEAMS];
+    int[] event2 = new int[TEAMS];
+    int[] league = new int[TEAMS];
+
+    // Save each team's first two event scores.
+    for(int team = 0; team < TEAMS; team++)
+    {
+      event1[team] = -1;
+      event2[team] = -1;
+      league[team] = -1;
+    }
+    for(Standings.Contribution contribution : contributions)
+    {
+      for(int idx = 0; idx < contribution.countGet(); idx++)
+      {
+        int team = contribution.teamGet(idx);
+        if(event1[team] == -1)
+        {
+          event1[team] = contribution.scoreGet(idx);
+        }
+        else if(event2[team] == -1)
+        {
+          event2[team] = contribution.scoreGet(idx);
+        }
+      }
+    }
+
+    // Determine the league score of each team.
+    for(int team = 0; team < TEAMS; team++)
+    {
+      if(event1[team] != -1)
+      {
+        league[team] = event1[team] + ((event2[team] == -1) ? 0 :
+                                       event2[team]);
+      }
+    }
+
+    // The place of each team that has a league score is one more than the
+    // number of teams in its division that place higher.
+    ArrayList<String> result = new ArrayList<String>();
+    for(int team = 0; team < TEAMS; team++)
+    {
+      int place = -1;
+      if(league[team] != -1)
+      {
+        place = 1;
+        for(int other = 0; other < TEAMS; other++)
+        {
+          if((league[other] != -1) &&
+             teamDivisions.get(other).equals(teamDivisions.get(team)) &&
+             ((league[other] > league[team]) ||
+              ((league[other] == league[team]) &&
+               (Math.max(event1[other], event2[other]) >
+                Math.max(event1[team], event2[team])))))
+          {
+            place++;
+          }
+        }
+      }
+      result.add(team + ":" + event1[team] + ":" + event2[team] + ":" +
+                 league[team] + ":" + place);
+    }
+
+    // Return the standings.
+    return(result);
+  }
+
+  /**
+   * Computes the contributions of a season both sequentially and in a pool,
+   * and makes sure that they are identical.
+   *
+   * @param divisions The number of divisions, or <b>0</b> if division
+   *                  support is disabled.
+   *
+   * @param threads The number of threads in the pool.
+   */
+  private static void
+  compare(int divisions, int threads)
+  {
+    HashMap<Integer, Integer> teamDivisions = new HashMap<Integer, Integer>();
+    ArrayList<Standings.Snapshot> snapshots =
+      generate(teamDivisions, divisions);
+    String message = divisions + " divisions, " + threads + " threads";
+
+    // Compute the contributions both ways.
+    ArrayList<Standings.Contribution> expected =
+      Standings.computeContributions(snapshots, teamDivisions, divisions,
+                                     null);
+    ForkJoinPool pool = new ForkJoinPool(threads);
+    ArrayList<Standings.Contribution> actual;
+    try
+    {
+      actual = Standings.computeContributions(snapshots, teamDivisions,
+                                              divisions, pool);
+    }
+    finally
+    {
+      pool.shutdown();
+    }
+
+    // Make sure that the contribution of every event is the same, in the
+    // same order.
+    assertEquals(EVENTS, actual.size(), message);
+    for(int idx = 0; idx < EVENTS; idx++)
+    {
+      Standings.Contribution a = expected.get(idx);
+      Standings.Contribution b = actual.get(idx);
+      String event = message + ", event " + idx;
+      assertEquals(a.eventVersionGet(), b.eventVersionGet(), event);
+      assertEquals(a.countGet(), b.countGet(), event);
+      for(int team = 0; team < a.countGet(); team++)
+      {
+        assertEquals(a.teamGet(team), b.teamGet(team), event);
+        assertEquals(a.scoreGet(team), b.scoreGet(team), event);
+      }
+    }
+
+    // Make sure that the resulting league standings, including the places,
+    // are the same.
+    assertEquals(standings(expected, teamDivisions),
+                 standings(actual, teamDivisions), message);
+  }
+
+  /**
+   * Tests the contributions without divisions.
+   */
+  @Test
+  public void
+  withoutDivisions()
+  {
+    for(int threads : new int[] { 1, 4, 8 })
+    {
+      compare(0, threads);
+    }
+  }
+
+  /**
+   * Tests the contributions with divisions.
+   */
+  @Test
+  public void
+  withDivisions()
+  {
+    for(int threads : new int[] { 1, 4, 8 })
+    {
+      compare(2, threads);
+    }
+  }
+}
\ No newline at end of file